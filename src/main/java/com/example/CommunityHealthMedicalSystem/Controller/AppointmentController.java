@@ -1,26 +1,44 @@
 package com.example.CommunityHealthMedicalSystem.Controller;
 
 import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentPageDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSearchDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentResultDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkStatusUpdateDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.CalendarCountDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.SlotHoldDTO;
 import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
 import com.example.CommunityHealthMedicalSystem.Exception.DuplicateResourceException;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.PreconditionFailedException;
 import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
 import com.example.CommunityHealthMedicalSystem.Model.Appointment;
 import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
 import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
 import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentCalendarRollup;
 import com.example.CommunityHealthMedicalSystem.Service.AppointmentServiceImpl;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentStatusTransitions;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentStreamer;
+import com.example.CommunityHealthMedicalSystem.Service.DepartmentScheduleBoard;
+import com.example.CommunityHealthMedicalSystem.Service.SlotHoldRegistry;
 import com.sun.net.httpserver.HttpsServer;
 import jakarta.validation.Valid;
 import org.apache.coyote.Response;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -29,15 +47,30 @@ import java.util.Optional;
 @RequestMapping("/api/appointments")
 public class AppointmentController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AppointmentServiceImpl appointmentService;
     private final PatientRepository patientRepo;
     private final MedicalStaffRepository medicalStaffRepo;
+    private final AppointmentStreamer appointmentStreamer;
+    private final AppointmentCalendarRollup calendarRollup;
+    private final AppointmentStatusTransitions statusTransitions;
+    private final SlotHoldRegistry holdRegistry;
+    private final DepartmentScheduleBoard scheduleBoard;
 
     public AppointmentController(AppointmentServiceImpl appointmentService, PatientRepository patientRepo,
-                                 MedicalStaffRepository medicalStaffRepo) {
+                                 MedicalStaffRepository medicalStaffRepo, AppointmentStreamer appointmentStreamer,
+                                 AppointmentCalendarRollup calendarRollup,
+                                 AppointmentStatusTransitions statusTransitions, SlotHoldRegistry holdRegistry,
+                                 DepartmentScheduleBoard scheduleBoard) {
         this.appointmentService = appointmentService;
         this.patientRepo = patientRepo;
         this.medicalStaffRepo = medicalStaffRepo;
+        this.appointmentStreamer = appointmentStreamer;
+        this.calendarRollup = calendarRollup;
+        this.statusTransitions = statusTransitions;
+        this.holdRegistry = holdRegistry;
+        this.scheduleBoard = scheduleBoard;
     }
 
     @GetMapping
@@ -50,11 +83,61 @@ public class AppointmentController {
         }
     }
 
+    // same listing as above as newline delimited JSON, rows are written while they are read.
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAppointments(
+            @RequestParam(required = false) Appointment.Status status,
+            @RequestParam(required = false) Long departmentId) {
+        StreamingResponseBody body = out -> appointmentStreamer.writeNdjson(status, departmentId, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<AppointmentPageDTO> getAppointmentsPage(
+            @RequestParam(required = false) Appointment.Status status,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(appointmentService.getAppointmentsPage(status, departmentId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // e.g. /search?medicalStaffId=3&status=SCHEDULED&from=2025-01-01T00:00:00&to=2025-02-01T00:00:00
+    @GetMapping("/search")
+    public ResponseEntity<AppointmentPageDTO> searchAppointments(
+            @ModelAttribute AppointmentSearchDTO criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(appointmentService.searchAppointments(criteria, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // full-text search over reason, diagnosis and notes, most relevant first.
+    @GetMapping("/search/text")
+    public ResponseEntity<List<AppointmentDTO>> searchAppointmentsByText(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(appointmentService.searchAppointmentsByText(query, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Appointment> getAppointmentById(@PathVariable Long id){
         try {
             Optional<Appointment> appointments = appointmentService.getAppointmentById(id);
-            return appointments.map(ResponseEntity::ok)
+            return appointments.map(appointment -> appointment.getVersion() != null
+                            ? ResponseEntity.ok().eTag(String.valueOf(appointment.getVersion())).body(appointment)
+                            : ResponseEntity.ok(appointment))
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e){
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -86,10 +169,12 @@ public class AppointmentController {
     }
 
     @GetMapping("/by-patient/{patientId}")
-    public ResponseEntity<List<Appointment>> getAppointmentByPatientId(@PathVariable Long patientId) {
+    public ResponseEntity<List<Appointment>> getAppointmentByPatientId(@PathVariable Long patientId,
+                                                                       @RequestParam(defaultValue = "false")
+                                                                       boolean includeArchived) {
         try {
 
-            List<Appointment> appointments = appointmentService.getAppointmentByPatientId(patientId);
+            List<Appointment> appointments = appointmentService.getAppointmentByPatientId(patientId, includeArchived);
             return ResponseEntity.ok(appointments);
         } catch (SecurityException e){
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -100,6 +185,15 @@ public class AppointmentController {
     }
 
 
+    @GetMapping("/by-patient/{patientId}/upcoming")
+    public ResponseEntity<List<AppointmentDTO>> getUpcomingAppointmentsByPatientId(@PathVariable Long patientId) {
+        try {
+            return ResponseEntity.ok(appointmentService.getUpcomingAppointmentsByPatientId(patientId));
+        } catch (SecurityException e){
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
     @GetMapping("/by-medical-staff")
     public ResponseEntity<List<Appointment>> getAppointmentByMedicalStaff(@RequestBody MedicalStaff medicalStaff){
         List<Appointment> appointments = appointmentService.getAppointmentByMedicalStaff(medicalStaff);
@@ -124,6 +218,29 @@ public class AppointmentController {
         return ResponseEntity.ok(appointments);
     }
 
+    // live board for waiting-room screens: the day's appointments once, then every change as it happens.
+    @GetMapping(value = "/by-department-id/{departmentId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDepartmentSchedule(
+            @PathVariable Long departmentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day) {
+        return scheduleBoard.subscribe(departmentId, day != null ? day : LocalDate.now());
+    }
+
+    // appointment counts per day and status for calendar views, read from the daily rollup.
+    @GetMapping("/calendar")
+    public ResponseEntity<List<CalendarCountDTO>> getCalendarCounts(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long medicalStaffId,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(defaultValue = "NONE") AppointmentCalendarRollup.GroupBy groupBy) {
+        try {
+            return ResponseEntity.ok(calendarRollup.counts(from, to, medicalStaffId, departmentId, groupBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/by-date-range")
     public ResponseEntity<List<Appointment>> getAppointmentByDateRange(
             @RequestParam("startDate") LocalDateTime startDate,
@@ -149,20 +266,86 @@ public class AppointmentController {
         }
     }
 
-    @PatchMapping("/{id}/status")
-    public ResponseEntity<AppointmentDTO> updateAppointmentStatus(@PathVariable Long id, @RequestParam Appointment.Status status) {
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkAppointmentResultDTO> createAppointments(@RequestBody List<AppointmentDTO> appointmentDTOs) {
+        try {
+            BulkAppointmentResultDTO result = appointmentService.createAppointments(appointmentDTOs);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ConflictException e){
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // the returned hold id goes into holdId of the booking request, the hold expires on its own after the TTL
+    @PostMapping("/holds")
+    public ResponseEntity<SlotHoldDTO> placeHold(@Valid @RequestBody SlotHoldDTO slotHoldDTO) {
         try {
-            // create a DTO with just the status update
-            AppointmentDTO updateDTO = new AppointmentDTO();
-            updateDTO.setStatus(status);
+            return ResponseEntity.status(HttpStatus.CREATED).body(holdRegistry.place(slotHoldDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ResourceNotFound e) {
+            return ResponseEntity.notFound().build();
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable String holdId) {
+        return holdRegistry.release(holdId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
 
-            // save updated
-            AppointmentDTO updatedAppointment = appointmentService.updateAppointment(id, updateDTO);
-            return ResponseEntity.ok(updatedAppointment);
+    // If-Match carries the version from a previous ETag, a stale version answers 412 Precondition Failed.
+    @PatchMapping("/{id}/status")
+    public ResponseEntity<AppointmentDTO> updateAppointmentStatus(
+            @PathVariable Long id,
+            @RequestParam Appointment.Status status,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            AppointmentDTO updatedAppointment = appointmentService.updateAppointmentStatus(id, status,
+                    versionFromIfMatch(ifMatch));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (updatedAppointment.getVersion() != null) {
+                response.eTag(String.valueOf(updatedAppointment.getVersion()));
+            }
+            return response.body(updatedAppointment);
         } catch (ResourceNotFound e) {
             return ResponseEntity.notFound().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // accepts "3", "\"3\"" and W/"3", "*" or no header means any version
+    private static Long versionFromIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+
+    @PostMapping("/status-transitions")
+    public ResponseEntity<BulkStatusUpdateDTO> updateAppointmentStatuses(@RequestBody @Valid BulkStatusUpdateDTO request) {
+        try {
+            request.setUpdatedIds(statusTransitions.transition(request.getIds(), request.getStatus()));
+            return ResponseEntity.ok(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
 
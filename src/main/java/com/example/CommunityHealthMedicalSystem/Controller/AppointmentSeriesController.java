@@ -0,0 +1,103 @@
+package com.example.CommunityHealthMedicalSystem.Controller;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSeriesDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import com.example.CommunityHealthMedicalSystem.Exception.DuplicateResourceException;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentSeriesServiceImpl;
+import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/appointment-series")
+public class AppointmentSeriesController {
+
+    private final AppointmentSeriesServiceImpl seriesService;
+
+    public AppointmentSeriesController(AppointmentSeriesServiceImpl seriesService) {
+        this.seriesService = seriesService;
+    }
+
+    @PostMapping
+    public ResponseEntity<AppointmentSeriesDTO> createSeries(@RequestBody @Valid AppointmentSeriesDTO seriesDTO) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(seriesService.createSeries(seriesDTO));
+        } catch (ResourceNotFound e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<AppointmentSeriesDTO> getSeries(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(seriesService.getSeries(id));
+        } catch (ResourceNotFound e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{id}/occurrences")
+    public ResponseEntity<List<AppointmentDTO>> getOccurrences(
+            @PathVariable Long id,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(seriesService.getOccurrences(id, from, to));
+        } catch (ResourceNotFound e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // removes one occurrence from the series
+    @DeleteMapping("/{id}/occurrences")
+    public ResponseEntity<AppointmentSeriesDTO> cancelOccurrence(
+            @PathVariable Long id,
+            @RequestParam("occurrence") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime occurrence) {
+        try {
+            return ResponseEntity.ok(seriesService.cancelOccurrence(id, occurrence));
+        } catch (ResourceNotFound e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // replaces one occurrence with a regular appointment carrying the changes
+    @PutMapping("/{id}/occurrences")
+    public ResponseEntity<AppointmentDTO> overrideOccurrence(
+            @PathVariable Long id,
+            @RequestParam("occurrence") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime occurrence,
+            @RequestBody AppointmentDTO changes) {
+        try {
+            return ResponseEntity.ok(seriesService.overrideOccurrence(id, occurrence, changes));
+        } catch (ResourceNotFound e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ConflictException | DuplicateResourceException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> endSeries(@PathVariable Long id) {
+        try {
+            seriesService.endSeries(id);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFound e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package com.example.CommunityHealthMedicalSystem.Controller;
 
+import com.example.CommunityHealthMedicalSystem.DTO.AvailabilitySlotDTO;
 import com.example.CommunityHealthMedicalSystem.DTO.MedicalStaffDTO;
 import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
 import com.example.CommunityHealthMedicalSystem.Exception.DuplicateResourceException;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
 import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
 import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Service.EarliestSlotSearch;
 import com.example.CommunityHealthMedicalSystem.Service.MedicalStaffServiceImpl;
+import com.example.CommunityHealthMedicalSystem.Service.StaffAvailabilityEngine;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,9 +24,14 @@ import java.util.Optional;
 @RequestMapping("/api/medicalStaff")
 public class MedicalStaffController {
     private final MedicalStaffServiceImpl medicalStaffService;
+    private final StaffAvailabilityEngine availabilityEngine;
+    private final EarliestSlotSearch earliestSlotSearch;
 
-    MedicalStaffController(MedicalStaffServiceImpl medicalStaffService){
+    MedicalStaffController(MedicalStaffServiceImpl medicalStaffService, StaffAvailabilityEngine availabilityEngine,
+                           EarliestSlotSearch earliestSlotSearch){
         this.medicalStaffService = medicalStaffService;
+        this.availabilityEngine = availabilityEngine;
+        this.earliestSlotSearch = earliestSlotSearch;
     }
 
     @GetMapping
@@ -46,6 +56,45 @@ public class MedicalStaffController {
         return staffs.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(staffs);
     }
 
+    @GetMapping("/{medicalStaffId}/availability")
+    public ResponseEntity<List<AvailabilitySlotDTO>> getAvailability(
+            @PathVariable Long medicalStaffId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "30") int slotMinutes){
+        List<AvailabilitySlotDTO> slots = availabilityEngine.freeSlots(medicalStaffId, from, to, slotMinutes);
+        return ResponseEntity.ok(slots);
+    }
+
+    @GetMapping("/{medicalStaffId}/availability/next")
+    public ResponseEntity<AvailabilitySlotDTO> getNextFreeSlot(
+            @PathVariable Long medicalStaffId,
+            @RequestParam(value = "after", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(defaultValue = "30") int slotMinutes){
+        LocalDateTime searchFrom = after != null ? after : LocalDateTime.now();
+        return availabilityEngine.nextFreeSlot(medicalStaffId, searchFrom, slotMinutes)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/availability/earliest")
+    public ResponseEntity<List<AvailabilitySlotDTO>> getEarliestSlots(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "30") int slotMinutes,
+            @RequestParam(defaultValue = "5") int limit){
+        LocalDateTime searchFrom = from != null ? from : LocalDateTime.now();
+        LocalDateTime searchTo = to != null ? to : searchFrom.plusDays(7);
+        List<AvailabilitySlotDTO> slots = earliestSlotSearch.findEarliest(specialization, departmentId,
+                searchFrom, searchTo, slotMinutes, limit);
+        return ResponseEntity.ok(slots);
+    }
+
     @PostMapping
     public ResponseEntity<MedicalStaffDTO> createMedicalStaff(@Valid @RequestBody MedicalStaffDTO medicalStaffDTO){
         try{
@@ -1,17 +1,27 @@
 package com.example.CommunityHealthMedicalSystem.Controller;
 
+import com.example.CommunityHealthMedicalSystem.DTO.DuplicateScanReportDTO;
 import com.example.CommunityHealthMedicalSystem.DTO.PatientDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.PatientImportReportDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.PatientSuggestionDTO;
 import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
 import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Service.DuplicatePatientDetector;
+import com.example.CommunityHealthMedicalSystem.Service.PatientAutocompleteIndex;
+import com.example.CommunityHealthMedicalSystem.Service.PatientImporter;
 import com.example.CommunityHealthMedicalSystem.Service.PatientServiceImpl;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,10 +30,19 @@ import java.util.Optional;
 @Validated
 public class PatientController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final PatientServiceImpl patientService;
+    private final PatientAutocompleteIndex autocompleteIndex;
+    private final DuplicatePatientDetector duplicateDetector;
+    private final PatientImporter patientImporter;
 
-    public PatientController(PatientServiceImpl patientService){
+    public PatientController(PatientServiceImpl patientService, PatientAutocompleteIndex autocompleteIndex,
+                             DuplicatePatientDetector duplicateDetector, PatientImporter patientImporter){
         this.patientService = patientService;
+        this.autocompleteIndex = autocompleteIndex;
+        this.duplicateDetector = duplicateDetector;
+        this.patientImporter = patientImporter;
     }
 
     @GetMapping
@@ -88,4 +107,56 @@ public class PatientController {
         List<Patient> patients = patientService.searchPatients(firstName,lastName, email, address);
         return ResponseEntity.ok(patients);
     }
-}
\ No newline at end of file
+
+    // ranked substring and typo-tolerant search across name, email and address.
+    @GetMapping("/search/similar")
+    public ResponseEntity<List<PatientDTO>> searchPatientsBySimilarity(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size){
+        try {
+            return ResponseEntity.ok(patientService.searchPatientsBySimilarity(query, page, size));
+        } catch (IllegalArgumentException e){
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // id and display name of the first patients whose name, national id or phone starts with q.
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<PatientSuggestionDTO>> autocomplete(@RequestParam("q") String query,
+                                                                   @RequestParam(defaultValue = "10") int limit){
+        if (limit <= 0 || limit > PatientAutocompleteIndex.MAX_SUGGESTIONS){
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(autocompleteIndex.suggest(query, limit));
+    }
+
+    // probable duplicate pairs over the whole registry from the last scan, for review by the records office.
+    // The first read starts a scan; its report stays empty with running set until it finishes.
+    @GetMapping("/duplicates")
+    public ResponseEntity<DuplicateScanReportDTO> findDuplicateCandidates(){
+        DuplicateScanReportDTO report = duplicateDetector.lastReport();
+        if (report.getScannedAt() == null && !report.isRunning() && duplicateDetector.requestScan()){
+            report.setRunning(true);
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // refreshes the report in the background, a scan already running is not started twice
+    @PostMapping("/duplicates/scan")
+    public ResponseEntity<DuplicateScanReportDTO> scanDuplicates(){
+        duplicateDetector.requestScan();
+        DuplicateScanReportDTO report = duplicateDetector.lastReport();
+        report.setRunning(true);
+        return ResponseEntity.accepted().body(report);
+    }
+
+    // the body is read as it arrives, never buffered: CSV with a header row, or one JSON patient per line
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<PatientImportReportDTO> importPatients(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        PatientImporter.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? PatientImporter.Format.CSV : PatientImporter.Format.NDJSON;
+        return ResponseEntity.ok(patientImporter.importPatients(body, format));
+    }
+}
@@ -43,6 +43,15 @@ public class AppointmentDTO {
 
     private Integer appointmentDuration;
 
+    private Long version;
+
+    private Long seriesId;
+
+    private LocalDateTime seriesOccurrence;
+
+    // id of a slot hold placed by this booking flow, the held slot is not a conflict for it
+    private String holdId;
+
     public void setDiagnosis(String updatedReason) {
         this.diagnosis = diagnosis;
     }
@@ -0,0 +1,18 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class AppointmentPageDTO {
+    private List<AppointmentDTO> items;
+
+    // pass back as ?cursor= to read the next page, null on the last page
+    private String nextCursor;
+}
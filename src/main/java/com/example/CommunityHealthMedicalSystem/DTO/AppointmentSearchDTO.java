@@ -0,0 +1,32 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class AppointmentSearchDTO {
+
+    private Appointment.Status status;
+
+    private Long medicalStaffId;
+
+    private Long patientId;
+
+    private Long departmentId;
+
+    // start of the date window, inclusive
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    // end of the date window, exclusive
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+}
@@ -0,0 +1,45 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class AppointmentSeriesDTO {
+    private Long id;
+
+    @NotNull(message = "Patient ID is required.")
+    private Long patientId;
+
+    @NotNull(message = "Doctor ID is required.")
+    private Long medicalStaffId;
+
+    private Long departmentId;
+
+    @NotNull(message = "First occurrence is required.")
+    private LocalDateTime firstOccurrence;
+
+    private Integer durationMinutes;
+
+    // e.g. FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=150
+    @NotBlank(message = "Recurrence rule is required.")
+    private String recurrenceRule;
+
+    @Size(max = 500, message = "Reason cannot exceed 500 characters.")
+    private String reason;
+
+    private LocalDateTime lastOccurrenceEnd;
+
+    private boolean active;
+
+    private Set<LocalDateTime> excludedOccurrences;
+}
@@ -0,0 +1,19 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class AvailabilitySlotDTO {
+    private Long medicalStaffId;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+}
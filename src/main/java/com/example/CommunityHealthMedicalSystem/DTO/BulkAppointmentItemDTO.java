@@ -0,0 +1,25 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class BulkAppointmentItemDTO {
+
+    public enum Result {
+        CREATED, CONFLICT, INVALID
+    }
+
+    // position of the item in the submitted batch
+    private int index;
+
+    private Result result;
+
+    private Long appointmentId;
+
+    private String message;
+}
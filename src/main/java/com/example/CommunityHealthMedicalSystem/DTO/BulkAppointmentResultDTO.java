@@ -0,0 +1,21 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class BulkAppointmentResultDTO {
+    private int created;
+
+    private int conflicts;
+
+    private int invalid;
+
+    private List<BulkAppointmentItemDTO> items;
+}
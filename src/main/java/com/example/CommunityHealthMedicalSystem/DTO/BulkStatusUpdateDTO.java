@@ -0,0 +1,26 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class BulkStatusUpdateDTO {
+
+    @NotEmpty(message = "Appointment ids are required.")
+    private List<Long> ids;
+
+    @NotNull(message = "Status is required.")
+    private Appointment.Status status;
+
+    // filled in the response with the appointments that actually changed
+    private List<Long> updatedIds;
+}
@@ -0,0 +1,26 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CalendarCountDTO {
+    private LocalDate day;
+
+    private Appointment.Status status;
+
+    // only filled when the counts are broken down by medical staff
+    private Long medicalStaffId;
+
+    // only filled when the counts are broken down by department
+    private Long departmentId;
+
+    private long count;
+}
@@ -0,0 +1,21 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class DuplicateCandidateDTO {
+
+    // the lower of the two ids
+    private Long firstPatientId;
+
+    private Long secondPatientId;
+
+    private LocalDate dateOfBirth;
+}
@@ -0,0 +1,26 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class DuplicateScanReportDTO {
+
+    // when the reported scan finished, null before the first scan
+    private LocalDateTime scannedAt;
+
+    // a newer scan is in progress
+    private boolean running;
+
+    // the scan stopped at max-pairs, later birth years were not looked at
+    private boolean truncated;
+
+    private List<DuplicateCandidateDTO> pairs;
+}
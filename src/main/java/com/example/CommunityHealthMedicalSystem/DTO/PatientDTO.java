@@ -1,6 +1,7 @@
 package com.example.CommunityHealthMedicalSystem.DTO;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -10,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -44,5 +46,9 @@ public class PatientDTO {
     @NotBlank(message = "Address is required.")
     private String address;
 
+    // set on the response of createPatient: existing patients with the same birth date and a similar name
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private List<Long> possibleDuplicateIds;
+
 
 }
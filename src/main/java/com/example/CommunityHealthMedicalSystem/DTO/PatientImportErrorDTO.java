@@ -0,0 +1,17 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class PatientImportErrorDTO {
+
+    // line of the file where the rejected record starts, the CSV header being line 1
+    private long row;
+
+    private String message;
+}
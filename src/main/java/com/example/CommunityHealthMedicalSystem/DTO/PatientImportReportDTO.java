@@ -0,0 +1,24 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class PatientImportReportDTO {
+
+    private long rowsRead;
+
+    private long imported;
+
+    private long rejected;
+
+    // the first rejected rows only, rejected keeps the full count
+    private List<PatientImportErrorDTO> errors = new ArrayList<>();
+}
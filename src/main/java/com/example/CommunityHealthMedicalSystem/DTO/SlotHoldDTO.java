@@ -0,0 +1,32 @@
+package com.example.CommunityHealthMedicalSystem.DTO;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class SlotHoldDTO {
+
+    private String id;
+
+    @NotNull(message = "Doctor ID is required.")
+    private Long medicalStaffId;
+
+    @Future(message = "Held slot have to be in future.")
+    @NotNull(message = "Slot start is required.")
+    private LocalDateTime start;
+
+    private Integer durationMinutes;
+
+    // requested lifetime, capped by appointments.holds.max-ttl-seconds
+    private Integer ttlSeconds;
+
+    private LocalDateTime expiresAt;
+}
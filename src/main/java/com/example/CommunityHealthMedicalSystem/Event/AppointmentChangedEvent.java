@@ -0,0 +1,24 @@
+package com.example.CommunityHealthMedicalSystem.Event;
+
+/**
+ * Published by AppointmentServiceImpl after every appointment write. previous is null for
+ * a created appointment and current is null for a deleted one.
+ */
+public record AppointmentChangedEvent(Type type, AppointmentSnapshot previous, AppointmentSnapshot current) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static AppointmentChangedEvent created(AppointmentSnapshot current){
+        return new AppointmentChangedEvent(Type.CREATED, null, current);
+    }
+
+    public static AppointmentChangedEvent updated(AppointmentSnapshot previous, AppointmentSnapshot current){
+        return new AppointmentChangedEvent(Type.UPDATED, previous, current);
+    }
+
+    public static AppointmentChangedEvent deleted(AppointmentSnapshot previous){
+        return new AppointmentChangedEvent(Type.DELETED, previous, null);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.CommunityHealthMedicalSystem.Event;
+
+/**
+ * Published after a recurring series is created, edited or ended, so caches built from
+ * its occurrences can drop the medical staff and patient involved.
+ */
+public record AppointmentSeriesChangedEvent(Long seriesId, Long medicalStaffId, Long patientId) {
+}
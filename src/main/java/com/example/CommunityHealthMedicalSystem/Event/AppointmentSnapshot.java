@@ -0,0 +1,38 @@
+package com.example.CommunityHealthMedicalSystem.Event;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of the scheduling fields of an appointment, safe to hand to listeners
+ * after the entity has been saved, detached or deleted.
+ */
+public record AppointmentSnapshot(Long id,
+                                  Long patientId,
+                                  Long medicalStaffId,
+                                  Long departmentId,
+                                  LocalDateTime appointmentDateTime,
+                                  int durationMinutes,
+                                  Appointment.Status status) {
+
+    public static AppointmentSnapshot of(Appointment appointment){
+        Integer duration = appointment.getAppointmentDuration();
+        return new AppointmentSnapshot(
+                appointment.getId(),
+                appointment.getPatient() != null ? appointment.getPatient().getId() : null,
+                appointment.getMedicalStaff() != null ? appointment.getMedicalStaff().getId() : null,
+                appointment.getDepartment() != null ? appointment.getDepartment().getId() : null,
+                appointment.getAppointmentDateTime(),
+                duration != null && duration > 0 ? duration : Appointment.DEFAULT_DURATION_MINUTES,
+                appointment.getStatus());
+    }
+
+    public LocalDateTime end(){
+        return appointmentDateTime.plusMinutes(durationMinutes);
+    }
+
+    public boolean occupiesTime(){
+        return appointmentDateTime != null && status != Appointment.Status.CANCELLED;
+    }
+}
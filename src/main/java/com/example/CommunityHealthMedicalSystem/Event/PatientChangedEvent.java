@@ -0,0 +1,12 @@
+package com.example.CommunityHealthMedicalSystem.Event;
+
+/**
+ * Published by PatientServiceImpl after a patient is created, updated or deleted. previousEmail
+ * is null for a created patient and currentEmail is null for a deleted one.
+ */
+public record PatientChangedEvent(Type type, Long patientId, String previousEmail, String currentEmail) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
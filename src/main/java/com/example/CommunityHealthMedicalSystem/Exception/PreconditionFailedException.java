@@ -0,0 +1,7 @@
+package com.example.CommunityHealthMedicalSystem.Exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
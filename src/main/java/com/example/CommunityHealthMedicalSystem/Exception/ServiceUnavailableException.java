@@ -0,0 +1,7 @@
+package com.example.CommunityHealthMedicalSystem.Exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
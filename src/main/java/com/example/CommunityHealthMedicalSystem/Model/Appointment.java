@@ -15,14 +15,29 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 
 @Entity
-@Table(name = "appointments")
+// composite indexes behind /api/appointments/search, each filter column followed by the keyset order.
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_time", columnList = "appointment_date_time, id"),
+        @Index(name = "idx_appointments_staff_time", columnList = "medical_staff_id, appointment_date_time, id"),
+        @Index(name = "idx_appointments_patient_time", columnList = "patient_id, appointment_date_time, id"),
+        @Index(name = "idx_appointments_department_time", columnList = "department_id, appointment_date_time, id"),
+        @Index(name = "idx_appointments_status_time", columnList = "status, appointment_date_time, id")
+})
 
 public class Appointment {
 
+    public static final int DEFAULT_DURATION_MINUTES = 30;
+
+    // pooled sequence ids let Hibernate batch inserts, IDENTITY would force one round trip per row.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
 
+    // bumped on every write, exposed as the ETag of the appointment.
+    @Version
+    private Long version;
+
     private LocalDateTime appointmentDateTime;
 
     public enum Status{
@@ -53,4 +68,11 @@ public class Appointment {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "department_id")
     private Department department;
+
+    // set when this appointment replaces one occurrence of a recurring series
+    @Column(name = "series_id")
+    private Long seriesId;
+
+    @Column(name = "series_occurrence")
+    private LocalDateTime seriesOccurrence;
 }
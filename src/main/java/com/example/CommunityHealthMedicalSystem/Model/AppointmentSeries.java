@@ -0,0 +1,69 @@
+package com.example.CommunityHealthMedicalSystem.Model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A recurring appointment stored as one row: the first occurrence, a recurrence rule and the
+ * occurrences removed from it. Occurrences are expanded on demand; an occurrence that was moved
+ * or edited is excluded here and stored as a regular Appointment pointing back to the series.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+@Entity
+@Table(name = "appointment_series", indexes = {
+        @Index(name = "idx_appointment_series_staff", columnList = "medical_staff_id"),
+        @Index(name = "idx_appointment_series_patient", columnList = "patient_id"),
+        @Index(name = "idx_appointment_series_window", columnList = "first_occurrence, last_occurrence_end")
+})
+
+public class AppointmentSeries {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id")
+    private Patient patient;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "medical_staff_id")
+    private MedicalStaff medicalStaff;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "department_id")
+    private Department department;
+
+    @NotNull(message = "First occurrence is required.")
+    @Column(name = "first_occurrence")
+    private LocalDateTime firstOccurrence;
+
+    @Column(name = "duration_minutes")
+    private Integer durationMinutes;
+
+    @NotNull(message = "Recurrence rule is required.")
+    private String recurrenceRule;
+
+    // end of the last occurrence, lets window queries skip finished series
+    @Column(name = "last_occurrence_end")
+    private LocalDateTime lastOccurrenceEnd;
+
+    private String reason;
+
+    private boolean active = true;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "appointment_series_exclusions", joinColumns = @JoinColumn(name = "series_id"))
+    @Column(name = "occurrence")
+    private Set<LocalDateTime> excludedOccurrences = new HashSet<>();
+}
@@ -17,7 +17,8 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "patients")
+// date of birth is the blocking key of DuplicatePatientDetector.
+@Table(name = "patients", indexes = @Index(name = "idx_patients_date_of_birth", columnList = "date_of_birth"))
 
 public class Patient {
 
@@ -4,15 +4,22 @@ package com.example.CommunityHealthMedicalSystem.Repository;
 import com.example.CommunityHealthMedicalSystem.Model.Appointment;
 import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, JpaSpecificationExecutor<Appointment> {
     List<Appointment> findByStatus(Appointment.Status status);
     List<Appointment> findByReason(String reason);
     List<Appointment> findByPatient(Patient patient);
@@ -23,7 +30,97 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findByDepartmentId(Long departmentId);
     Optional<Appointment> findByPatientAndAppointmentDateTime(Patient patient, LocalDateTime localDateTime);
     Optional<Appointment> findByMedicalStaffAndAppointmentDateTime(MedicalStaff medicalStaff, LocalDateTime appointmentDateTime);
+    // appointments is partitioned by month on appointment_date_time: queries bounding it with plain
+    // parameters (no function or arithmetic on the column) only scan the partitions of that window.
     List<Appointment> findByAppointmentDateTimeBetween(LocalDateTime start, LocalDateTime end);
-    List<Appointment> findByPatientIdAndAppointmentDateTimeBetween(Long patientId, LocalDate startDate, LocalDate endDate);
-    List<Appointment> findByMedicalStaffIdAndAppointmentDateTimeBetween(Long staffId, LocalDate startDate, LocalDate endDate);
+    List<Appointment> findByStatusAndAppointmentDateTimeBetween(Appointment.Status status, LocalDateTime start,
+                                                               LocalDateTime end);
+    List<Appointment> findByPatientIdAndAppointmentDateTimeBetween(Long patientId, LocalDateTime start,
+                                                                   LocalDateTime end);
+    List<Appointment> findByMedicalStaffIdAndAppointmentDateTimeBetween(Long staffId, LocalDateTime start,
+                                                                        LocalDateTime end);
+
+    @Query("SELECT a FROM Appointment a WHERE a.medicalStaff.id IN :staffIds AND a.status <> :excluded " +
+            "AND a.appointmentDateTime >= :from AND a.appointmentDateTime < :to")
+    List<Appointment> findByMedicalStaffIdsInWindow(@Param("staffIds") Collection<Long> staffIds,
+                                                    @Param("excluded") Appointment.Status excluded,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+    @Query("SELECT a FROM Appointment a WHERE a.medicalStaff.id IN :staffIds AND a.status <> :excluded " +
+            "AND a.appointmentDateTime >= :from")
+    List<Appointment> findByMedicalStaffIdsFrom(@Param("staffIds") Collection<Long> staffIds,
+                                                @Param("excluded") Appointment.Status excluded,
+                                                @Param("from") LocalDateTime from);
+    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND a.status <> :excluded " +
+            "AND a.appointmentDateTime >= :from")
+    List<Appointment> findByPatientIdFrom(@Param("patientId") Long patientId,
+                                          @Param("excluded") Appointment.Status excluded,
+                                          @Param("from") LocalDateTime from);
+    @Query("SELECT a FROM Appointment a WHERE a.patient.id IN :patientIds AND a.status <> :excluded " +
+            "AND a.appointmentDateTime >= :from AND a.appointmentDateTime < :to")
+    List<Appointment> findByPatientIdsInWindow(@Param("patientIds") Collection<Long> patientIds,
+                                               @Param("excluded") Appointment.Status excluded,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND a.status <> :excluded " +
+            "AND a.appointmentDateTime >= :from ORDER BY a.appointmentDateTime, a.id")
+    List<Appointment> findUpcomingByPatientId(@Param("patientId") Long patientId,
+                                              @Param("excluded") Appointment.Status excluded,
+                                              @Param("from") LocalDateTime from,
+                                              Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a WHERE a.department.id = :departmentId " +
+            "AND a.appointmentDateTime >= :from AND a.appointmentDateTime < :to ORDER BY a.appointmentDateTime, a.id")
+    List<Appointment> findByDepartmentIdInWindow(@Param("departmentId") Long departmentId,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to,
+                                                 Pageable pageable);
+
+    // ranked full-text match on the search_vector column (see db/appointment-search.sql), served by its GIN index.
+    @Query(value = "SELECT a.* FROM appointments a, websearch_to_tsquery('english', :query) q " +
+            "WHERE a.search_vector @@ q ORDER BY ts_rank_cd(a.search_vector, q) DESC, a.id " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Appointment> searchByText(@Param("query") String query,
+                                   @Param("limit") int limit,
+                                   @Param("offset") long offset);
+
+    // read through a server-side cursor, must be consumed inside a transaction. One method per filter
+    // combination, a catch-all "(:x IS NULL OR ...)" would keep the planner from using the matching index.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Appointment> streamAllByOrderByIdAsc();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Appointment> streamByStatusOrderByIdAsc(Appointment.Status status);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Appointment> streamByDepartmentIdOrderByIdAsc(Long departmentId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Appointment> streamByStatusAndDepartmentIdOrderByIdAsc(Appointment.Status status, Long departmentId);
+
+    default Stream<Appointment> streamByStatusAndDepartment(Appointment.Status status, Long departmentId){
+        if (status != null && departmentId != null){
+            return streamByStatusAndDepartmentIdOrderByIdAsc(status, departmentId);
+        }
+        if (status != null){
+            return streamByStatusOrderByIdAsc(status);
+        }
+        if (departmentId != null){
+            return streamByDepartmentIdOrderByIdAsc(departmentId);
+        }
+        return streamAllByOrderByIdAsc();
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.CommunityHealthMedicalSystem.Repository;
+
+import com.example.CommunityHealthMedicalSystem.Model.AppointmentSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface AppointmentSeriesRepository extends JpaRepository<AppointmentSeries, Long> {
+    List<AppointmentSeries> findByMedicalStaffIdAndActiveTrue(Long medicalStaffId);
+    List<AppointmentSeries> findByPatientIdAndActiveTrue(Long patientId);
+    List<AppointmentSeries> findByMedicalStaffIdInAndActiveTrue(Collection<Long> medicalStaffIds);
+
+    // active series with at least one occurrence touching [from, to)
+    @Query("SELECT DISTINCT s FROM AppointmentSeries s LEFT JOIN FETCH s.patient LEFT JOIN FETCH s.medicalStaff " +
+            "WHERE s.active = true AND s.firstOccurrence < :to AND s.lastOccurrenceEnd > :from")
+    List<AppointmentSeries> findActiveInWindow(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
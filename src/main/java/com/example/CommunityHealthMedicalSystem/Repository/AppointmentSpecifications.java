@@ -0,0 +1,65 @@
+package com.example.CommunityHealthMedicalSystem.Repository;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Search predicates for appointments. Each factory returns null for a missing value so callers
+ * can combine any subset with Specification.allOf. Staff, patient and department compare the
+ * foreign key column directly, no join is added.
+ */
+public final class AppointmentSpecifications {
+
+    private AppointmentSpecifications(){
+    }
+
+    public static Specification<Appointment> hasStatus(Appointment.Status status){
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Appointment> hasMedicalStaff(Long medicalStaffId){
+        return medicalStaffId == null ? null
+                : (root, query, cb) -> cb.equal(root.get("medicalStaff").get("id"), medicalStaffId);
+    }
+
+    public static Specification<Appointment> hasPatient(Long patientId){
+        return patientId == null ? null
+                : (root, query, cb) -> cb.equal(root.get("patient").get("id"), patientId);
+    }
+
+    public static Specification<Appointment> hasDepartment(Long departmentId){
+        return departmentId == null ? null
+                : (root, query, cb) -> cb.equal(root.get("department").get("id"), departmentId);
+    }
+
+    // appointments starting in [from, to), either bound may be open
+    public static Specification<Appointment> startsWithin(LocalDateTime from, LocalDateTime to){
+        return (root, query, cb) -> {
+            var start = root.<LocalDateTime>get("appointmentDateTime");
+            var predicate = cb.isNotNull(start);
+            if (from != null){
+                predicate = cb.and(predicate, cb.greaterThanOrEqualTo(start, from));
+            }
+            if (to != null){
+                predicate = cb.and(predicate, cb.lessThan(start, to));
+            }
+            return predicate;
+        };
+    }
+
+    // rows after the (appointmentDateTime, id) position of a keyset cursor. The plain lower bound lets the
+    // (..., appointment_date_time, id) indexes seek to the cursor, the OR alone would be read from the start.
+    public static Specification<Appointment> after(LocalDateTime afterDateTime, Long afterId){
+        if (afterDateTime == null || afterId == null){
+            return null;
+        }
+        return (root, query, cb) -> {
+            var start = root.<LocalDateTime>get("appointmentDateTime");
+            return cb.and(cb.greaterThanOrEqualTo(start, afterDateTime),
+                    cb.or(cb.greaterThan(start, afterDateTime),
+                            cb.and(cb.equal(start, afterDateTime), cb.greaterThan(root.get("id"), afterId))));
+        };
+    }
+}
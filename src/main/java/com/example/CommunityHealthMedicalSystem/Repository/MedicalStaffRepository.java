@@ -2,6 +2,8 @@ package com.example.CommunityHealthMedicalSystem.Repository;
 
 import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,4 +19,10 @@ public interface MedicalStaffRepository extends JpaRepository<MedicalStaff, Long
     boolean existsByEmailAndIdNot(String email, Long id);
     boolean existsByLicenseNumberAndIdNot(String licenseNumber, Long id);
 
+    @Query("SELECT ms.id FROM MedicalStaff ms WHERE " +
+            "(:specialization IS NULL OR LOWER(ms.specialization) LIKE LOWER(CONCAT('%', :specialization, '%'))) AND " +
+            "(:departmentId IS NULL OR ms.department.id = :departmentId)")
+    List<Long> findIdsBySpecializationAndDepartment(@Param("specialization") String specialization,
+                                                    @Param("departmentId") Long departmentId);
+
  }
@@ -10,13 +10,17 @@ import java.util.List;
 import java.util.Optional;
 
 public interface PatientRepository extends JpaRepository<Patient,Long> {
-    List<Patient> findByFirstNameContainingIgnoreCase(String firstName);
-    List<Patient> findByLastNameContainingIgnoreCase(String lastName);
+    // LOWER rather than the UPPER of derived IgnoreCase queries, the trigram indexes are on lower(column).
+    @Query("SELECT p FROM Patient p WHERE LOWER(p.firstName) LIKE LOWER(CONCAT('%', :firstName, '%'))")
+    List<Patient> findByFirstNameContainingIgnoreCase(@Param("firstName") String firstName);
+    @Query("SELECT p FROM Patient p WHERE LOWER(p.lastName) LIKE LOWER(CONCAT('%', :lastName, '%'))")
+    List<Patient> findByLastNameContainingIgnoreCase(@Param("lastName") String lastName);
     Optional<Patient> findByEmail(String email);
     Optional<Patient> findByPhoneNumber(String phoneNumber);
     Optional<Patient> findByNationalId(String nationalId);
     List<Patient> findByDateOfBirth(LocalDate dateOfBirth);
-    List<Patient> findByAddressContainingIgnoreCase(String address);
+    @Query("SELECT p FROM Patient p WHERE LOWER(p.address) LIKE LOWER(CONCAT('%', :address, '%'))")
+    List<Patient> findByAddressContainingIgnoreCase(@Param("address") String address);
     boolean existsByEmailAndIdNot(String email, Long id);
     boolean existsByNationalIdAndIdNot(String nationalId, Long id);
     @Query("SELECT p FROM Patient p WHERE " +
@@ -28,4 +32,30 @@ public interface PatientRepository extends JpaRepository<Patient,Long> {
                                  @Param("lastName") String lastName,
                                  @Param("email") String email,
                                  @Param("address") String address);
+
+    // substring or trigram-similar match on any of the four columns, most similar first. query is
+    // expected lower case; each branch is served by the trigram index on that column (db/patient-search.sql).
+    @Query(value = "SELECT p.* FROM patients p WHERE " +
+            "lower(p.first_name) LIKE '%' || :query || '%' OR lower(p.first_name) % :query OR " +
+            "lower(p.last_name) LIKE '%' || :query || '%' OR lower(p.last_name) % :query OR " +
+            "lower(p.email) LIKE '%' || :query || '%' OR lower(p.email) % :query OR " +
+            "lower(p.address) LIKE '%' || :query || '%' OR lower(p.address) % :query " +
+            "ORDER BY GREATEST(similarity(lower(p.first_name), :query), similarity(lower(p.last_name), :query), " +
+            "similarity(lower(p.email), :query), similarity(lower(p.address), :query)) DESC, p.id " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Patient> searchBySimilarity(@Param("query") String query,
+                                     @Param("limit") int limit,
+                                     @Param("offset") long offset);
+
+    // searchBySimilarity without the trigram operators, for databases where pg_trgm could not be installed.
+    @Query(value = "SELECT p.* FROM patients p WHERE " +
+            "lower(p.first_name) LIKE '%' || :query || '%' OR lower(p.last_name) LIKE '%' || :query || '%' OR " +
+            "lower(p.email) LIKE '%' || :query || '%' OR lower(p.address) LIKE '%' || :query || '%' " +
+            "ORDER BY p.id LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Patient> searchBySubstring(@Param("query") String query,
+                                    @Param("limit") int limit,
+                                    @Param("offset") long offset);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')", nativeQuery = true)
+    boolean hasTrigramExtension();
 }
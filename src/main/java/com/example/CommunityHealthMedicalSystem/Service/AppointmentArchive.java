@@ -0,0 +1,115 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Model.Department;
+import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves COMPLETED, CANCELLED and NO_SHOW appointments older than after-months from appointments into
+ * appointments_archive (see db/appointment-archive.sql), so the hot table and its booking indexes
+ * only grow with the recent window. Each chunk is one DELETE ... RETURNING feeding an INSERT,
+ * committed on its own. Archived rows are read back only for patient history.
+ */
+@Slf4j
+@Component
+public class AppointmentArchive {
+
+    static final String COLUMNS = "id, version, appointment_date_time, status, reason, notes, diagnosis, " +
+            "duration_minutes, patient_id, medical_staff_id, department_id, series_id, series_occurrence";
+
+    // locked rows belong to a write in progress, they are picked up by the next run.
+    private static final String MOVE_CHUNK =
+            "WITH moved AS (DELETE FROM appointments a USING (" +
+            "SELECT id FROM appointments WHERE status IN ('COMPLETED', 'CANCELLED', 'NO_SHOW') AND appointment_date_time < ? " +
+            "ORDER BY appointment_date_time, id LIMIT ? FOR UPDATE SKIP LOCKED) t " +
+            "WHERE a.id = t.id RETURNING a.*) " +
+            "INSERT INTO appointments_archive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM moved";
+
+    private static final String FIND_BY_PATIENT =
+            "SELECT " + COLUMNS + " FROM appointments_archive WHERE patient_id = ? " +
+            "ORDER BY appointment_date_time, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int afterMonths;
+    private final int chunkSize;
+
+    public AppointmentArchive(JdbcTemplate jdbcTemplate,
+                              @Value("${appointments.archive.after-months:24}") int afterMonths,
+                              @Value("${appointments.archive.chunk-size:500}") int chunkSize){
+        this.jdbcTemplate = jdbcTemplate;
+        this.afterMonths = afterMonths;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${appointments.archive.cron:0 45 3 * * *}")
+    public void archiveOldAppointments(){
+        archive(LocalDateTime.now());
+    }
+
+    // no AppointmentChangedEvent is published: finished appointments in the past hold no slot,
+    // reminder or upcoming entry. Their appointment_daily_counts rows are left as they are, and
+    // rebuild_appointment_daily_counts() reads appointments_archive too, so a repair keeps them.
+    public int archive(LocalDateTime now){
+        LocalDateTime cutoff = now.minusMonths(afterMonths);
+        int total = 0;
+        int moved;
+        do {
+            moved = jdbcTemplate.update(MOVE_CHUNK, Timestamp.valueOf(cutoff), chunkSize);
+            total += moved;
+        } while (moved == chunkSize);
+        log.info("Archived {} appointments finished before {}", total, cutoff);
+        return total;
+    }
+
+    // archived appointments of a patient, oldest first, shaped like the live rows with id-only references
+    public List<Appointment> findByPatientId(Long patientId){
+        return jdbcTemplate.query(FIND_BY_PATIENT, this::mapAppointment, patientId);
+    }
+
+    private Appointment mapAppointment(ResultSet rs, int rowNum) throws SQLException {
+        Appointment appointment = new Appointment();
+        appointment.setId(rs.getLong("id"));
+        appointment.setVersion(rs.getObject("version", Long.class));
+        appointment.setAppointmentDateTime(rs.getObject("appointment_date_time", LocalDateTime.class));
+        String status = rs.getString("status");
+        appointment.setStatus(status != null ? Appointment.Status.valueOf(status) : null);
+        appointment.setReason(rs.getString("reason"));
+        appointment.setNotes(rs.getString("notes"));
+        appointment.setDiagnosis(rs.getString("diagnosis"));
+        appointment.setAppointmentDuration(rs.getObject("duration_minutes", Integer.class));
+
+        Long patientId = rs.getObject("patient_id", Long.class);
+        if (patientId != null){
+            Patient patient = new Patient();
+            patient.setId(patientId);
+            appointment.setPatient(patient);
+        }
+        Long medicalStaffId = rs.getObject("medical_staff_id", Long.class);
+        if (medicalStaffId != null){
+            MedicalStaff medicalStaff = new MedicalStaff();
+            medicalStaff.setId(medicalStaffId);
+            appointment.setMedicalStaff(medicalStaff);
+        }
+        Long departmentId = rs.getObject("department_id", Long.class);
+        if (departmentId != null){
+            Department department = new Department();
+            department.setId(departmentId);
+            appointment.setDepartment(department);
+        }
+        appointment.setSeriesId(rs.getObject("series_id", Long.class));
+        appointment.setSeriesOccurrence(rs.getObject("series_occurrence", LocalDateTime.class));
+        return appointment;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.CalendarCountDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains appointment_daily_counts, one row per day, status, medical staff and department,
+ * by applying the -1/+1 delta of every appointment write. Calendar views read a few hundred
+ * rows from this table instead of loading every appointment of the month. The table is filled
+ * once by db/appointment-rollup.sql. Appointment writes commit on their own, so a delta whose
+ * update fails is kept, merged per row, and retried; the nightly repair job recomputes the whole
+ * table from scratch for any drift the retries could not close.
+ */
+@Slf4j
+@Component
+public class AppointmentCalendarRollup {
+
+    public static final int MAX_RANGE_DAYS = 62;
+
+    // stored instead of null, primary key columns cannot be null.
+    static final long NONE = 0L;
+
+    private static final String REBUILD = "SELECT rebuild_appointment_daily_counts()";
+
+    private static final String UPSERT =
+            "INSERT INTO appointment_daily_counts (day, status, medical_staff_id, department_id, appointment_count) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (day, status, medical_staff_id, department_id) " +
+            "DO UPDATE SET appointment_count = appointment_daily_counts.appointment_count + EXCLUDED.appointment_count";
+
+    public enum GroupBy {
+        NONE, STAFF, DEPARTMENT
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // deltas whose update failed, merged per row until retryFailed applies them
+    private final Map<Key, Integer> failed = new ConcurrentHashMap<>();
+
+    public AppointmentCalendarRollup(JdbcTemplate jdbcTemplate){
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    record Key(LocalDate day, Appointment.Status status, long medicalStaffId, long departmentId) {
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event){
+        Map<Key, Integer> deltas = new LinkedHashMap<>();
+        addDelta(deltas, event.previous(), -1);
+        addDelta(deltas, event.current(), 1);
+        // an edit that kept day, status, staff and department nets out to nothing.
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()){
+            return;
+        }
+
+        apply(deltas);
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.rollup.retry-ms:30000}",
+            initialDelayString = "${appointments.rollup.retry-ms:30000}")
+    public void retryFailed(){
+        if (failed.isEmpty()){
+            return;
+        }
+        Map<Key, Integer> deltas = new LinkedHashMap<>();
+        for (Key key : List.copyOf(failed.keySet())){
+            Integer delta = failed.remove(key);
+            if (delta != null && delta != 0){
+                deltas.put(key, delta);
+            }
+        }
+        if (!deltas.isEmpty() && apply(deltas)){
+            log.info("Calendar rollup applied {} deltas kept from failed updates", deltas.size());
+        }
+    }
+
+    public int pendingRetries(){
+        return failed.size();
+    }
+
+    // a full recompute belongs in a quiet hour, "-" turns it off.
+    @Scheduled(cron = "${appointments.rollup.repair-cron:0 30 3 * * *}")
+    public void scheduledRepair(){
+        repair();
+    }
+
+    // recomputes every count from the appointment tables, one transaction under an advisory lock
+    public void repair(){
+        // the recompute already counts every appointment the kept deltas were for.
+        failed.clear();
+        long start = System.nanoTime();
+        jdbcTemplate.queryForObject(REBUILD, Object.class);
+        log.info("Calendar rollup rebuilt in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public List<CalendarCountDTO> counts(LocalDate from, LocalDate to, Long medicalStaffId, Long departmentId,
+                                         GroupBy groupBy){
+        if (from == null || to == null || to.isBefore(from)){
+            throw new IllegalArgumentException("Invalid calendar range.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS){
+            throw new IllegalArgumentException("Calendar range cannot exceed " + MAX_RANGE_DAYS + " days.");
+        }
+        GroupBy grouping = groupBy != null ? groupBy : GroupBy.NONE;
+
+        // fragments are fixed strings, only values are bound as parameters.
+        String dimension = switch (grouping){
+            case NONE -> "";
+            case STAFF -> ", medical_staff_id";
+            case DEPARTMENT -> ", department_id";
+        };
+        StringBuilder sql = new StringBuilder("SELECT day, status").append(dimension)
+                .append(", SUM(appointment_count) AS total FROM appointment_daily_counts WHERE day BETWEEN ? AND ?");
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (medicalStaffId != null){
+            sql.append(" AND medical_staff_id = ?");
+            args.add(medicalStaffId);
+        }
+        if (departmentId != null){
+            sql.append(" AND department_id = ?");
+            args.add(departmentId);
+        }
+        sql.append(" GROUP BY day, status").append(dimension)
+                .append(" HAVING SUM(appointment_count) > 0 ORDER BY day, status").append(dimension);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            CalendarCountDTO dto = new CalendarCountDTO();
+            dto.setDay(rs.getDate("day").toLocalDate());
+            dto.setStatus(Appointment.Status.valueOf(rs.getString("status")));
+            if (grouping == GroupBy.STAFF){
+                dto.setMedicalStaffId(fromSentinel(rs.getLong("medical_staff_id")));
+            }
+            if (grouping == GroupBy.DEPARTMENT){
+                dto.setDepartmentId(fromSentinel(rs.getLong("department_id")));
+            }
+            dto.setCount(rs.getLong("total"));
+            return dto;
+        }, args.toArray());
+    }
+
+    // false when the update failed and the deltas were kept for retryFailed
+    private boolean apply(Map<Key, Integer> deltas){
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> rows.add(new Object[]{Date.valueOf(key.day()), key.status().name(),
+                key.medicalStaffId(), key.departmentId(), delta}));
+        try {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+            return true;
+        } catch (DataAccessException e){
+            // the appointment itself is already saved, only its count is behind.
+            log.warn("Calendar rollup update of {} rows failed, kept for retry: {}", rows.size(), e.getMessage());
+            deltas.forEach((key, delta) -> failed.merge(key, delta, Integer::sum));
+            return false;
+        }
+    }
+
+    private static void addDelta(Map<Key, Integer> deltas, AppointmentSnapshot snapshot, int delta){
+        if (snapshot == null || snapshot.appointmentDateTime() == null || snapshot.status() == null){
+            return;
+        }
+        Key key = new Key(snapshot.appointmentDateTime().toLocalDate(), snapshot.status(),
+                toSentinel(snapshot.medicalStaffId()), toSentinel(snapshot.departmentId()));
+        deltas.merge(key, delta, Integer::sum);
+    }
+
+    private static long toSentinel(Long id){
+        return id != null ? id : NONE;
+    }
+
+    private static Long fromSentinel(long id){
+        return id != NONE ? id : null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last appointment of a keyset page. Clients treat the encoded form as opaque
+ * and send it back to fetch the next page.
+ */
+public record AppointmentCursor(LocalDateTime appointmentDateTime, Long id) {
+
+    public static AppointmentCursor of(Appointment appointment){
+        return new AppointmentCursor(appointment.getAppointmentDateTime(), appointment.getId());
+    }
+
+    public String encode(){
+        String raw = appointmentDateTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AppointmentCursor decode(String cursor){
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new AppointmentCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (java.lang.IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e){
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * In-memory index of booked time intervals per medical staff and per patient.
+ * Timelines are loaded lazily from the database the first time a staff member or patient
+ * is checked and are kept in sync by AppointmentServiceImpl on every write. A timeline only
+ * holds appointments starting at most LOOKBACK_HOURS before it was loaded; checks reaching
+ * further back read that window from the database instead.
+ * Cancelled appointments do not occupy time and are never indexed. A periodic prune drops intervals
+ * that ended more than LOOKBACK_HOURS ago and timelines nobody checked for idle-minutes.
+ */
+@Slf4j
+@Component
+public class AppointmentIntervalIndex {
+
+    public static final int DEFAULT_DURATION_MINUTES = Appointment.DEFAULT_DURATION_MINUTES;
+
+    // longest appointment assumed: one starting earlier than this before a checked range cannot reach into it.
+    public static final int LOOKBACK_HOURS = 24;
+
+    // longer bookings are rejected, the lookback windows above would not see their tail.
+    public static final int MAX_DURATION_MINUTES = LOOKBACK_HOURS * 60;
+
+    private static final int STRIPES = 64;
+
+    private final AppointmentRepository appointmentRepo;
+    private final long idleNanos;
+
+    private final Map<Long, Timeline> staffTimelines = new ConcurrentHashMap<>();
+    private final Map<Long, Timeline> patientTimelines = new ConcurrentHashMap<>();
+    // bumped for a staff member or patient before any write touches its timeline. A timeline loaded
+    // outside the map is only published if its stripe did not move, so a write racing the load is never lost.
+    private final AtomicLongArray staffWrites = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray patientWrites = new AtomicLongArray(STRIPES);
+
+    @Autowired
+    public AppointmentIntervalIndex(AppointmentRepository appointmentRepo,
+                                    @Value("${appointments.interval-index.idle-minutes:60}") long idleMinutes){
+        this.appointmentRepo = appointmentRepo;
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+    }
+
+    AppointmentIntervalIndex(AppointmentRepository appointmentRepo){
+        this(appointmentRepo, 60);
+    }
+
+    public static int durationOf(Appointment appointment){
+        Integer duration = appointment.getAppointmentDuration();
+        return duration != null && duration > 0 ? duration : DEFAULT_DURATION_MINUTES;
+    }
+
+    // returns the id of an appointment of this staff member overlapping [start, start + duration)
+    public Optional<Long> findStaffConflict(Long medicalStaffId, LocalDateTime start, int durationMinutes,
+                                            Long ignoreAppointmentId){
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        return staffTimeline(medicalStaffId, start, end).findOverlap(start, end, ignoreAppointmentId);
+    }
+
+    // returns the id of an appointment of this patient overlapping [start, start + duration)
+    public Optional<Long> findPatientConflict(Long patientId, LocalDateTime start, int durationMinutes,
+                                              Long ignoreAppointmentId){
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        return patientTimeline(patientId, start, end).findOverlap(start, end, ignoreAppointmentId);
+    }
+
+    // all intervals of a staff member overlapping [from, to), ordered by start
+    public List<Interval> staffIntervals(Long medicalStaffId, LocalDateTime from, LocalDateTime to){
+        return staffTimeline(medicalStaffId, from, to).overlapping(from, to);
+    }
+
+    // loads the timelines of every staff member not cached yet with one query
+    public void preloadStaff(Collection<Long> medicalStaffIds){
+        List<Long> missing = medicalStaffIds.stream().filter(id -> !staffTimelines.containsKey(id)).toList();
+        if (missing.isEmpty()){
+            return;
+        }
+        log.debug("Loading appointment timelines for {} medical staff", missing.size());
+        long[] stamps = new long[missing.size()];
+        for (int i = 0; i < missing.size(); i++){
+            stamps[i] = staffWrites.get(stripe(missing.get(i)));
+        }
+        LocalDateTime loadedFrom = LocalDateTime.now().minusHours(LOOKBACK_HOURS);
+        Map<Long, List<Appointment>> byStaff = new HashMap<>();
+        for (Appointment appointment : appointmentRepo.findByMedicalStaffIdsFrom(missing,
+                Appointment.Status.CANCELLED, loadedFrom)){
+            byStaff.computeIfAbsent(appointment.getMedicalStaff().getId(), id -> new ArrayList<>()).add(appointment);
+        }
+        for (int i = 0; i < missing.size(); i++){
+            publish(staffTimelines, staffWrites, missing.get(i), stamps[i],
+                    Timeline.of(byStaff.getOrDefault(missing.get(i), List.of()), loadedFrom));
+        }
+    }
+
+    public void add(Appointment appointment){
+        if (appointment.getId() == null || appointment.getAppointmentDateTime() == null
+                || appointment.getStatus() == Appointment.Status.CANCELLED){
+            return;
+        }
+        Interval interval = new Interval(appointment.getId(), appointment.getAppointmentDateTime(),
+                durationOf(appointment));
+
+        // only timelines already loaded are touched, the others will read this row from the database.
+        if (appointment.getMedicalStaff() != null){
+            staffWrites.incrementAndGet(stripe(appointment.getMedicalStaff().getId()));
+            staffTimelines.computeIfPresent(appointment.getMedicalStaff().getId(), (id, timeline) -> {
+                timeline.put(interval);
+                return timeline;
+            });
+        }
+        if (appointment.getPatient() != null){
+            patientWrites.incrementAndGet(stripe(appointment.getPatient().getId()));
+            patientTimelines.computeIfPresent(appointment.getPatient().getId(), (id, timeline) -> {
+                timeline.put(interval);
+                return timeline;
+            });
+        }
+    }
+
+    public void remove(Long appointmentId, Long medicalStaffId, Long patientId){
+        if (appointmentId == null){
+            return;
+        }
+        if (medicalStaffId != null){
+            staffWrites.incrementAndGet(stripe(medicalStaffId));
+            staffTimelines.computeIfPresent(medicalStaffId, (id, timeline) -> {
+                timeline.remove(appointmentId);
+                return timeline;
+            });
+        }
+        if (patientId != null){
+            patientWrites.incrementAndGet(stripe(patientId));
+            patientTimelines.computeIfPresent(patientId, (id, timeline) -> {
+                timeline.remove(appointmentId);
+                return timeline;
+            });
+        }
+    }
+
+    public void evictStaff(Long medicalStaffId){
+        staffWrites.incrementAndGet(stripe(medicalStaffId));
+        staffTimelines.remove(medicalStaffId);
+    }
+
+    public void evictPatient(Long patientId){
+        patientWrites.incrementAndGet(stripe(patientId));
+        patientTimelines.remove(patientId);
+    }
+
+    @Scheduled(cron = "${appointments.interval-index.prune-cron:0 */15 * * * *}")
+    public void prune(){
+        prune(LocalDateTime.now(), System.nanoTime());
+    }
+
+    // a timeline dropped here is simply loaded again on its next check, so no write stamp is needed.
+    void prune(LocalDateTime now, long nowNanos){
+        LocalDateTime cutoff = now.minusHours(LOOKBACK_HOURS);
+        int before = staffTimelines.size() + patientTimelines.size();
+        for (Map<Long, Timeline> timelines : List.of(staffTimelines, patientTimelines)){
+            timelines.values().removeIf(timeline -> nowNanos - timeline.lastUsedNanos() > idleNanos);
+            timelines.values().forEach(timeline -> timeline.prune(cutoff));
+        }
+        log.debug("Interval index pruned, {} of {} timelines kept", staffTimelines.size() + patientTimelines.size(),
+                before);
+    }
+
+    int timelineCount(){
+        return staffTimelines.size() + patientTimelines.size();
+    }
+
+    private static int stripe(Long id){
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+
+    private Timeline staffTimeline(Long medicalStaffId, LocalDateTime from, LocalDateTime to){
+        Timeline timeline = cached(staffTimelines, staffWrites, medicalStaffId, loadedFrom -> {
+            log.debug("Loading appointment timeline for medical staff {}", medicalStaffId);
+            return appointmentRepo.findByMedicalStaffIdsFrom(List.of(medicalStaffId), Appointment.Status.CANCELLED,
+                    loadedFrom);
+        });
+        if (timeline.covers(from)){
+            return timeline;
+        }
+        // checks on history before the cached window are rare, they read just that range.
+        return Timeline.of(appointmentRepo.findByMedicalStaffIdsInWindow(List.of(medicalStaffId),
+                Appointment.Status.CANCELLED, from.minusHours(LOOKBACK_HOURS), to), null);
+    }
+
+    private Timeline patientTimeline(Long patientId, LocalDateTime from, LocalDateTime to){
+        Timeline timeline = cached(patientTimelines, patientWrites, patientId, loadedFrom -> {
+            log.debug("Loading appointment timeline for patient {}", patientId);
+            return appointmentRepo.findByPatientIdFrom(patientId, Appointment.Status.CANCELLED, loadedFrom);
+        });
+        if (timeline.covers(from)){
+            return timeline;
+        }
+        return Timeline.of(appointmentRepo.findByPatientIdsInWindow(List.of(patientId),
+                Appointment.Status.CANCELLED, from.minusHours(LOOKBACK_HOURS), to), null);
+    }
+
+    // the query runs outside the map, so a slow load never blocks writes to other timelines in its bin.
+    private Timeline cached(Map<Long, Timeline> timelines, AtomicLongArray writes, Long id,
+                            Function<LocalDateTime, List<Appointment>> loader){
+        Timeline timeline = timelines.get(id);
+        if (timeline != null){
+            timeline.touch();
+            return timeline;
+        }
+        long stamp = writes.get(stripe(id));
+        LocalDateTime loadedFrom = LocalDateTime.now().minusHours(LOOKBACK_HOURS);
+        Timeline loaded = Timeline.of(loader.apply(loadedFrom), loadedFrom);
+        Timeline published = publish(timelines, writes, id, stamp, loaded);
+        // a write raced the load: answer from it once, the next check loads again.
+        return published != null ? published : loaded;
+    }
+
+    private static Timeline publish(Map<Long, Timeline> timelines, AtomicLongArray writes, Long id, long stamp,
+                                    Timeline loaded){
+        return timelines.compute(id, (k, existing) -> existing != null ? existing
+                : writes.get(stripe(id)) == stamp ? loaded : null);
+    }
+
+    public record Interval(Long appointmentId, LocalDateTime start, int durationMinutes) {
+
+        public LocalDateTime end(){
+            return start.plusMinutes(durationMinutes);
+        }
+
+        boolean overlaps(LocalDateTime from, LocalDateTime to){
+            return start.isBefore(to) && end().isAfter(from);
+        }
+    }
+
+    /**
+     * Intervals ordered by start time. Any interval overlapping [from, to) must start after
+     * from - maxDuration, so an overlap check is a single O(log n) range lookup that only visits
+     * the few intervals starting inside that window.
+     */
+    static final class Timeline {
+
+        private final NavigableMap<LocalDateTime, List<Interval>> byStart = new TreeMap<>();
+        private final Map<Long, Interval> byId = new HashMap<>();
+        private int maxDurationMinutes = DEFAULT_DURATION_MINUTES;
+        // appointments starting before this were not loaded, null when the timeline is complete
+        private final LocalDateTime loadedFrom;
+        // intervals ending at or before this were pruned, null until the first prune
+        private volatile LocalDateTime prunedBefore;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        Timeline(){
+            this(null);
+        }
+
+        private Timeline(LocalDateTime loadedFrom){
+            this.loadedFrom = loadedFrom;
+        }
+
+        static Timeline of(List<Appointment> appointments){
+            return of(appointments, null);
+        }
+
+        static Timeline of(List<Appointment> appointments, LocalDateTime loadedFrom){
+            Timeline timeline = new Timeline(loadedFrom);
+            for (Appointment appointment : appointments){
+                if (appointment.getAppointmentDateTime() != null){
+                    timeline.put(new Interval(appointment.getId(), appointment.getAppointmentDateTime(),
+                            durationOf(appointment)));
+                }
+            }
+            return timeline;
+        }
+
+        synchronized void put(Interval interval){
+            remove(interval.appointmentId());
+            byId.put(interval.appointmentId(), interval);
+            byStart.computeIfAbsent(interval.start(), s -> new ArrayList<>(1)).add(interval);
+            maxDurationMinutes = Math.max(maxDurationMinutes, interval.durationMinutes());
+        }
+
+        synchronized void remove(Long appointmentId){
+            Interval interval = byId.remove(appointmentId);
+            if (interval == null){
+                return;
+            }
+            List<Interval> sameStart = byStart.get(interval.start());
+            sameStart.removeIf(i -> i.appointmentId().equals(appointmentId));
+            if (sameStart.isEmpty()){
+                byStart.remove(interval.start());
+            }
+        }
+
+        synchronized Optional<Long> findOverlap(LocalDateTime from, LocalDateTime to, Long ignoreAppointmentId){
+            for (List<Interval> sameStart : candidates(from, to)){
+                for (Interval interval : sameStart){
+                    if (interval.overlaps(from, to) && !interval.appointmentId().equals(ignoreAppointmentId)){
+                        return Optional.of(interval.appointmentId());
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+
+        synchronized List<Interval> overlapping(LocalDateTime from, LocalDateTime to){
+            List<Interval> result = new ArrayList<>();
+            for (List<Interval> sameStart : candidates(from, to)){
+                for (Interval interval : sameStart){
+                    if (interval.overlaps(from, to)){
+                        result.add(interval);
+                    }
+                }
+            }
+            return result;
+        }
+
+        // true when every interval that may overlap a range starting at from was loaded and kept
+        boolean covers(LocalDateTime from){
+            LocalDateTime pruned = prunedBefore;
+            return (loadedFrom == null || !from.minusHours(LOOKBACK_HOURS).isBefore(loadedFrom))
+                    && (pruned == null || !from.isBefore(pruned));
+        }
+
+        // drops the intervals that cannot overlap any range starting at cutoff or later
+        synchronized void prune(LocalDateTime cutoff){
+            // moved first, a check reaching before the cutoff goes to the database from now on.
+            prunedBefore = cutoff;
+            Iterator<List<Interval>> it = byStart.headMap(cutoff, false).values().iterator();
+            while (it.hasNext()){
+                List<Interval> sameStart = it.next();
+                sameStart.removeIf(interval -> {
+                    boolean ended = !interval.end().isAfter(cutoff);
+                    if (ended){
+                        byId.remove(interval.appointmentId());
+                    }
+                    return ended;
+                });
+                if (sameStart.isEmpty()){
+                    it.remove();
+                }
+            }
+        }
+
+        void touch(){
+            lastUsedNanos = System.nanoTime();
+        }
+
+        long lastUsedNanos(){
+            return lastUsedNanos;
+        }
+
+        synchronized int size(){
+            return byId.size();
+        }
+
+        private Collection<List<Interval>> candidates(LocalDateTime from, LocalDateTime to){
+            return byStart.subMap(from.minusMinutes(maxDurationMinutes), false, to, false).values();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+
+import java.time.Duration;
+
+/**
+ * Delivers appointment reminders to the patient. Called from the timer wheel thread, so an
+ * implementation talking to a slow channel should hand the work off instead of blocking.
+ */
+public interface AppointmentNotifier {
+
+    void sendReminder(AppointmentSnapshot appointment, Duration leadTime);
+}
@@ -0,0 +1,37 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Translates violations of the appointment exclusion constraints
+ * (see db/appointment-constraints.sql) into ConflictException.
+ */
+final class AppointmentOverlapConstraints {
+
+    // suffixes, partitions carry their own copy named <partition>_staff_no_overlap (see db/appointment-partitions.sql).
+    static final String STAFF_CONSTRAINT = "_staff_no_overlap";
+    static final String PATIENT_CONSTRAINT = "_patient_no_overlap";
+
+    // SQLSTATE raised by PostgreSQL for exclusion constraint violations.
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private AppointmentOverlapConstraints(){
+    }
+
+    static Optional<ConflictException> translate(DataIntegrityViolationException e){
+        for (Throwable cause = e; cause != null; cause = cause.getCause()){
+            if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())){
+                String message = String.valueOf(e.getMessage()) + " " + sqlException.getMessage();
+                if (message.contains(PATIENT_CONSTRAINT)){
+                    return Optional.of(new ConflictException("Patient already have appointment at this time."));
+                }
+                return Optional.of(new ConflictException("Medical staff already has appointment at this time."));
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of appointments (see db/appointment-partitions.sql) ahead of the calendar
+ * and, when a retention is configured, detaches the partitions of months older than it. A detached
+ * partition stays in the database as a plain table, nothing is deleted here.
+ */
+@Slf4j
+@Component
+public class AppointmentPartitionMaintainer {
+
+    private static final String ENSURE = "SELECT ensure_appointment_partitions(?, ?)";
+
+    // children named appointments_yYYYYmMM, the default partition never matches.
+    private static final String PARTITIONS_BEFORE =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = to_regclass('appointments') " +
+            "AND c.relname ~ '^appointments_y[0-9]{4}m[0-9]{2}$' " +
+            "AND to_date(substring(c.relname from 15), 'YYYY\"m\"MM') < ? " +
+            "ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public AppointmentPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                          @Value("${appointments.partitions.months-ahead:12}") int monthsAhead,
+                                          @Value("${appointments.partitions.retention-months:0}") int retentionMonths){
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(cron = "${appointments.partitions.cron:0 15 3 * * *}")
+    public void maintainPartitions(){
+        maintain(LocalDate.now());
+    }
+
+    public int maintain(LocalDate today){
+        LocalDate month = today.withDayOfMonth(1);
+        Integer created = jdbcTemplate.queryForObject(ENSURE, Integer.class, Date.valueOf(month), monthsAhead + 1);
+        if (created != null && created > 0){
+            log.info("Created {} appointment partitions from {}", created, month);
+        }
+        if (retentionMonths > 0){
+            detachBefore(month.minusMonths(retentionMonths));
+        }
+        return created != null ? created : 0;
+    }
+
+    List<String> detachBefore(LocalDate month){
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_BEFORE, String.class, Date.valueOf(month));
+        for (String partition : partitions){
+            // plain DETACH, CONCURRENTLY is not allowed while appointments has a default partition.
+            jdbcTemplate.execute("ALTER TABLE appointments DETACH PARTITION \"" + partition + "\"");
+            log.info("Detached appointment partition {}", partition);
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules a reminder on the timing wheel for every lead time before each SCHEDULED appointment.
+ * Only appointments starting within horizon-hours are ever on the wheel: the window is loaded
+ * at startup, extended by a periodic refill query and kept in sync with every appointment
+ * write through AppointmentChangedEvent, so the appointments table is never polled for
+ * due reminders.
+ */
+@Slf4j
+@Component
+public class AppointmentReminderScheduler {
+
+    private final AppointmentRepository appointmentRepo;
+    private final HashedTimingWheel wheel;
+    private final AppointmentNotifier notifier;
+    private final List<Duration> leadTimes;
+    private final Duration horizon;
+
+    // one entry per appointment, replaced and cancelled as a whole under the map's per-key lock
+    private final Map<Long, Reminders> reminders = new ConcurrentHashMap<>();
+
+    // appointment id -> change sequence of its latest event, so a refill can tell which of its rows
+    // may be older than what the events already applied. cleared once no refill can still need it
+    private final AtomicLong changes = new AtomicLong();
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+
+    // appointments starting up to this point are on the wheel, null until the first load
+    private volatile LocalDateTime loadedUntil;
+
+    // window events schedule into, moved ahead of loadedUntil as soon as a refill starts loading
+    private volatile LocalDateTime windowEnd;
+
+    public AppointmentReminderScheduler(AppointmentRepository appointmentRepo, HashedTimingWheel wheel,
+                                        AppointmentNotifier notifier,
+                                        @Value("${appointments.reminders.lead-minutes:1440,120}") long[] leadMinutes,
+                                        @Value("${appointments.reminders.horizon-hours:72}") long horizonHours){
+        this.appointmentRepo = appointmentRepo;
+        this.wheel = wheel;
+        this.notifier = notifier;
+        this.leadTimes = Arrays.stream(leadMinutes).mapToObj(Duration::ofMinutes).toList();
+        this.horizon = Duration.ofHours(horizonHours);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadUpcoming(){
+        refill(LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.reminders.refill-ms:3600000}",
+            initialDelayString = "${appointments.reminders.refill-ms:3600000}")
+    public void extendWindow(){
+        refill(LocalDateTime.now());
+    }
+
+    // loads the appointments that entered the horizon since the last load
+    public synchronized int refill(LocalDateTime now){
+        LocalDateTime until = now.plus(horizon);
+        LocalDateTime from = loadedUntil == null || loadedUntil.isBefore(now) ? now : loadedUntil;
+        if (!until.isAfter(from)){
+            return 0;
+        }
+        // from here on events schedule anything up to until themselves, so an appointment moved
+        // into the new window while the query runs is not left to a row read before the move.
+        windowEnd = until;
+        long started = changes.get();
+        int scheduled = 0;
+        for (Appointment appointment : appointmentRepo.findByStatusAndAppointmentDateTimeBetween(
+                Appointment.Status.SCHEDULED, from, until)){
+            AppointmentSnapshot snapshot = AppointmentSnapshot.of(appointment);
+            boolean[] added = {false};
+            reminders.compute(snapshot.id(), (id, existing) -> {
+                // an event already scheduled this one, or changed it after the query started and
+                // the row may be stale: cancelled or moved appointments must not come back.
+                if (existing != null || changedAt.getOrDefault(id, Long.MIN_VALUE) > started){
+                    return existing;
+                }
+                Reminders fresh = schedule(snapshot, now);
+                added[0] = fresh != null;
+                return fresh;
+            });
+            if (added[0]){
+                scheduled++;
+            }
+        }
+        loadedUntil = until;
+        // the next refill queries after every change recorded so far.
+        changedAt.clear();
+        log.debug("Scheduled reminders for {} appointments starting up to {}", scheduled, until);
+        return scheduled;
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event){
+        AppointmentSnapshot previous = event.previous();
+        AppointmentSnapshot current = event.current();
+        if (previous != null && (current == null || !previous.id().equals(current.id()))){
+            apply(previous.id(), null);
+        }
+        if (current != null){
+            apply(current.id(), current);
+        }
+    }
+
+    public int pendingAppointments(){
+        return reminders.size();
+    }
+
+    // replaces the reminders of one appointment with those of current, or drops them when current is null
+    private void apply(Long appointmentId, AppointmentSnapshot current){
+        if (appointmentId == null){
+            return;
+        }
+        changedAt.put(appointmentId, changes.incrementAndGet());
+        LocalDateTime now = LocalDateTime.now();
+        reminders.compute(appointmentId, (id, existing) -> {
+            if (existing != null){
+                existing.timeouts().forEach(HashedTimingWheel.Timeout::cancel);
+            }
+            return inWindow(current) ? schedule(current, now) : null;
+        });
+    }
+
+    // anything past the window is picked up by the next refill.
+    private boolean inWindow(AppointmentSnapshot appointment){
+        LocalDateTime until = windowEnd;
+        return appointment != null && until != null && appointment.status() == Appointment.Status.SCHEDULED
+                && appointment.appointmentDateTime() != null && !appointment.appointmentDateTime().isAfter(until);
+    }
+
+    // only called under the map's lock for the appointment, null when every lead time has passed
+    private Reminders schedule(AppointmentSnapshot appointment, LocalDateTime now){
+        List<HashedTimingWheel.Timeout> timeouts = new ArrayList<>(leadTimes.size());
+        for (Duration leadTime : leadTimes){
+            LocalDateTime fireAt = appointment.appointmentDateTime().minus(leadTime);
+            // a reminder whose moment has already passed is not sent late.
+            if (fireAt.isAfter(now)){
+                long deadline = toMillis(fireAt);
+                timeouts.add(wheel.schedule(deadline, () -> fire(appointment, leadTime, deadline)));
+            }
+        }
+        return timeouts.isEmpty() ? null : new Reminders(appointment, timeouts);
+    }
+
+    private void fire(AppointmentSnapshot appointment, Duration leadTime, long deadline){
+        boolean[] current = {false};
+        reminders.computeIfPresent(appointment.id(), (id, entry) -> {
+            // cancelled or rescheduled after the wheel expired this timer: the snapshot is stale.
+            if (entry.appointment() != appointment){
+                return entry;
+            }
+            current[0] = true;
+            // the entry goes away with the last reminder of the appointment.
+            List<HashedTimingWheel.Timeout> left = entry.timeouts().stream()
+                    .filter(timeout -> timeout.deadlineMillis() > deadline)
+                    .toList();
+            return left.isEmpty() ? null : new Reminders(appointment, left);
+        });
+        if (current[0]){
+            notifier.sendReminder(appointment, leadTime);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime){
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Reminders(AppointmentSnapshot appointment, List<HashedTimingWheel.Timeout> timeouts) {
+    }
+}
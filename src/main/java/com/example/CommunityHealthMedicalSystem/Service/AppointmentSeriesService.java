@@ -0,0 +1,19 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSeriesDTO;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public interface AppointmentSeriesService {
+    AppointmentSeriesDTO createSeries(AppointmentSeriesDTO seriesDTO);
+    AppointmentSeriesDTO getSeries(Long id);
+    List<AppointmentDTO> getOccurrences(Long id, LocalDateTime from, LocalDateTime to);
+
+    AppointmentSeriesDTO cancelOccurrence(Long id, LocalDateTime occurrence);
+    AppointmentDTO overrideOccurrence(Long id, LocalDateTime occurrence, AppointmentDTO changes);
+    void endSeries(Long id);
+}
@@ -0,0 +1,300 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSeriesDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSeriesChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Model.AppointmentSeries;
+import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentSeriesRepository;
+import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class AppointmentSeriesServiceImpl implements AppointmentSeriesService {
+
+    private final AppointmentSeriesRepository seriesRepo;
+    private final PatientRepository patientRepo;
+    private final MedicalStaffRepository medicalStaffRepo;
+    private final AppointmentIntervalIndex intervalIndex;
+    private final SeriesOccurrenceIndex seriesIndex;
+    private final BookingCoordinator bookingCoordinator;
+    private final SlotHoldRegistry holdRegistry;
+    private final AppointmentServiceImpl appointmentService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AppointmentSeriesServiceImpl(AppointmentSeriesRepository seriesRepo, PatientRepository patientRepo,
+                                        MedicalStaffRepository medicalStaffRepo, AppointmentIntervalIndex intervalIndex,
+                                        SeriesOccurrenceIndex seriesIndex, BookingCoordinator bookingCoordinator,
+                                        SlotHoldRegistry holdRegistry, AppointmentServiceImpl appointmentService,
+                                        ApplicationEventPublisher eventPublisher){
+        this.seriesRepo = seriesRepo;
+        this.patientRepo = patientRepo;
+        this.medicalStaffRepo = medicalStaffRepo;
+        this.intervalIndex = intervalIndex;
+        this.seriesIndex = seriesIndex;
+        this.bookingCoordinator = bookingCoordinator;
+        this.holdRegistry = holdRegistry;
+        this.appointmentService = appointmentService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public AppointmentSeriesDTO createSeries(AppointmentSeriesDTO seriesDTO){
+        if (seriesDTO == null){
+            throw new IllegalArgumentException("Appointment series cannot be null");
+        }
+        if (seriesDTO.getPatientId() == null || seriesDTO.getMedicalStaffId() == null){
+            throw new IllegalArgumentException("Patient and medical staff are required.");
+        }
+        if (seriesDTO.getFirstOccurrence() == null){
+            throw new IllegalArgumentException("First occurrence cannot be null");
+        }
+        int duration = seriesDTO.getDurationMinutes() != null
+                ? seriesDTO.getDurationMinutes() : AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES;
+        if (duration <= 0){
+            throw new IllegalArgumentException("Appointment duration must be positive.");
+        }
+        if (duration > AppointmentIntervalIndex.MAX_DURATION_MINUTES){
+            throw new IllegalArgumentException("Appointment duration cannot exceed "
+                    + AppointmentIntervalIndex.MAX_DURATION_MINUTES + " minutes.");
+        }
+        RecurrenceRule rule = RecurrenceRule.parse(seriesDTO.getRecurrenceRule());
+        List<LocalDateTime> occurrences = rule.allOccurrences(seriesDTO.getFirstOccurrence());
+        if (occurrences.isEmpty()){
+            throw new IllegalArgumentException("Recurrence rule produces no occurrences.");
+        }
+
+        Patient patient = patientRepo.findById(seriesDTO.getPatientId())
+                .orElseThrow(()-> new ResourceNotFound("Patient not found with id: " + seriesDTO.getPatientId()));
+        MedicalStaff medicalStaff = medicalStaffRepo.findById(seriesDTO.getMedicalStaffId())
+                .orElseThrow(()-> new ResourceNotFound("Medical staff not found with id: " +
+                        seriesDTO.getMedicalStaffId()));
+
+        AppointmentSeries series = new AppointmentSeries();
+        series.setPatient(patient);
+        series.setMedicalStaff(medicalStaff);
+        series.setDepartment(medicalStaff.getDepartment());
+        series.setFirstOccurrence(seriesDTO.getFirstOccurrence());
+        series.setDurationMinutes(duration);
+        series.setRecurrenceRule(seriesDTO.getRecurrenceRule().trim());
+        series.setLastOccurrenceEnd(occurrences.get(occurrences.size() - 1).plusMinutes(duration));
+        series.setReason(seriesDTO.getReason());
+        series.setActive(true);
+
+        // every occurrence is checked once here, afterwards the series costs one row whatever its length.
+        List<BookingCoordinator.StaffDay> lockKeys = new ArrayList<>();
+        for (LocalDateTime occurrence : occurrences){
+            lockKeys.addAll(BookingCoordinator.keysFor(medicalStaff.getId(), occurrence, duration));
+        }
+        AppointmentSeries saved = bookingCoordinator.withStaffDayLocks(lockKeys, () -> {
+            for (LocalDateTime occurrence : occurrences){
+                if (intervalIndex.findStaffConflict(medicalStaff.getId(), occurrence, duration, null).isPresent()
+                        || seriesIndex.findStaffConflict(medicalStaff.getId(), occurrence, duration, null).isPresent()){
+                    throw new ConflictException("Medical staff already has appointment at " + occurrence + ".");
+                }
+                if (intervalIndex.findPatientConflict(patient.getId(), occurrence, duration, null).isPresent()
+                        || seriesIndex.findPatientConflict(patient.getId(), occurrence, duration, null).isPresent()){
+                    throw new ConflictException("Patient already have appointment at " + occurrence + ".");
+                }
+            }
+            AppointmentSeries created = seriesRepo.save(series);
+            changed(created);
+            return created;
+        });
+        log.info("Appointment series {} created with {} occurrences", saved.getId(), occurrences.size());
+        return convertToDTO(saved);
+    }
+
+    @Override
+    public AppointmentSeriesDTO getSeries(Long id){
+        return convertToDTO(findSeries(id));
+    }
+
+    @Override
+    public List<AppointmentDTO> getOccurrences(Long id, LocalDateTime from, LocalDateTime to){
+        if (from == null || to == null || !to.isAfter(from)){
+            throw new IllegalArgumentException("Invalid occurrence window.");
+        }
+        AppointmentSeries series = findSeries(id);
+        SeriesOccurrenceIndex.SeriesSpec spec = SeriesOccurrenceIndex.SeriesSpec.of(series);
+        List<AppointmentDTO> occurrences = new ArrayList<>();
+        for (LocalDateTime start : spec.overlapping(from, to)){
+            AppointmentDTO dto = new AppointmentDTO();
+            dto.setPatientId(spec.patientId());
+            dto.setMedicalStaffId(spec.medicalStaffId());
+            dto.setDepartmentId(series.getDepartment() != null ? series.getDepartment().getId() : null);
+            dto.setAppointmentDateTime(start);
+            dto.setAppointmentDuration(spec.durationMinutes());
+            dto.setReason(series.getReason());
+            dto.setStatus(Appointment.Status.SCHEDULED);
+            dto.setSeriesId(series.getId());
+            dto.setSeriesOccurrence(start);
+            occurrences.add(dto);
+        }
+        return occurrences;
+    }
+
+    @Override
+    public AppointmentSeriesDTO cancelOccurrence(Long id, LocalDateTime occurrence){
+        AppointmentSeries series = findSeries(id);
+        requireOccurrence(series, occurrence);
+        series.getExcludedOccurrences().add(occurrence);
+        AppointmentSeries saved = seriesRepo.save(series);
+        changed(saved);
+        return convertToDTO(saved);
+    }
+
+    @Override
+    public AppointmentDTO overrideOccurrence(Long id, LocalDateTime occurrence, AppointmentDTO changes){
+        AppointmentSeries series = findSeries(id);
+        requireOccurrence(series, occurrence);
+
+        AppointmentDTO replacement = new AppointmentDTO();
+        replacement.setPatientId(series.getPatient().getId());
+        replacement.setMedicalStaffId(changes != null && changes.getMedicalStaffId() != null
+                ? changes.getMedicalStaffId() : series.getMedicalStaff().getId());
+        replacement.setAppointmentDateTime(changes != null && changes.getAppointmentDateTime() != null
+                ? changes.getAppointmentDateTime() : occurrence);
+        replacement.setAppointmentDuration(changes != null && changes.getAppointmentDuration() != null
+                ? changes.getAppointmentDuration() : series.getDurationMinutes());
+        replacement.setReason(changes != null && changes.getReason() != null ? changes.getReason() : series.getReason());
+        replacement.setHoldId(changes != null ? changes.getHoldId() : null);
+        if (replacement.getAppointmentDuration() <= 0){
+            throw new IllegalArgumentException("Appointment duration must be positive.");
+        }
+        if (replacement.getAppointmentDuration() > AppointmentIntervalIndex.MAX_DURATION_MINUTES){
+            throw new IllegalArgumentException("Appointment duration cannot exceed "
+                    + AppointmentIntervalIndex.MAX_DURATION_MINUTES + " minutes.");
+        }
+        if (!replacement.getMedicalStaffId().equals(series.getMedicalStaff().getId())
+                && !medicalStaffRepo.existsById(replacement.getMedicalStaffId())){
+            throw new ResourceNotFound("Medical staff not found with id: " + replacement.getMedicalStaffId());
+        }
+
+        // the old and the new slot stay locked from the check until the replacement is saved, so no other
+        // booking can take the freed occurrence or the new slot in between.
+        List<BookingCoordinator.StaffDay> lockKeys = new ArrayList<>(BookingCoordinator.keysFor(
+                series.getMedicalStaff().getId(), occurrence, series.getDurationMinutes()));
+        lockKeys.addAll(BookingCoordinator.keysFor(replacement.getMedicalStaffId(),
+                replacement.getAppointmentDateTime(), replacement.getAppointmentDuration()));
+        return bookingCoordinator.withStaffDayLocks(lockKeys, () -> {
+            checkReplacement(series, occurrence, replacement);
+
+            // the occurrence leaves the series first so the replacement does not conflict with it.
+            series.getExcludedOccurrences().add(occurrence);
+            seriesRepo.save(series);
+            changed(series);
+            try {
+                return appointmentService.createOccurrenceOverride(replacement, series.getId(), occurrence);
+            } catch (RuntimeException e){
+                // the checks above passed, so only the database can still reject the replacement here, for a
+                // booking made by another instance. The occurrence goes back unless its slot was taken meanwhile.
+                restoreOccurrence(series, occurrence);
+                throw e;
+            }
+        });
+    }
+
+    // everything createAppointment checks, except the series occurrence being replaced
+    private void checkReplacement(AppointmentSeries series, LocalDateTime occurrence, AppointmentDTO replacement){
+        Long staffId = replacement.getMedicalStaffId();
+        Long patientId = replacement.getPatientId();
+        LocalDateTime start = replacement.getAppointmentDateTime();
+        int duration = replacement.getAppointmentDuration();
+
+        Set<LocalDateTime> excluded = new HashSet<>(series.getExcludedOccurrences());
+        excluded.add(occurrence);
+        SeriesOccurrenceIndex.SeriesSpec spec = SeriesOccurrenceIndex.SeriesSpec.of(series);
+        SeriesOccurrenceIndex.SeriesSpec remaining = new SeriesOccurrenceIndex.SeriesSpec(spec.seriesId(),
+                spec.medicalStaffId(), spec.patientId(), spec.firstOccurrence(), spec.durationMinutes(), spec.rule(),
+                excluded, spec.lastOccurrenceEnd());
+        boolean overlapsOwnSeries = !remaining.overlapping(start, start.plusMinutes(duration)).isEmpty();
+
+        if (intervalIndex.findStaffConflict(staffId, start, duration, null).isPresent()
+                || seriesIndex.findStaffConflict(staffId, start, duration, series.getId()).isPresent()
+                || (overlapsOwnSeries && staffId.equals(spec.medicalStaffId()))){
+            throw new ConflictException("Medical staff already has appointment at " + start + ".");
+        }
+        if (intervalIndex.findPatientConflict(patientId, start, duration, null).isPresent()
+                || seriesIndex.findPatientConflict(patientId, start, duration, series.getId()).isPresent()
+                || overlapsOwnSeries){
+            throw new ConflictException("Patient already have appointment at " + start + ".");
+        }
+        if (holdRegistry.findConflict(staffId, start, duration, replacement.getHoldId()).isPresent()){
+            throw new ConflictException("Slot is held by another booking for this medical staff.");
+        }
+    }
+
+    private void restoreOccurrence(AppointmentSeries series, LocalDateTime occurrence){
+        Long staffId = series.getMedicalStaff().getId();
+        Long patientId = series.getPatient().getId();
+        int duration = series.getDurationMinutes();
+        if (intervalIndex.findStaffConflict(staffId, occurrence, duration, null).isPresent()
+                || intervalIndex.findPatientConflict(patientId, occurrence, duration, null).isPresent()){
+            log.warn("Occurrence {} of series {} stays cancelled, its slot was booked meanwhile",
+                    occurrence, series.getId());
+            return;
+        }
+        series.getExcludedOccurrences().remove(occurrence);
+        seriesRepo.save(series);
+        changed(series);
+    }
+
+    @Override
+    public void endSeries(Long id){
+        AppointmentSeries series = findSeries(id);
+        series.setActive(false);
+        seriesRepo.save(series);
+        changed(series);
+    }
+
+    private AppointmentSeries findSeries(Long id){
+        return seriesRepo.findById(id)
+                .orElseThrow(()-> new ResourceNotFound("Appointment series with id #" + id + " not found."));
+    }
+
+    private void requireOccurrence(AppointmentSeries series, LocalDateTime occurrence){
+        if (occurrence == null || !series.isActive() || series.getExcludedOccurrences().contains(occurrence)
+                || !RecurrenceRule.parse(series.getRecurrenceRule()).isOccurrence(series.getFirstOccurrence(), occurrence)){
+            throw new ResourceNotFound("Series #" + series.getId() + " has no occurrence at " + occurrence + ".");
+        }
+    }
+
+    private void changed(AppointmentSeries series){
+        Long staffId = series.getMedicalStaff() != null ? series.getMedicalStaff().getId() : null;
+        Long patientId = series.getPatient() != null ? series.getPatient().getId() : null;
+        seriesIndex.evict(staffId, patientId);
+        eventPublisher.publishEvent(new AppointmentSeriesChangedEvent(series.getId(), staffId, patientId));
+    }
+
+    public AppointmentSeriesDTO convertToDTO(AppointmentSeries series){
+        AppointmentSeriesDTO dto = new AppointmentSeriesDTO();
+        dto.setId(series.getId());
+        dto.setPatientId(series.getPatient() != null ? series.getPatient().getId() : null);
+        dto.setMedicalStaffId(series.getMedicalStaff() != null ? series.getMedicalStaff().getId() : null);
+        dto.setDepartmentId(series.getDepartment() != null ? series.getDepartment().getId() : null);
+        dto.setFirstOccurrence(series.getFirstOccurrence());
+        dto.setDurationMinutes(series.getDurationMinutes());
+        dto.setRecurrenceRule(series.getRecurrenceRule());
+        dto.setReason(series.getReason());
+        dto.setLastOccurrenceEnd(series.getLastOccurrenceEnd());
+        dto.setActive(series.isActive());
+        dto.setExcludedOccurrences(new HashSet<>(series.getExcludedOccurrences()));
+        return dto;
+    }
+}
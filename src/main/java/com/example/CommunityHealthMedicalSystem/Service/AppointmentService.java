@@ -2,6 +2,9 @@ package com.example.CommunityHealthMedicalSystem.Service;
 
 
 import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentPageDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSearchDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentResultDTO;
 import com.example.CommunityHealthMedicalSystem.Model.Appointment;
 import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
@@ -23,12 +26,19 @@ public interface AppointmentService {
     List<Appointment> getAppointmentByMedicalStaff(MedicalStaff medicalStaff);
     List<Appointment> getAppointmentsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
     List<Appointment> getAppointmentByPatientId(Long patientId);
+    List<Appointment> getAppointmentByPatientId(Long patientId, boolean includeArchived);
+    List<AppointmentDTO> getUpcomingAppointmentsByPatientId(Long patientId);
     List<Appointment> getAppointmentByMedicalId(Long medicalId);
 
     //business logic
     AppointmentDTO createAppointment(AppointmentDTO appointmentDTO);
     void deleteAppointment(Long id,Patient patient, MedicalStaff medicalStaff);
     AppointmentDTO updateAppointment(Long id, AppointmentDTO appointmentDTO);
+    AppointmentDTO updateAppointmentStatus(Long id, Appointment.Status status, Long expectedVersion);
+    BulkAppointmentResultDTO createAppointments(List<AppointmentDTO> appointmentDTOs);
+    AppointmentPageDTO getAppointmentsPage(Appointment.Status status, Long departmentId, String cursor, int limit);
+    AppointmentPageDTO searchAppointments(AppointmentSearchDTO criteria, String cursor, int limit);
+    List<AppointmentDTO> searchAppointmentsByText(String query, int page, int size);
 
 
 
@@ -1,6 +1,12 @@
 package com.example.CommunityHealthMedicalSystem.Service;
 
 import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentPageDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSearchDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentItemDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentResultDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
 import com.example.CommunityHealthMedicalSystem.Exception.*;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
 import com.example.CommunityHealthMedicalSystem.Exception.SecurityException;
@@ -8,34 +14,79 @@ import com.example.CommunityHealthMedicalSystem.Model.Appointment;
 import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
 import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentSpecifications;
 import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
 import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class AppointmentServiceImpl implements AppointmentService{
 
+    // upper bound for one bulk request, larger campaigns are split by the caller.
+    public static final int MAX_BULK_SIZE = 5000;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public static final int MAX_TEXT_QUERY_LENGTH = 200;
+
+    private static final Sort KEYSET_ORDER = Sort.by("appointmentDateTime", "id");
+
+    // upcoming appointments kept per patient for the portal home screen
+    public static final int MAX_UPCOMING = 50;
+
+    // longest appointment assumed when loading existing bookings around a bulk batch.
+    private static final int BULK_LOOKBACK_HOURS = AppointmentIntervalIndex.LOOKBACK_HOURS;
+
     @Autowired
     private final AppointmentRepository appointmentRepo;
     @Autowired
     private final PatientRepository patientRepo;
     @Autowired
     private final MedicalStaffRepository medicalStaffRepo;
+    private final AppointmentIntervalIndex intervalIndex;
+    private final BookingCoordinator bookingCoordinator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppointmentStatusTransitions statusTransitions;
+    private final SeriesOccurrenceIndex seriesIndex;
+    private final SlotHoldRegistry holdRegistry;
+    private final PatientPrincipalResolver patientPrincipalResolver;
+    private final UpcomingAppointmentsCache upcomingCache;
+    private final AppointmentArchive appointmentArchive;
 
     public AppointmentServiceImpl(AppointmentRepository appointmentRepo, PatientRepository patientRepo,
-                                  MedicalStaffRepository medicalStaffRepo){
+                                  MedicalStaffRepository medicalStaffRepo, AppointmentIntervalIndex intervalIndex,
+                                  BookingCoordinator bookingCoordinator, ApplicationEventPublisher eventPublisher,
+                                  AppointmentStatusTransitions statusTransitions, SeriesOccurrenceIndex seriesIndex,
+                                  SlotHoldRegistry holdRegistry, PatientPrincipalResolver patientPrincipalResolver,
+                                  UpcomingAppointmentsCache upcomingCache, AppointmentArchive appointmentArchive){
         this.appointmentRepo = appointmentRepo;
         this.patientRepo=patientRepo;
         this.medicalStaffRepo=medicalStaffRepo;
+        this.intervalIndex = intervalIndex;
+        this.bookingCoordinator = bookingCoordinator;
+        this.eventPublisher = eventPublisher;
+        this.statusTransitions = statusTransitions;
+        this.seriesIndex = seriesIndex;
+        this.holdRegistry = holdRegistry;
+        this.patientPrincipalResolver = patientPrincipalResolver;
+        this.upcomingCache = upcomingCache;
+        this.appointmentArchive = appointmentArchive;
     }
 
     @Override
@@ -65,21 +116,45 @@ public class AppointmentServiceImpl implements AppointmentService{
 
     @Override
     public List<Appointment> getAppointmentByPatientId(Long patientId){
+        checkPatientAccess(patientId);
+        return appointmentRepo.findByPatientId(patientId);
+    }
+
+    // full history, finished appointments moved to the archive are read back after the live ones.
+    @Override
+    public List<Appointment> getAppointmentByPatientId(Long patientId, boolean includeArchived){
+        List<Appointment> appointments = getAppointmentByPatientId(patientId);
+        if (!includeArchived){
+            return appointments;
+        }
+        List<Appointment> history = new ArrayList<>(appointments);
+        history.addAll(appointmentArchive.findByPatientId(patientId));
+        return history;
+    }
+
+    // served from the per-patient cache, the database is only read after a write touched this patient.
+    @Override
+    public List<AppointmentDTO> getUpcomingAppointmentsByPatientId(Long patientId){
+        checkPatientAccess(patientId);
+        return upcomingCache.get(patientId, LocalDateTime.now(), id -> appointmentRepo.findUpcomingByPatientId(id,
+                        Appointment.Status.CANCELLED, LocalDateTime.now(), PageRequest.of(0, MAX_UPCOMING))
+                .stream().map(this::convertToDTO).toList());
+    }
+
+    private void checkPatientAccess(Long patientId){
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication.getAuthorities().stream().anyMatch(a ->
                 a.getAuthority().equals("ROLE_PATIENT"))){
 
-            // Use findByEmail (returns Optional<Patient>) instead of findByEmailContainingIgnoreCase
-            Patient currentPatient = patientRepo.findByEmail(authentication.getName())
+            // resolved through the principal cache, a patient portal call costs no extra lookup query.
+            Long currentPatientId = patientPrincipalResolver.patientIdFor(authentication.getName())
                     .orElseThrow(() -> new SecurityException("Patient not found"));
 
-            if (!currentPatient.getId().equals(patientId)){
+            if (!currentPatientId.equals(patientId)){
                 throw new SecurityException("Patient can access only their own appointments.");
             }
         }
-
-        return appointmentRepo.findByPatientId(patientId);
     }
 
     @Override
@@ -99,11 +174,119 @@ public class AppointmentServiceImpl implements AppointmentService{
 
     @Override
     public List<Appointment> getAppointmentsByDateRange(LocalDateTime startDate, LocalDateTime endDate){
-        return appointmentRepo.findByAppointmentDateTimeBetween(startDate, endDate);
+        List<Appointment> appointments = appointmentRepo.findByAppointmentDateTimeBetween(startDate, endDate);
+        // recurring series are expanded for this window only, their occurrences have no id.
+        List<Appointment> occurrences = seriesIndex.occurrencesBetween(startDate, endDate);
+        if (occurrences.isEmpty()){
+            return appointments;
+        }
+        List<Appointment> merged = new ArrayList<>(appointments);
+        merged.addAll(occurrences);
+        merged.sort(Comparator.comparing(Appointment::getAppointmentDateTime,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return merged;
+    }
+
+    @Override
+    public AppointmentPageDTO getAppointmentsPage(Appointment.Status status, Long departmentId, String cursor,
+                                                  int limit){
+        if (limit <= 0 || limit > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+
+        // only the filters actually set become predicates, so the planner can pick the matching
+        // (..., appointment_date_time, id) index and seek to the cursor.
+        AppointmentCursor after = cursor == null || cursor.isBlank() ? null : AppointmentCursor.decode(cursor);
+        Specification<Appointment> specification = Specification.allOf(
+                AppointmentSpecifications.hasStatus(status),
+                AppointmentSpecifications.hasDepartment(departmentId),
+                AppointmentSpecifications.startsWithin(null, null),
+                after == null ? null : AppointmentSpecifications.after(after.appointmentDateTime(), after.id()));
+
+        // one extra row tells whether another page exists without a count query.
+        List<Appointment> rows = appointmentRepo.findBy(specification, query -> query
+                .sortBy(KEYSET_ORDER)
+                .limit(limit + 1)
+                .all());
+        return toKeysetPage(rows, limit);
+    }
+
+    // any combination of filters, answered by one query on the matching composite index, keyset paginated.
+    @Override
+    public AppointmentPageDTO searchAppointments(AppointmentSearchDTO criteria, String cursor, int limit){
+        if (criteria == null){
+            throw new IllegalArgumentException("Search criteria cannot be null.");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if (criteria.getFrom() != null && criteria.getTo() != null && !criteria.getTo().isAfter(criteria.getFrom())){
+            throw new IllegalArgumentException("'to' must be after 'from'.");
+        }
+        // a patient may only search within their own appointments, so patientId is required for them.
+        checkPatientAccess(criteria.getPatientId());
+
+        AppointmentCursor after = cursor == null || cursor.isBlank() ? null : AppointmentCursor.decode(cursor);
+        Specification<Appointment> specification = Specification.allOf(
+                AppointmentSpecifications.hasStatus(criteria.getStatus()),
+                AppointmentSpecifications.hasMedicalStaff(criteria.getMedicalStaffId()),
+                AppointmentSpecifications.hasPatient(criteria.getPatientId()),
+                AppointmentSpecifications.hasDepartment(criteria.getDepartmentId()),
+                AppointmentSpecifications.startsWithin(criteria.getFrom(), criteria.getTo()),
+                after == null ? null : AppointmentSpecifications.after(after.appointmentDateTime(), after.id()));
+
+        List<Appointment> rows = appointmentRepo.findBy(specification, query -> query
+                .sortBy(KEYSET_ORDER)
+                .limit(limit + 1)
+                .all());
+        return toKeysetPage(rows, limit);
+    }
+
+    // ranked by relevance over reason, diagnosis and notes, so pages are numbered rather than keyset based.
+    @Override
+    public List<AppointmentDTO> searchAppointmentsByText(String query, int page, int size){
+        if (query == null || query.isBlank()){
+            throw new IllegalArgumentException("Search query cannot be empty.");
+        }
+        if (query.length() > MAX_TEXT_QUERY_LENGTH){
+            throw new IllegalArgumentException("Search query cannot exceed " + MAX_TEXT_QUERY_LENGTH + " characters.");
+        }
+        if (page < 0){
+            throw new IllegalArgumentException("Page cannot be negative.");
+        }
+        if (size <= 0 || size > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        // notes and diagnoses of every patient are searched, a patient only reads their own appointments.
+        checkPatientAccess(null);
+
+        return appointmentRepo.searchByText(query.trim(), size, (long) page * size).stream()
+                .map(this::convertToDTO)
+                .toList();
     }
 
+    // rows holds up to limit + 1 entries, the extra one only signals that another page exists.
+    private AppointmentPageDTO toKeysetPage(List<Appointment> rows, int limit){
+        boolean hasMore = rows.size() > limit;
+        List<Appointment> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? AppointmentCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new AppointmentPageDTO(page.stream().map(this::convertToDTO).toList(), nextCursor);
+    }
+
+    // seriesId and seriesOccurrence of the DTO are ignored, an appointment only replaces a series occurrence
+    // through AppointmentSeriesServiceImpl.overrideOccurrence, which excludes the occurrence first.
     @Override
     public AppointmentDTO createAppointment(AppointmentDTO appointmentDTO){
+        return createAppointment(appointmentDTO, null, null);
+    }
+
+    // the replacement of an occurrence the series service has already checked and excluded
+    AppointmentDTO createOccurrenceOverride(AppointmentDTO replacement, Long seriesId, LocalDateTime occurrence){
+        return createAppointment(replacement, seriesId, occurrence);
+    }
+
+    private AppointmentDTO createAppointment(AppointmentDTO appointmentDTO, Long seriesId,
+                                             LocalDateTime seriesOccurrence){
 
         // - Used Deepseek external Ai to improve this method.
 
@@ -116,6 +299,10 @@ public class AppointmentServiceImpl implements AppointmentService{
       if (appointmentDTO.getPatientId() == null){
           throw new IllegalArgumentException("Patient cannot be null");
       }
+      if (appointmentDTO.getAppointmentDateTime() == null){
+          throw new IllegalArgumentException("Appointment date cannot be null");
+      }
+      int duration = resolveDuration(appointmentDTO.getAppointmentDuration());
 
       Patient patient = patientRepo.findById(appointmentDTO.getPatientId())
               .orElseThrow(()-> new ResourceNotFound("Patient not found with id: " +
@@ -125,26 +312,16 @@ public class AppointmentServiceImpl implements AppointmentService{
               .orElseThrow(()-> new ResourceNotFound("Medical staff not found with id: " +
                       appointmentDTO.getMedicalStaffId()));
 
-      Optional<Appointment> existing = appointmentRepo.findByMedicalStaffAndAppointmentDateTime(medicalStaff,
-              appointmentDTO.getAppointmentDateTime());
-
-      if (existing.isPresent()){
-          throw new DuplicateResourceException("Appointment already exists at this time for this medical staff.");
-      }
-
-      Optional<Appointment> patientConflict= appointmentRepo.findByPatientAndAppointmentDateTime(patient,
-              appointmentDTO.getAppointmentDateTime());
-
-      if (patientConflict.isPresent()){
-          throw new ConflictException("Patient already have appointment at this time.");
-      }
-
       //convert dto to entity
         Appointment appointment = new Appointment();
       appointment.setPatient(patient);
       appointment.setMedicalStaff(medicalStaff);
       appointment.setAppointmentDateTime(appointmentDTO.getAppointmentDateTime());
+      appointment.setAppointmentDuration(duration);
       appointment.setReason(appointmentDTO.getReason());
+      appointment.setDepartment(medicalStaff.getDepartment());
+      appointment.setSeriesId(seriesId);
+      appointment.setSeriesOccurrence(seriesOccurrence);
 
       if (appointmentDTO.getStatus() != null) {
           try {
@@ -156,8 +333,40 @@ public class AppointmentServiceImpl implements AppointmentService{
           appointment.setStatus(Appointment.Status.SCHEDULED);
           }
 
-      // save and return to convertToDTO
-      Appointment savedAppointment = appointmentRepo.save(appointment);
+      // check and save while holding the staff/day lock so concurrent bookings for this doctor are serialized.
+      List<BookingCoordinator.StaffDay> lockKeys = BookingCoordinator.keysFor(medicalStaff.getId(),
+              appointmentDTO.getAppointmentDateTime(), duration);
+      Appointment savedAppointment = bookingCoordinator.withStaffDayLocks(lockKeys, () -> {
+
+          // overlap checks honor the appointment duration and are answered by the in-memory interval index.
+          if (intervalIndex.findStaffConflict(medicalStaff.getId(), appointmentDTO.getAppointmentDateTime(),
+                  duration, null).isPresent()
+                  || seriesIndex.findStaffConflict(medicalStaff.getId(), appointmentDTO.getAppointmentDateTime(),
+                  duration, null).isPresent()){
+              throw new DuplicateResourceException("Appointment already exists at this time for this medical staff.");
+          }
+
+          if (intervalIndex.findPatientConflict(patient.getId(), appointmentDTO.getAppointmentDateTime(),
+                  duration, null).isPresent()
+                  || seriesIndex.findPatientConflict(patient.getId(), appointmentDTO.getAppointmentDateTime(),
+                  duration, null).isPresent()){
+              throw new ConflictException("Patient already have appointment at this time.");
+          }
+
+          // a slot held by another booking flow is taken until the hold is used, released or expires.
+          if (holdRegistry.findConflict(medicalStaff.getId(), appointmentDTO.getAppointmentDateTime(), duration,
+                  appointmentDTO.getHoldId()).isPresent()){
+              throw new ConflictException("Slot is held by another booking for this medical staff.");
+          }
+
+          // save and return to convertToDTO
+          Appointment saved = saveGuarded(appointment);
+          holdRegistry.consume(appointmentDTO.getHoldId(), medicalStaff.getId(), saved.getAppointmentDateTime(),
+                  duration);
+          intervalIndex.add(saved);
+          eventPublisher.publishEvent(AppointmentChangedEvent.created(AppointmentSnapshot.of(saved)));
+          return saved;
+      });
         System.out.println("Appointment created with id: " + savedAppointment.getId());
 
       return convertToDTO(savedAppointment);
@@ -180,48 +389,51 @@ public class AppointmentServiceImpl implements AppointmentService{
             throw new SecurityException("Medical Staff does not have permission for this operation.");
         }
 
+        AppointmentSnapshot deleted = AppointmentSnapshot.of(appointment);
         appointmentRepo.deleteById(id);
+        intervalIndex.remove(id, medicalStaff.getId(), patient.getId());
+        eventPublisher.publishEvent(AppointmentChangedEvent.deleted(deleted));
         System.out.println("Appointment #" + id + " deleted for patient " + patient.getFirstName() +
                 " " + patient.getLastName());
     }
 
     @Override
     public AppointmentDTO updateAppointment(Long id,AppointmentDTO appointmentDTO){
+        return updateAppointment(id, appointmentDTO, null);
+    }
+
+    // expectedVersion, when given, is checked on load and set on the entity so @Version also rejects a write
+    // that lands between the check and the save.
+    private AppointmentDTO updateAppointment(Long id, AppointmentDTO appointmentDTO, Long expectedVersion){
 
         // 1. find existing appointment.
         Appointment existingAppointment = appointmentRepo.findById(id)
                 .orElseThrow(()-> new ResourceNotFound("Appointment with id #" + id + " not found."));
+        if (expectedVersion != null && !expectedVersion.equals(existingAppointment.getVersion())){
+            throw new PreconditionFailedException("Appointment #" + id + " was modified by someone else.");
+        }
 
         //2. validate input
         if (appointmentDTO == null){
             throw new IllegalArgumentException("AppointmentDTO cannot be null.");
         }
 
+        // remember the current slot so the interval index can be updated after saving.
+        AppointmentSnapshot previous = AppointmentSnapshot.of(existingAppointment);
+        LocalDateTime previousDateTime = existingAppointment.getAppointmentDateTime();
+        int previousDuration = AppointmentIntervalIndex.durationOf(existingAppointment);
+        Appointment.Status previousStatus = existingAppointment.getStatus();
+        Long previousStaffId = existingAppointment.getMedicalStaff() != null
+                ? existingAppointment.getMedicalStaff().getId() : null;
+        Long previousPatientId = existingAppointment.getPatient() != null
+                ? existingAppointment.getPatient().getId() : null;
+
         // 3. update field from DTO (only non-null fields)
         if (appointmentDTO.getAppointmentDateTime() !=null){
-            if (!existingAppointment.getAppointmentDateTime().equals(appointmentDTO.getAppointmentDateTime())){
-
-                MedicalStaff medicalStaff = existingAppointment.getMedicalStaff();
-                if (appointmentDTO.getMedicalStaffId() != null ){
-                    medicalStaff= medicalStaffRepo.findById(appointmentDTO.getMedicalStaffId())
-                            .orElse(existingAppointment.getMedicalStaff());
-                }
-                existingAppointment.setAppointmentDateTime(appointmentDTO.getAppointmentDateTime());
-
-                Patient patient  = existingAppointment.getPatient();
-                if (appointmentDTO.getPatientId() !=null ){
-                    patient = patientRepo.findById(appointmentDTO.getPatientId())
-                            .orElse(existingAppointment.getPatient());
-                }
-
-                //staff conflict check
-                Optional<Appointment> staffConflict  = appointmentRepo
-                        .findByMedicalStaffAndAppointmentDateTime(medicalStaff, appointmentDTO.getAppointmentDateTime());
-                if (staffConflict.isPresent() && !staffConflict.get().getId().equals(id)){
-                    throw new ConflictException("Medical staff already has appointment at this time.");
-                }
-
-            }
+            existingAppointment.setAppointmentDateTime(appointmentDTO.getAppointmentDateTime());
+        }
+        if (appointmentDTO.getAppointmentDuration() != null){
+            existingAppointment.setAppointmentDuration(resolveDuration(appointmentDTO.getAppointmentDuration()));
         }
         if (appointmentDTO.getReason() != null){
             existingAppointment.setReason(appointmentDTO.getReason());
@@ -244,14 +456,355 @@ public class AppointmentServiceImpl implements AppointmentService{
             MedicalStaff medicalStaff = medicalStaffRepo.findById(appointmentDTO.getMedicalStaffId())
                     .orElseThrow(()-> new ResourceNotFound("Medical staff not found."));
             existingAppointment.setMedicalStaff(medicalStaff);
+            existingAppointment.setDepartment(medicalStaff.getDepartment());
         }
 
-        //save and return DTO
+        // 4. re-check overlaps when the appointment moved in time, changed length or participants.
+        LocalDateTime dateTime = existingAppointment.getAppointmentDateTime();
+        int duration = AppointmentIntervalIndex.durationOf(existingAppointment);
+        Long staffId = existingAppointment.getMedicalStaff().getId();
+        Long patientId = existingAppointment.getPatient().getId();
+        boolean rescheduled = !Objects.equals(previousDateTime, dateTime)
+                || previousDuration != duration
+                || !Objects.equals(previousStaffId, staffId)
+                || !Objects.equals(previousPatientId, patientId)
+                || previousStatus == Appointment.Status.CANCELLED;
+
+        // lock both the old and the new staff/day so the index moves the slot atomically for other bookings.
+        List<BookingCoordinator.StaffDay> lockKeys = new ArrayList<>();
+        if (dateTime != null){
+            lockKeys.addAll(BookingCoordinator.keysFor(staffId, dateTime, duration));
+        }
+        if (previousDateTime != null && previousStaffId != null){
+            lockKeys.addAll(BookingCoordinator.keysFor(previousStaffId, previousDateTime, previousDuration));
+        }
+
+        Appointment updatedAppointment = bookingCoordinator.withStaffDayLocks(lockKeys, () -> {
+            if (rescheduled && dateTime != null && existingAppointment.getStatus() != Appointment.Status.CANCELLED){
+                //staff conflict check
+                if (intervalIndex.findStaffConflict(staffId, dateTime, duration, id).isPresent()
+                        || seriesIndex.findStaffConflict(staffId, dateTime, duration, null).isPresent()){
+                    throw new ConflictException("Medical staff already has appointment at this time.");
+                }
+
+                //patient conflict check
+                if (intervalIndex.findPatientConflict(patientId, dateTime, duration, id).isPresent()
+                        || seriesIndex.findPatientConflict(patientId, dateTime, duration, null).isPresent()){
+                    throw new ConflictException("Patient already have appointment at this time.");
+                }
+
+                if (holdRegistry.findConflict(staffId, dateTime, duration, appointmentDTO.getHoldId()).isPresent()){
+                    throw new ConflictException("Slot is held by another booking for this medical staff.");
+                }
+            }
 
-        Appointment updatedAppointment = appointmentRepo.save(existingAppointment);
+            //save and return DTO
+            if (expectedVersion != null){
+                existingAppointment.setVersion(expectedVersion);
+            }
+            Appointment updated = saveGuarded(existingAppointment);
+            holdRegistry.consume(appointmentDTO.getHoldId(), staffId, dateTime, duration);
+            intervalIndex.remove(id, previousStaffId, previousPatientId);
+            intervalIndex.add(updated);
+            eventPublisher.publishEvent(AppointmentChangedEvent.updated(previous, AppointmentSnapshot.of(updated)));
+            return updated;
+        });
         return convertToDTO(updatedAppointment);
     }
 
+    @Override
+    public AppointmentDTO updateAppointmentStatus(Long id, Appointment.Status status, Long expectedVersion){
+        if (status == null){
+            throw new IllegalArgumentException("Status cannot be null.");
+        }
+
+        // the common case (check-in, complete, cancel) is one conditional UPDATE ... RETURNING.
+        Optional<AppointmentDTO> updated = statusTransitions.transitionOne(id, status, expectedVersion);
+        if (updated.isPresent()){
+            return updated.get();
+        }
+
+        // nothing matched: a missing row, a stale version, or a cancelled appointment coming back, which
+        // takes the full path with overlap checks under the same expected version.
+        AppointmentDTO statusOnly = new AppointmentDTO();
+        statusOnly.setStatus(status);
+        return updateAppointment(id, statusOnly, expectedVersion);
+    }
+
+    @Override
+    public BulkAppointmentResultDTO createAppointments(List<AppointmentDTO> appointmentDTOs){
+        if (appointmentDTOs == null || appointmentDTOs.isEmpty()){
+            throw new IllegalArgumentException("Appointments cannot be empty.");
+        }
+        if (appointmentDTOs.size() > MAX_BULK_SIZE){
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " appointments can be booked at once.");
+        }
+
+        BulkAppointmentItemDTO[] results = new BulkAppointmentItemDTO[appointmentDTOs.size()];
+
+        // 1. validate every item on its own.
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < appointmentDTOs.size(); i++){
+            String problem = validateBulkItem(appointmentDTOs.get(i));
+            if (problem != null){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.INVALID, null, problem);
+            } else {
+                pending.add(i);
+            }
+        }
+
+        // 2. load every referenced patient and medical staff with one query each.
+        Set<Long> patientIds = new HashSet<>();
+        Set<Long> staffIds = new HashSet<>();
+        for (int i : pending){
+            patientIds.add(appointmentDTOs.get(i).getPatientId());
+            staffIds.add(appointmentDTOs.get(i).getMedicalStaffId());
+        }
+        Map<Long, Patient> patients = patientRepo.findAllById(patientIds).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        Map<Long, MedicalStaff> medicalStaff = medicalStaffRepo.findAllById(staffIds).stream()
+                .collect(Collectors.toMap(MedicalStaff::getId, Function.identity()));
+
+        List<BookingCoordinator.StaffDay> lockKeys = new ArrayList<>();
+        for (Iterator<Integer> it = pending.iterator(); it.hasNext(); ){
+            int i = it.next();
+            AppointmentDTO dto = appointmentDTOs.get(i);
+            if (!patients.containsKey(dto.getPatientId())){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.INVALID, null,
+                        "Patient not found with id: " + dto.getPatientId());
+                it.remove();
+            } else if (!medicalStaff.containsKey(dto.getMedicalStaffId())){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.INVALID, null,
+                        "Medical staff not found with id: " + dto.getMedicalStaffId());
+                it.remove();
+            } else {
+                lockKeys.addAll(BookingCoordinator.keysFor(dto.getMedicalStaffId(), dto.getAppointmentDateTime(),
+                        resolveDuration(dto.getAppointmentDuration())));
+            }
+        }
+
+        // 3. check and insert the whole batch while holding every staff/day lock it touches.
+        if (!pending.isEmpty()){
+            bookingCoordinator.withStaffDayLocks(lockKeys, () -> {
+                bookBulk(appointmentDTOs, pending, patients, medicalStaff, results);
+                return null;
+            });
+        }
+
+        List<BulkAppointmentItemDTO> items = Arrays.asList(results);
+        BulkAppointmentResultDTO result = new BulkAppointmentResultDTO();
+        result.setCreated(countResults(items, BulkAppointmentItemDTO.Result.CREATED));
+        result.setConflicts(countResults(items, BulkAppointmentItemDTO.Result.CONFLICT));
+        result.setInvalid(countResults(items, BulkAppointmentItemDTO.Result.INVALID));
+        result.setItems(items);
+        log.info("Bulk booking finished: {} created, {} conflicts, {} invalid",
+                result.getCreated(), result.getConflicts(), result.getInvalid());
+        return result;
+    }
+
+    private void bookBulk(List<AppointmentDTO> appointmentDTOs, List<Integer> pending, Map<Long, Patient> patients,
+                          Map<Long, MedicalStaff> medicalStaff, BulkAppointmentItemDTO[] results){
+
+        // existing bookings around the batch, two set-based queries instead of two lookups per item.
+        LocalDateTime windowStart = null;
+        LocalDateTime windowEnd = null;
+        for (int i : pending){
+            AppointmentDTO dto = appointmentDTOs.get(i);
+            LocalDateTime start = dto.getAppointmentDateTime();
+            LocalDateTime end = start.plusMinutes(resolveDuration(dto.getAppointmentDuration()));
+            windowStart = windowStart == null || start.isBefore(windowStart) ? start : windowStart;
+            windowEnd = windowEnd == null || end.isAfter(windowEnd) ? end : windowEnd;
+        }
+        LocalDateTime from = windowStart.minusHours(BULK_LOOKBACK_HOURS);
+        Map<Long, AppointmentIntervalIndex.Timeline> staffTimelines = timelinesBy(
+                appointmentRepo.findByMedicalStaffIdsInWindow(medicalStaff.keySet(), Appointment.Status.CANCELLED,
+                        from, windowEnd), a -> a.getMedicalStaff().getId());
+        Map<Long, AppointmentIntervalIndex.Timeline> patientTimelines = timelinesBy(
+                appointmentRepo.findByPatientIdsInWindow(patients.keySet(), Appointment.Status.CANCELLED,
+                        from, windowEnd), a -> a.getPatient().getId());
+
+        // items accepted earlier in the batch occupy time for the later ones under a provisional negative id.
+        List<Appointment> toSave = new ArrayList<>();
+        List<Integer> toSaveIndexes = new ArrayList<>();
+        long provisionalId = 0;
+        for (int i : pending){
+            AppointmentDTO dto = appointmentDTOs.get(i);
+            LocalDateTime start = dto.getAppointmentDateTime();
+            int duration = resolveDuration(dto.getAppointmentDuration());
+            LocalDateTime end = start.plusMinutes(duration);
+
+            AppointmentIntervalIndex.Timeline staffTimeline = staffTimelines.computeIfAbsent(dto.getMedicalStaffId(),
+                    id -> new AppointmentIntervalIndex.Timeline());
+            AppointmentIntervalIndex.Timeline patientTimeline = patientTimelines.computeIfAbsent(dto.getPatientId(),
+                    id -> new AppointmentIntervalIndex.Timeline());
+
+            if (staffTimeline.findOverlap(start, end, null).isPresent()
+                    || seriesIndex.findStaffConflict(dto.getMedicalStaffId(), start, duration, null).isPresent()){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.CONFLICT, null,
+                        "Medical staff already has appointment at this time.");
+                continue;
+            }
+            if (patientTimeline.findOverlap(start, end, null).isPresent()
+                    || seriesIndex.findPatientConflict(dto.getPatientId(), start, duration, null).isPresent()){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.CONFLICT, null,
+                        "Patient already have appointment at this time.");
+                continue;
+            }
+            if (holdRegistry.findConflict(dto.getMedicalStaffId(), start, duration, dto.getHoldId()).isPresent()){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.CONFLICT, null,
+                        "Slot is held by another booking for this medical staff.");
+                continue;
+            }
+            AppointmentIntervalIndex.Interval interval = new AppointmentIntervalIndex.Interval(--provisionalId,
+                    start, duration);
+            staffTimeline.put(interval);
+            patientTimeline.put(interval);
+
+            Appointment appointment = new Appointment();
+            appointment.setPatient(patients.get(dto.getPatientId()));
+            appointment.setMedicalStaff(medicalStaff.get(dto.getMedicalStaffId()));
+            appointment.setAppointmentDateTime(start);
+            appointment.setAppointmentDuration(duration);
+            appointment.setReason(dto.getReason());
+            appointment.setDepartment(appointment.getMedicalStaff().getDepartment());
+            appointment.setStatus(dto.getStatus() != null ? dto.getStatus() : Appointment.Status.SCHEDULED);
+            toSave.add(appointment);
+            toSaveIndexes.add(i);
+        }
+
+        if (toSave.isEmpty()){
+            return;
+        }
+        // ids come from the pooled sequence, so Hibernate groups these into JDBC batch inserts.
+        List<Appointment> saved;
+        try {
+            saved = appointmentRepo.saveAll(toSave);
+        } catch (DataIntegrityViolationException e){
+            overlapRejected(e, toSave);
+            // a booking outside this batch won a race for one slot, only that item loses.
+            saveIndividually(appointmentDTOs, toSave, toSaveIndexes, results);
+            return;
+        }
+        for (int k = 0; k < saved.size(); k++){
+            bookedInBulk(appointmentDTOs, toSaveIndexes.get(k), saved.get(k), results);
+        }
+    }
+
+    // the failed batch was rolled back as a whole: every item is checked again against the reloaded
+    // timelines and inserted on its own, so the database rejects at most the items that really clash.
+    private void saveIndividually(List<AppointmentDTO> appointmentDTOs, List<Appointment> toSave,
+                                  List<Integer> toSaveIndexes, BulkAppointmentItemDTO[] results){
+        for (int k = 0; k < toSave.size(); k++){
+            Appointment appointment = toSave.get(k);
+            int i = toSaveIndexes.get(k);
+            appointment.setId(null);
+            appointment.setVersion(null);
+            LocalDateTime start = appointment.getAppointmentDateTime();
+            int duration = AppointmentIntervalIndex.durationOf(appointment);
+            if (intervalIndex.findStaffConflict(appointment.getMedicalStaff().getId(), start, duration, null).isPresent()){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.CONFLICT, null,
+                        "Medical staff already has appointment at this time.");
+                continue;
+            }
+            if (intervalIndex.findPatientConflict(appointment.getPatient().getId(), start, duration, null).isPresent()){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.CONFLICT, null,
+                        "Patient already have appointment at this time.");
+                continue;
+            }
+            try {
+                bookedInBulk(appointmentDTOs, i, saveGuarded(appointment), results);
+            } catch (ConflictException e){
+                results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.CONFLICT, null,
+                        e.getMessage());
+            }
+        }
+    }
+
+    private void bookedInBulk(List<AppointmentDTO> appointmentDTOs, int i, Appointment appointment,
+                              BulkAppointmentItemDTO[] results){
+        results[i] = new BulkAppointmentItemDTO(i, BulkAppointmentItemDTO.Result.CREATED, appointment.getId(), null);
+        holdRegistry.consume(appointmentDTOs.get(i).getHoldId(), appointmentDTOs.get(i).getMedicalStaffId(),
+                appointment.getAppointmentDateTime(), AppointmentIntervalIndex.durationOf(appointment));
+        intervalIndex.add(appointment);
+        eventPublisher.publishEvent(AppointmentChangedEvent.created(AppointmentSnapshot.of(appointment)));
+    }
+
+    private String validateBulkItem(AppointmentDTO appointmentDTO){
+        if (appointmentDTO == null){
+            return "Appointment cannot be null";
+        }
+        if (appointmentDTO.getMedicalStaffId() == null){
+            return "Medical staff cannot be null";
+        }
+        if (appointmentDTO.getPatientId() == null){
+            return "Patient cannot be null";
+        }
+        if (appointmentDTO.getAppointmentDateTime() == null){
+            return "Appointment date cannot be null";
+        }
+        if (appointmentDTO.getAppointmentDuration() != null && appointmentDTO.getAppointmentDuration() <= 0){
+            return "Appointment duration must be positive.";
+        }
+        if (appointmentDTO.getAppointmentDuration() != null
+                && appointmentDTO.getAppointmentDuration() > AppointmentIntervalIndex.MAX_DURATION_MINUTES){
+            return "Appointment duration cannot exceed " + AppointmentIntervalIndex.MAX_DURATION_MINUTES + " minutes.";
+        }
+        return null;
+    }
+
+    private static Map<Long, AppointmentIntervalIndex.Timeline> timelinesBy(List<Appointment> appointments,
+                                                                           Function<Appointment, Long> key){
+        Map<Long, AppointmentIntervalIndex.Timeline> timelines = new HashMap<>();
+        appointments.stream()
+                .collect(Collectors.groupingBy(key))
+                .forEach((id, list) -> timelines.put(id, AppointmentIntervalIndex.Timeline.of(list)));
+        return timelines;
+    }
+
+    private static int countResults(List<BulkAppointmentItemDTO> items, BulkAppointmentItemDTO.Result result){
+        return (int) items.stream().filter(item -> item.getResult() == result).count();
+    }
+
+    // the exclusion constraints on appointments are the final word when two bookings race past the index check.
+    private Appointment saveGuarded(Appointment appointment){
+        try {
+            return appointmentRepo.save(appointment);
+        } catch (DataIntegrityViolationException e){
+            throw overlapRejected(e, List.of(appointment));
+        } catch (OptimisticLockingFailureException e){
+            throw new ConflictException("Appointment was modified by someone else, please retry.");
+        }
+    }
+
+    private ConflictException overlapRejected(DataIntegrityViolationException e, List<Appointment> appointments){
+        ConflictException conflict = AppointmentOverlapConstraints.translate(e).orElseThrow(() -> e);
+        log.warn("Overlapping appointment rejected by database: {}", conflict.getMessage());
+        // the index missed a concurrent booking, reload these timelines from the database next time.
+        for (Appointment appointment : appointments){
+            if (appointment.getMedicalStaff() != null){
+                intervalIndex.evictStaff(appointment.getMedicalStaff().getId());
+            }
+            if (appointment.getPatient() != null){
+                intervalIndex.evictPatient(appointment.getPatient().getId());
+            }
+        }
+        return conflict;
+    }
+
+    private int resolveDuration(Integer appointmentDuration){
+        if (appointmentDuration == null){
+            return AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES;
+        }
+        if (appointmentDuration <= 0){
+            throw new IllegalArgumentException("Appointment duration must be positive.");
+        }
+        if (appointmentDuration > AppointmentIntervalIndex.MAX_DURATION_MINUTES){
+            throw new IllegalArgumentException("Appointment duration cannot exceed "
+                    + AppointmentIntervalIndex.MAX_DURATION_MINUTES + " minutes.");
+        }
+        return appointmentDuration;
+    }
+
     // dto test
     public AppointmentDTO convertToDTO(Appointment appointment){
         AppointmentDTO dto = new AppointmentDTO();
@@ -264,6 +817,9 @@ public class AppointmentServiceImpl implements AppointmentService{
         dto.setReason(appointment.getReason());
         dto.setNotes(appointment.getNotes());
         dto.setAppointmentDuration(appointment.getAppointmentDuration());
+        dto.setVersion(appointment.getVersion());
+        dto.setSeriesId(appointment.getSeriesId());
+        dto.setSeriesOccurrence(appointment.getSeriesOccurrence());
 
         if (appointment.getDepartment() !=null){
             dto.setDepartmentId(appointment.getDepartment().getId());
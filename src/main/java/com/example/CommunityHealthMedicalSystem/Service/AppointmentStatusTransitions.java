@@ -0,0 +1,173 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Set-based status changes. Each chunk is a single UPDATE ... RETURNING statement that commits
+ * on its own, so row locks on appointments are held for one chunk only. The returned rows are
+ * published as AppointmentChangedEvent like any other write.
+ */
+@Slf4j
+@Component
+public class AppointmentStatusTransitions {
+
+    public static final int MAX_IDS = 10_000;
+    static final int ID_CHUNK_SIZE = 500;
+
+    private static final String RETURNING = " RETURNING a.id, t.old_status, a.patient_id, a.medical_staff_id, " +
+            "a.department_id, a.appointment_date_time, a.duration_minutes";
+
+    // locked rows belong to a booking in progress, they are picked up by the next chunk or run.
+    private static final String MARK_OVERDUE =
+            "WITH t AS (SELECT id, status AS old_status FROM appointments " +
+            "WHERE status = 'SCHEDULED' AND appointment_date_time < ? " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "UPDATE appointments a SET status = 'NO_SHOW', version = a.version + 1 FROM t WHERE a.id = t.id" + RETURNING;
+
+    // cancelled rows are left alone, reviving them needs the overlap checks of updateAppointment.
+    private static final String TRANSITION_IDS =
+            "WITH t AS (SELECT id, status AS old_status FROM appointments " +
+            "WHERE id = ANY(?) AND status <> ? AND status <> 'CANCELLED' ORDER BY id FOR UPDATE) " +
+            "UPDATE appointments a SET status = ?, version = a.version + 1 FROM t WHERE a.id = t.id" + RETURNING;
+
+    // joining the row to itself exposes the pre-update status in RETURNING, all in one round trip.
+    // a cancelled appointment is only revived through updateAppointment, which checks overlaps.
+    private static final String TRANSITION_ONE =
+            "UPDATE appointments a SET status = ?, version = a.version + 1 " +
+            "FROM appointments t WHERE a.id = ? AND t.id = a.id " +
+            "AND (a.status <> 'CANCELLED' OR ? = 'CANCELLED')";
+
+    private static final String TRANSITION_ONE_RETURNING = " RETURNING a.id, t.status AS old_status, a.patient_id, " +
+            "a.medical_staff_id, a.department_id, a.appointment_date_time, a.duration_minutes, a.version, " +
+            "a.reason, a.notes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppointmentIntervalIndex intervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AppointmentStatusTransitions(JdbcTemplate jdbcTemplate, AppointmentIntervalIndex intervalIndex,
+                                        ApplicationEventPublisher eventPublisher){
+        this.jdbcTemplate = jdbcTemplate;
+        this.intervalIndex = intervalIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // one chunk of SCHEDULED appointments that started before cutoff moved to NO_SHOW, returns the rows changed
+    public int markOverdueAsNoShow(LocalDateTime cutoff, int chunkSize){
+        List<AppointmentSnapshot> changed = jdbcTemplate.query(MARK_OVERDUE, this::mapPrevious,
+                Timestamp.valueOf(cutoff), chunkSize);
+        changed.forEach(previous -> publish(previous, Appointment.Status.NO_SHOW));
+        return changed.size();
+    }
+
+    // single conditional status update guarded by the expected version, empty when no row matched
+    public Optional<AppointmentDTO> transitionOne(Long id, Appointment.Status status, Long expectedVersion){
+        if (status == null){
+            throw new IllegalArgumentException("Status cannot be null.");
+        }
+        String sql = TRANSITION_ONE + (expectedVersion != null ? " AND a.version = ?" : "") + TRANSITION_ONE_RETURNING;
+        Object[] args = expectedVersion != null
+                ? new Object[]{status.name(), id, status.name(), expectedVersion}
+                : new Object[]{status.name(), id, status.name()};
+
+        List<Transitioned> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            AppointmentSnapshot previous = mapPrevious(rs, rowNum);
+            AppointmentDTO dto = new AppointmentDTO();
+            dto.setId(previous.id());
+            dto.setPatientId(previous.patientId());
+            dto.setMedicalStaffId(previous.medicalStaffId());
+            dto.setDepartmentId(previous.departmentId());
+            dto.setStatus(status);
+            dto.setAppointmentDateTime(previous.appointmentDateTime());
+            dto.setAppointmentDuration(rs.getObject("duration_minutes", Integer.class));
+            dto.setReason(rs.getString("reason"));
+            dto.setNotes(rs.getString("notes"));
+            dto.setVersion(rs.getLong("version"));
+            return new Transitioned(previous, dto);
+        }, args);
+
+        return rows.stream().findFirst().map(row -> {
+            publish(row.previous(), status);
+            return row.current();
+        });
+    }
+
+    private record Transitioned(AppointmentSnapshot previous, AppointmentDTO current) {
+    }
+
+    // moves every listed appointment to status, returns the ids that actually changed
+    public List<Long> transition(Collection<Long> ids, Appointment.Status status){
+        if (status == null){
+            throw new IllegalArgumentException("Status cannot be null.");
+        }
+        if (status == Appointment.Status.SCHEDULED){
+            throw new IllegalArgumentException("Appointments cannot be moved back to SCHEDULED in bulk.");
+        }
+        if (ids == null || ids.isEmpty()){
+            throw new IllegalArgumentException("Appointment ids cannot be empty.");
+        }
+        if (ids.size() > MAX_IDS){
+            throw new IllegalArgumentException("At most " + MAX_IDS + " appointments can be updated at once.");
+        }
+
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        List<Long> updated = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += ID_CHUNK_SIZE){
+            Long[] chunk = distinct.subList(from, Math.min(from + ID_CHUNK_SIZE, distinct.size())).toArray(Long[]::new);
+            List<AppointmentSnapshot> changed = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(TRANSITION_IDS);
+                statement.setArray(1, connection.createArrayOf("bigint", chunk));
+                statement.setString(2, status.name());
+                statement.setString(3, status.name());
+                return statement;
+            }, (RowMapper<AppointmentSnapshot>) this::mapPrevious);
+            for (AppointmentSnapshot previous : changed){
+                publish(previous, status);
+                updated.add(previous.id());
+            }
+        }
+        log.info("Bulk status transition to {}: {} of {} appointments updated", status, updated.size(), distinct.size());
+        return updated;
+    }
+
+    // the row as it was before the update
+    private AppointmentSnapshot mapPrevious(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp dateTime = rs.getTimestamp("appointment_date_time");
+        int duration = rs.getInt("duration_minutes");
+        return new AppointmentSnapshot(
+                rs.getLong("id"),
+                rs.getObject("patient_id", Long.class),
+                rs.getObject("medical_staff_id", Long.class),
+                rs.getObject("department_id", Long.class),
+                dateTime != null ? dateTime.toLocalDateTime() : null,
+                duration > 0 ? duration : Appointment.DEFAULT_DURATION_MINUTES,
+                Appointment.Status.valueOf(rs.getString("old_status")));
+    }
+
+    private void publish(AppointmentSnapshot previous, Appointment.Status status){
+        AppointmentSnapshot current = new AppointmentSnapshot(previous.id(), previous.patientId(),
+                previous.medicalStaffId(), previous.departmentId(), previous.appointmentDateTime(),
+                previous.durationMinutes(), status);
+        if (status == Appointment.Status.CANCELLED){
+            // cancelled appointments free their slot.
+            intervalIndex.remove(previous.id(), previous.medicalStaffId(), previous.patientId());
+        }
+        eventPublisher.publishEvent(AppointmentChangedEvent.updated(previous, current));
+    }
+}
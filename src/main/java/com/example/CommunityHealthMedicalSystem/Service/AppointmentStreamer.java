@@ -0,0 +1,76 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes appointments as newline delimited JSON while they are read from a database cursor.
+ * The persistence context is cleared every few hundred rows, dropping the appointments and the
+ * patient, staff and department proxies they brought in, so memory stays flat no matter how many
+ * rows are exported.
+ */
+@Slf4j
+@Component
+public class AppointmentStreamer {
+
+    // rows between output flushes and persistence context clears
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final AppointmentRepository appointmentRepo;
+    private final AppointmentServiceImpl appointmentService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter writer;
+
+    public AppointmentStreamer(AppointmentRepository appointmentRepo, AppointmentServiceImpl appointmentService,
+                               EntityManager entityManager, PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper){
+        this.appointmentRepo = appointmentRepo;
+        this.appointmentService = appointmentService;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writer = objectMapper.writer();
+    }
+
+    // returns the number of rows written
+    public long writeNdjson(Appointment.Status status, Long departmentId, OutputStream out){
+        // PostgreSQL only uses a server-side cursor inside a transaction, otherwise it buffers the whole result.
+        Long written = readOnlyTransaction.execute(tx -> {
+            long count = 0;
+            try (Stream<Appointment> rows = appointmentRepo.streamByStatusAndDepartment(status, departmentId)){
+                Iterator<Appointment> it = rows.iterator();
+                while (it.hasNext()){
+                    Appointment appointment = it.next();
+                    out.write(writer.writeValueAsBytes(appointmentService.convertToDTO(appointment)));
+                    out.write('\n');
+                    if (++count % FLUSH_EVERY_ROWS == 0){
+                        out.flush();
+                        // read only, nothing to flush; detach alone would leave the proxies behind.
+                        entityManager.clear();
+                    }
+                }
+                out.flush();
+            } catch (IOException e){
+                // the client went away, stop reading from the cursor.
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        log.debug("Streamed {} appointments", written);
+        return written != null ? written : 0;
+    }
+}
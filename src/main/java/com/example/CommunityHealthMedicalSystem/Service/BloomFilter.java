@@ -0,0 +1,83 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import org.apache.commons.codec.digest.MurmurHash3;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over strings. Sized for expectedInsertions at falsePositiveRate; the k
+ * bit positions of a value come from one 128-bit MurmurHash3 by double hashing. Bits are only
+ * ever set, so concurrent puts and lookups need no lock and a lookup never misses a value put
+ * before it.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate){
+        long insertions = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        // whole 64-bit words, at most Integer.MAX_VALUE of them.
+        int wordCount = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / insertions * Math.log(2)));
+    }
+
+    void put(String value){
+        long[] hash = hash(value);
+        for (int i = 0; i < hashCount; i++){
+            long bit = index(hash, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0){
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+            if ((current & mask) == 0){
+                bitsSet.incrementAndGet();
+            }
+        }
+    }
+
+    boolean mightContain(String value){
+        long[] hash = hash(value);
+        for (int i = 0; i < hashCount; i++){
+            long bit = index(hash, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // probability that a value never put is reported present, from the share of bits already set
+    double expectedFalsePositiveRate(){
+        return Math.pow((double) bitsSet.get() / bitSize, hashCount);
+    }
+
+    long bitSize(){
+        return bitSize;
+    }
+
+    int hashCount(){
+        return hashCount;
+    }
+
+    private long index(long[] hash, int i){
+        return Math.floorMod(hash[0] + i * hash[1], bitSize);
+    }
+
+    private static long[] hash(String value){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return MurmurHash3.hash128x64(bytes, 0, bytes.length, 0);
+    }
+}
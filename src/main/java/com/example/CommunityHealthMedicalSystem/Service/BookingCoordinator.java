@@ -0,0 +1,110 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes bookings for the same medical staff member and day without blocking bookings
+ * for anyone else. Each (staff, day) pair hashes onto one of a fixed number of lock stripes,
+ * so contention grows with the number of busy doctors, not with total request volume.
+ */
+@Component
+public class BookingCoordinator {
+
+    private final ReentrantLock[] stripes;
+    private final long lockTimeoutMillis;
+    private final Timer lockWait;
+    private final Counter lockTimeouts;
+
+    @Autowired
+    public BookingCoordinator(MeterRegistry meterRegistry,
+                              @Value("${booking.lock.stripes:256}") int stripeCount,
+                              @Value("${booking.lock.timeout-ms:5000}") long lockTimeoutMillis){
+        if (stripeCount <= 0){
+            throw new IllegalArgumentException("Lock stripe count must be positive.");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++){
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        this.lockWait = Timer.builder("booking.lock.wait")
+                .description("Time spent waiting for the per staff/day booking lock")
+                .register(meterRegistry);
+        this.lockTimeouts = Counter.builder("booking.lock.timeouts")
+                .description("Bookings rejected because the staff/day lock was not acquired in time")
+                .register(meterRegistry);
+    }
+
+    public record StaffDay(Long medicalStaffId, LocalDate day) {
+    }
+
+    // every (staff, day) pair touched by an appointment starting at start and lasting durationMinutes
+    public static List<StaffDay> keysFor(Long medicalStaffId, LocalDateTime start, int durationMinutes){
+        LocalDate firstDay = start.toLocalDate();
+        LocalDate lastDay = start.plusMinutes(Math.max(durationMinutes - 1, 0)).toLocalDate();
+        List<StaffDay> keys = new ArrayList<>(2);
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)){
+            keys.add(new StaffDay(medicalStaffId, day));
+        }
+        return keys;
+    }
+
+    public <T> T withStaffDayLocks(Collection<StaffDay> keys, Supplier<T> action){
+        // stripes are always taken in ascending order so two bookings sharing stripes cannot deadlock.
+        int[] stripeIndexes = keys.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        List<ReentrantLock> acquired = new ArrayList<>(stripeIndexes.length);
+
+        long waitStart = System.nanoTime();
+        try {
+            for (int index : stripeIndexes){
+                ReentrantLock lock = stripes[index];
+                long remaining = TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis) - (System.nanoTime() - waitStart);
+                if (!lock.tryLock(Math.max(remaining, 0), TimeUnit.NANOSECONDS)){
+                    lockTimeouts.increment();
+                    throw new ConflictException("Booking is busy for this medical staff, please retry.");
+                }
+                acquired.add(lock);
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Booking was interrupted, please retry.");
+        } finally {
+            lockWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            if (acquired.size() != stripeIndexes.length){
+                unlock(acquired);
+            }
+        }
+
+        try {
+            return action.get();
+        } finally {
+            unlock(acquired);
+        }
+    }
+
+    private void unlock(List<ReentrantLock> acquired){
+        for (int i = acquired.size() - 1; i >= 0; i--){
+            acquired.get(i).unlock();
+        }
+    }
+
+    private int stripeOf(StaffDay key){
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, stripes.length);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent events feed of one department's schedule for waiting-room screens. A subscriber
+ * receives one "snapshot" event with the appointments of the day, then a "delta" event for every
+ * AppointmentChangedEvent touching the department on that day. Deltas are queued per subscriber,
+ * up to buffer-size, and written by a small sender pool so a slow screen never blocks a booking; a
+ * subscriber whose buffer is full, whose write stalls past write-timeout, or who finds all of the
+ * writer-threads tied up by stalled writes, is disconnected and gets a fresh snapshot when it
+ * reconnects.
+ */
+@Slf4j
+@Component
+public class DepartmentScheduleBoard {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String DELTA_EVENT = "delta";
+
+    private final AppointmentRepository appointmentRepo;
+    private final ExecutorService sender;
+    private final ExecutorService writer;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long writeTimeoutMillis;
+    private final int snapshotLimit;
+    private final Counter dropped;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DepartmentScheduleBoard(AppointmentRepository appointmentRepo, MeterRegistry meterRegistry,
+                                   @Value("${appointments.board.sender-threads:2}") int senderThreads,
+                                   @Value("${appointments.board.writer-threads:32}") int writerThreads,
+                                   @Value("${appointments.board.buffer-size:256}") int bufferSize,
+                                   @Value("${appointments.board.timeout-ms:1800000}") long timeoutMillis,
+                                   @Value("${appointments.board.write-timeout-ms:10000}") long writeTimeoutMillis,
+                                   @Value("${appointments.board.snapshot-limit:500}") int snapshotLimit){
+        this(appointmentRepo, meterRegistry, Executors.newFixedThreadPool(senderThreads, daemon("schedule-board")),
+                new ThreadPoolExecutor(0, writerThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        daemon("schedule-board-writer")), bufferSize, timeoutMillis, writeTimeoutMillis, snapshotLimit);
+    }
+
+    // the executors are passed in by tests, which run the sender and the writes on the calling thread
+    DepartmentScheduleBoard(AppointmentRepository appointmentRepo, MeterRegistry meterRegistry,
+                            ExecutorService sender, ExecutorService writer, int bufferSize, long timeoutMillis,
+                            long writeTimeoutMillis, int snapshotLimit){
+        this.appointmentRepo = appointmentRepo;
+        this.sender = sender;
+        this.writer = writer;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.snapshotLimit = snapshotLimit;
+        this.dropped = meterRegistry.counter("appointments.board.dropped");
+        meterRegistry.gaugeMapSize("appointments.board.departments", List.of(), subscribers);
+    }
+
+    public SseEmitter subscribe(Long departmentId, LocalDate day){
+        Subscriber subscriber = new Subscriber(departmentId, day, new SseEmitter(timeoutMillis), bufferSize);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+
+        // registered before the snapshot is read, so a change racing with it is queued behind it
+        // instead of lost. Screens apply deltas by appointment id, a repeated change is harmless.
+        subscribers.compute(departmentId, (id, departmentSubscribers) -> {
+            Set<Subscriber> updated = departmentSubscribers != null
+                    ? departmentSubscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        List<AppointmentSnapshot> snapshot = appointmentRepo.findByDepartmentIdInWindow(departmentId,
+                        day.atStartOfDay(), day.plusDays(1).atStartOfDay(), PageRequest.of(0, snapshotLimit))
+                .stream().map(AppointmentSnapshot::of).toList();
+        try {
+            subscriber.emitter.send(SseEmitter.event().name(SNAPSHOT_EVENT).data(snapshot));
+        } catch (IOException | IllegalStateException e){
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return subscriber.emitter;
+        }
+        subscriber.ready = true;
+        scheduleSend(subscriber);
+        return subscriber.emitter;
+    }
+
+    public int subscriberCount(Long departmentId){
+        Set<Subscriber> departmentSubscribers = subscribers.get(departmentId);
+        return departmentSubscribers != null ? departmentSubscribers.size() : 0;
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event){
+        // an appointment moved between departments is a delta for both boards.
+        Set<Long> departments = new HashSet<>(2);
+        if (event.previous() != null && event.previous().departmentId() != null){
+            departments.add(event.previous().departmentId());
+        }
+        if (event.current() != null && event.current().departmentId() != null){
+            departments.add(event.current().departmentId());
+        }
+        for (Long departmentId : departments){
+            Set<Subscriber> departmentSubscribers = subscribers.get(departmentId);
+            if (departmentSubscribers == null){
+                continue;
+            }
+            for (Subscriber subscriber : departmentSubscribers){
+                if (!subscriber.shows(event)){
+                    continue;
+                }
+                if (subscriber.queue.offer(event)){
+                    scheduleSend(subscriber);
+                } else {
+                    dropSlowSubscriber(subscriber);
+                }
+            }
+        }
+    }
+
+    private void dropSlowSubscriber(Subscriber subscriber){
+        if (unsubscribe(subscriber)){
+            dropped.increment();
+            log.info("Schedule board subscriber of department {} dropped, {} deltas behind",
+                    subscriber.departmentId, subscriber.queue.size());
+            subscriber.emitter.complete();
+        }
+    }
+
+    // at most one send task per subscriber, so its events keep their order
+    private void scheduleSend(Subscriber subscriber){
+        if (subscriber.ready && !subscriber.queue.isEmpty() && subscriber.sending.compareAndSet(false, true)){
+            try {
+                sender.execute(() -> send(subscriber));
+            } catch (RejectedExecutionException e){
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber){
+        try {
+            AppointmentChangedEvent event;
+            while ((event = subscriber.queue.poll()) != null){
+                write(subscriber, SseEmitter.event().name(DELTA_EVENT).data(event));
+            }
+        } catch (IOException | IllegalStateException e){
+            // the screen went away, the container reports the completion as well.
+            unsubscribe(subscriber);
+            subscriber.queue.clear();
+        } catch (TimeoutException e){
+            dropBlockedSubscriber(subscriber, true);
+        } catch (RejectedExecutionException e){
+            // every writer is held by a stalled screen, this one is cut off instead of waiting behind them.
+            dropBlockedSubscriber(subscriber, false);
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // an event queued after the last poll but before sending was cleared.
+        scheduleSend(subscriber);
+    }
+
+    // the write itself runs on the writer pool: a screen that stops reading ties up one writer
+    // thread until the container gives up on the socket, never one of the few sender threads.
+    // the pool is bounded and does not queue, a write it rejects is thrown as RejectedExecutionException.
+    private void write(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException, TimeoutException {
+        Future<?> write = writer.submit(() -> {
+            subscriber.emitter.send(event);
+            return null;
+        });
+        try {
+            write.get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof IOException io){
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime){
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing to the schedule board.", e);
+        }
+    }
+
+    private void dropBlockedSubscriber(Subscriber subscriber, boolean writeInFlight){
+        subscriber.queue.clear();
+        if (!unsubscribe(subscriber)){
+            return;
+        }
+        dropped.increment();
+        if (!writeInFlight){
+            log.info("Schedule board subscriber of department {} dropped, no writer free",
+                    subscriber.departmentId);
+            // nothing is sending to this emitter, completing it cannot block.
+            subscriber.emitter.complete();
+            return;
+        }
+        log.info("Schedule board subscriber of department {} dropped, write blocked for over {} ms",
+                subscriber.departmentId, writeTimeoutMillis);
+        // complete() waits for the blocked send to give up, so it runs on the writer pool as well.
+        try {
+            writer.execute(subscriber.emitter::complete);
+        } catch (RejectedExecutionException e){
+            log.debug("Schedule board writers are busy or shut down, subscriber left to the container");
+        }
+    }
+
+    private boolean unsubscribe(Subscriber subscriber){
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.departmentId, (id, departmentSubscribers) -> {
+            removed[0] = departmentSubscribers.remove(subscriber);
+            return departmentSubscribers.isEmpty() ? null : departmentSubscribers;
+        });
+        return removed[0];
+    }
+
+    @PreDestroy
+    public void stop(){
+        sender.shutdownNow();
+        writer.shutdownNow();
+        subscribers.values().forEach(departmentSubscribers ->
+                departmentSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private static ThreadFactory daemon(String name){
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+        private final Long departmentId;
+        private final LocalDate day;
+        private final SseEmitter emitter;
+        private final BlockingQueue<AppointmentChangedEvent> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // deltas are held back until the snapshot has been written
+        private volatile boolean ready;
+
+        private Subscriber(Long departmentId, LocalDate day, SseEmitter emitter, int bufferSize){
+            this.departmentId = departmentId;
+            this.day = day;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        // an appointment moved onto or off the day is a delta for this screen, anything else is not.
+        private boolean shows(AppointmentChangedEvent event){
+            return isOnDay(event.previous()) || isOnDay(event.current());
+        }
+
+        private boolean isOnDay(AppointmentSnapshot snapshot){
+            return snapshot != null && snapshot.appointmentDateTime() != null
+                    && snapshot.appointmentDateTime().toLocalDate().equals(day);
+        }
+    }
+}
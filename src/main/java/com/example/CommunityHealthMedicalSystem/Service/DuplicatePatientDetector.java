@@ -0,0 +1,254 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.DuplicateCandidateDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.DuplicateScanReportDTO;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Finds probable duplicate patients. Two patients are candidates only when they share a date of
+ * birth and a Double Metaphone code of the last name, so "Jon Smyth" and "John Smith" meet in the
+ * same block while nothing outside a block is ever compared; within a block the first names must
+ * share a code or an initial. createPatient checks the block of the new patient; the full scan walks
+ * the whole table one birth year at a time on parallelism threads, runs in the background at most
+ * once at a time, and its last report is what the records office reads.
+ */
+@Slf4j
+@Component
+public class DuplicatePatientDetector {
+
+    private static final String BOUNDS =
+            "SELECT MIN(date_of_birth) AS first_birth, MAX(date_of_birth) AS last_birth FROM patients";
+    private static final String BLOCK =
+            "SELECT id, first_name, last_name, date_of_birth FROM patients " +
+            "WHERE date_of_birth >= ? AND date_of_birth < ?";
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NOT_LETTER = Pattern.compile("[^\\p{L}]+");
+
+    private final PatientRepository patientRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final int parallelism;
+    private final int maxPairs;
+    // thread safe once configured, encode keeps no state between calls.
+    private final DoubleMetaphone doubleMetaphone = new DoubleMetaphone();
+    private final ExecutorService scanRunner;
+    private final ExecutorService blockPool;
+    private final AtomicBoolean scanning = new AtomicBoolean();
+    private volatile DuplicateScanReportDTO lastReport = new DuplicateScanReportDTO(null, false, false, List.of());
+
+    @Autowired
+    public DuplicatePatientDetector(PatientRepository patientRepo, JdbcTemplate jdbcTemplate,
+                                    @Value("${patients.duplicates.parallelism:4}") int parallelism,
+                                    @Value("${patients.duplicates.max-pairs:10000}") int maxPairs){
+        this.patientRepo = patientRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxPairs = maxPairs;
+        this.scanRunner = Executors.newSingleThreadExecutor(daemon("duplicate-scan"));
+        this.blockPool = Executors.newFixedThreadPool(this.parallelism, daemon("duplicate-scan-block"));
+    }
+
+    record Person(Long id, String firstName, String lastName, LocalDate dateOfBirth) {
+    }
+
+    // ids of existing patients that probably are the same person, excludeId is the patient itself on updates
+    public List<Long> findProbableDuplicates(String firstName, String lastName, LocalDate dateOfBirth,
+                                             Long excludeId){
+        if (dateOfBirth == null || phoneticKeys(lastName).isEmpty()){
+            return List.of();
+        }
+        Person person = new Person(excludeId, firstName, lastName, dateOfBirth);
+        List<Long> duplicates = new ArrayList<>();
+        for (Patient candidate : patientRepo.findByDateOfBirth(dateOfBirth)){
+            if (!candidate.getId().equals(excludeId) && isProbableDuplicate(person, new Person(candidate.getId(),
+                    candidate.getFirstName(), candidate.getLastName(), candidate.getDateOfBirth()))){
+                duplicates.add(candidate.getId());
+            }
+        }
+        return duplicates;
+    }
+
+    @Scheduled(cron = "${patients.duplicates.cron:-}")
+    public void reportDuplicates(){
+        requestScan();
+    }
+
+    // starts a background scan unless one is already running, false when it was
+    public boolean requestScan(){
+        if (!scanning.compareAndSet(false, true)){
+            return false;
+        }
+        try {
+            scanRunner.execute(() -> {
+                try {
+                    lastReport = scan();
+                    log.info("Duplicate patient scan found {} candidate pairs", lastReport.getPairs().size());
+                } catch (RuntimeException e){
+                    log.error("Duplicate patient scan failed, keeping the previous report", e);
+                } finally {
+                    scanning.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e){
+            scanning.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    // the last finished scan, never waits for one
+    public DuplicateScanReportDTO lastReport(){
+        DuplicateScanReportDTO report = lastReport;
+        return new DuplicateScanReportDTO(report.getScannedAt(), scanning.get(), report.isTruncated(),
+                report.getPairs());
+    }
+
+    // candidate pairs over the whole table, at most max-pairs, ordered by date of birth then ids. At most
+    // parallelism birth years are in flight, so no further year is read once max-pairs is reached.
+    DuplicateScanReportDTO scan(){
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(BOUNDS);
+        if (bounds.get("first_birth") == null || bounds.get("last_birth") == null){
+            return new DuplicateScanReportDTO(LocalDateTime.now(), false, false, List.of());
+        }
+        int firstYear = ((Date) bounds.get("first_birth")).toLocalDate().getYear();
+        int lastYear = ((Date) bounds.get("last_birth")).toLocalDate().getYear();
+
+        List<DuplicateCandidateDTO> pairs = new ArrayList<>();
+        try {
+            for (int year = firstYear; year <= lastYear; year += parallelism){
+                List<Future<List<DuplicateCandidateDTO>>> blocks = new ArrayList<>(parallelism);
+                for (int blockYear = year; blockYear < year + parallelism && blockYear <= lastYear; blockYear++){
+                    LocalDate from = LocalDate.of(blockYear, 1, 1);
+                    blocks.add(blockPool.submit(() -> scanBlock(from, from.plusYears(1))));
+                }
+                for (Future<List<DuplicateCandidateDTO>> block : blocks){
+                    pairs.addAll(block.get());
+                    if (pairs.size() >= maxPairs){
+                        blocks.forEach(pending -> pending.cancel(true));
+                        log.warn("Duplicate patient scan stopped at {} candidate pairs", maxPairs);
+                        return new DuplicateScanReportDTO(LocalDateTime.now(), false, true,
+                                List.copyOf(pairs.subList(0, maxPairs)));
+                    }
+                }
+            }
+            return new DuplicateScanReportDTO(LocalDateTime.now(), false, false, List.copyOf(pairs));
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Duplicate patient scan interrupted.", e);
+        } catch (ExecutionException e){
+            throw new IllegalStateException("Duplicate patient scan failed.", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void stop(){
+        scanRunner.shutdownNow();
+        blockPool.shutdownNow();
+    }
+
+    // one range of birth dates, compared only inside each (date of birth, last name code) block
+    List<DuplicateCandidateDTO> scanBlock(LocalDate from, LocalDate to){
+        Map<String, List<Person>> blocks = new HashMap<>();
+        jdbcTemplate.query(BLOCK, (RowCallbackHandler) rs -> {
+            Person person = new Person(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"),
+                    rs.getDate("date_of_birth").toLocalDate());
+            for (String key : phoneticKeys(person.lastName())){
+                blocks.computeIfAbsent(person.dateOfBirth() + "|" + key, k -> new ArrayList<>()).add(person);
+            }
+        }, Date.valueOf(from), Date.valueOf(to));
+
+        // a pair sharing both last name codes meets in two blocks, it is reported once.
+        Set<List<Long>> seen = new HashSet<>();
+        List<DuplicateCandidateDTO> pairs = new ArrayList<>();
+        for (List<Person> block : blocks.values()){
+            for (int i = 0; i < block.size(); i++){
+                for (int j = i + 1; j < block.size(); j++){
+                    Person first = block.get(i);
+                    Person second = block.get(j);
+                    Long low = Math.min(first.id(), second.id());
+                    Long high = Math.max(first.id(), second.id());
+                    if (isProbableDuplicate(first, second) && seen.add(List.of(low, high))){
+                        pairs.add(new DuplicateCandidateDTO(low, high, first.dateOfBirth()));
+                    }
+                }
+            }
+        }
+        pairs.sort(Comparator.comparing(DuplicateCandidateDTO::getDateOfBirth)
+                .thenComparing(DuplicateCandidateDTO::getFirstPatientId)
+                .thenComparing(DuplicateCandidateDTO::getSecondPatientId));
+        return pairs;
+    }
+
+    boolean isProbableDuplicate(Person first, Person second){
+        if (!Objects.equals(first.dateOfBirth(), second.dateOfBirth())){
+            return false;
+        }
+        if (Collections.disjoint(phoneticKeys(first.lastName()), phoneticKeys(second.lastName()))){
+            return false;
+        }
+        Set<String> firstNameKeys = phoneticKeys(first.firstName());
+        Set<String> otherFirstNameKeys = phoneticKeys(second.firstName());
+        if (!Collections.disjoint(firstNameKeys, otherFirstNameKeys)){
+            return true;
+        }
+        // "J. Smith" next to "John Smith"
+        String firstInitial = letters(first.firstName());
+        String otherInitial = letters(second.firstName());
+        return !firstInitial.isEmpty() && !otherInitial.isEmpty()
+                && (firstInitial.length() == 1 || otherInitial.length() == 1)
+                && firstInitial.charAt(0) == otherInitial.charAt(0);
+    }
+
+    // primary and alternate Double Metaphone codes, empty for a name without letters
+    Set<String> phoneticKeys(String name){
+        String letters = letters(name);
+        if (letters.isEmpty()){
+            return Set.of();
+        }
+        Set<String> keys = new HashSet<>(2);
+        String primary = doubleMetaphone.doubleMetaphone(letters, false);
+        String alternate = doubleMetaphone.doubleMetaphone(letters, true);
+        if (primary != null && !primary.isEmpty()){
+            keys.add(primary);
+        }
+        if (alternate != null && !alternate.isEmpty()){
+            keys.add(alternate);
+        }
+        return keys;
+    }
+
+    private static ThreadFactory daemon(String name){
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static String letters(String name){
+        if (name == null){
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return NOT_LETTER.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AvailabilitySlotDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.ServiceUnavailableException;
+import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds the earliest free slots across every medical staff member matching a specialization
+ * and/or department. The timelines of the matching staff are loaded up front with set-based
+ * queries, then the ids are split over a dedicated fork/join pool and each leaf reads the
+ * in-memory availability bitmaps, so one request costs at most three queries plus memory reads.
+ * A search that does not finish within search-timeout-ms is cancelled.
+ */
+@Component
+public class EarliestSlotSearch {
+
+    public static final int MAX_LIMIT = 50;
+
+    // staff members handled by one fork/join leaf before splitting further
+    private static final int LEAF_SIZE = 8;
+
+    private static final Comparator<AvailabilitySlotDTO> EARLIEST_FIRST = Comparator
+            .comparing(AvailabilitySlotDTO::getStart)
+            .thenComparing(AvailabilitySlotDTO::getMedicalStaffId);
+
+    private final MedicalStaffRepository medicalStaffRepo;
+    private final StaffAvailabilityEngine availabilityEngine;
+    private final ForkJoinPool pool;
+    private final long timeoutMillis;
+
+    @Autowired
+    public EarliestSlotSearch(MedicalStaffRepository medicalStaffRepo, StaffAvailabilityEngine availabilityEngine,
+                              @Value("${availability.search-parallelism:0}") int parallelism,
+                              @Value("${availability.search-timeout-ms:5000}") long timeoutMillis){
+        this.medicalStaffRepo = medicalStaffRepo;
+        this.availabilityEngine = availabilityEngine;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public List<AvailabilitySlotDTO> findEarliest(String specialization, Long departmentId, LocalDateTime from,
+                                                  LocalDateTime to, int slotMinutes, int limit){
+        if ((specialization == null || specialization.isBlank()) && departmentId == null){
+            throw new IllegalArgumentException("Specialization or department is required.");
+        }
+        if (from == null || to == null || !to.isAfter(from)){
+            throw new IllegalArgumentException("A valid 'from' / 'to' window is required.");
+        }
+        if (Duration.between(from, to).toDays() > StaffAvailabilityEngine.MAX_RANGE_DAYS){
+            throw new IllegalArgumentException("Search window cannot exceed " + StaffAvailabilityEngine.MAX_RANGE_DAYS
+                    + " days.");
+        }
+        if (limit <= 0 || limit > MAX_LIMIT){
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+
+        String normalizedSpecialization = specialization == null || specialization.isBlank() ? null : specialization.trim();
+        List<Long> staffIds = medicalStaffRepo.findIdsBySpecializationAndDepartment(normalizedSpecialization, departmentId);
+        if (staffIds.isEmpty()){
+            return List.of();
+        }
+        // the leaves must not each go to the database, they would hold pool threads on connections.
+        availabilityEngine.preload(staffIds);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        ForkJoinTask<List<AvailabilitySlotDTO>> search = pool.submit(
+                new SearchTask(staffIds, 0, staffIds.size(), from, to, slotMinutes, limit, abandoned));
+        try {
+            return search.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e){
+            abandon(search, abandoned);
+            throw new ServiceUnavailableException("Slot search did not finish in time, try a narrower window.");
+        } catch (InterruptedException e){
+            abandon(search, abandoned);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Slot search was interrupted.");
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof RuntimeException runtime){
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // cancel() does not stop subtasks already running, the flag makes their leaves return early
+    private static void abandon(ForkJoinTask<?> search, AtomicBoolean abandoned){
+        abandoned.set(true);
+        search.cancel(true);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        pool.shutdown();
+    }
+
+    // earliest slots of one staff member, at most limit of them
+    private List<AvailabilitySlotDTO> earliestFor(Long staffId, LocalDateTime from, LocalDateTime to,
+                                                  int slotMinutes, int limit){
+        List<AvailabilitySlotDTO> slots = new ArrayList<>(limit);
+        LocalDateTime after = from;
+        while (slots.size() < limit){
+            Optional<AvailabilitySlotDTO> next = availabilityEngine.nextFreeSlot(staffId, after, to, slotMinutes);
+            if (next.isEmpty()){
+                break;
+            }
+            slots.add(next.get());
+            after = next.get().getEnd();
+        }
+        return slots;
+    }
+
+    // merges two start-ordered lists, keeping only the first limit slots
+    private static List<AvailabilitySlotDTO> mergeEarliest(List<AvailabilitySlotDTO> left,
+                                                           List<AvailabilitySlotDTO> right, int limit){
+        List<AvailabilitySlotDTO> merged = new ArrayList<>(Math.min(limit, left.size() + right.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < left.size() || j < right.size())){
+            if (j >= right.size() || (i < left.size() && EARLIEST_FIRST.compare(left.get(i), right.get(j)) <= 0)){
+                merged.add(left.get(i++));
+            } else {
+                merged.add(right.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private final class SearchTask extends RecursiveTask<List<AvailabilitySlotDTO>> {
+
+        private final List<Long> staffIds;
+        private final int start;
+        private final int end;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final int slotMinutes;
+        private final int limit;
+        private final AtomicBoolean abandoned;
+
+        SearchTask(List<Long> staffIds, int start, int end, LocalDateTime from, LocalDateTime to,
+                   int slotMinutes, int limit, AtomicBoolean abandoned){
+            this.staffIds = staffIds;
+            this.start = start;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+            this.slotMinutes = slotMinutes;
+            this.limit = limit;
+            this.abandoned = abandoned;
+        }
+
+        @Override
+        protected List<AvailabilitySlotDTO> compute(){
+            if (end - start <= LEAF_SIZE){
+                List<AvailabilitySlotDTO> best = List.of();
+                for (int i = start; i < end && !abandoned.get(); i++){
+                    best = mergeEarliest(best, earliestFor(staffIds.get(i), from, to, slotMinutes, limit), limit);
+                }
+                return best;
+            }
+            int middle = (start + end) >>> 1;
+            SearchTask left = new SearchTask(staffIds, start, middle, from, to, slotMinutes, limit, abandoned);
+            SearchTask right = new SearchTask(staffIds, middle, end, from, to, slotMinutes, limit, abandoned);
+            left.fork();
+            List<AvailabilitySlotDTO> rightResult = right.compute();
+            return mergeEarliest(left.join(), rightResult, limit);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process timer wheel of wheel-size buckets of tick-ms each. A timer lands in the bucket of
+ * its deadline tick and carries the number of full laps still to wait, so scheduling and
+ * cancelling are O(1) list operations and memory only grows with the timers actually pending.
+ * A single daemon thread advances the wheel and runs expired tasks, tasks must be short.
+ */
+@Slf4j
+@Component
+public class HashedTimingWheel {
+
+    private final long tickMillis;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final long startMillis;
+
+    // last tick whose bucket has been processed
+    private long currentTick;
+    private int pending;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    @Autowired
+    public HashedTimingWheel(@Value("${timers.wheel.tick-ms:1000}") long tickMillis,
+                             @Value("${timers.wheel.size:4096}") int wheelSize){
+        this(tickMillis, wheelSize, System.currentTimeMillis());
+        start();
+    }
+
+    // not started, the caller drives the wheel through advanceTo
+    HashedTimingWheel(long tickMillis, int wheelSize, long startMillis){
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1){
+            throw new IllegalArgumentException("Timer wheel needs a positive tick and a power of two size.");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++){
+            buckets[i] = new Bucket();
+        }
+        this.mask = wheelSize - 1;
+        this.startMillis = startMillis;
+    }
+
+    // runs task once the wheel reaches deadlineMillis, past deadlines fire on the next tick
+    public synchronized Timeout schedule(long deadlineMillis, Runnable task){
+        long tick = Math.max(ticksAt(deadlineMillis), currentTick + 1);
+        Timeout timeout = new Timeout(this, deadlineMillis, task, (tick - currentTick - 1) / buckets.length);
+        timeout.bucket = buckets[(int) (tick & mask)];
+        timeout.bucket.add(timeout);
+        pending++;
+        return timeout;
+    }
+
+    public synchronized int pending(){
+        return pending;
+    }
+
+    // processes every tick up to nowMillis and runs the expired tasks outside the lock
+    public void advanceTo(long nowMillis){
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this){
+            long target = ticksAt(nowMillis);
+            while (currentTick < target){
+                currentTick++;
+                buckets[(int) (currentTick & mask)].expire(expired);
+            }
+            pending -= expired.size();
+        }
+        for (Timeout timeout : expired){
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e){
+                log.warn("Timer task due at {} failed", timeout.deadlineMillis, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop(){
+        running = false;
+        if (worker != null){
+            worker.interrupt();
+        }
+    }
+
+    private void start(){
+        running = true;
+        worker = new Thread(() -> {
+            while (running){
+                try {
+                    Thread.sleep(tickMillis);
+                } catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                advanceTo(System.currentTimeMillis());
+            }
+        }, "timing-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private long ticksAt(long millis){
+        return Math.floorDiv(millis - startMillis, tickMillis);
+    }
+
+    private synchronized boolean cancel(Timeout timeout){
+        if (timeout.bucket == null){
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        pending--;
+        return true;
+    }
+
+    public static final class Timeout {
+
+        private final HashedTimingWheel wheel;
+        private final long deadlineMillis;
+        private final Runnable task;
+        private long remainingRounds;
+
+        // guarded by the wheel, bucket is null once the timer fired or was cancelled
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedTimingWheel wheel, long deadlineMillis, Runnable task, long remainingRounds){
+            this.wheel = wheel;
+            this.deadlineMillis = deadlineMillis;
+            this.task = task;
+            this.remainingRounds = remainingRounds;
+        }
+
+        public long deadlineMillis(){
+            return deadlineMillis;
+        }
+
+        // false if the timer already fired or was cancelled before
+        public boolean cancel(){
+            return wheel.cancel(this);
+        }
+    }
+
+    // doubly linked so a cancelled timer unlinks itself without a scan
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout){
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null){
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout){
+            if (timeout.prev == null){
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null){
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(List<Timeout> expired){
+            Timeout timeout = head;
+            while (timeout != null){
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds == 0){
+                    remove(timeout);
+                    expired.add(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
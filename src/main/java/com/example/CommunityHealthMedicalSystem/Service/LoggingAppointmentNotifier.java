@@ -0,0 +1,20 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// local stand-in until a real delivery channel (sms, email) is wired in as a @Primary notifier
+@Slf4j
+@Component
+public class LoggingAppointmentNotifier implements AppointmentNotifier {
+
+    @Override
+    public void sendReminder(AppointmentSnapshot appointment, Duration leadTime){
+        log.info("Reminder: appointment {} for patient {} with medical staff {} starts at {} (in {}h)",
+                appointment.id(), appointment.patientId(), appointment.medicalStaffId(),
+                appointment.appointmentDateTime(), leadTime.toHours());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves SCHEDULED appointments whose start is older than the grace period to NO_SHOW.
+ * Works in chunks of chunk-size rows until a chunk comes back short.
+ */
+@Slf4j
+@Component
+public class NoShowSweeper {
+
+    private final AppointmentStatusTransitions statusTransitions;
+    private final long graceMinutes;
+    private final int chunkSize;
+
+    public NoShowSweeper(AppointmentStatusTransitions statusTransitions,
+                         @Value("${appointments.no-show.grace-minutes:120}") long graceMinutes,
+                         @Value("${appointments.no-show.chunk-size:500}") int chunkSize){
+        this.statusTransitions = statusTransitions;
+        this.graceMinutes = graceMinutes;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${appointments.no-show.cron:0 30 2 * * *}")
+    public void sweepOverdue(){
+        sweep(LocalDateTime.now());
+    }
+
+    public int sweep(LocalDateTime now){
+        LocalDateTime cutoff = now.minusMinutes(graceMinutes);
+        int total = 0;
+        int changed;
+        do {
+            changed = statusTransitions.markOverdueAsNoShow(cutoff, chunkSize);
+            total += changed;
+        } while (changed == chunkSize);
+        log.info("No-show sweep marked {} appointments scheduled before {}", total, cutoff);
+        return total;
+    }
+}
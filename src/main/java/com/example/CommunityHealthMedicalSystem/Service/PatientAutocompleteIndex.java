@@ -0,0 +1,384 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.PatientSuggestionDTO;
+import com.example.CommunityHealthMedicalSystem.Event.PatientChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index for the registration desk search box. Every patient is filed under its
+ * normalized first name, last name, "first last", national id and phone digits, so a lookup is a
+ * range scan starting at the typed prefix.
+ *
+ * The table is loaded once when the application is ready into a packed segment: all terms sorted in
+ * one char array with offsets and owners, display names in another, no object per term or patient.
+ * Patients changed after that, from PatientChangedEvent or the importer, sit in a small sorted map
+ * of recent changes that shadows their segment entries and is folded into a new segment once it
+ * outgrows an eighth of it. Changes always win over the segment, so rows the startup load read
+ * before a change can never overwrite it.
+ */
+@Slf4j
+@Component
+public class PatientAutocompleteIndex {
+
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private static final String LOAD = "SELECT id, first_name, last_name, national_id, phone_number FROM patients";
+
+    // recent changes kept before they are folded into the segment, whatever its size
+    private static final int MIN_CHANGES_BEFORE_COMPACT = 1024;
+
+    // separates the term from the patient id in a key, sorts before any character a term can contain.
+    private static final char SEPARATOR = '\u0000';
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NOT_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern NOT_DIGIT = Pattern.compile("\\D+");
+    private static final Pattern LETTER = Pattern.compile("\\p{L}");
+
+    private static final Change REMOVED = new Change(null, List.of());
+
+    private final PatientRepository patientRepo;
+    private final JdbcTemplate jdbcTemplate;
+
+    // replaced as a whole by load and compact, the recent maps are updated in place under the monitor.
+    private volatile State state = new State(Segment.EMPTY, new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+    // no compaction while the table is read, the changes it would fold away must outlive the load.
+    private boolean loading;
+
+    public PatientAutocompleteIndex(PatientRepository patientRepo, JdbcTemplate jdbcTemplate){
+        this.patientRepo = patientRepo;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // a patient changed since the segment was built, suggestion is null once the patient is removed
+    private record Change(PatientSuggestionDTO suggestion, List<String> keys) {
+    }
+
+    // recent keys are term, separator, patient id; changes shadow every segment entry of their patient
+    private record State(Segment segment, ConcurrentSkipListMap<String, PatientSuggestionDTO> recent,
+                         ConcurrentHashMap<Long, Change> changes) {
+    }
+
+    // read as plain columns, the index never needs the entities or their collections.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        synchronized (this){
+            loading = true;
+        }
+        try {
+            SegmentBuilder builder = new SegmentBuilder();
+            jdbcTemplate.query(LOAD, (RowCallbackHandler) rs -> builder.add(rs.getLong("id"),
+                    rs.getString("first_name"), rs.getString("last_name"), rs.getString("national_id"),
+                    rs.getString("phone_number")));
+            Segment loaded = builder.build();
+            synchronized (this){
+                // changes made while the table was read stay on top of the rows read.
+                State current = state;
+                state = new State(loaded, current.recent(), current.changes());
+            }
+            log.info("Patient autocomplete index loaded {} patients", loaded.patientIds().length);
+        } finally {
+            synchronized (this){
+                loading = false;
+            }
+        }
+    }
+
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event){
+        if (event.patientId() == null){
+            return;
+        }
+        if (event.type() == PatientChangedEvent.Type.DELETED){
+            remove(event.patientId());
+            return;
+        }
+        patientRepo.findById(event.patientId()).ifPresentOrElse(
+                patient -> put(patient.getId(), patient.getFirstName(), patient.getLastName(),
+                        patient.getNationalId(), patient.getPhoneNumber()),
+                () -> remove(event.patientId()));
+    }
+
+    // at most limit patients whose name, national id or phone starts with query, in term order
+    public List<PatientSuggestionDTO> suggest(String query, int limit){
+        String prefix = normalizeQuery(query);
+        if (prefix.isEmpty() || limit <= 0){
+            return List.of();
+        }
+        int max = Math.min(limit, MAX_SUGGESTIONS);
+        State current = state;
+        Segment segment = current.segment();
+        Map<Long, PatientSuggestionDTO> found = new LinkedHashMap<>();
+
+        // both sources walked in key order: every key starting with prefix sorts between prefix and prefix
+        // followed by the highest char.
+        Iterator<Map.Entry<String, PatientSuggestionDTO>> recent = current.recent()
+                .subMap(prefix, true, prefix + Character.MAX_VALUE, true).entrySet().iterator();
+        Map.Entry<String, PatientSuggestionDTO> nextRecent = recent.hasNext() ? recent.next() : null;
+        int term = segment.lowerBound(prefix);
+        while (found.size() < max){
+            while (segment.matches(term, prefix) && current.changes().containsKey(segment.owner(term))){
+                term++;
+            }
+            boolean fromSegment = segment.matches(term, prefix);
+            if (!fromSegment && nextRecent == null){
+                break;
+            }
+            if (fromSegment && (nextRecent == null || segment.key(term).compareTo(nextRecent.getKey()) < 0)){
+                int owner = segment.termOwners()[term++];
+                found.computeIfAbsent(segment.patientIds()[owner],
+                        id -> new PatientSuggestionDTO(id, segment.name(owner)));
+            } else {
+                found.putIfAbsent(nextRecent.getValue().getId(), nextRecent.getValue());
+                nextRecent = recent.hasNext() ? recent.next() : null;
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    public int size(){
+        State current = state;
+        int size = current.segment().patientIds().length;
+        for (Map.Entry<Long, Change> change : current.changes().entrySet()){
+            if (current.segment().indexOf(change.getKey()) >= 0){
+                size--;
+            }
+            if (change.getValue().suggestion() != null){
+                size++;
+            }
+        }
+        return size;
+    }
+
+    synchronized void put(Long patientId, String firstName, String lastName, String nationalId, String phoneNumber){
+        State current = state;
+        PatientSuggestionDTO suggestion = new PatientSuggestionDTO(patientId, displayName(firstName, lastName));
+        List<String> keys = terms(firstName, lastName, nationalId, phoneNumber).stream()
+                .map(term -> term + SEPARATOR + patientId).toList();
+        // new keys go in before the old ones leave, a concurrent lookup sees the patient at least once.
+        keys.forEach(key -> current.recent().put(key, suggestion));
+        Change previous = current.changes().put(patientId, new Change(suggestion, keys));
+        if (previous != null){
+            previous.keys().stream().filter(key -> !keys.contains(key)).forEach(current.recent()::remove);
+        }
+        if (!loading && current.changes().size()
+                > Math.max(MIN_CHANGES_BEFORE_COMPACT, current.segment().patientIds().length / 8)){
+            compact();
+        }
+    }
+
+    synchronized void remove(Long patientId){
+        State current = state;
+        Change previous = current.changes().get(patientId);
+        if (previous == null ? current.segment().indexOf(patientId) < 0 : previous.suggestion() == null){
+            return;
+        }
+        current.changes().put(patientId, REMOVED);
+        if (previous != null){
+            previous.keys().forEach(current.recent()::remove);
+        }
+    }
+
+    // folds the recent changes into a new segment, lookups keep reading the old state until it is swapped
+    synchronized void compact(){
+        State current = state;
+        Segment segment = current.segment();
+        SegmentBuilder builder = new SegmentBuilder();
+        int[] ordinals = new int[segment.patientIds().length];
+        for (int owner = 0; owner < ordinals.length; owner++){
+            long patientId = segment.patientIds()[owner];
+            ordinals[owner] = current.changes().containsKey(patientId) ? -1 : builder.patient(patientId, segment.name(owner));
+        }
+        for (int term = 0; term < segment.termOwners().length; term++){
+            int ordinal = ordinals[segment.termOwners()[term]];
+            if (ordinal >= 0){
+                builder.term(ordinal, segment.term(term));
+            }
+        }
+        current.changes().forEach((patientId, change) -> {
+            if (change.suggestion() != null){
+                int ordinal = builder.patient(patientId, change.suggestion().getDisplayName());
+                change.keys().forEach(key -> builder.term(ordinal, key.substring(0, key.indexOf(SEPARATOR))));
+            }
+        });
+        state = new State(builder.build(), new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private static Set<String> terms(String firstName, String lastName, String nationalId, String phoneNumber){
+        Set<String> patientTerms = new LinkedHashSet<>();
+        patientTerms.add(normalize(lastName));
+        patientTerms.add(normalize(firstName));
+        patientTerms.add(normalize(joined(firstName, lastName)));
+        patientTerms.add(normalize(nationalId).replace(" ", ""));
+        patientTerms.add(phoneNumber != null ? NOT_DIGIT.matcher(phoneNumber).replaceAll("") : "");
+        patientTerms.remove("");
+        return patientTerms;
+    }
+
+    /**
+     * Terms sorted the way the recent keys sort, packed into termChars with termStarts (one longer than
+     * termOwners) marking where each begins; an owner is the position of its patient in patientIds,
+     * which is sorted by id, and in the display names packed the same way.
+     */
+    private record Segment(char[] termChars, int[] termStarts, int[] termOwners,
+                           long[] patientIds, char[] nameChars, int[] nameStarts) {
+
+        static final Segment EMPTY = new Segment(new char[0], new int[]{0}, new int[0],
+                new long[0], new char[0], new int[]{0});
+
+        int indexOf(long patientId){
+            return Arrays.binarySearch(patientIds, patientId);
+        }
+
+        long owner(int term){
+            return patientIds[termOwners[term]];
+        }
+
+        String term(int term){
+            return new String(termChars, termStarts[term], termStarts[term + 1] - termStarts[term]);
+        }
+
+        String key(int term){
+            return term(term) + SEPARATOR + owner(term);
+        }
+
+        String name(int owner){
+            return new String(nameChars, nameStarts[owner], nameStarts[owner + 1] - nameStarts[owner]);
+        }
+
+        // first term that does not sort before prefix
+        int lowerBound(String prefix){
+            int low = 0;
+            int high = termOwners.length;
+            while (low < high){
+                int middle = (low + high) >>> 1;
+                if (compare(middle, prefix) < 0){
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        boolean matches(int term, String prefix){
+            if (term >= termOwners.length || termStarts[term + 1] - termStarts[term] < prefix.length()){
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++){
+                if (termChars[termStarts[term] + i] != prefix.charAt(i)){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int compare(int term, String value){
+            int length = termStarts[term + 1] - termStarts[term];
+            for (int i = 0; i < Math.min(length, value.length()); i++){
+                int difference = termChars[termStarts[term] + i] - value.charAt(i);
+                if (difference != 0){
+                    return difference;
+                }
+            }
+            return length - value.length();
+        }
+    }
+
+    // collects patients and their terms as plain lists, only while a segment is being built
+    private static final class SegmentBuilder {
+
+        private final List<Long> patientIds = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<Integer> owners = new ArrayList<>();
+
+        void add(long patientId, String firstName, String lastName, String nationalId, String phoneNumber){
+            int ordinal = patient(patientId, displayName(firstName, lastName));
+            terms(firstName, lastName, nationalId, phoneNumber).forEach(term -> term(ordinal, term));
+        }
+
+        int patient(long patientId, String name){
+            patientIds.add(patientId);
+            names.add(name);
+            return patientIds.size() - 1;
+        }
+
+        void term(int ordinal, String term){
+            keys.add(term + SEPARATOR + patientIds.get(ordinal));
+            owners.add(ordinal);
+        }
+
+        Segment build(){
+            Integer[] byId = new Integer[patientIds.size()];
+            Arrays.setAll(byId, i -> i);
+            Arrays.sort(byId, Comparator.comparing(patientIds::get));
+            int[] position = new int[byId.length];
+            long[] sortedIds = new long[byId.length];
+            StringBuilder nameChars = new StringBuilder();
+            int[] nameStarts = new int[byId.length + 1];
+            for (int i = 0; i < byId.length; i++){
+                position[byId[i]] = i;
+                sortedIds[i] = patientIds.get(byId[i]);
+                nameStarts[i] = nameChars.length();
+                nameChars.append(names.get(byId[i]));
+            }
+            nameStarts[byId.length] = nameChars.length();
+
+            Integer[] byKey = new Integer[keys.size()];
+            Arrays.setAll(byKey, i -> i);
+            Arrays.sort(byKey, Comparator.comparing(keys::get));
+            StringBuilder termChars = new StringBuilder();
+            int[] termStarts = new int[byKey.length + 1];
+            int[] termOwners = new int[byKey.length];
+            for (int i = 0; i < byKey.length; i++){
+                String key = keys.get(byKey[i]);
+                termStarts[i] = termChars.length();
+                termChars.append(key, 0, key.indexOf(SEPARATOR));
+                termOwners[i] = position[owners.get(byKey[i])];
+            }
+            termStarts[byKey.length] = termChars.length();
+            return new Segment(termChars.toString().toCharArray(), termStarts, termOwners,
+                    sortedIds, nameChars.toString().toCharArray(), nameStarts);
+        }
+    }
+
+    // lower case, accents dropped, runs of punctuation and spaces folded into one space
+    static String normalize(String value){
+        if (value == null){
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return NOT_ALPHANUMERIC.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // a query without letters is a phone number or national id, typed with or without separators
+    static String normalizeQuery(String query){
+        if (query == null){
+            return "";
+        }
+        if (!LETTER.matcher(query).find()){
+            return NOT_DIGIT.matcher(query).replaceAll("");
+        }
+        return normalize(query);
+    }
+
+    private static String joined(String firstName, String lastName){
+        return (firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "");
+    }
+
+    private static String displayName(String firstName, String lastName){
+        return joined(firstName, lastName).trim();
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.PatientDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.PatientImportErrorDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.PatientImportReportDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk patient import for onboarding a clinic. The upload is read one record at a time, CSV with
+ * a header row or NDJSON, every record is checked against the PatientDTO constraints, and valid
+ * rows are written batch-size at a time by a single INSERT ... SELECT FROM unnest(...) ON CONFLICT
+ * DO NOTHING per batch. A row whose email, phone number or national id is already taken, in the
+ * table or earlier in its batch, is rejected in the report instead of failing the import. Memory
+ * holds one batch and at most max-errors reported rows, whatever the size of the file. Every batch
+ * commits on its own, so an import stopped half way keeps the rows written before.
+ */
+@Slf4j
+@Component
+public class PatientImporter {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    // longest record accepted, a longer one is rejected without being held in memory
+    static final int MAX_RECORD_CHARS = 65_536;
+    // varchar(255), the width of every text column of patients
+    static final int MAX_COLUMN_LENGTH = 255;
+
+    private static final String INSERT_BATCH =
+            "INSERT INTO patients (first_name, last_name, email, phone_number, national_id, date_of_birth, address) " +
+            "SELECT * FROM unnest(?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::date[], ?::text[]) " +
+            "ON CONFLICT DO NOTHING RETURNING id, email";
+
+    private static final List<String> CSV_COLUMNS =
+            List.of("firstName", "lastName", "email", "phoneNumber", "nationalId", "dateOfBirth", "address");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PatientUniquenessFilter uniquenessFilter;
+    private final PatientAutocompleteIndex autocompleteIndex;
+    private final int batchSize;
+    private final int maxErrors;
+
+    @Autowired
+    public PatientImporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Validator validator,
+                           PatientUniquenessFilter uniquenessFilter, PatientAutocompleteIndex autocompleteIndex,
+                           @Value("${patients.import.batch-size:1000}") int batchSize,
+                           @Value("${patients.import.max-errors:1000}") int maxErrors){
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.uniquenessFilter = uniquenessFilter;
+        this.autocompleteIndex = autocompleteIndex;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    private record Row(long line, PatientDTO patient) {
+    }
+
+    public PatientImportReportDTO importPatients(InputStream input, Format format) throws IOException {
+        if (input == null || format == null){
+            throw new IllegalArgumentException("Import file and format are required.");
+        }
+        RecordReader records = new RecordReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        PatientImportReportDTO report = new PatientImportReportDTO();
+        Map<String, Integer> csvColumns = format == Format.CSV ? readCsvHeader(records) : null;
+
+        List<Row> batch = new ArrayList<>(batchSize);
+        // values of the rows in batch, a repeat inside one INSERT would be dropped without telling which row
+        Set<String> batchValues = new HashSet<>();
+        while (true){
+            PatientDTO patient;
+            try {
+                patient = format == Format.CSV ? nextCsvPatient(records, csvColumns) : nextJsonPatient(records);
+            } catch (RowException e){
+                report.setRowsRead(report.getRowsRead() + 1);
+                reject(report, records.recordLine, e.getMessage());
+                continue;
+            }
+            if (patient == null){
+                break;
+            }
+            report.setRowsRead(report.getRowsRead() + 1);
+
+            String violations = violations(patient);
+            if (violations != null){
+                reject(report, records.recordLine, violations);
+                continue;
+            }
+            List<String> values = List.of("email:" + patient.getEmail(), "phone:" + patient.getPhoneNumber(),
+                    "nationalId:" + patient.getNationalId());
+            if (values.stream().anyMatch(batchValues::contains)){
+                reject(report, records.recordLine, "Email, phone number or national ID repeats an earlier row.");
+                continue;
+            }
+            batchValues.addAll(values);
+            batch.add(new Row(records.recordLine, patient));
+            if (batch.size() == batchSize){
+                flush(batch, report);
+                batchValues.clear();
+            }
+        }
+        flush(batch, report);
+        log.info("Patient import read {} rows, imported {}, rejected {}",
+                report.getRowsRead(), report.getImported(), report.getRejected());
+        return report;
+    }
+
+    private void flush(List<Row> batch, PatientImportReportDTO report){
+        if (batch.isEmpty()){
+            return;
+        }
+        // email is unique and unique within the batch, so it ties each returned id to its row.
+        Map<String, Long> insertedIds = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_BATCH);
+            statement.setArray(1, connection.createArrayOf("text", column(batch, PatientDTO::getFirstName)));
+            statement.setArray(2, connection.createArrayOf("text", column(batch, PatientDTO::getLastName)));
+            statement.setArray(3, connection.createArrayOf("text", column(batch, PatientDTO::getEmail)));
+            statement.setArray(4, connection.createArrayOf("text", column(batch, PatientDTO::getPhoneNumber)));
+            statement.setArray(5, connection.createArrayOf("text", column(batch, PatientDTO::getNationalId)));
+            statement.setArray(6, connection.createArrayOf("text",
+                    column(batch, patient -> patient.getDateOfBirth().toString())));
+            statement.setArray(7, connection.createArrayOf("text", column(batch, PatientDTO::getAddress)));
+            return statement;
+        }, (RowCallbackHandler) rs -> insertedIds.put(rs.getString("email"), rs.getLong("id")));
+
+        // the in-memory indexes are fed directly, a PatientChangedEvent per row would make every
+        // listener read the patient back one query at a time.
+        for (Row row : batch){
+            PatientDTO patient = row.patient();
+            Long id = insertedIds.get(patient.getEmail());
+            if (id == null){
+                reject(report, row.line(), "Email, phone number or national ID already belongs to another patient.");
+                continue;
+            }
+            report.setImported(report.getImported() + 1);
+            uniquenessFilter.add(patient.getEmail(), patient.getPhoneNumber(), patient.getNationalId());
+            autocompleteIndex.put(id, patient.getFirstName(), patient.getLastName(), patient.getNationalId(),
+                    patient.getPhoneNumber());
+        }
+        batch.clear();
+    }
+
+    private static String[] column(List<Row> batch, Function<PatientDTO, String> value){
+        return batch.stream().map(row -> value.apply(row.patient())).toArray(String[]::new);
+    }
+
+    private void reject(PatientImportReportDTO report, long line, String message){
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxErrors){
+            report.getErrors().add(new PatientImportErrorDTO(line, message));
+        }
+    }
+
+    // constraint messages in field order, null for a valid patient
+    private String violations(PatientDTO patient){
+        Set<ConstraintViolation<PatientDTO>> violations = validator.validate(patient);
+        if (!violations.isEmpty()){
+            return violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining(" "));
+        }
+        for (String value : List.of(patient.getPhoneNumber(), patient.getNationalId(), patient.getAddress())){
+            if (value.length() > MAX_COLUMN_LENGTH){
+                return "Phone number, national ID and address cannot exceed " + MAX_COLUMN_LENGTH + " characters.";
+            }
+        }
+        return null;
+    }
+
+    // column index of every PatientDTO field, matched ignoring case, '_' and spaces: "date_of_birth" is dateOfBirth
+    private Map<String, Integer> readCsvHeader(RecordReader records) throws IOException {
+        List<String> header = records.nextCsvRecord();
+        if (header == null || records.tooLong){
+            throw new IllegalArgumentException("CSV import needs a header row.");
+        }
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.size(); i++){
+            byName.put(columnKey(header.get(i)), i);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String column : CSV_COLUMNS){
+            Integer index = byName.get(columnKey(column));
+            if (index == null){
+                missing.add(column);
+            } else {
+                columns.put(column, index);
+            }
+        }
+        if (!missing.isEmpty()){
+            throw new IllegalArgumentException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static String columnKey(String name){
+        return name.replaceAll("[\\s_\\-]", "").replace("\uFEFF", "").toLowerCase(Locale.ROOT);
+    }
+
+    private PatientDTO nextCsvPatient(RecordReader records, Map<String, Integer> columns) throws IOException {
+        List<String> fields;
+        do {
+            fields = records.nextCsvRecord();
+        } while (fields != null && fields.size() == 1 && fields.get(0).isBlank() && !records.unterminated);
+        if (fields == null){
+            return null;
+        }
+        checkRecord(records);
+        PatientDTO patient = new PatientDTO();
+        patient.setFirstName(field(fields, columns, "firstName"));
+        patient.setLastName(field(fields, columns, "lastName"));
+        patient.setEmail(field(fields, columns, "email"));
+        patient.setPhoneNumber(field(fields, columns, "phoneNumber"));
+        patient.setNationalId(field(fields, columns, "nationalId"));
+        patient.setAddress(field(fields, columns, "address"));
+        String dateOfBirth = field(fields, columns, "dateOfBirth");
+        try {
+            patient.setDateOfBirth(dateOfBirth != null ? LocalDate.parse(dateOfBirth) : null);
+        } catch (DateTimeParseException e){
+            throw new RowException("Date of birth must be in yyyy-MM-dd format.");
+        }
+        return patient;
+    }
+
+    // a missing or blank cell is null, so @NotBlank reports it
+    private static String field(List<String> fields, Map<String, Integer> columns, String column){
+        int index = columns.get(column);
+        if (index >= fields.size() || fields.get(index).isBlank()){
+            return null;
+        }
+        return fields.get(index).trim();
+    }
+
+    private PatientDTO nextJsonPatient(RecordReader records) throws IOException {
+        String line;
+        do {
+            line = records.nextLine();
+        } while (line != null && line.isBlank());
+        if (line == null){
+            return null;
+        }
+        checkRecord(records);
+        try {
+            PatientDTO patient = objectMapper.readValue(line, PatientDTO.class);
+            // ids are assigned by the database
+            patient.setId(null);
+            return patient;
+        } catch (JsonProcessingException e){
+            throw new RowException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static void checkRecord(RecordReader records){
+        if (records.tooLong){
+            throw new RowException("Row exceeds " + MAX_RECORD_CHARS + " characters.");
+        }
+        if (records.unterminated){
+            throw new RowException("Quoted field is not closed.");
+        }
+    }
+
+    private static final class RowException extends RuntimeException {
+        private RowException(String message){
+            super(message);
+        }
+    }
+
+    /**
+     * Reads RFC 4180 CSV records, quoted fields may hold commas, doubled quotes and line breaks,
+     * or plain lines for NDJSON. At most MAX_RECORD_CHARS of a record are kept, the rest is skipped.
+     */
+    private static final class RecordReader {
+
+        private final BufferedReader reader;
+        private long line;
+        // first line of the record last read
+        private long recordLine;
+        private boolean tooLong;
+        private boolean unterminated;
+        private int length;
+
+        private RecordReader(BufferedReader reader){
+            this.reader = reader;
+        }
+
+        private List<String> nextCsvRecord() throws IOException {
+            start();
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldWasQuoted = false;
+            int c = reader.read();
+            if (c == -1){
+                return null;
+            }
+            for (; c != -1; c = reader.read()){
+                if (quoted){
+                    if (c == '"'){
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"'){
+                            append(field, '"');
+                        } else {
+                            quoted = false;
+                            if (next != -1){
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (c == '\n'){
+                            line++;
+                        }
+                        append(field, (char) c);
+                    }
+                } else if (c == '"' && field.isEmpty() && !fieldWasQuoted){
+                    quoted = true;
+                    fieldWasQuoted = true;
+                } else if (c == ','){
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldWasQuoted = false;
+                } else if (c == '\n'){
+                    line++;
+                    break;
+                } else if (c != '\r'){
+                    append(field, (char) c);
+                }
+            }
+            unterminated = quoted;
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private String nextLine() throws IOException {
+            start();
+            StringBuilder text = new StringBuilder();
+            int c = reader.read();
+            if (c == -1){
+                return null;
+            }
+            for (; c != -1; c = reader.read()){
+                if (c == '\n'){
+                    line++;
+                    break;
+                }
+                if (c != '\r'){
+                    append(text, (char) c);
+                }
+            }
+            return text.toString();
+        }
+
+        private void start(){
+            recordLine = line + 1;
+            tooLong = false;
+            unterminated = false;
+            length = 0;
+        }
+
+        private void append(StringBuilder text, char c){
+            if (++length > MAX_RECORD_CHARS){
+                tooLong = true;
+            } else {
+                text.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.PatientChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Maps the authenticated username (the patient email) to the patient id, so patient-scoped reads
+ * do not look the patient up on every request. Entries are bounded, dropped when a patient's email
+ * changes or the patient is deleted, and expire after expire-minutes as a safety net.
+ */
+@Component
+public class PatientPrincipalResolver {
+
+    private final PatientRepository patientRepo;
+    private final Cache<String, Long> patientIds;
+
+    @Autowired
+    public PatientPrincipalResolver(PatientRepository patientRepo, MeterRegistry meterRegistry,
+                                    @Value("${patients.principal-cache.max-size:10000}") long maxSize,
+                                    @Value("${patients.principal-cache.expire-minutes:30}") long expireMinutes){
+        this.patientRepo = patientRepo;
+        this.patientIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, patientIds, "patient.principal");
+    }
+
+    // unknown usernames are not cached, a patient registered later resolves on the next call
+    public Optional<Long> patientIdFor(String username){
+        if (username == null){
+            return Optional.empty();
+        }
+        return Optional.ofNullable(patientIds.get(username,
+                key -> patientRepo.findByEmail(key).map(Patient::getId).orElse(null)));
+    }
+
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event){
+        if (event.previousEmail() != null){
+            patientIds.invalidate(event.previousEmail());
+        }
+        if (event.currentEmail() != null){
+            patientIds.invalidate(event.currentEmail());
+        }
+    }
+}
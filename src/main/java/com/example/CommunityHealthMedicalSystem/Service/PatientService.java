@@ -28,4 +28,5 @@ public interface PatientService {
 
     List<Patient> searchPatients(String firstName, String lastName, String email,
                                  String address);
+    List<PatientDTO> searchPatientsBySimilarity(String query, int page, int size);
 }
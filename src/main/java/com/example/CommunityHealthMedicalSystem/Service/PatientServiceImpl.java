@@ -1,25 +1,43 @@
 package com.example.CommunityHealthMedicalSystem.Service;
 
 import com.example.CommunityHealthMedicalSystem.DTO.PatientDTO;
+import com.example.CommunityHealthMedicalSystem.Event.PatientChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
 import com.example.CommunityHealthMedicalSystem.Exception.DuplicateResourceException;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
 import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
 import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
+@Slf4j
 @Service
 public class PatientServiceImpl implements PatientService{
 
+    public static final int MIN_SEARCH_LENGTH = 3;
+    public static final int MAX_SEARCH_LENGTH = 100;
+    public static final int MAX_SEARCH_PAGE_SIZE = 100;
 
     private final PatientRepository patientRepo;
-    public PatientServiceImpl(PatientRepository patientRepo){
+    private final ApplicationEventPublisher eventPublisher;
+    private final DuplicatePatientDetector duplicateDetector;
+    private final PatientUniquenessFilter uniquenessFilter;
+    // null until the first similarity search asked the database
+    private volatile Boolean trigramAvailable;
+    public PatientServiceImpl(PatientRepository patientRepo, ApplicationEventPublisher eventPublisher,
+                              DuplicatePatientDetector duplicateDetector, PatientUniquenessFilter uniquenessFilter){
         this.patientRepo = patientRepo;
+        this.eventPublisher = eventPublisher;
+        this.duplicateDetector = duplicateDetector;
+        this.uniquenessFilter = uniquenessFilter;
     }
 
 
@@ -102,18 +120,22 @@ public class PatientServiceImpl implements PatientService{
         }
 
 
-        // check if email, phone number and national field from Patient class already exists in db.
-        //if (patientDTO.getEmail() != null && patientRepo.findByEmail(patientDTO.getEmail()).isEmpty()){
-           // throw new DuplicateResourceException("Error! This email already exists in database.");
-        //}
+        // check if email, phone number and national id already exist in db. The filter answers most
+        // new values without a query, only a possible hit is looked up.
+        if (uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, patientDTO.getEmail())){
+            requireUnused(patientRepo.findByEmail(patientDTO.getEmail()),
+                    "Error! This email already exists in database.");
+        }
 
-        //if (patientDTO.getNationalId() != null && patientRepo.findByNationalId(patientDTO.getNationalId()).isPresent()){
-          //  throw new DuplicateResourceException("Error! Patient's National ID already exists in database.");
-       // }
+        if (uniquenessFilter.mightExist(PatientUniquenessFilter.Field.NATIONAL_ID, patientDTO.getNationalId())){
+            requireUnused(patientRepo.findByNationalId(patientDTO.getNationalId()),
+                    "Error! Patient's National ID already exists in database.");
+        }
 
-       // if (patientDTO.getPhoneNumber()!= null && patientRepo.findByPhoneNumber(patientDTO.getPhoneNumber()).isPresent()){
-         //   throw new IllegalArgumentException("Error! Patient's phone numver already exists in database.");
-      //  }
+        if (uniquenessFilter.mightExist(PatientUniquenessFilter.Field.PHONE_NUMBER, patientDTO.getPhoneNumber())){
+            requireUnused(patientRepo.findByPhoneNumber(patientDTO.getPhoneNumber()),
+                    "Error! Patient's phone number already exists in database.");
+        }
 
         // convert DTO to entity
 
@@ -127,10 +149,22 @@ public class PatientServiceImpl implements PatientService{
         patient.setPhoneNumber(patientDTO.getPhoneNumber());
 
 
+        // probable duplicates are reported to the caller, not rejected: twins and namesakes exist.
+        List<Long> possibleDuplicateIds = duplicateDetector.findProbableDuplicates(patient.getFirstName(),
+                patient.getLastName(), patient.getDateOfBirth(), null);
+
         //save and return.
 
         Patient newPatient = patientRepo.save(patient);
-        return convertToDTO(newPatient);
+        uniquenessFilter.add(newPatient.getEmail(), newPatient.getPhoneNumber(), newPatient.getNationalId());
+        eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.CREATED, newPatient.getId(),
+                null, newPatient.getEmail()));
+        PatientDTO created = convertToDTO(newPatient);
+        if (!possibleDuplicateIds.isEmpty()){
+            log.warn("Patient {} registered as a probable duplicate of {}", newPatient.getId(), possibleDuplicateIds);
+            created.setPossibleDuplicateIds(possibleDuplicateIds);
+        }
+        return created;
 
     }
 
@@ -146,6 +180,8 @@ public class PatientServiceImpl implements PatientService{
         Patient patient = patientRepo.findById(id)
                         .orElseThrow(()-> new ResourceNotFound("Patient does not exists in database"));
         patientRepo.delete(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.DELETED, patient.getId(),
+                patient.getEmail(), null));
     }
 
     @Override
@@ -173,6 +209,8 @@ public class PatientServiceImpl implements PatientService{
             }
         }
 
+        String previousEmail = existingPatient.getEmail();
+
         // update only allowed fields.
 
         existingPatient.setFirstName(patientDTO.getFirstName());
@@ -183,10 +221,21 @@ public class PatientServiceImpl implements PatientService{
 
         //save entity
         Patient updatedPatient = patientRepo.save(existingPatient);
+        uniquenessFilter.add(updatedPatient.getEmail(), updatedPatient.getPhoneNumber(),
+                updatedPatient.getNationalId());
+        eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.UPDATED, updatedPatient.getId(),
+                previousEmail, updatedPatient.getEmail()));
         return convertToDTO(updatedPatient);
 
     }
 
+    private void requireUnused(Optional<Patient> owner, String message){
+        if (owner.isPresent()){
+            throw new ConflictException(message);
+        }
+        uniquenessFilter.recordFalsePositive();
+    }
+
     public PatientDTO convertToDTO(Patient patient){
         PatientDTO dto = new PatientDTO();
         dto.setId(patient.getId());
@@ -206,4 +255,42 @@ public class PatientServiceImpl implements PatientService{
                                         String address){
         return patientRepo.searchPatients(firstName, lastName, email, address);
     }
+
+    // front desk search box: matches any of name, email and address, typos included, best match first.
+    @Override
+    public List<PatientDTO> searchPatientsBySimilarity(String query, int page, int size){
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        // shorter queries have no full trigram and would read the whole index.
+        if (normalized.length() < MIN_SEARCH_LENGTH){
+            throw new IllegalArgumentException("Search query must have at least " + MIN_SEARCH_LENGTH + " characters.");
+        }
+        if (normalized.length() > MAX_SEARCH_LENGTH){
+            throw new IllegalArgumentException("Search query cannot exceed " + MAX_SEARCH_LENGTH + " characters.");
+        }
+        if (page < 0){
+            throw new IllegalArgumentException("Page cannot be negative.");
+        }
+        if (size <= 0 || size > MAX_SEARCH_PAGE_SIZE){
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_SEARCH_PAGE_SIZE + ".");
+        }
+        List<Patient> patients = trigramAvailable()
+                ? patientRepo.searchBySimilarity(normalized, size, (long) page * size)
+                : patientRepo.searchBySubstring(normalized, size, (long) page * size);
+        return patients.stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    // checked once, pg_trgm is only ever installed by db/patient-search.sql at startup.
+    private boolean trigramAvailable(){
+        Boolean available = trigramAvailable;
+        if (available == null){
+            available = patientRepo.hasTrigramExtension();
+            if (!available){
+                log.warn("pg_trgm is not installed, patient search falls back to substring matching");
+            }
+            trigramAvailable = available;
+        }
+        return available;
+    }
 }
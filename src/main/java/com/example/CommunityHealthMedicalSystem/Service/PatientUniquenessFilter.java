@@ -0,0 +1,143 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bloom filter over the email, phone number and national id of every patient, so createPatient
+ * only runs a uniqueness query when a value might already be taken. Built from the patients table
+ * when the application is ready and fed by every patient write. Deleted or changed values cannot
+ * be removed from a Bloom filter, they only raise the false-positive rate, so the filter is rebuilt
+ * once that rate passes max-false-positive-rate. Until the first build every value is a possible hit.
+ */
+@Slf4j
+@Component
+public class PatientUniquenessFilter {
+
+    public enum Field {
+        EMAIL, PHONE_NUMBER, NATIONAL_ID
+    }
+
+    private static final String LOAD = "SELECT email, phone_number, national_id FROM patients";
+    private static final String COUNT = "SELECT COUNT(*) FROM patients";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedPatients;
+    private final double falsePositiveRate;
+    private final double maxFalsePositiveRate;
+    private final Counter checks;
+    private final Counter falsePositives;
+
+    // the filter in use and the one being loaded by rebuild, if any, swapped together as one snapshot.
+    private volatile State state = new State(null, null);
+
+    private record State(BloomFilter filter, BloomFilter building) {
+    }
+
+    @Autowired
+    public PatientUniquenessFilter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                   @Value("${patients.uniqueness-filter.expected-patients:1000000}") long expectedPatients,
+                                   @Value("${patients.uniqueness-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                   @Value("${patients.uniqueness-filter.max-false-positive-rate:0.05}")
+                                   double maxFalsePositiveRate){
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedPatients = expectedPatients;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxFalsePositiveRate = maxFalsePositiveRate;
+        this.checks = meterRegistry.counter("patients.uniqueness.checks");
+        this.falsePositives = meterRegistry.counter("patients.uniqueness.false-positives");
+        Gauge.builder("patients.uniqueness.expected-false-positive-rate", this,
+                PatientUniquenessFilter::expectedFalsePositiveRate).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        rebuild();
+    }
+
+    // stale bits of deleted and changed patients add up, a fresh build drops them.
+    @Scheduled(fixedDelayString = "${patients.uniqueness-filter.check-ms:3600000}",
+            initialDelayString = "${patients.uniqueness-filter.check-ms:3600000}")
+    public void rebuildIfSaturated(){
+        if (state.filter() != null && expectedFalsePositiveRate() > maxFalsePositiveRate){
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild(){
+        Long count = jdbcTemplate.queryForObject(COUNT, Long.class);
+        // room for twice the current registry, three values per patient.
+        long patients = Math.max(expectedPatients, 2 * (count != null ? count : 0));
+        BloomFilter rebuilt = new BloomFilter(3 * patients, falsePositiveRate);
+        // writes during the load go to the old filter as well as to this one.
+        state = new State(state.filter(), rebuilt);
+        boolean loaded = false;
+        try {
+            jdbcTemplate.query(LOAD, (RowCallbackHandler) rs -> {
+                put(rebuilt, Field.EMAIL, rs.getString("email"));
+                put(rebuilt, Field.PHONE_NUMBER, rs.getString("phone_number"));
+                put(rebuilt, Field.NATIONAL_ID, rs.getString("national_id"));
+            });
+            loaded = true;
+        } finally {
+            state = new State(loaded ? rebuilt : state.filter(), null);
+        }
+        log.info("Patient uniqueness filter built: {} bits, {} hashes", rebuilt.bitSize(), rebuilt.hashCount());
+    }
+
+    // false only when no patient has this value, true when one may have it
+    public boolean mightExist(Field field, String value){
+        if (value == null){
+            return false;
+        }
+        checks.increment();
+        BloomFilter current = state.filter();
+        return current == null || current.mightContain(key(field, value));
+    }
+
+    // a possible hit that the database lookup did not confirm
+    public void recordFalsePositive(){
+        falsePositives.increment();
+    }
+
+    public void add(String email, String phoneNumber, String nationalId){
+        State current;
+        do {
+            current = state;
+            for (BloomFilter target : new BloomFilter[]{current.filter(), current.building()}){
+                if (target != null){
+                    put(target, Field.EMAIL, email);
+                    put(target, Field.PHONE_NUMBER, phoneNumber);
+                    put(target, Field.NATIONAL_ID, nationalId);
+                }
+            }
+            // a rebuild started or finished meanwhile, the filter now in use may have missed these values.
+        } while (state != current);
+    }
+
+    public double expectedFalsePositiveRate(){
+        BloomFilter current = state.filter();
+        return current != null ? current.expectedFalsePositiveRate() : 1.0;
+    }
+
+    private static void put(BloomFilter target, Field field, String value){
+        if (value != null){
+            target.put(key(field, value));
+        }
+    }
+
+    // one filter for the three fields, the prefix keeps an email from matching a national id.
+    private static String key(Field field, String value){
+        return field.ordinal() + ":" + value;
+    }
+}
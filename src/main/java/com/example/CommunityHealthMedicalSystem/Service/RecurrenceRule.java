@@ -0,0 +1,176 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Subset of the iCalendar RRULE used for appointment series, for example
+ * "FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,WE,FR;COUNT=150". Every series is bounded by COUNT or UNTIL
+ * and may not produce more than MAX_OCCURRENCES occurrences.
+ */
+public record RecurrenceRule(Frequency frequency, int interval, Integer count, LocalDateTime until,
+                             List<DayOfWeek> byDay) {
+
+    public static final int MAX_OCCURRENCES = 1000;
+
+    private static final DateTimeFormatter BASIC_UNTIL = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+
+    public static RecurrenceRule parse(String rule){
+        if (rule == null || rule.isBlank()){
+            throw new IllegalArgumentException("Recurrence rule is required.");
+        }
+        Map<String, String> parts = new HashMap<>();
+        for (String part : rule.trim().split(";")){
+            int equals = part.indexOf('=');
+            if (equals <= 0){
+                throw new IllegalArgumentException("Invalid recurrence rule part: " + part);
+            }
+            parts.put(part.substring(0, equals).trim().toUpperCase(Locale.ROOT), part.substring(equals + 1).trim());
+        }
+
+        try {
+            Frequency frequency = Frequency.valueOf(require(parts, "FREQ").toUpperCase(Locale.ROOT));
+            int interval = parts.containsKey("INTERVAL") ? Integer.parseInt(parts.get("INTERVAL")) : 1;
+            Integer count = parts.containsKey("COUNT") ? Integer.parseInt(parts.get("COUNT")) : null;
+            LocalDateTime until = parts.containsKey("UNTIL") ? parseUntil(parts.get("UNTIL")) : null;
+            List<DayOfWeek> byDay = parts.containsKey("BYDAY") ? parseByDay(parts.get("BYDAY")) : List.of();
+
+            if (interval <= 0){
+                throw new IllegalArgumentException("Recurrence INTERVAL must be positive.");
+            }
+            if (count == null && until == null){
+                throw new IllegalArgumentException("Recurrence rule needs COUNT or UNTIL.");
+            }
+            if (count != null && (count <= 0 || count > MAX_OCCURRENCES)){
+                throw new IllegalArgumentException("Recurrence COUNT must be between 1 and " + MAX_OCCURRENCES + ".");
+            }
+            if (!byDay.isEmpty() && frequency != Frequency.WEEKLY){
+                throw new IllegalArgumentException("BYDAY is only supported with FREQ=WEEKLY.");
+            }
+            return new RecurrenceRule(frequency, interval, count, until, byDay);
+        } catch (java.lang.IllegalArgumentException | DateTimeParseException e){
+            throw new IllegalArgumentException("Invalid recurrence rule: " + rule);
+        }
+    }
+
+    // every occurrence starting in [from, to), in order
+    public List<LocalDateTime> occurrences(LocalDateTime start, LocalDateTime from, LocalDateTime to){
+        List<LocalDateTime> result = new ArrayList<>();
+        walk(start, occurrence -> {
+            if (!occurrence.isBefore(to)){
+                return false;
+            }
+            if (!occurrence.isBefore(from)){
+                result.add(occurrence);
+            }
+            return true;
+        });
+        return result;
+    }
+
+    public List<LocalDateTime> allOccurrences(LocalDateTime start){
+        List<LocalDateTime> result = new ArrayList<>();
+        walk(start, occurrence -> {
+            if (result.size() == MAX_OCCURRENCES){
+                throw new IllegalArgumentException("Recurrence rule produces more than " + MAX_OCCURRENCES +
+                        " occurrences.");
+            }
+            result.add(occurrence);
+            return true;
+        });
+        return result;
+    }
+
+    public boolean isOccurrence(LocalDateTime start, LocalDateTime candidate){
+        return occurrences(start, candidate, candidate.plusNanos(1)).contains(candidate);
+    }
+
+    private interface Visitor {
+        boolean visit(LocalDateTime occurrence);
+    }
+
+    // visits occurrences in order until the rule ends or the visitor returns false
+    private void walk(LocalDateTime start, Visitor visitor){
+        int emitted = 0;
+        for (long period = 0; emitted <= MAX_OCCURRENCES; period++){
+            for (LocalDateTime occurrence : periodOccurrences(start, period)){
+                if (occurrence.isBefore(start)){
+                    continue;
+                }
+                if ((count != null && emitted >= count) || (until != null && occurrence.isAfter(until))){
+                    return;
+                }
+                emitted++;
+                if (!visitor.visit(occurrence)){
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<LocalDateTime> periodOccurrences(LocalDateTime start, long period){
+        long step = period * interval;
+        return switch (frequency){
+            case DAILY -> List.of(start.plusDays(step));
+            case MONTHLY -> List.of(start.plusMonths(step));
+            case WEEKLY -> {
+                if (byDay.isEmpty()){
+                    yield List.of(start.plusWeeks(step));
+                }
+                LocalDate monday = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                        .plusWeeks(step);
+                List<LocalDateTime> days = new ArrayList<>(byDay.size());
+                for (DayOfWeek day : byDay){
+                    days.add(monday.plusDays(day.getValue() - 1).atTime(start.toLocalTime()));
+                }
+                yield days;
+            }
+        };
+    }
+
+    private static String require(Map<String, String> parts, String key){
+        String value = parts.get(key);
+        if (value == null){
+            throw new IllegalArgumentException("Recurrence rule needs " + key + ".");
+        }
+        return value;
+    }
+
+    private static LocalDateTime parseUntil(String value){
+        if (value.length() == 8){
+            return LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE).atTime(23, 59, 59);
+        }
+        if (value.matches("\\d{8}T\\d{6}Z?")){
+            return LocalDateTime.parse(value.replace("Z", ""), BASIC_UNTIL);
+        }
+        return LocalDateTime.parse(value);
+    }
+
+    private static List<DayOfWeek> parseByDay(String value){
+        SortedSet<DayOfWeek> days = new TreeSet<>();
+        for (String code : value.split(",")){
+            days.add(switch (code.trim().toUpperCase(Locale.ROOT)){
+                case "MO" -> DayOfWeek.MONDAY;
+                case "TU" -> DayOfWeek.TUESDAY;
+                case "WE" -> DayOfWeek.WEDNESDAY;
+                case "TH" -> DayOfWeek.THURSDAY;
+                case "FR" -> DayOfWeek.FRIDAY;
+                case "SA" -> DayOfWeek.SATURDAY;
+                case "SU" -> DayOfWeek.SUNDAY;
+                default -> throw new IllegalArgumentException("Invalid BYDAY value: " + code);
+            });
+        }
+        return List.copyOf(days);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Model.AppointmentSeries;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentSeriesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Answers conflict and window questions about recurring series without storing their occurrences.
+ * Active series are cached per medical staff and per patient, and their occurrences are expanded
+ * only for the time window being asked about.
+ */
+@Slf4j
+@Component
+public class SeriesOccurrenceIndex {
+
+    private final AppointmentSeriesRepository seriesRepo;
+
+    private static final int STRIPES = 64;
+
+    private final Map<Long, List<SeriesSpec>> staffSeries = new ConcurrentHashMap<>();
+    private final Map<Long, List<SeriesSpec>> patientSeries = new ConcurrentHashMap<>();
+    // bumped for a staff member or patient before its series are evicted. Series loaded outside the map
+    // are only published if the stripe did not move, so a load that started before a change never
+    // brings the old series back.
+    private final AtomicLongArray staffEvictions = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray patientEvictions = new AtomicLongArray(STRIPES);
+
+    public SeriesOccurrenceIndex(AppointmentSeriesRepository seriesRepo){
+        this.seriesRepo = seriesRepo;
+    }
+
+    // immutable copy of the fields needed to expand a series
+    public record SeriesSpec(Long seriesId, Long medicalStaffId, Long patientId, LocalDateTime firstOccurrence,
+                             int durationMinutes, RecurrenceRule rule, Set<LocalDateTime> excluded,
+                             LocalDateTime lastOccurrenceEnd) {
+
+        public static SeriesSpec of(AppointmentSeries series){
+            return new SeriesSpec(series.getId(),
+                    series.getMedicalStaff() != null ? series.getMedicalStaff().getId() : null,
+                    series.getPatient() != null ? series.getPatient().getId() : null,
+                    series.getFirstOccurrence(),
+                    series.getDurationMinutes() != null ? series.getDurationMinutes() : Appointment.DEFAULT_DURATION_MINUTES,
+                    RecurrenceRule.parse(series.getRecurrenceRule()),
+                    Set.copyOf(series.getExcludedOccurrences()),
+                    series.getLastOccurrenceEnd());
+        }
+
+        // starts of the non-excluded occurrences overlapping [from, to)
+        public List<LocalDateTime> overlapping(LocalDateTime from, LocalDateTime to){
+            if (!firstOccurrence.isBefore(to) || (lastOccurrenceEnd != null && !lastOccurrenceEnd.isAfter(from))){
+                return List.of();
+            }
+            return rule.occurrences(firstOccurrence, from.minusMinutes(durationMinutes).plusNanos(1), to).stream()
+                    .filter(occurrence -> !excluded.contains(occurrence))
+                    .toList();
+        }
+    }
+
+    // returns the id of a series of this staff member with an occurrence overlapping [start, start + duration)
+    public Optional<Long> findStaffConflict(Long medicalStaffId, LocalDateTime start, int durationMinutes,
+                                            Long ignoreSeriesId){
+        return findConflict(forStaff(medicalStaffId), start, durationMinutes, ignoreSeriesId);
+    }
+
+    public Optional<Long> findPatientConflict(Long patientId, LocalDateTime start, int durationMinutes,
+                                              Long ignoreSeriesId){
+        return findConflict(forPatient(patientId), start, durationMinutes, ignoreSeriesId);
+    }
+
+    public List<AppointmentIntervalIndex.Interval> staffIntervals(Long medicalStaffId, LocalDateTime from,
+                                                                  LocalDateTime to){
+        List<AppointmentIntervalIndex.Interval> intervals = new ArrayList<>();
+        for (SeriesSpec spec : forStaff(medicalStaffId)){
+            for (LocalDateTime occurrence : spec.overlapping(from, to)){
+                // occurrences have no appointment row of their own.
+                intervals.add(new AppointmentIntervalIndex.Interval(null, occurrence, spec.durationMinutes()));
+            }
+        }
+        return intervals;
+    }
+
+    // occurrences overlapping [from, to) as unsaved appointments (no id, seriesId set)
+    public List<Appointment> occurrencesBetween(LocalDateTime from, LocalDateTime to){
+        List<Appointment> occurrences = new ArrayList<>();
+        for (AppointmentSeries series : seriesRepo.findActiveInWindow(from, to)){
+            SeriesSpec spec = SeriesSpec.of(series);
+            for (LocalDateTime start : spec.overlapping(from, to)){
+                Appointment occurrence = new Appointment();
+                occurrence.setPatient(series.getPatient());
+                occurrence.setMedicalStaff(series.getMedicalStaff());
+                occurrence.setDepartment(series.getDepartment());
+                occurrence.setAppointmentDateTime(start);
+                occurrence.setAppointmentDuration(spec.durationMinutes());
+                occurrence.setReason(series.getReason());
+                occurrence.setStatus(Appointment.Status.SCHEDULED);
+                occurrence.setSeriesId(series.getId());
+                occurrence.setSeriesOccurrence(start);
+                occurrences.add(occurrence);
+            }
+        }
+        return occurrences;
+    }
+
+    // loads the active series of every staff member not cached yet with one query
+    public void preloadStaff(Collection<Long> medicalStaffIds){
+        List<Long> missing = medicalStaffIds.stream().filter(id -> !staffSeries.containsKey(id)).toList();
+        if (missing.isEmpty()){
+            return;
+        }
+        log.debug("Loading appointment series for {} medical staff", missing.size());
+        long[] stamps = new long[missing.size()];
+        for (int i = 0; i < missing.size(); i++){
+            stamps[i] = staffEvictions.get(stripe(missing.get(i)));
+        }
+        Map<Long, List<SeriesSpec>> byStaff = new HashMap<>();
+        for (AppointmentSeries series : seriesRepo.findByMedicalStaffIdInAndActiveTrue(missing)){
+            SeriesSpec spec = SeriesSpec.of(series);
+            byStaff.computeIfAbsent(spec.medicalStaffId(), id -> new ArrayList<>()).add(spec);
+        }
+        for (int i = 0; i < missing.size(); i++){
+            publish(staffSeries, staffEvictions, missing.get(i), stamps[i],
+                    List.copyOf(byStaff.getOrDefault(missing.get(i), List.of())));
+        }
+    }
+
+    public void evict(Long medicalStaffId, Long patientId){
+        if (medicalStaffId != null){
+            staffEvictions.incrementAndGet(stripe(medicalStaffId));
+            staffSeries.remove(medicalStaffId);
+        }
+        if (patientId != null){
+            patientEvictions.incrementAndGet(stripe(patientId));
+            patientSeries.remove(patientId);
+        }
+    }
+
+    private static Optional<Long> findConflict(List<SeriesSpec> specs, LocalDateTime start, int durationMinutes,
+                                               Long ignoreSeriesId){
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        for (SeriesSpec spec : specs){
+            if (!spec.seriesId().equals(ignoreSeriesId) && !spec.overlapping(start, end).isEmpty()){
+                return Optional.of(spec.seriesId());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static int stripe(Long id){
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+
+    private List<SeriesSpec> forStaff(Long medicalStaffId){
+        return cached(staffSeries, staffEvictions, medicalStaffId, id -> {
+            log.debug("Loading appointment series for medical staff {}", id);
+            return seriesRepo.findByMedicalStaffIdAndActiveTrue(id);
+        });
+    }
+
+    private List<SeriesSpec> forPatient(Long patientId){
+        return cached(patientSeries, patientEvictions, patientId, id -> {
+            log.debug("Loading appointment series for patient {}", id);
+            return seriesRepo.findByPatientIdAndActiveTrue(id);
+        });
+    }
+
+    // the query runs outside the map, so a slow load never blocks other keys in its bin.
+    private static List<SeriesSpec> cached(Map<Long, List<SeriesSpec>> cache, AtomicLongArray evictions, Long id,
+                                           Function<Long, List<AppointmentSeries>> loader){
+        List<SeriesSpec> specs = cache.get(id);
+        if (specs != null){
+            return specs;
+        }
+        long stamp = evictions.get(stripe(id));
+        List<SeriesSpec> loaded = loader.apply(id).stream().map(SeriesSpec::of).toList();
+        List<SeriesSpec> published = publish(cache, evictions, id, stamp, loaded);
+        // an eviction raced the load: answer from it once, the next check loads again.
+        return published != null ? published : loaded;
+    }
+
+    private static List<SeriesSpec> publish(Map<Long, List<SeriesSpec>> cache, AtomicLongArray evictions, Long id,
+                                            long stamp, List<SeriesSpec> loaded){
+        return cache.compute(id, (k, existing) -> existing != null ? existing
+                : evictions.get(stripe(id)) == stamp ? loaded : null);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.SlotHoldDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived holds on a medical staff time range, kept in memory only. A hold is placed under
+ * the same staff/day locks as a booking, is treated as a conflict by createAppointment unless the
+ * request carries its id and books inside the held range of the same staff member, and is dropped
+ * by the timing wheel when its TTL runs out.
+ */
+@Slf4j
+@Component
+public class SlotHoldRegistry {
+
+    private final MedicalStaffRepository medicalStaffRepo;
+    private final AppointmentIntervalIndex intervalIndex;
+    private final SeriesOccurrenceIndex seriesIndex;
+    private final BookingCoordinator bookingCoordinator;
+    private final HashedTimingWheel wheel;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+    private final int maxHolds;
+
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Hold>> staffHolds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SlotHoldRegistry(MedicalStaffRepository medicalStaffRepo, AppointmentIntervalIndex intervalIndex,
+                            SeriesOccurrenceIndex seriesIndex, BookingCoordinator bookingCoordinator,
+                            HashedTimingWheel wheel,
+                            @Value("${appointments.holds.default-ttl-seconds:300}") int defaultTtlSeconds,
+                            @Value("${appointments.holds.max-ttl-seconds:900}") int maxTtlSeconds,
+                            @Value("${appointments.holds.max-active:10000}") int maxHolds){
+        this.medicalStaffRepo = medicalStaffRepo;
+        this.intervalIndex = intervalIndex;
+        this.seriesIndex = seriesIndex;
+        this.bookingCoordinator = bookingCoordinator;
+        this.wheel = wheel;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.maxHolds = maxHolds;
+    }
+
+    private static final class Hold {
+
+        private final String id;
+        private final Long medicalStaffId;
+        private final LocalDateTime start;
+        private final int durationMinutes;
+        private final LocalDateTime expiresAt;
+        private volatile HashedTimingWheel.Timeout expiry;
+
+        private Hold(String id, Long medicalStaffId, LocalDateTime start, int durationMinutes,
+                     LocalDateTime expiresAt){
+            this.id = id;
+            this.medicalStaffId = medicalStaffId;
+            this.start = start;
+            this.durationMinutes = durationMinutes;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean overlaps(LocalDateTime from, LocalDateTime to){
+            return start.isBefore(to) && start.plusMinutes(durationMinutes).isAfter(from);
+        }
+
+        boolean covers(Long staffId, LocalDateTime from, LocalDateTime to){
+            return medicalStaffId.equals(staffId) && !start.isAfter(from)
+                    && !start.plusMinutes(durationMinutes).isBefore(to);
+        }
+
+        boolean activeAt(LocalDateTime now){
+            return expiresAt.isAfter(now);
+        }
+    }
+
+    public SlotHoldDTO place(SlotHoldDTO request){
+        if (request == null || request.getMedicalStaffId() == null || request.getStart() == null){
+            throw new IllegalArgumentException("Medical staff and slot start are required.");
+        }
+        int duration = request.getDurationMinutes() != null ? request.getDurationMinutes()
+                : Appointment.DEFAULT_DURATION_MINUTES;
+        if (duration <= 0){
+            throw new IllegalArgumentException("Hold duration must be positive.");
+        }
+        int ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds){
+            throw new IllegalArgumentException("Hold TTL must be between 1 and " + maxTtlSeconds + " seconds.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!request.getStart().isAfter(now)){
+            throw new IllegalArgumentException("Held slot have to be in future.");
+        }
+        if (!medicalStaffRepo.existsById(request.getMedicalStaffId())){
+            throw new ResourceNotFound("Medical staff not found with id: " + request.getMedicalStaffId());
+        }
+
+        Long staffId = request.getMedicalStaffId();
+        LocalDateTime start = request.getStart();
+        List<BookingCoordinator.StaffDay> lockKeys = BookingCoordinator.keysFor(staffId, start, duration);
+        Hold hold = bookingCoordinator.withStaffDayLocks(lockKeys, () -> {
+            if (holds.size() >= maxHolds){
+                throw new ConflictException("Too many active holds, please retry later.");
+            }
+            if (intervalIndex.findStaffConflict(staffId, start, duration, null).isPresent()
+                    || seriesIndex.findStaffConflict(staffId, start, duration, null).isPresent()
+                    || findConflict(staffId, start, duration, null).isPresent()){
+                throw new ConflictException("Slot is already booked or held for this medical staff.");
+            }
+            Hold placed = new Hold(UUID.randomUUID().toString(), staffId, start, duration,
+                    now.plusSeconds(ttlSeconds));
+            holds.put(placed.id, placed);
+            staffHolds.compute(staffId, (id, forStaff) -> {
+                Map<String, Hold> updated = forStaff != null ? forStaff : new ConcurrentHashMap<>();
+                updated.put(placed.id, placed);
+                return updated;
+            });
+            placed.expiry = wheel.schedule(toMillis(placed.expiresAt), () -> remove(placed));
+            return placed;
+        });
+        log.debug("Hold {} placed on medical staff {} at {} until {}", hold.id, staffId, start, hold.expiresAt);
+        return toDTO(hold, ttlSeconds);
+    }
+
+    // id of an active hold of this staff member overlapping [start, start + duration), other than ignoreHoldId.
+    // ignoreHoldId itself is reported when it is active but held for another staff member or range.
+    public Optional<String> findConflict(Long medicalStaffId, LocalDateTime start, int durationMinutes,
+                                         String ignoreHoldId){
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = start.plusMinutes(durationMinutes);
+        Hold claimed = ignoreHoldId != null ? holds.get(ignoreHoldId) : null;
+        if (claimed != null && claimed.activeAt(now) && !claimed.covers(medicalStaffId, start, end)){
+            return Optional.of(claimed.id);
+        }
+        Map<String, Hold> forStaff = staffHolds.get(medicalStaffId);
+        if (forStaff == null || forStaff.isEmpty()){
+            return Optional.empty();
+        }
+        // expired holds still waiting for their wheel tick are skipped here.
+        return forStaff.values().stream()
+                .filter(hold -> hold.activeAt(now) && hold.overlaps(start, end) && !hold.id.equals(ignoreHoldId))
+                .map(hold -> hold.id)
+                .findFirst();
+    }
+
+    // drops the hold a booking was made with, only if the booking landed inside it
+    public boolean consume(String holdId, Long medicalStaffId, LocalDateTime start, int durationMinutes){
+        if (holdId == null || medicalStaffId == null || start == null){
+            return false;
+        }
+        Hold hold = holds.get(holdId);
+        if (hold == null || !hold.covers(medicalStaffId, start, start.plusMinutes(durationMinutes))){
+            return false;
+        }
+        return release(holdId);
+    }
+
+    public boolean release(String holdId){
+        if (holdId == null){
+            return false;
+        }
+        Hold hold = holds.get(holdId);
+        if (hold == null || !remove(hold)){
+            return false;
+        }
+        if (hold.expiry != null){
+            hold.expiry.cancel();
+        }
+        return true;
+    }
+
+    public int activeHolds(){
+        return holds.size();
+    }
+
+    private boolean remove(Hold hold){
+        if (!holds.remove(hold.id, hold)){
+            return false;
+        }
+        staffHolds.computeIfPresent(hold.medicalStaffId, (id, forStaff) -> {
+            forStaff.remove(hold.id);
+            return forStaff.isEmpty() ? null : forStaff;
+        });
+        return true;
+    }
+
+    private static SlotHoldDTO toDTO(Hold hold, int ttlSeconds){
+        return new SlotHoldDTO(hold.id, hold.medicalStaffId, hold.start, hold.durationMinutes, ttlSeconds,
+                hold.expiresAt);
+    }
+
+    private static long toMillis(LocalDateTime dateTime){
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
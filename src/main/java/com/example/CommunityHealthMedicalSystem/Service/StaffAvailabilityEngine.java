@@ -0,0 +1,241 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AvailabilitySlotDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSeriesChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Keeps one occupancy bitmap per medical staff member and working day, one bit per
+ * slot of slot-granularity-minutes between day-start and day-end. A set bit means the slot
+ * overlaps a non-cancelled appointment or a series occurrence. Bitmaps are built lazily from the
+ * interval and series indexes and rebuilt for the touched days on every appointment write, so
+ * availability queries never go to the database. The cache holds at most occupancy-cache.max-size
+ * days, drops days nobody read for expire-minutes, and past days are pruned every night.
+ */
+@Component
+public class StaffAvailabilityEngine {
+
+    public static final int MAX_RANGE_DAYS = 31;
+
+    private final AppointmentIntervalIndex intervalIndex;
+    private final SeriesOccurrenceIndex seriesIndex;
+    private final int granularityMinutes;
+    private final LocalTime dayStart;
+    private final LocalTime dayEnd;
+    private final int slotsPerDay;
+    private final int searchHorizonDays;
+
+    // bitmaps are never mutated once published, a write replaces the whole day.
+    private final Cache<BookingCoordinator.StaffDay, BitSet> occupancy;
+
+    @Autowired
+    public StaffAvailabilityEngine(AppointmentIntervalIndex intervalIndex, SeriesOccurrenceIndex seriesIndex,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${availability.slot-granularity-minutes:15}") int granularityMinutes,
+                                   @Value("${availability.day-start:08:00}") String dayStart,
+                                   @Value("${availability.day-end:18:00}") String dayEnd,
+                                   @Value("${availability.search-horizon-days:60}") int searchHorizonDays,
+                                   @Value("${availability.occupancy-cache.max-size:100000}") long maxSize,
+                                   @Value("${availability.occupancy-cache.expire-minutes:60}") long expireMinutes){
+        this.intervalIndex = intervalIndex;
+        this.seriesIndex = seriesIndex;
+        this.granularityMinutes = granularityMinutes;
+        this.dayStart = LocalTime.parse(dayStart);
+        this.dayEnd = LocalTime.parse(dayEnd);
+        if (granularityMinutes <= 0 || !this.dayEnd.isAfter(this.dayStart)){
+            throw new IllegalArgumentException("Invalid availability working hours configuration.");
+        }
+        this.slotsPerDay = (int) (Duration.between(this.dayStart, this.dayEnd).toMinutes() / granularityMinutes);
+        this.searchHorizonDays = searchHorizonDays;
+        this.occupancy = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, occupancy, "availability.occupancy");
+    }
+
+    // free slots of slotMinutes, aligned on slotMinutes from the start of the working day, inside [from, to)
+    public List<AvailabilitySlotDTO> freeSlots(Long medicalStaffId, LocalDateTime from, LocalDateTime to,
+                                               int slotMinutes){
+        validateRange(from, to);
+        int slotBits = bitsFor(slotMinutes);
+        LocalDateTime notBefore = later(from, LocalDateTime.now());
+
+        List<AvailabilitySlotDTO> slots = new ArrayList<>();
+        for (LocalDate day = notBefore.toLocalDate(); day.atTime(dayStart).isBefore(to); day = day.plusDays(1)){
+            BitSet bits = bitmap(medicalStaffId, day);
+            LocalDateTime open = day.atTime(dayStart);
+            for (int first = 0; first + slotBits <= slotsPerDay; first += slotBits){
+                LocalDateTime start = open.plusMinutes((long) first * granularityMinutes);
+                LocalDateTime end = start.plusMinutes(slotMinutes);
+                if (start.isBefore(notBefore)){
+                    continue;
+                }
+                if (end.isAfter(to)){
+                    break;
+                }
+                if (isFree(bits, first, slotBits)){
+                    slots.add(new AvailabilitySlotDTO(medicalStaffId, start, end));
+                }
+            }
+        }
+        return slots;
+    }
+
+    // earliest free run of slotMinutes starting at or after the given time, within the search horizon
+    public Optional<AvailabilitySlotDTO> nextFreeSlot(Long medicalStaffId, LocalDateTime after, int slotMinutes){
+        return nextFreeSlot(medicalStaffId, after, after.plusDays(searchHorizonDays), slotMinutes);
+    }
+
+    public Optional<AvailabilitySlotDTO> nextFreeSlot(Long medicalStaffId, LocalDateTime after, LocalDateTime before,
+                                                      int slotMinutes){
+        if (after == null || before == null){
+            throw new IllegalArgumentException("Search window is required.");
+        }
+        int slotBits = bitsFor(slotMinutes);
+        LocalDateTime notBefore = later(after, LocalDateTime.now());
+
+        for (LocalDate day = notBefore.toLocalDate(); day.atTime(dayStart).isBefore(before); day = day.plusDays(1)){
+            LocalDateTime open = day.atTime(dayStart);
+            int from = 0;
+            if (notBefore.isAfter(open)){
+                long minutes = Duration.between(open, notBefore).toMinutes();
+                from = (int) ((minutes + granularityMinutes - 1) / granularityMinutes);
+            }
+            if (from + slotBits > slotsPerDay){
+                continue;
+            }
+
+            BitSet bits = bitmap(medicalStaffId, day);
+            int position = from;
+            while (position + slotBits <= slotsPerDay){
+                int free = bits.nextClearBit(position);
+                if (free + slotBits > slotsPerDay){
+                    break;
+                }
+                int taken = bits.nextSetBit(free);
+                if (taken == -1 || taken >= free + slotBits){
+                    LocalDateTime start = open.plusMinutes((long) free * granularityMinutes);
+                    if (start.plusMinutes(slotMinutes).isAfter(before)){
+                        return Optional.empty();
+                    }
+                    return Optional.of(new AvailabilitySlotDTO(medicalStaffId, start, start.plusMinutes(slotMinutes)));
+                }
+                position = taken + 1;
+            }
+        }
+        return Optional.empty();
+    }
+
+    // fills the indexes behind the bitmaps of many staff members with two queries instead of two each
+    public void preload(Collection<Long> medicalStaffIds){
+        intervalIndex.preloadStaff(medicalStaffIds);
+        seriesIndex.preloadStaff(medicalStaffIds);
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event){
+        refresh(event.previous());
+        refresh(event.current());
+    }
+
+    // a series can touch any day, drop every cached day of that staff member.
+    @EventListener
+    public void onSeriesChanged(AppointmentSeriesChangedEvent event){
+        if (event.medicalStaffId() != null){
+            occupancy.asMap().keySet().removeIf(key -> key.medicalStaffId().equals(event.medicalStaffId()));
+        }
+    }
+
+    // past days are never asked for again, free them instead of waiting for expiry
+    @Scheduled(cron = "${availability.occupancy-cache.prune-cron:0 5 0 * * *}")
+    public void prunePastDays(){
+        prunePastDays(LocalDate.now());
+    }
+
+    void prunePastDays(LocalDate today){
+        occupancy.asMap().keySet().removeIf(key -> key.day().isBefore(today));
+    }
+
+    private void refresh(AppointmentSnapshot snapshot){
+        if (snapshot == null || snapshot.medicalStaffId() == null || snapshot.appointmentDateTime() == null){
+            return;
+        }
+        for (BookingCoordinator.StaffDay key : BookingCoordinator.keysFor(snapshot.medicalStaffId(),
+                snapshot.appointmentDateTime(), snapshot.durationMinutes())){
+            // days nobody asked about yet stay unbuilt.
+            occupancy.asMap().computeIfPresent(key, (k, old) -> build(k));
+        }
+    }
+
+    private BitSet bitmap(Long medicalStaffId, LocalDate day){
+        return occupancy.get(new BookingCoordinator.StaffDay(medicalStaffId, day), this::build);
+    }
+
+    private BitSet build(BookingCoordinator.StaffDay key){
+        LocalDateTime open = key.day().atTime(dayStart);
+        LocalDateTime close = key.day().atTime(dayEnd);
+        BitSet bits = new BitSet(slotsPerDay);
+        List<AppointmentIntervalIndex.Interval> intervals = new ArrayList<>(
+                intervalIndex.staffIntervals(key.medicalStaffId(), open, close));
+        intervals.addAll(seriesIndex.staffIntervals(key.medicalStaffId(), open, close));
+        for (AppointmentIntervalIndex.Interval interval : intervals){
+            long startMinutes = Math.max(0, Duration.between(open, interval.start()).toMinutes());
+            long endMinutes = Math.min(Duration.between(open, close).toMinutes(),
+                    Duration.between(open, interval.end()).toMinutes());
+            int first = (int) (startMinutes / granularityMinutes);
+            int last = (int) Math.min(slotsPerDay, (endMinutes + granularityMinutes - 1) / granularityMinutes);
+            if (last > first){
+                bits.set(first, last);
+            }
+        }
+        return bits;
+    }
+
+    private static boolean isFree(BitSet bits, int first, int length){
+        int taken = bits.nextSetBit(first);
+        return taken == -1 || taken >= first + length;
+    }
+
+    private int bitsFor(int slotMinutes){
+        if (slotMinutes <= 0 || slotMinutes % granularityMinutes != 0){
+            throw new IllegalArgumentException("Slot length must be a positive multiple of " + granularityMinutes
+                    + " minutes.");
+        }
+        return slotMinutes / granularityMinutes;
+    }
+
+    private static void validateRange(LocalDateTime from, LocalDateTime to){
+        if (from == null || to == null){
+            throw new IllegalArgumentException("Both 'from' and 'to' are required.");
+        }
+        if (!to.isAfter(from)){
+            throw new IllegalArgumentException("'to' must be after 'from'.");
+        }
+        if (Duration.between(from, to).toDays() > MAX_RANGE_DAYS){
+            throw new IllegalArgumentException("Availability range cannot exceed " + MAX_RANGE_DAYS + " days.");
+        }
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b){
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Upcoming appointment DTOs per patient, bounded by max-size patients and expire-minutes.
+ * An entry is dropped whenever an appointment of that patient is created, updated or deleted,
+ * and appointments that started since the entry was loaded are filtered out on read. Hits,
+ * misses and evictions are exported as appointments.upcoming cache metrics.
+ */
+@Component
+public class UpcomingAppointmentsCache {
+
+    private final Cache<Long, List<AppointmentDTO>> upcoming;
+
+    @Autowired
+    public UpcomingAppointmentsCache(MeterRegistry meterRegistry,
+                                     @Value("${appointments.upcoming-cache.max-size:10000}") long maxSize,
+                                     @Value("${appointments.upcoming-cache.expire-minutes:15}") long expireMinutes){
+        this.upcoming = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, upcoming, "appointments.upcoming");
+    }
+
+    // loader runs at most once per patient at a time, concurrent readers wait for its result
+    public List<AppointmentDTO> get(Long patientId, LocalDateTime now, Function<Long, List<AppointmentDTO>> loader){
+        List<AppointmentDTO> appointments = upcoming.get(patientId, loader);
+        if (appointments.isEmpty() || !appointments.get(0).getAppointmentDateTime().isBefore(now)){
+            return appointments;
+        }
+        return appointments.stream()
+                .filter(appointment -> !appointment.getAppointmentDateTime().isBefore(now))
+                .toList();
+    }
+
+    public void evict(Long patientId){
+        if (patientId != null){
+            upcoming.invalidate(patientId);
+        }
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event){
+        evict(patientOf(event.previous()));
+        evict(patientOf(event.current()));
+    }
+
+    private static Long patientOf(AppointmentSnapshot snapshot){
+        return snapshot != null ? snapshot.patientId() : null;
+    }
+}
@@ -0,0 +1,23 @@
+-- Cold tier for finished appointments, filled by AppointmentArchive and only ever appended to.
+-- Plain columns without foreign keys or overlap constraints: rows here no longer take part in booking.
+
+CREATE TABLE IF NOT EXISTS appointments_archive (
+    id bigint PRIMARY KEY,
+    version bigint,
+    appointment_date_time timestamp(6),
+    status varchar(255),
+    reason varchar(255),
+    notes varchar(255),
+    diagnosis varchar(255),
+    duration_minutes integer,
+    patient_id bigint,
+    medical_staff_id bigint,
+    department_id bigint,
+    series_id bigint,
+    series_occurrence timestamp(6),
+    archived_at timestamp(6) NOT NULL DEFAULT now()
+)^;
+
+-- patient history is the only read path into the archive.
+CREATE INDEX IF NOT EXISTS idx_appointments_archive_patient_time
+    ON appointments_archive (patient_id, appointment_date_time, id)^;
@@ -0,0 +1,45 @@
+-- Storage-level guarantees for appointments, applied after Hibernate has updated the schema.
+-- Statements are separated by "^;" so that DO blocks can contain plain semicolons.
+
+CREATE EXTENSION IF NOT EXISTS btree_gist^;
+
+-- [start, start + duration) of every appointment, 30 minutes when no duration was recorded.
+ALTER TABLE appointments
+    ADD COLUMN IF NOT EXISTS appointment_range tsrange
+        GENERATED ALWAYS AS (
+            CASE WHEN appointment_date_time IS NOT NULL THEN
+                tsrange(appointment_date_time,
+                        appointment_date_time + COALESCE(duration_minutes, 30) * INTERVAL '1 minute',
+                        '[)')
+            END
+        ) STORED^;
+
+-- a medical staff member or a patient can never hold two overlapping, non-cancelled appointments.
+DO $$
+BEGIN
+    -- once partitioned, these constraints live on each partition (see appointment-partitions.sql).
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('appointments')) = 'p' THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'appointments_staff_no_overlap') THEN
+        BEGIN
+            ALTER TABLE appointments ADD CONSTRAINT appointments_staff_no_overlap
+                EXCLUDE USING gist (medical_staff_id WITH =, appointment_range WITH &&)
+                WHERE (status <> 'CANCELLED');
+        EXCEPTION WHEN exclusion_violation THEN
+            RAISE WARNING 'appointments_staff_no_overlap not created: existing appointments overlap';
+        END;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'appointments_patient_no_overlap') THEN
+        BEGIN
+            ALTER TABLE appointments ADD CONSTRAINT appointments_patient_no_overlap
+                EXCLUDE USING gist (patient_id WITH =, appointment_range WITH &&)
+                WHERE (status <> 'CANCELLED');
+        EXCEPTION WHEN exclusion_violation THEN
+            RAISE WARNING 'appointments_patient_no_overlap not created: existing appointments overlap';
+        END;
+    END IF;
+END
+$$^;
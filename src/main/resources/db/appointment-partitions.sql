@@ -0,0 +1,151 @@
+-- Monthly range partitions of appointments on appointment_date_time, applied after the overlap constraints.
+-- Statements are separated by "^;" so that function bodies and DO blocks can contain plain semicolons.
+--
+-- A partitioned table cannot carry a primary key or exclusion constraint without the partition key, so
+-- every partition gets its own primary key on id (ids stay unique through appointments_seq) and its own
+-- overlap constraints. Two appointments in different months are therefore only kept apart by the booking
+-- locks and the interval index, which only matters for an appointment running past midnight at month end.
+
+-- primary key and overlap constraints of one partition, overlapping rows are reported instead of failing startup.
+CREATE OR REPLACE FUNCTION add_appointment_partition_constraints(partition_name text)
+RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id)', partition_name);
+    BEGIN
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist '
+                       '(medical_staff_id WITH =, appointment_range WITH &&) WHERE (status <> %L)',
+                       partition_name, partition_name || '_staff_no_overlap', 'CANCELLED');
+    EXCEPTION WHEN exclusion_violation THEN
+        RAISE WARNING '%_staff_no_overlap not created: existing appointments overlap', partition_name;
+    END;
+    BEGIN
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist '
+                       '(patient_id WITH =, appointment_range WITH &&) WHERE (status <> %L)',
+                       partition_name, partition_name || '_patient_no_overlap', 'CANCELLED');
+    EXCEPTION WHEN exclusion_violation THEN
+        RAISE WARNING '%_patient_no_overlap not created: existing appointments overlap', partition_name;
+    END;
+END
+$$^;
+
+-- appointments_yYYYYmMM for each of the months starting at first_month that does not exist yet. Rows without
+-- a date or beyond the last partition sit in appointments_default and move out when their month is created.
+-- Returns the number of partitions created, 0 while appointments is still a plain table.
+CREATE OR REPLACE FUNCTION ensure_appointment_partitions(first_month date, months integer)
+RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_start date;
+    month_end date;
+    partition_name text;
+    columns text;
+    created integer := 0;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('appointments')) IS DISTINCT FROM 'p' THEN
+        RETURN 0;
+    END IF;
+    -- several application instances may run this at startup.
+    PERFORM pg_advisory_xact_lock(hashtext('ensure_appointment_partitions'));
+
+    SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) INTO columns
+    FROM pg_attribute
+    WHERE attrelid = 'appointments'::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = '';
+
+    FOR i IN 0 .. months - 1 LOOP
+        month_start := (date_trunc('month', first_month) + make_interval(months => i))::date;
+        month_end := (month_start + INTERVAL '1 month')::date;
+        partition_name := 'appointments_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+        CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+
+        -- built standalone so rows parked in the default partition can move in before it is attached.
+        EXECUTE format('CREATE TABLE %I (LIKE appointments INCLUDING DEFAULTS INCLUDING GENERATED)', partition_name);
+        EXECUTE format('WITH moved AS (DELETE FROM appointments_default WHERE appointment_date_time >= %L '
+                       'AND appointment_date_time < %L RETURNING %s) INSERT INTO %I (%s) SELECT %s FROM moved',
+                       month_start, month_end, columns, partition_name, columns, columns);
+        PERFORM add_appointment_partition_constraints(partition_name);
+        EXECUTE format('ALTER TABLE appointments ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, month_start, month_end);
+        created := created + 1;
+    END LOOP;
+    RETURN created;
+END
+$$^;
+
+-- one-time conversion of the plain table Hibernate created. Existing rows are copied into their month;
+-- if they violate the per-partition constraints the conversion is rolled back and the table stays as is.
+-- The plain indexes move to the partitioned table under their Hibernate names and the foreign keys are
+-- added back by name, so ddl-auto=update finds them all on the next startup.
+DO $$
+DECLARE
+    columns text;
+    first_month date;
+    last_month date;
+    rec record;
+    renames text[] := '{}';
+    rename_sql text;
+BEGIN
+    -- same lock as ensure_appointment_partitions: instances starting together convert the table once.
+    PERFORM pg_advisory_xact_lock(hashtext('ensure_appointment_partitions'));
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('appointments')) IS DISTINCT FROM 'r' THEN
+        RETURN;
+    END IF;
+
+    BEGIN
+        ALTER TABLE appointments RENAME TO appointments_unpartitioned;
+        -- the primary key and overlap constraints do not hold the partition key, each partition gets its own.
+        FOR rec IN SELECT conname FROM pg_constraint
+                   WHERE conrelid = 'appointments_unpartitioned'::regclass AND contype IN ('p', 'u', 'x') LOOP
+            EXECUTE format('ALTER TABLE appointments_unpartitioned DROP CONSTRAINT %I', rec.conname);
+        END LOOP;
+        CREATE TABLE appointments (LIKE appointments_unpartitioned
+                INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING INDEXES)
+            PARTITION BY RANGE (appointment_date_time);
+        CREATE TABLE appointments_default PARTITION OF appointments DEFAULT;
+        PERFORM add_appointment_partition_constraints('appointments_default');
+
+        SELECT date_trunc('month', MIN(appointment_date_time))::date,
+               date_trunc('month', MAX(appointment_date_time))::date
+        INTO first_month, last_month
+        FROM appointments_unpartitioned;
+        first_month := LEAST(COALESCE(first_month, current_date), date_trunc('month', current_date)::date);
+        last_month := GREATEST(COALESCE(last_month, current_date), date_trunc('month', current_date)::date);
+        PERFORM ensure_appointment_partitions(first_month,
+                (EXTRACT(YEAR FROM age(last_month, first_month)) * 12
+                    + EXTRACT(MONTH FROM age(last_month, first_month)))::integer + 1);
+
+        SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) INTO columns
+        FROM pg_attribute
+        WHERE attrelid = 'appointments_unpartitioned'::regclass AND attnum > 0 AND NOT attisdropped
+          AND attgenerated = '';
+        EXECUTE format('INSERT INTO appointments (%s) SELECT %s FROM appointments_unpartitioned', columns, columns);
+
+        -- LIKE does not copy foreign keys, they are checked against the copied rows here.
+        FOR rec IN SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint
+                   WHERE conrelid = 'appointments_unpartitioned'::regclass AND contype = 'f' LOOP
+            EXECUTE format('ALTER TABLE appointments ADD CONSTRAINT %I %s', rec.conname, rec.definition);
+        END LOOP;
+
+        -- copied indexes get generated names, matched to their originals by definition.
+        FOR rec IN SELECT original.relname AS original_name, copy.relname AS copy_name
+                   FROM pg_index o
+                   JOIN pg_class original ON original.oid = o.indexrelid
+                   JOIN pg_index c ON c.indrelid = 'appointments'::regclass
+                       AND split_part(pg_get_indexdef(c.indexrelid), ' USING ', 2)
+                           = split_part(pg_get_indexdef(o.indexrelid), ' USING ', 2)
+                   JOIN pg_class copy ON copy.oid = c.indexrelid
+                   WHERE o.indrelid = 'appointments_unpartitioned'::regclass LOOP
+            renames := renames || format('ALTER INDEX %I RENAME TO %I', rec.copy_name, rec.original_name);
+        END LOOP;
+        DROP TABLE appointments_unpartitioned;
+        FOREACH rename_sql IN ARRAY renames LOOP
+            EXECUTE rename_sql;
+        END LOOP;
+    EXCEPTION WHEN exclusion_violation THEN
+        RAISE WARNING 'appointments not partitioned: existing appointments overlap';
+    END;
+END
+$$^;
+
+-- the current month and the next twelve always exist, AppointmentPartitionMaintainer keeps the window moving.
+SELECT ensure_appointment_partitions(date_trunc('month', current_date)::date, 13)^;
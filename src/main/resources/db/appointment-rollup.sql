@@ -0,0 +1,52 @@
+-- Appointments per day, status, medical staff and department for calendar views.
+-- Kept up to date by AppointmentCalendarRollup on every write; 0 stands for "no staff" / "no department".
+
+CREATE TABLE IF NOT EXISTS appointment_daily_counts (
+    day               DATE        NOT NULL,
+    status            VARCHAR(32) NOT NULL,
+    medical_staff_id  BIGINT      NOT NULL,
+    department_id     BIGINT      NOT NULL,
+    appointment_count INTEGER     NOT NULL,
+    PRIMARY KEY (day, status, medical_staff_id, department_id)
+)^;
+
+CREATE INDEX IF NOT EXISTS idx_appointment_daily_counts_staff_day
+    ON appointment_daily_counts (medical_staff_id, day)^;
+
+CREATE INDEX IF NOT EXISTS idx_appointment_daily_counts_department_day
+    ON appointment_daily_counts (department_id, day)^;
+
+-- marker of the one-time backfill, the rollup is filled from appointments once and then kept by deltas.
+CREATE TABLE IF NOT EXISTS appointment_daily_counts_backfill (
+    completed_at TIMESTAMP(6) NOT NULL DEFAULT now()
+)^;
+
+-- recomputes the whole rollup in one transaction, archived appointments still count as history. Run by the backfill below and by the drift repair of
+-- AppointmentCalendarRollup (appointments.rollup.repair-cron), never on a normal startup.
+CREATE OR REPLACE FUNCTION rebuild_appointment_daily_counts()
+RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('rebuild_appointment_daily_counts'));
+    DELETE FROM appointment_daily_counts;
+    INSERT INTO appointment_daily_counts (day, status, medical_staff_id, department_id, appointment_count)
+    SELECT CAST(appointment_date_time AS DATE), status,
+           COALESCE(medical_staff_id, 0), COALESCE(department_id, 0), COUNT(*)
+    FROM (SELECT appointment_date_time, status, medical_staff_id, department_id FROM appointments
+          UNION ALL
+          SELECT appointment_date_time, status, medical_staff_id, department_id FROM appointments_archive) a
+    WHERE appointment_date_time IS NOT NULL AND status IS NOT NULL
+    GROUP BY 1, 2, 3, 4;
+END
+$$^;
+
+-- instances starting together queue on the lock, the first one backfills and the others find the marker.
+DO $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('appointment_daily_counts_backfill'));
+    IF NOT EXISTS (SELECT 1 FROM appointment_daily_counts_backfill) THEN
+        PERFORM rebuild_appointment_daily_counts();
+        INSERT INTO appointment_daily_counts_backfill DEFAULT VALUES;
+    END IF;
+END
+$$^;
@@ -0,0 +1,13 @@
+-- Full-text search over reason, diagnosis and notes (AppointmentRepository.searchByText).
+-- The tsvector is a stored generated column, so it is kept current by every write path, the
+-- set-based ones included, and the GIN index on it is built per partition.
+-- Weights rank a match in the reason above one in the diagnosis, and that above one in the notes.
+
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(reason, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(diagnosis, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(notes, '')), 'C')
+    ) STORED^;
+
+CREATE INDEX IF NOT EXISTS idx_appointments_search ON appointments USING gin (search_vector)^;
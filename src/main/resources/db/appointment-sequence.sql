@@ -0,0 +1,7 @@
+-- Appointment ids moved from IDENTITY to the pooled appointments_seq so inserts can be batched.
+-- Hibernate creates the sequence starting at 1; move it past rows inserted under IDENTITY.
+-- Runs on every startup and only ever moves the sequence forward.
+
+SELECT setval('appointments_seq', m.max_id)
+FROM (SELECT MAX(id) AS max_id FROM appointments) m
+WHERE m.max_id > (SELECT last_value FROM appointments_seq)^;
@@ -0,0 +1,6 @@
+-- Optimistic locking column added to appointments by Hibernate. Rows written before it existed
+-- start at version 0, and rows inserted outside JPA get 0 by default.
+
+UPDATE appointments SET version = 0 WHERE version IS NULL^;
+
+ALTER TABLE appointments ALTER COLUMN version SET DEFAULT 0^;
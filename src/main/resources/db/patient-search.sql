@@ -0,0 +1,22 @@
+-- Trigram indexes behind patient substring and similarity search (PatientRepository.searchPatients,
+-- the ...ContainingIgnoreCase finders and searchBySimilarity). Every query compares lower(column),
+-- so the indexes are on the same expressions and serve LIKE '%q%' as well as the % operator.
+-- Without the pg_trgm extension (no privilege to create it) the % operator and similarity() do not exist:
+-- PatientServiceImpl then answers searchPatientsBySimilarity with plain substring matching
+-- (PatientRepository.searchBySubstring), and every search is a sequential scan.
+
+DO $$
+BEGIN
+    BEGIN
+        CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    EXCEPTION WHEN insufficient_privilege OR undefined_file THEN
+        RAISE WARNING 'pg_trgm not available, patient search is not indexed';
+        RETURN;
+    END;
+
+    CREATE INDEX IF NOT EXISTS idx_patients_first_name_trgm ON patients USING gin (lower(first_name) gin_trgm_ops);
+    CREATE INDEX IF NOT EXISTS idx_patients_last_name_trgm ON patients USING gin (lower(last_name) gin_trgm_ops);
+    CREATE INDEX IF NOT EXISTS idx_patients_email_trgm ON patients USING gin (lower(email) gin_trgm_ops);
+    CREATE INDEX IF NOT EXISTS idx_patients_address_trgm ON patients USING gin (lower(address) gin_trgm_ops);
+END
+$$^;
@@ -2,6 +2,13 @@ package com.example.CommunityHealthMedicalSystem.Controller;
 
 import com.example.CommunityHealthMedicalSystem.Controller.AppointmentController;
 import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentPageDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSearchDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentItemDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentResultDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkStatusUpdateDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.CalendarCountDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.SlotHoldDTO;
 import com.example.CommunityHealthMedicalSystem.Exception.*;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
 import com.example.CommunityHealthMedicalSystem.Exception.SecurityException;
@@ -10,7 +17,12 @@ import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
 import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
 import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentCalendarRollup;
 import com.example.CommunityHealthMedicalSystem.Service.AppointmentServiceImpl;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentStatusTransitions;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentStreamer;
+import com.example.CommunityHealthMedicalSystem.Service.DepartmentScheduleBoard;
+import com.example.CommunityHealthMedicalSystem.Service.SlotHoldRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,9 +34,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -50,6 +65,21 @@ class AppointmentControllerTest {
     @Mock
     private MedicalStaffRepository medicalStaffRepository;
 
+    @Mock
+    private AppointmentStreamer appointmentStreamer;
+
+    @Mock
+    private AppointmentCalendarRollup calendarRollup;
+
+    @Mock
+    private AppointmentStatusTransitions statusTransitions;
+
+    @Mock
+    private SlotHoldRegistry holdRegistry;
+
+    @Mock
+    private DepartmentScheduleBoard scheduleBoard;
+
     @InjectMocks
     private AppointmentController appointmentController;
 
@@ -227,7 +257,7 @@ class AppointmentControllerTest {
     void getAppointmentByPatientId_WithValidId_ShouldReturnAppointments() throws Exception {
         // Given
         List<Appointment> appointments = Arrays.asList(sampleAppointment);
-        when(appointmentService.getAppointmentByPatientId(1L)).thenReturn(appointments);
+        when(appointmentService.getAppointmentByPatientId(1L, false)).thenReturn(appointments);
 
         // When & Then
         mockMvc.perform(get("/api/appointments/by-patient/1")
@@ -235,13 +265,13 @@ class AppointmentControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(1L));
 
-        verify(appointmentService, times(1)).getAppointmentByPatientId(1L);
+        verify(appointmentService, times(1)).getAppointmentByPatientId(1L, false);
     }
 
     @Test
     void getAppointmentByPatientId_WithSecurityException_ShouldReturnForbidden() throws Exception {
         // Given
-        when(appointmentService.getAppointmentByPatientId(1L))
+        when(appointmentService.getAppointmentByPatientId(1L, false))
                 .thenThrow(new SecurityException("Access denied"));
 
         // When & Then
@@ -249,13 +279,13 @@ class AppointmentControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isForbidden());
 
-        verify(appointmentService, times(1)).getAppointmentByPatientId(1L);
+        verify(appointmentService, times(1)).getAppointmentByPatientId(1L, false);
     }
 
     @Test
     void getAppointmentByPatientId_WithResourceNotFound_ShouldReturnNotFound() throws Exception {
         // Given
-        when(appointmentService.getAppointmentByPatientId(1L))
+        when(appointmentService.getAppointmentByPatientId(1L, false))
                 .thenThrow(new ResourceNotFound("Patient not found"));
 
         // When & Then
@@ -263,7 +293,37 @@ class AppointmentControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
 
-        verify(appointmentService, times(1)).getAppointmentByPatientId(1L);
+        verify(appointmentService, times(1)).getAppointmentByPatientId(1L, false);
+    }
+
+    @Test
+    void getAppointmentByPatientId_WithIncludeArchived_ShouldReadHistory() throws Exception {
+        // Given
+        when(appointmentService.getAppointmentByPatientId(1L, true)).thenReturn(Arrays.asList(sampleAppointment));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/by-patient/1")
+                        .param("includeArchived", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L));
+
+        verify(appointmentService, times(1)).getAppointmentByPatientId(1L, true);
+    }
+
+    // GET /api/appointments/by-department-id/{departmentId}/live - StreamDepartmentSchedule
+    @Test
+    void streamDepartmentSchedule_ShouldSubscribeToRequestedDay() throws Exception {
+        // Given
+        when(scheduleBoard.subscribe(3L, LocalDate.of(2030, 5, 6))).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/by-department-id/3/live")
+                        .param("day", "2030-05-06")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(scheduleBoard, times(1)).subscribe(3L, LocalDate.of(2030, 5, 6));
     }
 
     // GET /api/appointments/by-medical-id/{medicalId} - GetAppointmentByMedicalId
@@ -365,6 +425,146 @@ class AppointmentControllerTest {
     }
 
     // POST /api/appointments - CreateAppointment
+    @Test
+    void getAppointmentsPage_ShouldReturnItemsAndNextCursor() throws Exception {
+        // Given
+        when(appointmentService.getAppointmentsPage(Appointment.Status.SCHEDULED, null, null, 100))
+                .thenReturn(new AppointmentPageDTO(List.of(sampleAppointmentDTO), "abc"));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/page").param("status", "SCHEDULED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value("abc"));
+    }
+
+    @Test
+    void searchAppointments_ShouldBindFiltersFromQueryParameters() throws Exception {
+        // Given
+        AppointmentSearchDTO expected = new AppointmentSearchDTO(Appointment.Status.SCHEDULED, 1L, null, null,
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 2, 1, 0, 0));
+        when(appointmentService.searchAppointments(expected, null, 20))
+                .thenReturn(new AppointmentPageDTO(List.of(sampleAppointmentDTO), null));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/search")
+                        .param("status", "SCHEDULED")
+                        .param("medicalStaffId", "1")
+                        .param("from", "2025-01-01T00:00:00")
+                        .param("to", "2025-02-01T00:00:00")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L));
+    }
+
+    @Test
+    void searchAppointmentsByText_ShouldReturnRankedAppointments() throws Exception {
+        // Given
+        when(appointmentService.searchAppointmentsByText("chest pain", 1, 10)).thenReturn(List.of(sampleAppointmentDTO));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/search/text")
+                        .param("q", "chest pain")
+                        .param("page", "1")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void searchAppointmentsByText_WithInvalidQuery_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(appointmentService.searchAppointmentsByText(" ", 0, 20))
+                .thenThrow(new IllegalArgumentException("Search query cannot be empty."));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/search/text").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAppointmentsPage_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(appointmentService.getAppointmentsPage(null, null, "bad", 100))
+                .thenThrow(new IllegalArgumentException("Invalid cursor."));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/page").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAppointments_WithNdjsonAccept_ShouldWriteRowsFromStreamer() throws Exception {
+        // Given
+        when(appointmentStreamer.writeNdjson(eq(null), eq(4L), any())).thenAnswer(invocation -> {
+            java.io.OutputStream out = invocation.getArgument(2);
+            out.write("{\"id\":1}\n".getBytes());
+            return 1L;
+        });
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/appointments")
+                        .param("departmentId", "4")
+                        .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void getCalendarCounts_ShouldReturnCountsFromRollup() throws Exception {
+        // Given
+        LocalDate day = LocalDate.of(2030, 3, 4);
+        when(calendarRollup.counts(day, day.plusDays(30), 2L, null, AppointmentCalendarRollup.GroupBy.STAFF))
+                .thenReturn(List.of(new CalendarCountDTO(day, Appointment.Status.SCHEDULED, 2L, null, 7)));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/calendar")
+                        .param("from", "2030-03-04")
+                        .param("to", "2030-04-03")
+                        .param("medicalStaffId", "2")
+                        .param("groupBy", "STAFF"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("SCHEDULED"))
+                .andExpect(jsonPath("$[0].medicalStaffId").value(2))
+                .andExpect(jsonPath("$[0].count").value(7));
+    }
+
+    @Test
+    void updateAppointmentStatuses_ShouldReturnUpdatedIds() throws Exception {
+        // Given
+        when(statusTransitions.transition(List.of(1L, 2L, 3L), Appointment.Status.COMPLETED))
+                .thenReturn(List.of(1L, 3L));
+        BulkStatusUpdateDTO request = new BulkStatusUpdateDTO(List.of(1L, 2L, 3L), Appointment.Status.COMPLETED, null);
+
+        // When & Then
+        mockMvc.perform(post("/api/appointments/status-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updatedIds.length()").value(2))
+                .andExpect(jsonPath("$.updatedIds[1]").value(3));
+    }
+
+    @Test
+    void updateAppointmentStatuses_BackToScheduled_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(statusTransitions.transition(List.of(1L), Appointment.Status.SCHEDULED))
+                .thenThrow(new IllegalArgumentException("Appointments cannot be moved back to SCHEDULED in bulk."));
+        BulkStatusUpdateDTO request = new BulkStatusUpdateDTO(List.of(1L), Appointment.Status.SCHEDULED, null);
+
+        // When & Then
+        mockMvc.perform(post("/api/appointments/status-transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void createAppointment_WithValidData_ShouldReturnCreatedAppointment() throws Exception {
         // Given
@@ -381,6 +581,92 @@ class AppointmentControllerTest {
         verify(appointmentService, times(1)).createAppointment(any(AppointmentDTO.class));
     }
 
+    @Test
+    void getUpcomingAppointmentsByPatientId_ShouldReturnDTOs() throws Exception {
+        // Given
+        when(appointmentService.getUpcomingAppointmentsByPatientId(1L)).thenReturn(List.of(sampleAppointmentDTO));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointments/by-patient/1/upcoming"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void placeHold_WithFreeSlot_ShouldReturnCreatedHold() throws Exception {
+        // Given
+        SlotHoldDTO request = new SlotHoldDTO(null, 1L, LocalDateTime.now().plusDays(1), 30, 120, null);
+        SlotHoldDTO placed = new SlotHoldDTO("hold-1", 1L, request.getStart(), 30, 120,
+                LocalDateTime.now().plusMinutes(2));
+        when(holdRegistry.place(any(SlotHoldDTO.class))).thenReturn(placed);
+
+        // When & Then
+        mockMvc.perform(post("/api/appointments/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value("hold-1"));
+    }
+
+    @Test
+    void placeHold_WithTakenSlot_ShouldReturnConflict() throws Exception {
+        // Given
+        SlotHoldDTO request = new SlotHoldDTO(null, 1L, LocalDateTime.now().plusDays(1), 30, null, null);
+        when(holdRegistry.place(any(SlotHoldDTO.class)))
+                .thenThrow(new ConflictException("Slot is already booked or held for this medical staff."));
+
+        // When & Then
+        mockMvc.perform(post("/api/appointments/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void releaseHold_WithUnknownHold_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(holdRegistry.release("missing")).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(delete("/api/appointments/holds/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createAppointments_WithValidBatch_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        BulkAppointmentResultDTO result = new BulkAppointmentResultDTO(1, 1, 0, List.of(
+                new BulkAppointmentItemDTO(0, BulkAppointmentItemDTO.Result.CREATED, 5L, null),
+                new BulkAppointmentItemDTO(1, BulkAppointmentItemDTO.Result.CONFLICT, null,
+                        "Medical staff already has appointment at this time.")));
+        when(appointmentService.createAppointments(anyList())).thenReturn(result);
+
+        // When & Then
+        mockMvc.perform(post("/api/appointments/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(sampleAppointmentDTO, sampleAppointmentDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.conflicts").value(1))
+                .andExpect(jsonPath("$.items[0].appointmentId").value(5L))
+                .andExpect(jsonPath("$.items[1].result").value("CONFLICT"));
+
+        verify(appointmentService, times(1)).createAppointments(anyList());
+    }
+
+    @Test
+    void createAppointments_WithOversizedBatch_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(appointmentService.createAppointments(anyList()))
+                .thenThrow(new IllegalArgumentException("At most 5000 appointments can be booked at once."));
+
+        // When & Then
+        mockMvc.perform(post("/api/appointments/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(sampleAppointmentDTO))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void createAppointment_WithDuplicateResource_ShouldReturnBadRequest() throws Exception {
         // Given
@@ -445,7 +731,8 @@ class AppointmentControllerTest {
     @Test
     void updateAppointmentStatus_WithValidData_ShouldReturnUpdatedAppointment() throws Exception {
         // Given
-        when(appointmentService.updateAppointment(eq(1L), any(AppointmentDTO.class)))
+        sampleAppointmentDTO.setVersion(4L);
+        when(appointmentService.updateAppointmentStatus(1L, Appointment.Status.COMPLETED, null))
                 .thenReturn(sampleAppointmentDTO);
 
         // When & Then
@@ -453,15 +740,56 @@ class AppointmentControllerTest {
                         .param("status", "COMPLETED")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
                 .andExpect(jsonPath("$.id").value(1L));
 
-        verify(appointmentService, times(1)).updateAppointment(eq(1L), any(AppointmentDTO.class));
+        verify(appointmentService, times(1)).updateAppointmentStatus(1L, Appointment.Status.COMPLETED, null);
+        verify(appointmentService, never()).updateAppointment(anyLong(), any(AppointmentDTO.class));
+    }
+
+    @Test
+    void updateAppointmentStatus_WithIfMatch_ShouldPassExpectedVersion() throws Exception {
+        // Given
+        when(appointmentService.updateAppointmentStatus(1L, Appointment.Status.COMPLETED, 3L))
+                .thenReturn(sampleAppointmentDTO);
+
+        // When & Then
+        mockMvc.perform(patch("/api/appointments/1/status")
+                        .param("status", "COMPLETED")
+                        .header("If-Match", "\"3\""))
+                .andExpect(status().isOk());
+
+        verify(appointmentService, times(1)).updateAppointmentStatus(1L, Appointment.Status.COMPLETED, 3L);
+    }
+
+    @Test
+    void updateAppointmentStatus_WithStaleVersion_ShouldReturnPreconditionFailed() throws Exception {
+        // Given
+        when(appointmentService.updateAppointmentStatus(1L, Appointment.Status.COMPLETED, 2L))
+                .thenThrow(new PreconditionFailedException("Appointment #1 was modified by someone else."));
+
+        // When & Then
+        mockMvc.perform(patch("/api/appointments/1/status")
+                        .param("status", "COMPLETED")
+                        .header("If-Match", "W/\"2\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void updateAppointmentStatus_WithMalformedIfMatch_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(patch("/api/appointments/1/status")
+                        .param("status", "COMPLETED")
+                        .header("If-Match", "\"abc\""))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(appointmentService);
     }
 
     @Test
     void updateAppointmentStatus_WithNonExistentAppointment_ShouldReturnNotFound() throws Exception {
         // Given
-        when(appointmentService.updateAppointment(eq(999L), any(AppointmentDTO.class)))
+        when(appointmentService.updateAppointmentStatus(999L, Appointment.Status.COMPLETED, null))
                 .thenThrow(new ResourceNotFound("Appointment not found"));
 
         // When & Then
@@ -470,13 +798,13 @@ class AppointmentControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
 
-        verify(appointmentService, times(1)).updateAppointment(eq(999L), any(AppointmentDTO.class));
+        verify(appointmentService, times(1)).updateAppointmentStatus(999L, Appointment.Status.COMPLETED, null);
     }
 
     @Test
     void updateAppointmentStatus_WithInvalidStatus_ShouldReturnBadRequest() throws Exception {
         // Given
-        when(appointmentService.updateAppointment(eq(1L), any(AppointmentDTO.class)))
+        when(appointmentService.updateAppointmentStatus(1L, Appointment.Status.COMPLETED, null))
                 .thenThrow(new IllegalArgumentException("Invalid status"));
 
         // When & Then
@@ -485,7 +813,7 @@ class AppointmentControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
 
-        verify(appointmentService, times(1)).updateAppointment(eq(1L), any(AppointmentDTO.class));
+        verify(appointmentService, times(1)).updateAppointmentStatus(1L, Appointment.Status.COMPLETED, null);
     }
 
     // PUT /api/appointments/{id} - UpdateAppointment
@@ -0,0 +1,118 @@
+package com.example.CommunityHealthMedicalSystem.Controller;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSeriesDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
+import com.example.CommunityHealthMedicalSystem.Service.AppointmentSeriesServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentSeriesControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private AppointmentSeriesServiceImpl seriesService;
+
+    @InjectMocks
+    private AppointmentSeriesController seriesController;
+
+    private ObjectMapper objectMapper;
+    private AppointmentSeriesDTO sampleSeriesDTO;
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2030, 3, 4, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(seriesController).build();
+        objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+
+        sampleSeriesDTO = new AppointmentSeriesDTO();
+        sampleSeriesDTO.setPatientId(1L);
+        sampleSeriesDTO.setMedicalStaffId(2L);
+        sampleSeriesDTO.setFirstOccurrence(FIRST);
+        sampleSeriesDTO.setRecurrenceRule("FREQ=WEEKLY;COUNT=52");
+    }
+
+    @Test
+    void createSeries_WithValidData_ShouldReturnCreated() throws Exception {
+        // Given
+        AppointmentSeriesDTO created = new AppointmentSeriesDTO();
+        created.setId(5L);
+        when(seriesService.createSeries(any(AppointmentSeriesDTO.class))).thenReturn(created);
+
+        // When & Then
+        mockMvc.perform(post("/api/appointment-series")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleSeriesDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(5L));
+    }
+
+    @Test
+    void createSeries_WithConflict_ShouldReturnConflict() throws Exception {
+        // Given
+        when(seriesService.createSeries(any(AppointmentSeriesDTO.class)))
+                .thenThrow(new ConflictException("Medical staff already has appointment at 2030-03-18T09:00."));
+
+        // When & Then
+        mockMvc.perform(post("/api/appointment-series")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleSeriesDTO)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void getOccurrences_ShouldReturnExpandedWindow() throws Exception {
+        // Given
+        AppointmentDTO occurrence = new AppointmentDTO();
+        occurrence.setSeriesId(5L);
+        occurrence.setAppointmentDateTime(FIRST.plusWeeks(1));
+        when(seriesService.getOccurrences(5L, FIRST, FIRST.plusWeeks(2))).thenReturn(List.of(occurrence));
+
+        // When & Then
+        mockMvc.perform(get("/api/appointment-series/5/occurrences")
+                        .param("from", "2030-03-04T09:00:00")
+                        .param("to", "2030-03-18T09:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].seriesId").value(5L));
+    }
+
+    @Test
+    void cancelOccurrence_WithUnknownOccurrence_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(seriesService.cancelOccurrence(eq(5L), any(LocalDateTime.class)))
+                .thenThrow(new ResourceNotFound("Series #5 has no occurrence."));
+
+        // When & Then
+        mockMvc.perform(delete("/api/appointment-series/5/occurrences")
+                        .param("occurrence", "2030-03-05T09:00:00"))
+                .andExpect(status().isNotFound());
+
+        verify(seriesService).cancelOccurrence(5L, FIRST.plusDays(1));
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.CommunityHealthMedicalSystem.Controller;
 
+import com.example.CommunityHealthMedicalSystem.DTO.AvailabilitySlotDTO;
 import com.example.CommunityHealthMedicalSystem.DTO.MedicalStaffDTO;
 import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
 import com.example.CommunityHealthMedicalSystem.Exception.DuplicateResourceException;
 import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
 import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Service.EarliestSlotSearch;
 import com.example.CommunityHealthMedicalSystem.Service.MedicalStaffServiceImpl;
+import com.example.CommunityHealthMedicalSystem.Service.StaffAvailabilityEngine;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +20,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -45,6 +49,12 @@ public class MedicalStaffControllerTest {
     @Mock
     private MedicalStaffServiceImpl medicalStaffService;
 
+    @Mock
+    private StaffAvailabilityEngine availabilityEngine;
+
+    @Mock
+    private EarliestSlotSearch earliestSlotSearch;
+
     @InjectMocks
     private MedicalStaffController medicalStaffController;
 
@@ -342,4 +352,58 @@ public class MedicalStaffControllerTest {
 
         verify(medicalStaffService, times(1)).deleteStaff(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAvailability_ShouldReturnFreeSlots() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2030, 1, 7, 8, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 7, 12, 0);
+        List<AvailabilitySlotDTO> slots = List.of(
+                new AvailabilitySlotDTO(1L, from, from.plusMinutes(30)),
+                new AvailabilitySlotDTO(1L, from.plusMinutes(60), from.plusMinutes(90)));
+        when(availabilityEngine.freeSlots(1L, from, to, 30)).thenReturn(slots);
+
+        // When & Then
+        mockMvc.perform(get("/api/medicalStaff/1/availability")
+                        .param("from", "2030-01-07T08:00:00")
+                        .param("to", "2030-01-07T12:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].medicalStaffId").value(1));
+
+        verify(availabilityEngine, times(1)).freeSlots(1L, from, to, 30);
+    }
+
+    @Test
+    void getNextFreeSlot_WhenNoSlotInHorizon_ShouldReturnNotFound() throws Exception {
+        // Given
+        LocalDateTime after = LocalDateTime.of(2030, 1, 7, 8, 0);
+        when(availabilityEngine.nextFreeSlot(1L, after, 45)).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/medicalStaff/1/availability/next")
+                        .param("after", "2030-01-07T08:00:00")
+                        .param("slotMinutes", "45"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getEarliestSlots_ShouldSearchAcrossSpecialization() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2030, 1, 7, 8, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 14, 8, 0);
+        when(earliestSlotSearch.findEarliest("cardio", null, from, to, 30, 3)).thenReturn(List.of(
+                new AvailabilitySlotDTO(4L, from, from.plusMinutes(30)),
+                new AvailabilitySlotDTO(2L, from, from.plusMinutes(30))));
+
+        // When & Then
+        mockMvc.perform(get("/api/medicalStaff/availability/earliest")
+                        .param("specialization", "cardio")
+                        .param("from", "2030-01-07T08:00:00")
+                        .param("to", "2030-01-14T08:00:00")
+                        .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].medicalStaffId").value(4));
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.CommunityHealthMedicalSystem.Controller;
 
+import com.example.CommunityHealthMedicalSystem.DTO.DuplicateCandidateDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.DuplicateScanReportDTO;
 import com.example.CommunityHealthMedicalSystem.DTO.PatientDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.PatientImportErrorDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.PatientImportReportDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.PatientSuggestionDTO;
 import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
 import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Service.DuplicatePatientDetector;
+import com.example.CommunityHealthMedicalSystem.Service.PatientAutocompleteIndex;
+import com.example.CommunityHealthMedicalSystem.Service.PatientImporter;
 import com.example.CommunityHealthMedicalSystem.Service.PatientServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -18,12 +26,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
@@ -46,6 +56,15 @@ public class PatientControllerTest {
     @Mock
     private PatientServiceImpl patientService;
 
+    @Mock
+    private PatientAutocompleteIndex autocompleteIndex;
+
+    @Mock
+    private DuplicatePatientDetector duplicateDetector;
+
+    @Mock
+    private PatientImporter patientImporter;
+
     @InjectMocks
     private PatientController patientController;
 
@@ -440,4 +459,104 @@ public class PatientControllerTest {
 
         verify(patientService, never()).createPatient(any(PatientDTO.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchPatientsBySimilarity_ShouldReturnRankedPatients() throws Exception {
+        when(patientService.searchPatientsBySimilarity("jon", 0, 20)).thenReturn(List.of(patientDTO));
+
+        mockMvc.perform(get("/api/patients/search/similar").param("q", "jon"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void searchPatientsBySimilarity_WithShortQuery_ShouldReturnBadRequest() throws Exception {
+        when(patientService.searchPatientsBySimilarity("jo", 0, 20))
+                .thenThrow(new com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException(
+                        "Search query must have at least 3 characters."));
+
+        mockMvc.perform(get("/api/patients/search/similar").param("q", "jo"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void autocomplete_ShouldReturnSuggestions() throws Exception {
+        when(autocompleteIndex.suggest("smi", 5)).thenReturn(List.of(new PatientSuggestionDTO(1L, "John Smith")));
+
+        mockMvc.perform(get("/api/patients/autocomplete").param("q", "smi").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].displayName").value("John Smith"));
+    }
+
+    @Test
+    void autocomplete_WithLimitOutOfRange_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/patients/autocomplete").param("q", "smi").param("limit", "500"))
+                .andExpect(status().isBadRequest());
+
+        verify(autocompleteIndex, never()).suggest(any(), anyInt());
+    }
+
+    @Test
+    void findDuplicateCandidates_ShouldReturnLastScanReport() throws Exception {
+        when(duplicateDetector.lastReport()).thenReturn(new DuplicateScanReportDTO(LocalDateTime.of(2024, 1, 1, 2, 0),
+                false, false, List.of(new DuplicateCandidateDTO(1L, 2L, LocalDate.of(1985, 5, 15)))));
+
+        mockMvc.perform(get("/api/patients/duplicates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.running").value(false))
+                .andExpect(jsonPath("$.pairs[0].firstPatientId").value(1L))
+                .andExpect(jsonPath("$.pairs[0].secondPatientId").value(2L));
+
+        verify(duplicateDetector, never()).requestScan();
+    }
+
+    @Test
+    void findDuplicateCandidates_BeforeFirstScan_ShouldStartOne() throws Exception {
+        when(duplicateDetector.lastReport()).thenReturn(new DuplicateScanReportDTO(null, false, false, List.of()));
+        when(duplicateDetector.requestScan()).thenReturn(true);
+
+        mockMvc.perform(get("/api/patients/duplicates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.running").value(true))
+                .andExpect(jsonPath("$.pairs").isEmpty());
+    }
+
+    @Test
+    void scanDuplicates_ShouldStartScanAndReturnAccepted() throws Exception {
+        when(duplicateDetector.lastReport()).thenReturn(new DuplicateScanReportDTO(null, true, false, List.of()));
+
+        mockMvc.perform(post("/api/patients/duplicates/scan"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.running").value(true));
+
+        verify(duplicateDetector, times(1)).requestScan();
+    }
+
+    @Test
+    void importPatients_WithCsvBody_ShouldReturnReport() throws Exception {
+        PatientImportReportDTO report = new PatientImportReportDTO(2, 1, 1,
+                List.of(new PatientImportErrorDTO(3, "Email is required.")));
+        when(patientImporter.importPatients(any(), eq(PatientImporter.Format.CSV))).thenReturn(report);
+
+        mockMvc.perform(post("/api/patients/import")
+                        .contentType("text/csv;charset=UTF-8")
+                        .content("firstName,lastName,email,phoneNumber,nationalId,dateOfBirth,address\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(3));
+    }
+
+    @Test
+    void importPatients_WithNdjsonBody_ShouldUseNdjsonFormat() throws Exception {
+        when(patientImporter.importPatients(any(), eq(PatientImporter.Format.NDJSON)))
+                .thenReturn(new PatientImportReportDTO());
+
+        mockMvc.perform(post("/api/patients/import")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n"))
+                .andExpect(status().isOk());
+
+        verify(patientImporter, times(1)).importPatients(any(), eq(PatientImporter.Format.NDJSON));
+    }
+}
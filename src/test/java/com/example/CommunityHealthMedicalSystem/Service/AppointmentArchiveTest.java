@@ -0,0 +1,56 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentArchiveTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private AppointmentArchive appointmentArchive;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 5, 6, 3, 45);
+
+    @BeforeEach
+    void setUp() {
+        appointmentArchive = new AppointmentArchive(jdbcTemplate, 24, 100);
+    }
+
+    @Test
+    void archive_ShouldMoveChunksUntilOneComesBackShort() {
+        // Given
+        Timestamp cutoff = Timestamp.valueOf(NOW.minusMonths(24));
+        when(jdbcTemplate.update(anyString(), eq(cutoff), eq(100))).thenReturn(100, 100, 7);
+
+        // When
+        int total = appointmentArchive.archive(NOW);
+
+        // Then
+        assertEquals(207, total);
+        verify(jdbcTemplate, times(3)).update(contains("INSERT INTO appointments_archive"), eq(cutoff), eq(100));
+        verify(jdbcTemplate, times(3)).update(contains("'NO_SHOW'"), eq(cutoff), eq(100));
+    }
+
+    @Test
+    void archive_WithNothingOld_ShouldRunOneChunk() {
+        // Given
+        when(jdbcTemplate.update(anyString(), any(Timestamp.class), anyInt())).thenReturn(0);
+
+        // When & Then
+        assertEquals(0, appointmentArchive.archive(NOW));
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Timestamp.class), anyInt());
+    }
+}
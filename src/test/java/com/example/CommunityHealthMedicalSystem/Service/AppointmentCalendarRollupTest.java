@@ -0,0 +1,138 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentCalendarRollupTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private AppointmentCalendarRollup calendarRollup;
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 3, 4, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        calendarRollup = new AppointmentCalendarRollup(jdbcTemplate);
+    }
+
+    private AppointmentSnapshot snapshot(LocalDateTime dateTime, Appointment.Status status, Long departmentId) {
+        return new AppointmentSnapshot(1L, 3L, 2L, departmentId, dateTime, 30, status);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> capturedRows() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        return rows.getValue();
+    }
+
+    @Test
+    void onAppointmentChanged_WhenCreated_ShouldIncrementOneRow() {
+        calendarRollup.onAppointmentChanged(AppointmentChangedEvent.created(
+                snapshot(NINE, Appointment.Status.SCHEDULED, null)));
+
+        List<Object[]> rows = capturedRows();
+        assertEquals(1, rows.size());
+        assertArrayEquals(new Object[]{Date.valueOf(NINE.toLocalDate()), "SCHEDULED", 2L, 0L, 1}, rows.get(0));
+    }
+
+    @Test
+    void onAppointmentChanged_WhenStatusChanges_ShouldMoveCountBetweenStatuses() {
+        calendarRollup.onAppointmentChanged(AppointmentChangedEvent.updated(
+                snapshot(NINE, Appointment.Status.SCHEDULED, 5L),
+                snapshot(NINE, Appointment.Status.COMPLETED, 5L)));
+
+        List<Object[]> rows = capturedRows();
+        assertEquals(2, rows.size());
+        assertEquals("SCHEDULED", rows.get(0)[1]);
+        assertEquals(-1, rows.get(0)[4]);
+        assertEquals("COMPLETED", rows.get(1)[1]);
+        assertEquals(1, rows.get(1)[4]);
+    }
+
+    @Test
+    void onAppointmentChanged_WhenSameDayAndStatus_ShouldNotTouchTable() {
+        calendarRollup.onAppointmentChanged(AppointmentChangedEvent.updated(
+                snapshot(NINE, Appointment.Status.SCHEDULED, 5L),
+                snapshot(NINE.plusHours(2), Appointment.Status.SCHEDULED, 5L)));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void counts_WithTooLongRange_ShouldThrowException() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> calendarRollup.counts(from, from.plusDays(90), null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> calendarRollup.counts(from, from.minusDays(1), null, null, null));
+    }
+
+    @Test
+    void repair_ShouldRecomputeInTheDatabase() {
+        calendarRollup.repair();
+
+        verify(jdbcTemplate).queryForObject("SELECT rebuild_appointment_daily_counts()", Object.class);
+    }
+
+    @Test
+    void retryFailed_ShouldApplyMergedDeltasOfFailedUpdates() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"));
+        calendarRollup.onAppointmentChanged(AppointmentChangedEvent.created(
+                snapshot(NINE, Appointment.Status.SCHEDULED, 5L)));
+        calendarRollup.onAppointmentChanged(AppointmentChangedEvent.created(
+                snapshot(NINE.plusHours(1), Appointment.Status.SCHEDULED, 5L)));
+        assertEquals(1, calendarRollup.pendingRetries());
+        reset(jdbcTemplate);
+
+        // When
+        calendarRollup.retryFailed();
+
+        // Then
+        List<Object[]> rows = capturedRows();
+        assertEquals(1, rows.size());
+        assertArrayEquals(new Object[]{Date.valueOf(NINE.toLocalDate()), "SCHEDULED", 2L, 5L, 2}, rows.get(0));
+        assertEquals(0, calendarRollup.pendingRetries());
+    }
+
+    @Test
+    void repair_ShouldDropDeltasKeptForRetry() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"));
+        calendarRollup.onAppointmentChanged(AppointmentChangedEvent.created(
+                snapshot(NINE, Appointment.Status.SCHEDULED, 5L)));
+
+        // When
+        calendarRollup.repair();
+        calendarRollup.retryFailed();
+
+        // Then
+        assertEquals(0, calendarRollup.pendingRetries());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentIntervalIndexTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private AppointmentIntervalIndex intervalIndex;
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 3, 4, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        intervalIndex = new AppointmentIntervalIndex(appointmentRepository);
+    }
+
+    private Appointment appointment(Long id, LocalDateTime start, Integer duration) {
+        Patient patient = new Patient();
+        patient.setId(10L);
+        MedicalStaff staff = new MedicalStaff();
+        staff.setId(20L);
+
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setPatient(patient);
+        appointment.setMedicalStaff(staff);
+        appointment.setAppointmentDateTime(start);
+        appointment.setAppointmentDuration(duration);
+        appointment.setStatus(Appointment.Status.SCHEDULED);
+        return appointment;
+    }
+
+    @Test
+    void findStaffConflict_WithOverlappingDuration_ShouldReturnConflict() {
+        // Given - a 45 minute visit from 09:00 to 09:45
+        when(appointmentRepository.findByMedicalStaffIdsFrom(eq(List.of(20L)), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class)))
+                .thenReturn(List.of(appointment(1L, NINE, 45)));
+
+        // When & Then
+        assertEquals(Optional.of(1L), intervalIndex.findStaffConflict(20L, NINE.plusMinutes(30), 30, null));
+        assertTrue(intervalIndex.findStaffConflict(20L, NINE.plusMinutes(45), 30, null).isEmpty());
+        assertTrue(intervalIndex.findStaffConflict(20L, NINE.minusMinutes(30), 30, null).isEmpty());
+    }
+
+    @Test
+    void findStaffConflict_ShouldIgnoreTheAppointmentBeingUpdated() {
+        // Given
+        when(appointmentRepository.findByMedicalStaffIdsFrom(eq(List.of(20L)), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class)))
+                .thenReturn(List.of(appointment(1L, NINE, 30)));
+
+        // When & Then
+        assertTrue(intervalIndex.findStaffConflict(20L, NINE.plusMinutes(15), 30, 1L).isEmpty());
+    }
+
+    @Test
+    void timeline_ShouldBeLoadedOnceAndKeptInSyncOnWrites() {
+        // Given
+        when(appointmentRepository.findByMedicalStaffIdsFrom(eq(List.of(20L)), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        assertTrue(intervalIndex.findStaffConflict(20L, NINE, 30, null).isEmpty());
+
+        // When
+        intervalIndex.add(appointment(5L, NINE, null));
+
+        // Then - default duration of 30 minutes is applied
+        assertEquals(Optional.of(5L), intervalIndex.findStaffConflict(20L, NINE.plusMinutes(20), 30, null));
+
+        intervalIndex.remove(5L, 20L, 10L);
+        assertTrue(intervalIndex.findStaffConflict(20L, NINE, 30, null).isEmpty());
+        verify(appointmentRepository, times(1)).findByMedicalStaffIdsFrom(eq(List.of(20L)),
+                eq(Appointment.Status.CANCELLED), any(LocalDateTime.class));
+    }
+
+    @Test
+    void preloadStaff_ShouldLoadOnlyMissingTimelinesWithOneQuery() {
+        // Given - staff 20 is already cached
+        when(appointmentRepository.findByMedicalStaffIdsFrom(eq(List.of(20L)), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        intervalIndex.findStaffConflict(20L, NINE, 30, null);
+        Appointment booked = appointment(7L, NINE, 30);
+        booked.getMedicalStaff().setId(30L);
+        when(appointmentRepository.findByMedicalStaffIdsFrom(eq(List.of(30L, 40L)), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class))).thenReturn(List.of(booked));
+
+        // When
+        intervalIndex.preloadStaff(List.of(20L, 30L, 40L));
+
+        // Then
+        assertEquals(Optional.of(7L), intervalIndex.findStaffConflict(30L, NINE, 30, null));
+        assertTrue(intervalIndex.findStaffConflict(40L, NINE, 30, null).isEmpty());
+        // one load for staff 20 before, one for 30 and 40 together
+        verify(appointmentRepository, times(2)).findByMedicalStaffIdsFrom(anyCollection(), any(), any());
+    }
+
+    @Test
+    void findStaffConflict_BeforeCachedWindow_ShouldReadThatRangeFromDatabase() {
+        // Given - the cached timeline starts a day before now, the check is about last year
+        LocalDateTime lastYear = LocalDateTime.now().minusYears(1);
+        when(appointmentRepository.findByMedicalStaffIdsFrom(eq(List.of(20L)), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class))).thenReturn(List.of());
+        when(appointmentRepository.findByMedicalStaffIdsInWindow(List.of(20L), Appointment.Status.CANCELLED,
+                lastYear.minusHours(AppointmentIntervalIndex.LOOKBACK_HOURS), lastYear.plusMinutes(30)))
+                .thenReturn(List.of(appointment(3L, lastYear, 30)));
+
+        // When & Then
+        assertEquals(Optional.of(3L), intervalIndex.findStaffConflict(20L, lastYear, 30, null));
+        assertTrue(intervalIndex.findStaffConflict(20L, NINE, 30, null).isEmpty());
+    }
+
+    @Test
+    void add_WithCancelledAppointment_ShouldNotOccupyTime() {
+        // Given
+        when(appointmentRepository.findByPatientIdFrom(eq(10L), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class))).thenReturn(List.of());
+        assertTrue(intervalIndex.findPatientConflict(10L, NINE, 30, null).isEmpty());
+        Appointment cancelled = appointment(6L, NINE, 30);
+        cancelled.setStatus(Appointment.Status.CANCELLED);
+
+        // When
+        intervalIndex.add(cancelled);
+
+        // Then
+        assertTrue(intervalIndex.findPatientConflict(10L, NINE, 30, null).isEmpty());
+    }
+
+    @Test
+    void timelinePrune_ShouldDropEndedIntervalsAndStopCoveringBeforeCutoff() {
+        // Given - one visit ended before the cutoff, one still running across it, one later
+        AppointmentIntervalIndex.Timeline timeline = AppointmentIntervalIndex.Timeline.of(List.of(
+                appointment(1L, NINE.minusHours(3), 60),
+                appointment(2L, NINE.minusHours(1), 120),
+                appointment(3L, NINE.plusHours(1), 30)));
+
+        // When
+        timeline.prune(NINE);
+
+        // Then
+        assertEquals(2, timeline.size());
+        assertEquals(Optional.of(2L), timeline.findOverlap(NINE, NINE.plusMinutes(30), null));
+        assertTrue(timeline.covers(NINE));
+        assertFalse(timeline.covers(NINE.minusMinutes(1)));
+    }
+
+    @Test
+    void prune_ShouldDropIdleTimelines() {
+        // Given
+        when(appointmentRepository.findByMedicalStaffIdsFrom(eq(List.of(20L)), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class))).thenReturn(List.of(appointment(1L, NINE, 30)));
+        when(appointmentRepository.findByPatientIdFrom(eq(10L), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class))).thenReturn(List.of(appointment(1L, NINE, 30)));
+        intervalIndex.findStaffConflict(20L, NINE, 30, null);
+        intervalIndex.findPatientConflict(10L, NINE, 30, null);
+
+        // When
+        intervalIndex.prune(LocalDateTime.now(), System.nanoTime());
+        int recentlyUsed = intervalIndex.timelineCount();
+        intervalIndex.prune(LocalDateTime.now(), System.nanoTime() + TimeUnit.MINUTES.toNanos(61));
+
+        // Then
+        assertEquals(2, recentlyUsed);
+        assertEquals(0, intervalIndex.timelineCount());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 5, 17);
+
+    @Test
+    void maintain_ShouldEnsureCurrentMonthAndMonthsAhead() {
+        // Given
+        AppointmentPartitionMaintainer maintainer = new AppointmentPartitionMaintainer(jdbcTemplate, 12, 0);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(Date.valueOf("2030-05-01")), eq(13)))
+                .thenReturn(1);
+
+        // When
+        int created = maintainer.maintain(TODAY);
+
+        // Then
+        assertEquals(1, created);
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any(Object[].class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void maintain_WithRetention_ShouldDetachOlderPartitions() {
+        // Given
+        AppointmentPartitionMaintainer maintainer = new AppointmentPartitionMaintainer(jdbcTemplate, 12, 24);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(), any())).thenReturn(0);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(Date.valueOf("2028-05-01"))))
+                .thenReturn(List.of("appointments_y2028m03", "appointments_y2028m04"));
+
+        // When
+        maintainer.maintain(TODAY);
+
+        // Then
+        verify(jdbcTemplate).execute("ALTER TABLE appointments DETACH PARTITION \"appointments_y2028m03\"");
+        verify(jdbcTemplate).execute("ALTER TABLE appointments DETACH PARTITION \"appointments_y2028m04\"");
+    }
+
+    @Test
+    void detachBefore_WithNothingOlder_ShouldNotAlterTable() {
+        // Given
+        AppointmentPartitionMaintainer maintainer = new AppointmentPartitionMaintainer(jdbcTemplate, 12, 24);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of());
+
+        // When & Then
+        assertTrue(maintainer.detachBefore(LocalDate.of(2028, 5, 1)).isEmpty());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentReminderSchedulerTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepo;
+
+    @Mock
+    private AppointmentNotifier notifier;
+
+    private HashedTimingWheel wheel;
+    private AppointmentReminderScheduler reminderScheduler;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        wheel = new HashedTimingWheel(1000, 64, millis(now));
+        reminderScheduler = new AppointmentReminderScheduler(appointmentRepo, wheel, notifier,
+                new long[]{1440, 120}, 72);
+    }
+
+    @Test
+    void refill_ShouldSendBothRemindersAtTheirLeadTimes() {
+        // Given
+        Appointment appointment = appointment(1L, now.plusHours(25));
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(Appointment.Status.SCHEDULED, now,
+                now.plusHours(72))).thenReturn(List.of(appointment));
+
+        // When
+        assertEquals(1, reminderScheduler.refill(now));
+        wheel.advanceTo(millis(now.plusHours(1).plusSeconds(1)));
+
+        // Then
+        verify(notifier).sendReminder(any(AppointmentSnapshot.class), eq(Duration.ofHours(24)));
+        verify(notifier, never()).sendReminder(any(AppointmentSnapshot.class), eq(Duration.ofHours(2)));
+
+        wheel.advanceTo(millis(now.plusHours(23).plusSeconds(1)));
+        verify(notifier).sendReminder(any(AppointmentSnapshot.class), eq(Duration.ofHours(2)));
+        assertEquals(0, reminderScheduler.pendingAppointments());
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void refill_ShouldSkipLeadTimesAlreadyPassed() {
+        // Given
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any()))
+                .thenReturn(List.of(appointment(1L, now.plusHours(5))));
+
+        // When
+        reminderScheduler.refill(now);
+
+        // Then
+        assertEquals(1, wheel.pending());
+    }
+
+    @Test
+    void onAppointmentChanged_WhenCancelled_ShouldDropPendingReminders() {
+        // Given
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any())).thenReturn(List.of());
+        reminderScheduler.refill(now);
+        AppointmentSnapshot scheduled = AppointmentSnapshot.of(appointment(1L, now.plusHours(30)));
+        reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.created(scheduled));
+        assertEquals(2, wheel.pending());
+
+        Appointment cancelled = appointment(1L, now.plusHours(30));
+        cancelled.setStatus(Appointment.Status.CANCELLED);
+
+        // When
+        reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.updated(scheduled,
+                AppointmentSnapshot.of(cancelled)));
+        wheel.advanceTo(millis(now.plusHours(30)));
+
+        // Then
+        assertEquals(0, wheel.pending());
+        verifyNoInteractions(notifier);
+    }
+
+    @Test
+    void onAppointmentChanged_WhenRescheduled_ShouldMoveReminders() {
+        // Given
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any())).thenReturn(List.of());
+        reminderScheduler.refill(now);
+        AppointmentSnapshot before = AppointmentSnapshot.of(appointment(1L, now.plusHours(30)));
+        AppointmentSnapshot after = AppointmentSnapshot.of(appointment(1L, now.plusHours(50)));
+        reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.created(before));
+
+        // When
+        reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.updated(before, after));
+        wheel.advanceTo(millis(now.plusHours(6).plusSeconds(1)));
+
+        // Then - the old 24h reminder would have fired at +6h
+        verifyNoInteractions(notifier);
+        assertEquals(2, wheel.pending());
+    }
+
+    @Test
+    void onAppointmentChanged_BeyondLoadedWindow_ShouldLeaveItToTheNextRefill() {
+        // Given
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any())).thenReturn(List.of());
+        reminderScheduler.refill(now);
+
+        // When
+        reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.created(
+                AppointmentSnapshot.of(appointment(1L, now.plusDays(10)))));
+
+        // Then
+        assertEquals(0, wheel.pending());
+        assertEquals(0, reminderScheduler.pendingAppointments());
+    }
+
+    @Test
+    void refill_WhenCancelledWhileQuerying_ShouldNotScheduleTheStaleRow() {
+        // Given
+        Appointment stale = appointment(1L, now.plusHours(30));
+        Appointment cancelled = appointment(1L, now.plusHours(30));
+        cancelled.setStatus(Appointment.Status.CANCELLED);
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any())).thenAnswer(invocation -> {
+            reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.updated(AppointmentSnapshot.of(stale),
+                    AppointmentSnapshot.of(cancelled)));
+            return List.of(stale);
+        });
+
+        // When
+        assertEquals(0, reminderScheduler.refill(now));
+        wheel.advanceTo(millis(now.plusHours(30)));
+
+        // Then
+        assertEquals(0, wheel.pending());
+        verifyNoInteractions(notifier);
+    }
+
+    @Test
+    void refill_WhenMovedIntoTheNewWindowWhileQuerying_ShouldKeepTheEventsReminders() {
+        // Given
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any())).thenReturn(List.of());
+        reminderScheduler.refill(now);
+        LocalDateTime later = now.plusHours(1);
+        // both times lie past the first window and inside the one being loaded
+        Appointment stale = appointment(1L, now.plusHours(72).plusMinutes(30));
+        Appointment moved = appointment(1L, now.plusHours(72).plusMinutes(45));
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any())).thenAnswer(invocation -> {
+            reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.updated(AppointmentSnapshot.of(stale),
+                    AppointmentSnapshot.of(moved)));
+            return List.of(stale);
+        });
+
+        // When
+        assertEquals(0, reminderScheduler.refill(later));
+        wheel.advanceTo(millis(now.plusHours(48).plusMinutes(40)));
+
+        // Then - the stale row's 24h reminder would have fired at +48h30
+        verifyNoInteractions(notifier);
+        wheel.advanceTo(millis(now.plusHours(48).plusMinutes(45).plusSeconds(1)));
+        verify(notifier).sendReminder(argThat(snapshot -> snapshot.appointmentDateTime().equals(moved.getAppointmentDateTime())),
+                eq(Duration.ofHours(24)));
+        assertEquals(1, wheel.pending());
+    }
+
+    @Test
+    void fire_WhenCancelledAfterTheTimerExpired_ShouldNotSend() {
+        // Given
+        AppointmentSnapshot scheduled = AppointmentSnapshot.of(appointment(1L, now.plusHours(25)));
+        Appointment cancelled = appointment(1L, now.plusHours(25));
+        cancelled.setStatus(Appointment.Status.CANCELLED);
+        when(appointmentRepo.findByStatusAndAppointmentDateTimeBetween(any(), any(), any())).thenReturn(List.of());
+        reminderScheduler.refill(now);
+        // runs first on the reminder's tick, so the cancel lands once the reminder already expired
+        long due = millis(now.plusHours(1));
+        wheel.schedule(due, () -> reminderScheduler.onAppointmentChanged(
+                AppointmentChangedEvent.updated(scheduled, AppointmentSnapshot.of(cancelled))));
+        reminderScheduler.onAppointmentChanged(AppointmentChangedEvent.created(scheduled));
+
+        // When
+        wheel.advanceTo(due + 1000);
+
+        // Then
+        verifyNoInteractions(notifier);
+        assertEquals(0, reminderScheduler.pendingAppointments());
+    }
+
+    private static Appointment appointment(Long id, LocalDateTime start) {
+        Patient patient = new Patient();
+        patient.setId(10L);
+        MedicalStaff staff = new MedicalStaff();
+        staff.setId(20L);
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setPatient(patient);
+        appointment.setMedicalStaff(staff);
+        appointment.setAppointmentDateTime(start);
+        appointment.setAppointmentDuration(30);
+        appointment.setStatus(Appointment.Status.SCHEDULED);
+        return appointment;
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
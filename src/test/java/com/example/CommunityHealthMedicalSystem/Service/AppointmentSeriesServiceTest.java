@@ -0,0 +1,276 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSeriesDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSeriesChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
+import com.example.CommunityHealthMedicalSystem.Model.AppointmentSeries;
+import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentSeriesRepository;
+import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentSeriesServiceTest {
+
+    @Mock
+    private AppointmentSeriesRepository seriesRepository;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private MedicalStaffRepository medicalStaffRepository;
+
+    @Mock
+    private AppointmentIntervalIndex intervalIndex;
+
+    @Mock
+    private SeriesOccurrenceIndex seriesIndex;
+
+    @Mock
+    private SlotHoldRegistry holdRegistry;
+
+    @Mock
+    private AppointmentServiceImpl appointmentService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private AppointmentSeriesServiceImpl seriesService;
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2030, 3, 4, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        seriesService = new AppointmentSeriesServiceImpl(seriesRepository, patientRepository, medicalStaffRepository,
+                intervalIndex, seriesIndex, new BookingCoordinator(new SimpleMeterRegistry(), 16, 1000),
+                holdRegistry, appointmentService, eventPublisher);
+    }
+
+    private Patient patient() {
+        Patient patient = new Patient();
+        patient.setId(1L);
+        return patient;
+    }
+
+    private MedicalStaff staff() {
+        MedicalStaff staff = new MedicalStaff();
+        staff.setId(2L);
+        return staff;
+    }
+
+    private AppointmentSeriesDTO weeklyDTO() {
+        AppointmentSeriesDTO dto = new AppointmentSeriesDTO();
+        dto.setPatientId(1L);
+        dto.setMedicalStaffId(2L);
+        dto.setFirstOccurrence(FIRST);
+        dto.setDurationMinutes(60);
+        dto.setRecurrenceRule("FREQ=WEEKLY;COUNT=52");
+        dto.setReason("Physiotherapy");
+        return dto;
+    }
+
+    private AppointmentSeries storedSeries() {
+        AppointmentSeries series = new AppointmentSeries();
+        series.setId(5L);
+        series.setPatient(patient());
+        series.setMedicalStaff(staff());
+        series.setFirstOccurrence(FIRST);
+        series.setDurationMinutes(60);
+        series.setRecurrenceRule("FREQ=WEEKLY;COUNT=52");
+        series.setLastOccurrenceEnd(FIRST.plusWeeks(51).plusMinutes(60));
+        series.setActive(true);
+        series.setExcludedOccurrences(new HashSet<>());
+        return series;
+    }
+
+    @Test
+    void createSeries_ShouldStoreOneRowForAllOccurrences() {
+        // Given
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient()));
+        when(medicalStaffRepository.findById(2L)).thenReturn(Optional.of(staff()));
+        when(intervalIndex.findStaffConflict(eq(2L), any(), eq(60), isNull())).thenReturn(Optional.empty());
+        when(intervalIndex.findPatientConflict(eq(1L), any(), eq(60), isNull())).thenReturn(Optional.empty());
+        when(seriesIndex.findStaffConflict(eq(2L), any(), eq(60), isNull())).thenReturn(Optional.empty());
+        when(seriesIndex.findPatientConflict(eq(1L), any(), eq(60), isNull())).thenReturn(Optional.empty());
+        when(seriesRepository.save(any(AppointmentSeries.class))).thenAnswer(invocation -> {
+            AppointmentSeries series = invocation.getArgument(0);
+            series.setId(5L);
+            return series;
+        });
+
+        // When
+        AppointmentSeriesDTO created = seriesService.createSeries(weeklyDTO());
+
+        // Then
+        assertEquals(5L, created.getId());
+        assertEquals(FIRST.plusWeeks(51).plusMinutes(60), created.getLastOccurrenceEnd());
+        verify(seriesRepository, times(1)).save(any(AppointmentSeries.class));
+        verify(intervalIndex, times(52)).findStaffConflict(eq(2L), any(), eq(60), isNull());
+        verify(seriesIndex).evict(2L, 1L);
+        verify(eventPublisher).publishEvent(any(AppointmentSeriesChangedEvent.class));
+    }
+
+    @Test
+    void createSeries_WhenOneOccurrenceConflicts_ShouldThrowException() {
+        // Given - week 3 collides with an existing appointment
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient()));
+        when(medicalStaffRepository.findById(2L)).thenReturn(Optional.of(staff()));
+        when(intervalIndex.findStaffConflict(eq(2L), any(), eq(60), isNull())).thenAnswer(invocation ->
+                invocation.getArgument(1).equals(FIRST.plusWeeks(3)) ? Optional.of(77L) : Optional.empty());
+        lenient().when(intervalIndex.findPatientConflict(any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        lenient().when(seriesIndex.findStaffConflict(any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        lenient().when(seriesIndex.findPatientConflict(any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> seriesService.createSeries(weeklyDTO()));
+        verify(seriesRepository, never()).save(any());
+    }
+
+    @Test
+    void createSeries_WithInvalidRule_ShouldThrowException() {
+        AppointmentSeriesDTO dto = weeklyDTO();
+        dto.setRecurrenceRule("FREQ=WEEKLY");
+
+        assertThrows(IllegalArgumentException.class, () -> seriesService.createSeries(dto));
+        verifyNoInteractions(seriesRepository, patientRepository);
+    }
+
+    @Test
+    void getOccurrences_ShouldExpandOnlyTheWindowAndSkipExclusions() {
+        // Given
+        AppointmentSeries series = storedSeries();
+        series.getExcludedOccurrences().add(FIRST.plusWeeks(11));
+        when(seriesRepository.findById(5L)).thenReturn(Optional.of(series));
+
+        // When
+        List<AppointmentDTO> occurrences = seriesService.getOccurrences(5L, FIRST.plusWeeks(10), FIRST.plusWeeks(13));
+
+        // Then
+        assertEquals(List.of(FIRST.plusWeeks(10), FIRST.plusWeeks(12)),
+                occurrences.stream().map(AppointmentDTO::getAppointmentDateTime).toList());
+        assertEquals(5L, occurrences.get(0).getSeriesId());
+    }
+
+    @Test
+    void cancelOccurrence_WithUnknownOccurrence_ShouldThrowNotFound() {
+        when(seriesRepository.findById(5L)).thenReturn(Optional.of(storedSeries()));
+
+        assertThrows(ResourceNotFound.class, () -> seriesService.cancelOccurrence(5L, FIRST.plusDays(1)));
+        verify(seriesRepository, never()).save(any());
+    }
+
+    @Test
+    void overrideOccurrence_ShouldExcludeOccurrenceAndBookReplacement() {
+        // Given
+        AppointmentSeries series = storedSeries();
+        when(seriesRepository.findById(5L)).thenReturn(Optional.of(series));
+        AppointmentDTO changes = new AppointmentDTO();
+        changes.setAppointmentDateTime(FIRST.plusWeeks(2).plusHours(3));
+        when(appointmentService.createOccurrenceOverride(any(AppointmentDTO.class), eq(5L), eq(FIRST.plusWeeks(2))))
+                .thenAnswer(invocation -> {
+                    AppointmentDTO dto = invocation.getArgument(0);
+                    dto.setId(40L);
+                    dto.setSeriesId(invocation.getArgument(1));
+                    dto.setSeriesOccurrence(invocation.getArgument(2));
+                    return dto;
+                });
+
+        // When
+        AppointmentDTO replacement = seriesService.overrideOccurrence(5L, FIRST.plusWeeks(2), changes);
+
+        // Then
+        assertEquals(40L, replacement.getId());
+        assertEquals(5L, replacement.getSeriesId());
+        assertEquals(FIRST.plusWeeks(2), replacement.getSeriesOccurrence());
+        assertEquals(FIRST.plusWeeks(2).plusHours(3), replacement.getAppointmentDateTime());
+        assertTrue(series.getExcludedOccurrences().contains(FIRST.plusWeeks(2)));
+    }
+
+    @Test
+    void overrideOccurrence_WhenReplacementConflicts_ShouldWriteNothing() {
+        // Given
+        AppointmentSeries series = storedSeries();
+        when(seriesRepository.findById(5L)).thenReturn(Optional.of(series));
+        when(intervalIndex.findPatientConflict(1L, FIRST.plusWeeks(2), 60, null)).thenReturn(Optional.of(77L));
+
+        // When & Then
+        assertThrows(ConflictException.class,
+                () -> seriesService.overrideOccurrence(5L, FIRST.plusWeeks(2), new AppointmentDTO()));
+        assertFalse(series.getExcludedOccurrences().contains(FIRST.plusWeeks(2)));
+        verify(seriesRepository, never()).save(any());
+        verify(appointmentService, never()).createOccurrenceOverride(any(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void overrideOccurrence_WhenReplacementOverlapsAnotherOccurrence_ShouldThrowConflict() {
+        // Given
+        AppointmentSeries series = storedSeries();
+        when(seriesRepository.findById(5L)).thenReturn(Optional.of(series));
+        AppointmentDTO changes = new AppointmentDTO();
+        changes.setAppointmentDateTime(FIRST.plusWeeks(3).plusMinutes(30));
+
+        // When & Then
+        assertThrows(ConflictException.class,
+                () -> seriesService.overrideOccurrence(5L, FIRST.plusWeeks(2), changes));
+        verify(seriesRepository, never()).save(any());
+    }
+
+    @Test
+    void overrideOccurrence_WhenDatabaseRejectsReplacement_ShouldRestoreOccurrence() {
+        // Given
+        AppointmentSeries series = storedSeries();
+        when(seriesRepository.findById(5L)).thenReturn(Optional.of(series));
+        when(appointmentService.createOccurrenceOverride(any(AppointmentDTO.class), eq(5L), eq(FIRST.plusWeeks(2))))
+                .thenThrow(new ConflictException("Medical staff already has an appointment overlapping this time."));
+
+        // When & Then
+        assertThrows(ConflictException.class,
+                () -> seriesService.overrideOccurrence(5L, FIRST.plusWeeks(2), new AppointmentDTO()));
+        assertFalse(series.getExcludedOccurrences().contains(FIRST.plusWeeks(2)));
+        ArgumentCaptor<AppointmentSeriesChangedEvent> events = ArgumentCaptor.forClass(AppointmentSeriesChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+    }
+
+    @Test
+    void overrideOccurrence_WhenOldSlotWasTakenMeanwhile_ShouldNotRestoreOccurrence() {
+        // Given
+        AppointmentSeries series = storedSeries();
+        when(seriesRepository.findById(5L)).thenReturn(Optional.of(series));
+        AppointmentDTO changes = new AppointmentDTO();
+        changes.setAppointmentDateTime(FIRST.plusWeeks(2).plusHours(3));
+        when(appointmentService.createOccurrenceOverride(any(AppointmentDTO.class), eq(5L), eq(FIRST.plusWeeks(2))))
+                .thenAnswer(invocation -> {
+                    // another instance booked the freed slot and the replacement slot in the meantime
+                    when(intervalIndex.findStaffConflict(2L, FIRST.plusWeeks(2), 60, null)).thenReturn(Optional.of(90L));
+                    throw new ConflictException("Medical staff already has an appointment overlapping this time.");
+                });
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> seriesService.overrideOccurrence(5L, FIRST.plusWeeks(2), changes));
+        assertTrue(series.getExcludedOccurrences().contains(FIRST.plusWeeks(2)));
+        verify(seriesRepository, times(1)).save(series);
+    }
+}
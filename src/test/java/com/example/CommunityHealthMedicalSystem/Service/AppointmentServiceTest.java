@@ -1,6 +1,12 @@
 package com.example.CommunityHealthMedicalSystem.Service;
 
 import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentPageDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentSearchDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentItemDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.BulkAppointmentResultDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
 import com.example.CommunityHealthMedicalSystem.Exception.*;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
 import com.example.CommunityHealthMedicalSystem.Exception.SecurityException;
@@ -10,18 +16,26 @@ import com.example.CommunityHealthMedicalSystem.Model.Patient;
 import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
 import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
 import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -45,6 +59,33 @@ class AppointmentServiceTest {
     @Mock
     private MedicalStaffRepository medicalStaffRepository;
 
+    @Mock
+    private AppointmentIntervalIndex intervalIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AppointmentStatusTransitions statusTransitions;
+
+    @Mock
+    private SeriesOccurrenceIndex seriesIndex;
+
+    @Mock
+    private SlotHoldRegistry holdRegistry;
+
+    @Mock
+    private PatientPrincipalResolver patientPrincipalResolver;
+
+    @Mock
+    private AppointmentArchive appointmentArchive;
+
+    @Spy
+    private BookingCoordinator bookingCoordinator = new BookingCoordinator(new SimpleMeterRegistry(), 16, 1000);
+
+    @Spy
+    private UpcomingAppointmentsCache upcomingCache = new UpcomingAppointmentsCache(new SimpleMeterRegistry(), 100, 15);
+
     @Mock
     private Authentication authentication;
 
@@ -214,11 +255,10 @@ class AppointmentServiceTest {
     void getAppointmentByPatientId_WithPatientRoleAndOwnId_ShouldReturnAppointments() {
         // Given
         Long patientId = 1L;
-        Patient currentPatient = createSamplePatient();
         List<Appointment> expectedAppointments = Arrays.asList(createSampleAppointment());
 
         setupSecurityContext("john.doe@example.com", "PATIENT");
-        when(patientRepository.findByEmail("john.doe@example.com")).thenReturn(Optional.of(currentPatient));
+        when(patientPrincipalResolver.patientIdFor("john.doe@example.com")).thenReturn(Optional.of(1L));
         when(appointmentRepository.findByPatientId(patientId)).thenReturn(expectedAppointments);
 
         // When
@@ -227,7 +267,8 @@ class AppointmentServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(patientRepository, times(1)).findByEmail("john.doe@example.com");
+        verify(patientPrincipalResolver, times(1)).patientIdFor("john.doe@example.com");
+        verify(patientRepository, never()).findByEmail(anyString());
         verify(appointmentRepository, times(1)).findByPatientId(patientId);
     }
 
@@ -235,10 +276,9 @@ class AppointmentServiceTest {
     void getAppointmentByPatientId_WithPatientRoleAndDifferentId_ShouldThrowSecurityException() {
         // Given
         Long differentPatientId = 2L;
-        Patient currentPatient = createSamplePatient();
 
         setupSecurityContext("john.doe@example.com", "PATIENT");
-        when(patientRepository.findByEmail("john.doe@example.com")).thenReturn(Optional.of(currentPatient));
+        when(patientPrincipalResolver.patientIdFor("john.doe@example.com")).thenReturn(Optional.of(1L));
 
         // When & Then
         SecurityException exception = assertThrows(SecurityException.class,
@@ -254,7 +294,7 @@ class AppointmentServiceTest {
         Long patientId = 1L;
 
         setupSecurityContext("unknown@example.com", "PATIENT");
-        when(patientRepository.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+        when(patientPrincipalResolver.patientIdFor("unknown@example.com")).thenReturn(Optional.empty());
 
         // When & Then
         SecurityException exception = assertThrows(SecurityException.class,
@@ -279,10 +319,88 @@ class AppointmentServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(patientRepository, never()).findByEmail(anyString());
+        verify(patientPrincipalResolver, never()).patientIdFor(anyString());
         verify(appointmentRepository, times(1)).findByPatientId(patientId);
     }
 
+    @Test
+    void getAppointmentByPatientId_WithIncludeArchived_ShouldAppendArchivedAppointments() {
+        // Given
+        Long patientId = 1L;
+        Appointment archived = createSampleAppointment();
+        archived.setId(2L);
+        archived.setStatus(Appointment.Status.COMPLETED);
+
+        setupSecurityContext("admin@hospital.com", "ADMINISTRATOR");
+        when(appointmentRepository.findByPatientId(patientId)).thenReturn(List.of(createSampleAppointment()));
+        when(appointmentArchive.findByPatientId(patientId)).thenReturn(List.of(archived));
+
+        // When
+        List<Appointment> result = appointmentService.getAppointmentByPatientId(patientId, true);
+
+        // Then
+        assertEquals(List.of(1L, 2L), result.stream().map(Appointment::getId).toList());
+    }
+
+    @Test
+    void getAppointmentByPatientId_WithoutIncludeArchived_ShouldNotReadArchive() {
+        // Given
+        Long patientId = 1L;
+        setupSecurityContext("admin@hospital.com", "ADMINISTRATOR");
+        when(appointmentRepository.findByPatientId(patientId)).thenReturn(List.of(createSampleAppointment()));
+
+        // When
+        List<Appointment> result = appointmentService.getAppointmentByPatientId(patientId, false);
+
+        // Then
+        assertEquals(1, result.size());
+        verify(appointmentArchive, never()).findByPatientId(anyLong());
+    }
+
+    @Test
+    void getAppointmentByPatientId_WithIncludeArchivedAndDifferentPatient_ShouldNotReadArchive() {
+        // Given
+        setupSecurityContext("john.doe@example.com", "PATIENT");
+        when(patientPrincipalResolver.patientIdFor("john.doe@example.com")).thenReturn(Optional.of(1L));
+
+        // When & Then
+        assertThrows(SecurityException.class, () -> appointmentService.getAppointmentByPatientId(2L, true));
+        verify(appointmentArchive, never()).findByPatientId(anyLong());
+    }
+
+    @Test
+    void getUpcomingAppointmentsByPatientId_ShouldQueryOnceUntilPatientAppointmentChanges() {
+        // Given
+        Appointment upcoming = createSampleAppointment();
+        upcoming.setAppointmentDateTime(LocalDateTime.now().plusDays(2));
+        setupSecurityContext("admin@hospital.com", "ADMINISTRATOR");
+        when(appointmentRepository.findUpcomingByPatientId(eq(1L), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(upcoming));
+
+        // When
+        List<AppointmentDTO> first = appointmentService.getUpcomingAppointmentsByPatientId(1L);
+        List<AppointmentDTO> second = appointmentService.getUpcomingAppointmentsByPatientId(1L);
+        upcomingCache.onAppointmentChanged(AppointmentChangedEvent.created(AppointmentSnapshot.of(upcoming)));
+        appointmentService.getUpcomingAppointmentsByPatientId(1L);
+
+        // Then
+        assertEquals(1, first.size());
+        assertEquals(first, second);
+        verify(appointmentRepository, times(2)).findUpcomingByPatientId(eq(1L), eq(Appointment.Status.CANCELLED),
+                any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    void getUpcomingAppointmentsByPatientId_WithOtherPatientsId_ShouldThrowSecurityException() {
+        // Given
+        setupSecurityContext("john.doe@example.com", "PATIENT");
+        when(patientPrincipalResolver.patientIdFor("john.doe@example.com")).thenReturn(Optional.of(1L));
+
+        // When & Then
+        assertThrows(SecurityException.class, () -> appointmentService.getUpcomingAppointmentsByPatientId(2L));
+        verify(appointmentRepository, never()).findUpcomingByPatientId(any(), any(), any(), any());
+    }
+
     // Test for getAppointmentByMedicalStaff()
     @Test
     void getAppointmentByMedicalStaff_WithValidStaff_ShouldReturnAppointments() {
@@ -365,10 +483,6 @@ class AppointmentServiceTest {
 
         when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(patient));
         when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(medicalStaff));
-        when(appointmentRepository.findByMedicalStaffAndAppointmentDateTime(medicalStaff, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.empty());
-        when(appointmentRepository.findByPatientAndAppointmentDateTime(patient, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.empty());
         when(appointmentRepository.save(any(Appointment.class))).thenReturn(savedAppointment);
 
         // When
@@ -379,9 +493,81 @@ class AppointmentServiceTest {
         assertEquals(savedAppointment.getId(), result.getId());
         verify(patientRepository, times(1)).findById(inputDTO.getPatientId());
         verify(medicalStaffRepository, times(1)).findById(inputDTO.getMedicalStaffId());
-        verify(appointmentRepository, times(1)).findByMedicalStaffAndAppointmentDateTime(medicalStaff, inputDTO.getAppointmentDateTime());
-        verify(appointmentRepository, times(1)).findByPatientAndAppointmentDateTime(patient, inputDTO.getAppointmentDateTime());
+        verify(intervalIndex, times(1)).findStaffConflict(medicalStaff.getId(), inputDTO.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES, null);
+        verify(intervalIndex, times(1)).findPatientConflict(patient.getId(), inputDTO.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES, null);
         verify(appointmentRepository, times(1)).save(any(Appointment.class));
+        verify(intervalIndex, times(1)).add(savedAppointment);
+        verify(eventPublisher, times(1)).publishEvent(any(AppointmentChangedEvent.class));
+    }
+
+    @Test
+    void createAppointment_WithSeriesFields_ShouldIgnoreThem() {
+        // Given
+        AppointmentDTO inputDTO = createSampleAppointmentDTO();
+        inputDTO.setId(null);
+        inputDTO.setSeriesId(5L);
+        inputDTO.setSeriesOccurrence(inputDTO.getAppointmentDateTime());
+        when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(createSamplePatient()));
+        when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(createSampleMedicalStaff()));
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        AppointmentDTO result = appointmentService.createAppointment(inputDTO);
+
+        // Then
+        assertNull(result.getSeriesId());
+        assertNull(result.getSeriesOccurrence());
+    }
+
+    @Test
+    void createAppointment_LongerThanLookback_ShouldThrowException() {
+        // Given
+        AppointmentDTO inputDTO = createSampleAppointmentDTO();
+        inputDTO.setAppointmentDuration(AppointmentIntervalIndex.MAX_DURATION_MINUTES + 60);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.createAppointment(inputDTO));
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void createAppointment_WhenSlotHeldByAnotherFlow_ShouldThrowConflict() {
+        // Given
+        AppointmentDTO inputDTO = createSampleAppointmentDTO();
+        inputDTO.setId(null);
+        when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(createSamplePatient()));
+        when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId()))
+                .thenReturn(Optional.of(createSampleMedicalStaff()));
+        when(holdRegistry.findConflict(inputDTO.getMedicalStaffId(), inputDTO.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES, null)).thenReturn(Optional.of("other-hold"));
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> appointmentService.createAppointment(inputDTO));
+        verify(appointmentRepository, never()).save(any(Appointment.class));
+    }
+
+    @Test
+    void createAppointment_WithOwnHold_ShouldBookAndReleaseHold() {
+        // Given
+        AppointmentDTO inputDTO = createSampleAppointmentDTO();
+        inputDTO.setId(null);
+        inputDTO.setHoldId("my-hold");
+        Appointment savedAppointment = createSampleAppointment();
+        when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(createSamplePatient()));
+        when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId()))
+                .thenReturn(Optional.of(createSampleMedicalStaff()));
+        when(appointmentRepository.save(any(Appointment.class))).thenReturn(savedAppointment);
+
+        // When
+        appointmentService.createAppointment(inputDTO);
+
+        // Then
+        verify(holdRegistry).findConflict(inputDTO.getMedicalStaffId(), inputDTO.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES, "my-hold");
+        verify(holdRegistry).consume("my-hold", inputDTO.getMedicalStaffId(), savedAppointment.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES);
     }
 
     @Test
@@ -462,8 +648,9 @@ class AppointmentServiceTest {
 
         when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(patient));
         when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(medicalStaff));
-        when(appointmentRepository.findByMedicalStaffAndAppointmentDateTime(medicalStaff, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.of(conflictingAppointment));
+        when(intervalIndex.findStaffConflict(medicalStaff.getId(), inputDTO.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES, null))
+                .thenReturn(Optional.of(conflictingAppointment.getId()));
 
         // When & Then
         DuplicateResourceException exception = assertThrows(DuplicateResourceException.class,
@@ -483,10 +670,9 @@ class AppointmentServiceTest {
 
         when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(patient));
         when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(medicalStaff));
-        when(appointmentRepository.findByMedicalStaffAndAppointmentDateTime(medicalStaff, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.empty());
-        when(appointmentRepository.findByPatientAndAppointmentDateTime(patient, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.of(conflictingAppointment));
+        when(intervalIndex.findPatientConflict(patient.getId(), inputDTO.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES, null))
+                .thenReturn(Optional.of(conflictingAppointment.getId()));
 
         // When & Then
         ConflictException exception = assertThrows(ConflictException.class,
@@ -508,10 +694,6 @@ class AppointmentServiceTest {
 
         when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(patient));
         when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(medicalStaff));
-        when(appointmentRepository.findByMedicalStaffAndAppointmentDateTime(medicalStaff, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.empty());
-        when(appointmentRepository.findByPatientAndAppointmentDateTime(patient, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.empty());
         when(appointmentRepository.save(any(Appointment.class))).thenReturn(savedAppointment);
 
         // When
@@ -522,6 +704,42 @@ class AppointmentServiceTest {
         // Should handle null status and set default
     }
 
+    @Test
+    void createAppointment_WhenDatabaseRejectsOverlap_ShouldThrowConflictException() {
+        // Given - another booking won the race after the index check
+        AppointmentDTO inputDTO = createSampleAppointmentDTO();
+        Patient patient = createSamplePatient();
+        MedicalStaff medicalStaff = createSampleMedicalStaff();
+        SQLException exclusionViolation = new SQLException(
+                "conflicting key value violates exclusion constraint \"appointments_staff_no_overlap\"", "23P01");
+
+        when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(patient));
+        when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(medicalStaff));
+        when(appointmentRepository.save(any(Appointment.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", exclusionViolation));
+
+        // When & Then
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> appointmentService.createAppointment(inputDTO));
+
+        assertEquals("Medical staff already has appointment at this time.", exception.getMessage());
+        verify(intervalIndex, times(1)).evictStaff(medicalStaff.getId());
+        verify(intervalIndex, never()).add(any(Appointment.class));
+    }
+
+    @Test
+    void createAppointment_WhenOtherIntegrityViolation_ShouldRethrow() {
+        // Given
+        AppointmentDTO inputDTO = createSampleAppointmentDTO();
+        when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(createSamplePatient()));
+        when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(createSampleMedicalStaff()));
+        when(appointmentRepository.save(any(Appointment.class)))
+                .thenThrow(new DataIntegrityViolationException("not null", new SQLException("null value", "23502")));
+
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class, () -> appointmentService.createAppointment(inputDTO));
+    }
+
     // Test for deleteAppointment()
     @Test
     void deleteAppointment_WithValidData_ShouldDeleteAppointment() {
@@ -665,13 +883,37 @@ class AppointmentServiceTest {
         updateDTO.setAppointmentDateTime(LocalDateTime.of(2024, 12, 15, 11, 0)); // Different time
 
         Appointment existingAppointment = createSampleAppointment();
+        Patient patient = createSamplePatient();
         MedicalStaff medicalStaff = createSampleMedicalStaff();
         Appointment conflictingAppointment = createSampleAppointment();
         conflictingAppointment.setId(2L); // Different appointment
 
         when(appointmentRepository.findById(appointmentId)).thenReturn(Optional.of(existingAppointment));
-        when(appointmentRepository.findByMedicalStaffAndAppointmentDateTime(medicalStaff, updateDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.of(conflictingAppointment));
+        when(patientRepository.findById(updateDTO.getPatientId())).thenReturn(Optional.of(patient));
+        when(medicalStaffRepository.findById(updateDTO.getMedicalStaffId())).thenReturn(Optional.of(medicalStaff));
+        when(intervalIndex.findStaffConflict(medicalStaff.getId(), updateDTO.getAppointmentDateTime(),
+                AppointmentIntervalIndex.DEFAULT_DURATION_MINUTES, appointmentId))
+                .thenReturn(Optional.of(conflictingAppointment.getId()));
+
+        // When & Then
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> appointmentService.updateAppointment(appointmentId, updateDTO));
+
+        assertEquals("Medical staff already has appointment at this time.", exception.getMessage());
+        verify(appointmentRepository, never()).save(any(Appointment.class));
+    }
+
+    @Test
+    void updateAppointment_WithLongerDuration_ShouldThrowWhenOverlapping() {
+        // Given
+        Long appointmentId = 1L;
+        AppointmentDTO updateDTO = new AppointmentDTO();
+        updateDTO.setAppointmentDuration(90);
+
+        Appointment existingAppointment = createSampleAppointment();
+        when(appointmentRepository.findById(appointmentId)).thenReturn(Optional.of(existingAppointment));
+        when(intervalIndex.findStaffConflict(1L, existingAppointment.getAppointmentDateTime(), 90, appointmentId))
+                .thenReturn(Optional.of(2L));
 
         // When & Then
         ConflictException exception = assertThrows(ConflictException.class,
@@ -786,10 +1028,6 @@ class AppointmentServiceTest {
 
         when(patientRepository.findById(inputDTO.getPatientId())).thenReturn(Optional.of(patient));
         when(medicalStaffRepository.findById(inputDTO.getMedicalStaffId())).thenReturn(Optional.of(medicalStaff));
-        when(appointmentRepository.findByMedicalStaffAndAppointmentDateTime(medicalStaff, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.empty());
-        when(appointmentRepository.findByPatientAndAppointmentDateTime(patient, inputDTO.getAppointmentDateTime()))
-                .thenReturn(Optional.empty());
         when(appointmentRepository.save(any(Appointment.class))).thenReturn(savedAppointment);
 
         // When
@@ -841,4 +1079,326 @@ class AppointmentServiceTest {
         verify(appointmentRepository, times(1)).findById(appointmentId);
         verify(appointmentRepository, times(1)).save(existingAppointment);
     }
-}
\ No newline at end of file
+
+    @Test
+    void createAppointments_WithMixedBatch_ShouldReportEachItem() {
+        Patient patient = createSamplePatient();
+        MedicalStaff staff = createSampleMedicalStaff();
+
+        // item 0 is free, item 1 overlaps an existing booking, item 2 overlaps item 0, item 3 has no date.
+        Appointment existing = createSampleAppointment();
+        existing.setId(7L);
+        existing.setAppointmentDateTime(LocalDateTime.of(2024, 12, 15, 9, 0));
+
+        AppointmentDTO free = createSampleAppointmentDTO();
+        AppointmentDTO clashWithExisting = createSampleAppointmentDTO();
+        clashWithExisting.setAppointmentDateTime(LocalDateTime.of(2024, 12, 15, 9, 15));
+        AppointmentDTO clashWithBatch = createSampleAppointmentDTO();
+        clashWithBatch.setAppointmentDateTime(LocalDateTime.of(2024, 12, 15, 10, 15));
+        AppointmentDTO missingDate = createSampleAppointmentDTO();
+        missingDate.setAppointmentDateTime(null);
+
+        when(patientRepository.findAllById(any())).thenReturn(List.of(patient));
+        when(medicalStaffRepository.findAllById(any())).thenReturn(List.of(staff));
+        when(appointmentRepository.findByMedicalStaffIdsInWindow(any(), eq(Appointment.Status.CANCELLED), any(), any()))
+                .thenReturn(List.of(existing));
+        when(appointmentRepository.findByPatientIdsInWindow(any(), eq(Appointment.Status.CANCELLED), any(), any()))
+                .thenReturn(List.of(existing));
+        when(appointmentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Appointment> toSave = invocation.getArgument(0);
+            toSave.forEach(a -> a.setId(100L));
+            return toSave;
+        });
+
+        BulkAppointmentResultDTO result = appointmentService.createAppointments(
+                Arrays.asList(free, clashWithExisting, clashWithBatch, missingDate));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getConflicts());
+        assertEquals(1, result.getInvalid());
+        assertEquals(BulkAppointmentItemDTO.Result.CREATED, result.getItems().get(0).getResult());
+        assertEquals(100L, result.getItems().get(0).getAppointmentId());
+        assertEquals(BulkAppointmentItemDTO.Result.CONFLICT, result.getItems().get(1).getResult());
+        assertEquals(BulkAppointmentItemDTO.Result.CONFLICT, result.getItems().get(2).getResult());
+        assertEquals("Appointment date cannot be null", result.getItems().get(3).getMessage());
+        verify(appointmentRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 1));
+        verify(intervalIndex).add(any(Appointment.class));
+        verify(eventPublisher).publishEvent(any(AppointmentChangedEvent.class));
+    }
+
+    @Test
+    void createAppointments_WhenDatabaseRejectsBatch_ShouldRetryItemsAndReportOnlyTheLoser() {
+        Patient patient = createSamplePatient();
+        MedicalStaff staff = createSampleMedicalStaff();
+        AppointmentDTO first = createSampleAppointmentDTO();
+        AppointmentDTO second = createSampleAppointmentDTO();
+        second.setAppointmentDateTime(first.getAppointmentDateTime().plusHours(2));
+        SQLException exclusionViolation = new SQLException(
+                "conflicting key value violates exclusion constraint \"appointments_staff_no_overlap\"", "23P01");
+
+        when(patientRepository.findAllById(any())).thenReturn(List.of(patient));
+        when(medicalStaffRepository.findAllById(any())).thenReturn(List.of(staff));
+        when(appointmentRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", exclusionViolation));
+        // the first item is the one another booking took meanwhile
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            if (appointment.getAppointmentDateTime().equals(first.getAppointmentDateTime())){
+                throw new DataIntegrityViolationException("could not execute statement", exclusionViolation);
+            }
+            appointment.setId(200L);
+            return appointment;
+        });
+
+        BulkAppointmentResultDTO result = appointmentService.createAppointments(Arrays.asList(first, second));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getConflicts());
+        assertEquals(BulkAppointmentItemDTO.Result.CONFLICT, result.getItems().get(0).getResult());
+        assertEquals("Medical staff already has appointment at this time.", result.getItems().get(0).getMessage());
+        assertEquals(BulkAppointmentItemDTO.Result.CREATED, result.getItems().get(1).getResult());
+        assertEquals(200L, result.getItems().get(1).getAppointmentId());
+        verify(intervalIndex, atLeastOnce()).evictStaff(staff.getId());
+        verify(appointmentRepository, times(2)).save(any(Appointment.class));
+    }
+
+    @Test
+    void createAppointments_WithUnknownPatient_ShouldMarkItemInvalid() {
+        when(patientRepository.findAllById(any())).thenReturn(List.of());
+        when(medicalStaffRepository.findAllById(any())).thenReturn(List.of(createSampleMedicalStaff()));
+
+        BulkAppointmentResultDTO result = appointmentService.createAppointments(List.of(createSampleAppointmentDTO()));
+
+        assertEquals(1, result.getInvalid());
+        assertEquals("Patient not found with id: 1", result.getItems().get(0).getMessage());
+        verify(appointmentRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createAppointments_WithEmptyBatch_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.createAppointments(List.of()));
+    }
+
+    @Test
+    void getAppointmentsPage_WithMoreRows_ShouldReturnCursorOfLastItem() {
+        Appointment first = createSampleAppointment();
+        Appointment second = createSampleAppointment();
+        second.setId(2L);
+        second.setAppointmentDateTime(LocalDateTime.of(2024, 12, 15, 11, 0));
+        Appointment extra = createSampleAppointment();
+        extra.setId(3L);
+        doReturn(Arrays.asList(first, second, extra)).when(appointmentRepository).findBy(any(Specification.class), any());
+
+        AppointmentPageDTO page = appointmentService.getAppointmentsPage(Appointment.Status.SCHEDULED, null, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        AppointmentCursor cursor = AppointmentCursor.decode(page.getNextCursor());
+        assertEquals(2L, cursor.id());
+        assertEquals(LocalDateTime.of(2024, 12, 15, 11, 0), cursor.appointmentDateTime());
+    }
+
+    @Test
+    void getAppointmentsPage_WithCursor_ShouldContinueAfterIt() {
+        AppointmentCursor cursor = new AppointmentCursor(LocalDateTime.of(2024, 12, 15, 10, 0), 1L);
+        doReturn(List.of(createSampleAppointment())).when(appointmentRepository).findBy(any(Specification.class), any());
+
+        AppointmentPageDTO page = appointmentService.getAppointmentsPage(null, 5L, cursor.encode(), 10);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        verify(appointmentRepository, times(1)).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void getAppointmentsPage_WithInvalidCursorOrLimit_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsPage(null, null, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsPage(null, null, null, 0));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void searchAppointments_WithMoreRows_ShouldRunOneQueryAndReturnCursor() {
+        setupSecurityContext("admin@hospital.com", "ADMINISTRATOR");
+        Appointment first = createSampleAppointment();
+        Appointment second = createSampleAppointment();
+        second.setId(2L);
+        doReturn(Arrays.asList(first, second)).when(appointmentRepository).findBy(any(Specification.class), any());
+        AppointmentSearchDTO criteria = new AppointmentSearchDTO(Appointment.Status.SCHEDULED, 1L, null, 5L,
+                LocalDateTime.of(2024, 12, 1, 0, 0), LocalDateTime.of(2025, 1, 1, 0, 0));
+
+        AppointmentPageDTO page = appointmentService.searchAppointments(criteria, null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(1L, AppointmentCursor.decode(page.getNextCursor()).id());
+        verify(appointmentRepository, times(1)).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void searchAppointments_WithInvalidWindowOrLimit_ShouldThrowException() {
+        AppointmentSearchDTO backwards = new AppointmentSearchDTO(null, null, null, null,
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2024, 12, 1, 0, 0));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.searchAppointments(backwards, null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.searchAppointments(new AppointmentSearchDTO(), null, AppointmentServiceImpl.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void searchAppointments_AsPatientWithoutPatientFilter_ShouldThrowSecurityException() {
+        setupSecurityContext("john.doe@example.com", "PATIENT");
+        when(patientPrincipalResolver.patientIdFor("john.doe@example.com")).thenReturn(Optional.of(1L));
+
+        assertThrows(SecurityException.class,
+                () -> appointmentService.searchAppointments(new AppointmentSearchDTO(), null, 10));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void searchAppointmentsByText_ShouldQueryRankedPageWithOffset() {
+        setupSecurityContext("admin@hospital.com", "ADMINISTRATOR");
+        when(appointmentRepository.searchByText("chest pain", 20, 40L)).thenReturn(List.of(createSampleAppointment()));
+
+        List<AppointmentDTO> result = appointmentService.searchAppointmentsByText("  chest pain ", 2, 20);
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getId());
+    }
+
+    @Test
+    void searchAppointmentsByText_WithInvalidQueryOrPage_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.searchAppointmentsByText(" ", 0, 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.searchAppointmentsByText("x".repeat(201), 0, 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.searchAppointmentsByText("pain", -1, 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.searchAppointmentsByText("pain", 0, AppointmentServiceImpl.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void searchAppointmentsByText_AsPatient_ShouldThrowSecurityException() {
+        setupSecurityContext("john.doe@example.com", "PATIENT");
+        when(patientPrincipalResolver.patientIdFor("john.doe@example.com")).thenReturn(Optional.of(1L));
+
+        assertThrows(SecurityException.class,
+                () -> appointmentService.searchAppointmentsByText("pain", 0, 20));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void updateAppointmentStatus_WhenConditionalUpdateMatches_ShouldNotLoadEntity() {
+        AppointmentDTO updated = createSampleAppointmentDTO();
+        updated.setStatus(Appointment.Status.COMPLETED);
+        updated.setVersion(4L);
+        when(statusTransitions.transitionOne(1L, Appointment.Status.COMPLETED, 3L)).thenReturn(Optional.of(updated));
+
+        AppointmentDTO result = appointmentService.updateAppointmentStatus(1L, Appointment.Status.COMPLETED, 3L);
+
+        assertEquals(4L, result.getVersion());
+        verifyNoInteractions(appointmentRepository, patientRepository, medicalStaffRepository);
+    }
+
+    @Test
+    void updateAppointmentStatus_WithStaleVersion_ShouldThrowPreconditionFailed() {
+        Appointment existing = createSampleAppointment();
+        existing.setVersion(5L);
+        when(statusTransitions.transitionOne(1L, Appointment.Status.COMPLETED, 3L)).thenReturn(Optional.empty());
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(existing));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> appointmentService.updateAppointmentStatus(1L, Appointment.Status.COMPLETED, 3L));
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void updateAppointmentStatus_WithMissingAppointment_ShouldThrowNotFound() {
+        when(statusTransitions.transitionOne(9L, Appointment.Status.COMPLETED, null)).thenReturn(Optional.empty());
+        when(appointmentRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFound.class,
+                () -> appointmentService.updateAppointmentStatus(9L, Appointment.Status.COMPLETED, null));
+    }
+
+    @Test
+    void updateAppointmentStatus_ReviveCancelled_ShouldTakeFullPathWithOverlapChecks() {
+        Appointment cancelled = createSampleAppointment();
+        cancelled.setStatus(Appointment.Status.CANCELLED);
+        cancelled.setVersion(2L);
+        when(statusTransitions.transitionOne(1L, Appointment.Status.SCHEDULED, 2L)).thenReturn(Optional.empty());
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(cancelled));
+        when(intervalIndex.findStaffConflict(1L, cancelled.getAppointmentDateTime(), 30, 1L))
+                .thenReturn(Optional.of(8L));
+
+        assertThrows(ConflictException.class,
+                () -> appointmentService.updateAppointmentStatus(1L, Appointment.Status.SCHEDULED, 2L));
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void updateAppointmentStatus_ReviveCancelled_ShouldSaveWithExpectedVersion() {
+        Appointment cancelled = createSampleAppointment();
+        cancelled.setStatus(Appointment.Status.CANCELLED);
+        cancelled.setVersion(2L);
+        when(statusTransitions.transitionOne(1L, Appointment.Status.SCHEDULED, 2L)).thenReturn(Optional.empty());
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(cancelled));
+        when(appointmentRepository.save(cancelled)).thenAnswer(invocation -> {
+            Appointment saved = invocation.getArgument(0);
+            assertEquals(2L, saved.getVersion());
+            return saved;
+        });
+
+        AppointmentDTO result = appointmentService.updateAppointmentStatus(1L, Appointment.Status.SCHEDULED, 2L);
+
+        assertEquals(Appointment.Status.SCHEDULED, result.getStatus());
+        verify(appointmentRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void updateAppointment_WhenVersionIsStale_ShouldThrowConflict() {
+        Appointment existing = createSampleAppointment();
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setReason("Follow-up");
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(appointmentRepository.save(existing))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Appointment.class, 1L));
+
+        assertThrows(ConflictException.class, () -> appointmentService.updateAppointment(1L, dto));
+    }
+
+    @Test
+    void createAppointment_WhenSeriesOccurrenceOverlaps_ShouldThrowException() {
+        AppointmentDTO dto = createSampleAppointmentDTO();
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(createSamplePatient()));
+        when(medicalStaffRepository.findById(1L)).thenReturn(Optional.of(createSampleMedicalStaff()));
+        when(intervalIndex.findStaffConflict(1L, dto.getAppointmentDateTime(), 30, null)).thenReturn(Optional.empty());
+        when(seriesIndex.findStaffConflict(1L, dto.getAppointmentDateTime(), 30, null)).thenReturn(Optional.of(4L));
+
+        assertThrows(DuplicateResourceException.class, () -> appointmentService.createAppointment(dto));
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void getAppointmentsByDateRange_ShouldMergeSeriesOccurrencesInOrder() {
+        LocalDateTime start = LocalDateTime.of(2024, 12, 15, 0, 0);
+        LocalDateTime end = start.plusDays(1);
+        Appointment stored = createSampleAppointment();
+        Appointment occurrence = createSampleAppointment();
+        occurrence.setId(null);
+        occurrence.setSeriesId(9L);
+        occurrence.setAppointmentDateTime(LocalDateTime.of(2024, 12, 15, 8, 0));
+        when(appointmentRepository.findByAppointmentDateTimeBetween(start, end)).thenReturn(List.of(stored));
+        when(seriesIndex.occurrencesBetween(start, end)).thenReturn(List.of(occurrence));
+
+        List<Appointment> result = appointmentService.getAppointmentsByDateRange(start, end);
+
+        assertEquals(2, result.size());
+        assertEquals(9L, result.get(0).getSeriesId());
+        assertEquals(1L, result.get(1).getId());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentStatusTransitionsTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AppointmentIntervalIndex intervalIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private AppointmentStatusTransitions statusTransitions;
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 5, 6, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        statusTransitions = new AppointmentStatusTransitions(jdbcTemplate, intervalIndex, eventPublisher);
+    }
+
+    private AppointmentSnapshot scheduled(Long id) {
+        return new AppointmentSnapshot(id, 3L, 2L, null, NINE, 30, Appointment.Status.SCHEDULED);
+    }
+
+    @Test
+    void markOverdueAsNoShow_ShouldPublishOneEventPerChangedRow() {
+        // Given
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), eq(500)))
+                .thenReturn(List.of(scheduled(1L), scheduled(2L)));
+
+        // When
+        int changed = statusTransitions.markOverdueAsNoShow(NINE, 500);
+
+        // Then
+        assertEquals(2, changed);
+        ArgumentCaptor<AppointmentChangedEvent> events = ArgumentCaptor.forClass(AppointmentChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(Appointment.Status.SCHEDULED, events.getValue().previous().status());
+        assertEquals(Appointment.Status.NO_SHOW, events.getValue().current().status());
+        verifyNoInteractions(intervalIndex);
+    }
+
+    @Test
+    void transition_ToCancelled_ShouldFreeSlotsAndChunkIds() {
+        // Given - 501 ids need two statements
+        List<Long> ids = LongStream.rangeClosed(1, 501).boxed().toList();
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of(scheduled(1L)), List.of(scheduled(501L)));
+
+        // When
+        List<Long> updated = statusTransitions.transition(ids, Appointment.Status.CANCELLED);
+
+        // Then
+        assertEquals(List.of(1L, 501L), updated);
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        verify(intervalIndex).remove(1L, 2L, 3L);
+        verify(intervalIndex).remove(501L, 2L, 3L);
+    }
+
+    @Test
+    void transition_BackToScheduled_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> statusTransitions.transition(List.of(1L), Appointment.Status.SCHEDULED));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void transitionOne_WithExpectedVersion_ShouldGuardOnVersionAndPublishEvent() {
+        // Given
+        when(jdbcTemplate.query(contains("a.version = ?"), any(RowMapper.class), eq("COMPLETED"), eq(1L),
+                eq("COMPLETED"), eq(3L))).thenAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(1L);
+            when(rs.getObject("patient_id", Long.class)).thenReturn(3L);
+            when(rs.getObject("medical_staff_id", Long.class)).thenReturn(2L);
+            when(rs.getTimestamp("appointment_date_time")).thenReturn(Timestamp.valueOf(NINE));
+            when(rs.getString("old_status")).thenReturn("SCHEDULED");
+            when(rs.getLong("version")).thenReturn(4L);
+            RowMapper<?> mapper = invocation.getArgument(1);
+            return List.of(mapper.mapRow(rs, 0));
+        });
+
+        // When
+        var updated = statusTransitions.transitionOne(1L, Appointment.Status.COMPLETED, 3L);
+
+        // Then
+        assertTrue(updated.isPresent());
+        assertEquals(4L, updated.get().getVersion());
+        assertEquals(Appointment.Status.COMPLETED, updated.get().getStatus());
+        verify(eventPublisher).publishEvent(any(AppointmentChangedEvent.class));
+    }
+
+    @Test
+    void transitionOne_WhenNoRowMatches_ShouldReturnEmpty() {
+        // Given
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("COMPLETED"), eq(1L), eq("COMPLETED")))
+                .thenReturn(List.of());
+
+        // When & Then
+        assertTrue(statusTransitions.transitionOne(1L, Appointment.Status.COMPLETED, null).isEmpty());
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentStreamerTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private AppointmentServiceImpl appointmentService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AppointmentStreamer appointmentStreamer;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+        appointmentStreamer = new AppointmentStreamer(appointmentRepository, appointmentService, entityManager,
+                transactionManager, objectMapper);
+    }
+
+    private Appointment appointment(Long id) {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setPatient(new Patient());
+        appointment.setMedicalStaff(new MedicalStaff());
+        appointment.setAppointmentDateTime(LocalDateTime.of(2030, 1, 1, 9, 0).plusHours(id));
+        appointment.setStatus(Appointment.Status.SCHEDULED);
+        return appointment;
+    }
+
+    @Test
+    void writeNdjson_ShouldWriteOneLinePerRow() {
+        // Given
+        Appointment first = appointment(1L);
+        Appointment second = appointment(2L);
+        when(appointmentRepository.streamByStatusAndDepartment(Appointment.Status.SCHEDULED, null))
+                .thenReturn(Stream.of(first, second));
+        when(appointmentService.convertToDTO(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            AppointmentDTO dto = new AppointmentDTO();
+            dto.setId(appointment.getId());
+            return dto;
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long written = appointmentStreamer.writeNdjson(Appointment.Status.SCHEDULED, null, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":1"));
+        assertTrue(lines[1].contains("\"id\":2"));
+        verify(entityManager, never()).clear();
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void writeNdjson_ShouldClearPersistenceContextEveryFlush() {
+        // Given
+        when(appointmentRepository.streamByStatusAndDepartment(null, null))
+                .thenReturn(LongStream.rangeClosed(1, 1001).mapToObj(this::appointment));
+        when(appointmentService.convertToDTO(any(Appointment.class))).thenReturn(new AppointmentDTO());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long written = appointmentStreamer.writeNdjson(null, null, out);
+
+        // Then
+        assertEquals(1001, written);
+        verify(entityManager, times(2)).clear();
+        verify(entityManager, never()).detach(any());
+    }
+
+    @Test
+    void writeNdjson_WithNoRows_ShouldWriteNothing() {
+        // Given
+        when(appointmentRepository.streamByStatusAndDepartment(null, 3L)).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long written = appointmentStreamer.writeNdjson(null, 3L, out);
+
+        // Then
+        assertEquals(0, written);
+        assertEquals(0, out.size());
+    }
+}
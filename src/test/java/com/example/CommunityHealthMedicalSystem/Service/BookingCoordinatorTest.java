@@ -0,0 +1,84 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingCoordinatorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingCoordinator bookingCoordinator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingCoordinator = new BookingCoordinator(meterRegistry, 64, 200);
+    }
+
+    @Test
+    void keysFor_WithAppointmentCrossingMidnight_ShouldCoverBothDays() {
+        // Given & When
+        List<BookingCoordinator.StaffDay> keys = BookingCoordinator.keysFor(1L,
+                LocalDateTime.of(2030, 1, 1, 23, 45), 30);
+
+        // Then
+        assertEquals(List.of(new BookingCoordinator.StaffDay(1L, LocalDate.of(2030, 1, 1)),
+                new BookingCoordinator.StaffDay(1L, LocalDate.of(2030, 1, 2))), keys);
+    }
+
+    @Test
+    void withStaffDayLocks_ShouldRunActionAndRecordWaitTime() {
+        // Given
+        List<BookingCoordinator.StaffDay> keys = BookingCoordinator.keysFor(1L, LocalDateTime.of(2030, 1, 1, 9, 0), 30);
+
+        // When
+        String result = bookingCoordinator.withStaffDayLocks(keys, () -> "booked");
+
+        // Then
+        assertEquals("booked", result);
+        assertEquals(1, meterRegistry.get("booking.lock.wait").timer().count());
+    }
+
+    @Test
+    void withStaffDayLocks_WhenSameStaffDayIsHeld_ShouldTimeOutWithConflict() throws Exception {
+        // Given
+        List<BookingCoordinator.StaffDay> keys = BookingCoordinator.keysFor(1L, LocalDateTime.of(2030, 1, 1, 9, 0), 30);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> holder = executor.submit(() -> bookingCoordinator.withStaffDayLocks(keys, () -> {
+                locked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            // When & Then
+            assertThrows(ConflictException.class, () -> bookingCoordinator.withStaffDayLocks(keys, () -> "late"));
+            assertEquals(1.0, meterRegistry.get("booking.lock.timeouts").counter().count());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
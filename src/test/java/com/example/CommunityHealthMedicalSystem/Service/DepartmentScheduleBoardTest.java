@@ -0,0 +1,253 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DepartmentScheduleBoardTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HeldExecutor sender;
+    private HeldExecutor writer;
+    private DepartmentScheduleBoard scheduleBoard;
+
+    private static final LocalDate DAY = LocalDate.of(2030, 5, 6);
+
+    // keeps send tasks until the test runs them, standing in for a screen that reads slowly
+    private static final class HeldExecutor extends AbstractExecutorService {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final boolean inline;
+
+        private HeldExecutor(boolean inline) {
+            this.inline = inline;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (inline){
+                command.run();
+            } else {
+                tasks.add(command);
+            }
+        }
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            pending.forEach(Runnable::run);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sender = new HeldExecutor(false);
+        writer = new HeldExecutor(true);
+        scheduleBoard = new DepartmentScheduleBoard(appointmentRepository, meterRegistry, sender, writer, 2, 60_000,
+                50, 100);
+    }
+
+    private AppointmentChangedEvent createdIn(Long departmentId, Long appointmentId) {
+        return AppointmentChangedEvent.created(new AppointmentSnapshot(appointmentId, 1L, 2L, departmentId,
+                DAY.atTime(10, 0), 30, Appointment.Status.SCHEDULED));
+    }
+
+    @Test
+    void subscribe_ShouldReadSnapshotOfTheDayAndRegister() {
+        // Given
+        when(appointmentRepository.findByDepartmentIdInWindow(3L, DAY.atStartOfDay(),
+                DAY.plusDays(1).atStartOfDay(), PageRequest.of(0, 100))).thenReturn(List.of());
+
+        // When
+        assertNotNull(scheduleBoard.subscribe(3L, DAY));
+
+        // Then
+        assertEquals(1, scheduleBoard.subscriberCount(3L));
+        assertEquals(0, scheduleBoard.subscriberCount(4L));
+    }
+
+    @Test
+    void onAppointmentChanged_ShouldQueueDeltasOnlyForTheTouchedDepartment() {
+        // Given
+        when(appointmentRepository.findByDepartmentIdInWindow(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any())).thenReturn(List.of());
+        scheduleBoard.subscribe(3L, DAY);
+        scheduleBoard.subscribe(4L, DAY);
+
+        // When
+        scheduleBoard.onAppointmentChanged(createdIn(3L, 10L));
+
+        // Then
+        assertEquals(1, sender.tasks.size());
+        sender.runAll();
+        assertEquals(1, scheduleBoard.subscriberCount(3L));
+        assertEquals(1, scheduleBoard.subscriberCount(4L));
+    }
+
+    @Test
+    void onAppointmentChanged_WithDepartmentChange_ShouldNotifyBothDepartments() {
+        // Given
+        when(appointmentRepository.findByDepartmentIdInWindow(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any())).thenReturn(List.of());
+        scheduleBoard.subscribe(3L, DAY);
+        scheduleBoard.subscribe(4L, DAY);
+        AppointmentSnapshot before = new AppointmentSnapshot(10L, 1L, 2L, 3L, DAY.atTime(10, 0), 30,
+                Appointment.Status.SCHEDULED);
+        AppointmentSnapshot after = new AppointmentSnapshot(10L, 1L, 2L, 4L, DAY.atTime(10, 0), 30,
+                Appointment.Status.SCHEDULED);
+
+        // When
+        scheduleBoard.onAppointmentChanged(AppointmentChangedEvent.updated(before, after));
+
+        // Then
+        assertEquals(2, sender.tasks.size());
+    }
+
+    @Test
+    void onAppointmentChanged_OnAnotherDay_ShouldNotQueueDelta() {
+        // Given
+        when(appointmentRepository.findByDepartmentIdInWindow(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any())).thenReturn(List.of());
+        scheduleBoard.subscribe(3L, DAY);
+        AppointmentSnapshot nextDay = new AppointmentSnapshot(10L, 1L, 2L, 3L, DAY.plusDays(1).atTime(10, 0), 30,
+                Appointment.Status.SCHEDULED);
+        AppointmentSnapshot movedAway = new AppointmentSnapshot(11L, 1L, 2L, 3L, DAY.atTime(9, 0), 30,
+                Appointment.Status.SCHEDULED);
+
+        // When
+        scheduleBoard.onAppointmentChanged(AppointmentChangedEvent.created(nextDay));
+
+        // Then
+        assertTrue(sender.tasks.isEmpty());
+        scheduleBoard.onAppointmentChanged(AppointmentChangedEvent.updated(movedAway, nextDay));
+        assertEquals(1, sender.tasks.size());
+    }
+
+    @Test
+    void send_WhenWriteBlocks_ShouldDropSubscriber() {
+        // Given
+        when(appointmentRepository.findByDepartmentIdInWindow(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any())).thenReturn(List.of());
+        // a writer that never gets to the socket, like a screen that stopped reading
+        scheduleBoard = new DepartmentScheduleBoard(appointmentRepository, meterRegistry, sender,
+                new HeldExecutor(false), 2, 60_000, 50, 100);
+        scheduleBoard.subscribe(3L, DAY);
+        scheduleBoard.onAppointmentChanged(createdIn(3L, 10L));
+
+        // When
+        sender.runAll();
+
+        // Then
+        assertEquals(0, scheduleBoard.subscriberCount(3L));
+        assertEquals(1.0, meterRegistry.counter("appointments.board.dropped").count());
+    }
+
+    @Test
+    void send_WhenEveryWriterIsBlocked_ShouldDropSubscriber() throws InterruptedException {
+        // Given
+        when(appointmentRepository.findByDepartmentIdInWindow(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any())).thenReturn(List.of());
+        // the only writer thread is held by another screen's stalled write
+        CountDownLatch stalled = new CountDownLatch(1);
+        ThreadPoolExecutor boundedWriter = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>());
+        boundedWriter.execute(() -> {
+            try {
+                stalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        scheduleBoard = new DepartmentScheduleBoard(appointmentRepository, meterRegistry, sender, boundedWriter,
+                2, 60_000, 50, 100);
+        scheduleBoard.subscribe(3L, DAY);
+        scheduleBoard.onAppointmentChanged(createdIn(3L, 10L));
+
+        // When
+        sender.runAll();
+
+        // Then
+        assertEquals(0, scheduleBoard.subscriberCount(3L));
+        assertEquals(1.0, meterRegistry.counter("appointments.board.dropped").count());
+        stalled.countDown();
+        boundedWriter.shutdown();
+        assertTrue(boundedWriter.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void onAppointmentChanged_WithFullBuffer_ShouldDropSlowSubscriber() {
+        // Given
+        when(appointmentRepository.findByDepartmentIdInWindow(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any())).thenReturn(List.of());
+        scheduleBoard.subscribe(3L, DAY);
+
+        // When
+        scheduleBoard.onAppointmentChanged(createdIn(3L, 10L));
+        scheduleBoard.onAppointmentChanged(createdIn(3L, 11L));
+        scheduleBoard.onAppointmentChanged(createdIn(3L, 12L));
+
+        // Then
+        assertEquals(0, scheduleBoard.subscriberCount(3L));
+        assertEquals(1.0, meterRegistry.counter("appointments.board.dropped").count());
+    }
+
+    @Test
+    void onAppointmentChanged_WithoutSubscribers_ShouldDoNothing() {
+        // When
+        scheduleBoard.onAppointmentChanged(createdIn(3L, 10L));
+
+        // Then
+        assertTrue(sender.tasks.isEmpty());
+        verifyNoInteractions(appointmentRepository);
+    }
+}
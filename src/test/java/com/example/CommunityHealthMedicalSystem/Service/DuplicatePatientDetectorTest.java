@@ -0,0 +1,199 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.DuplicateCandidateDTO;
+import com.example.CommunityHealthMedicalSystem.DTO.DuplicateScanReportDTO;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DuplicatePatientDetectorTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private DuplicatePatientDetector detector;
+
+    private static final LocalDate BIRTH = LocalDate.of(1980, 3, 14);
+
+    @BeforeEach
+    void setUp() {
+        detector = new DuplicatePatientDetector(patientRepository, jdbcTemplate, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        detector.stop();
+    }
+
+    private DuplicatePatientDetector.Person person(Long id, String firstName, String lastName, LocalDate birth) {
+        return new DuplicatePatientDetector.Person(id, firstName, lastName, birth);
+    }
+
+    private Patient patient(Long id, String firstName, String lastName) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setFirstName(firstName);
+        patient.setLastName(lastName);
+        patient.setDateOfBirth(BIRTH);
+        return patient;
+    }
+
+    @Test
+    void isProbableDuplicate_ShouldMatchPhoneticVariantsWithSameBirthDate() {
+        assertTrue(detector.isProbableDuplicate(person(1L, "Jon", "Smyth", BIRTH), person(2L, "John", "Smith", BIRTH)));
+        assertTrue(detector.isProbableDuplicate(person(1L, "J.", "Schmidt", BIRTH), person(2L, "John", "Smith", BIRTH)));
+        assertTrue(detector.isProbableDuplicate(person(1L, "Ștefan", "Popescu", BIRTH),
+                person(2L, "Stefan", "Popesku", BIRTH)));
+    }
+
+    @Test
+    void isProbableDuplicate_ShouldRejectDifferentBirthDateOrNames() {
+        assertFalse(detector.isProbableDuplicate(person(1L, "John", "Smith", BIRTH),
+                person(2L, "John", "Smith", BIRTH.plusDays(1))));
+        assertFalse(detector.isProbableDuplicate(person(1L, "John", "Smith", BIRTH), person(2L, "Mary", "Smith", BIRTH)));
+        assertFalse(detector.isProbableDuplicate(person(1L, "John", "Smith", BIRTH), person(2L, "John", "Brown", BIRTH)));
+    }
+
+    @Test
+    void findProbableDuplicates_ShouldOnlyReadTheBirthDateBlock() {
+        // Given
+        when(patientRepository.findByDateOfBirth(BIRTH)).thenReturn(List.of(
+                patient(1L, "John", "Smith"), patient(2L, "Mary", "Smith"), patient(3L, "Jon", "Smyth")));
+
+        // When
+        List<Long> duplicates = detector.findProbableDuplicates("Jhon", "Smith", BIRTH, 3L);
+
+        // Then
+        assertEquals(List.of(1L), duplicates);
+        verify(patientRepository, never()).findAll();
+    }
+
+    @Test
+    void findProbableDuplicates_WithoutBirthDate_ShouldNotQuery() {
+        assertTrue(detector.findProbableDuplicates("John", "Smith", null, null).isEmpty());
+        verifyNoInteractions(patientRepository);
+    }
+
+    // serves the birth date range of each block query from the given rows
+    private void givenRows(List<Object[]> rows) {
+        when(jdbcTemplate.queryForMap(anyString())).thenReturn(Map.of(
+                "first_birth", Date.valueOf((LocalDate) rows.get(0)[3]),
+                "last_birth", Date.valueOf((LocalDate) rows.get(rows.size() - 1)[3])));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            LocalDate from = ((Date) invocation.getArgument(2)).toLocalDate();
+            LocalDate to = ((Date) invocation.getArgument(3)).toLocalDate();
+            for (Object[] row : rows) {
+                LocalDate birth = (LocalDate) row[3];
+                if (!birth.isBefore(from) && birth.isBefore(to)) {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getLong("id")).thenReturn((Long) row[0]);
+                    when(rs.getString("first_name")).thenReturn((String) row[1]);
+                    when(rs.getString("last_name")).thenReturn((String) row[2]);
+                    when(rs.getDate("date_of_birth")).thenReturn(Date.valueOf(birth));
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any());
+    }
+
+    @Test
+    void scan_ShouldReportEachPairOncePerBirthYearBlock() {
+        // Given
+        givenRows(List.of(
+                new Object[]{1L, "John", "Smith", BIRTH},
+                new Object[]{2L, "Jon", "Smyth", BIRTH},
+                new Object[]{3L, "John", "Smith", BIRTH.plusDays(1)},
+                new Object[]{4L, "Maria", "Lopez", BIRTH.plusYears(1)},
+                new Object[]{5L, "María", "López", BIRTH.plusYears(1)}));
+
+        // When
+        DuplicateScanReportDTO report = detector.scan();
+
+        // Then
+        assertEquals(List.of(new DuplicateCandidateDTO(1L, 2L, BIRTH),
+                new DuplicateCandidateDTO(4L, 5L, BIRTH.plusYears(1))), report.getPairs());
+        assertFalse(report.isTruncated());
+        assertNotNull(report.getScannedAt());
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(), any());
+    }
+
+    @Test
+    void scan_AtMaxPairs_ShouldStopIssuingBlocks() {
+        // Given
+        detector = new DuplicatePatientDetector(patientRepository, jdbcTemplate, 1, 1);
+        givenRows(List.of(
+                new Object[]{1L, "John", "Smith", BIRTH},
+                new Object[]{2L, "Jon", "Smyth", BIRTH},
+                new Object[]{3L, "Maria", "Lopez", BIRTH.plusYears(1)},
+                new Object[]{4L, "María", "López", BIRTH.plusYears(1)},
+                new Object[]{5L, "Ana", "Pop", BIRTH.plusYears(2)}));
+
+        // When
+        DuplicateScanReportDTO report = detector.scan();
+
+        // Then
+        assertEquals(List.of(new DuplicateCandidateDTO(1L, 2L, BIRTH)), report.getPairs());
+        assertTrue(report.isTruncated());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), any(), any());
+    }
+
+    @Test
+    void requestScan_WhileRunning_ShouldNotStartASecondScan() throws Exception {
+        // Given - the first scan holds on the bounds query
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.queryForMap(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Collections.singletonMap("first_birth", null);
+        });
+
+        // When
+        boolean first = detector.requestScan();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        boolean second = detector.requestScan();
+        DuplicateScanReportDTO during = detector.lastReport();
+        release.countDown();
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(during.isRunning());
+        assertNull(during.getScannedAt());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (detector.lastReport().isRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        DuplicateScanReportDTO after = detector.lastReport();
+        assertFalse(after.isRunning());
+        assertNotNull(after.getScannedAt());
+        assertTrue(after.getPairs().isEmpty());
+        verify(jdbcTemplate, times(1)).queryForMap(anyString());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AvailabilitySlotDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.ServiceUnavailableException;
+import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EarliestSlotSearchTest {
+
+    @Mock
+    private MedicalStaffRepository medicalStaffRepository;
+
+    @Mock
+    private StaffAvailabilityEngine availabilityEngine;
+
+    private EarliestSlotSearch earliestSlotSearch;
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2030, 5, 6, 8, 0);
+    private static final LocalDateTime TO = FROM.plusDays(7);
+
+    @BeforeEach
+    void setUp() {
+        earliestSlotSearch = new EarliestSlotSearch(medicalStaffRepository, availabilityEngine, 4, 2_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        earliestSlotSearch.shutdown();
+    }
+
+    @Test
+    void findEarliest_ShouldReturnTopKAcrossManyStaff() {
+        // Given - 40 doctors, doctor n is first free n hours after FROM and has one slot only
+        List<Long> staffIds = LongStream.rangeClosed(1, 40).boxed().toList();
+        when(medicalStaffRepository.findIdsBySpecializationAndDepartment("cardiology", null)).thenReturn(staffIds);
+        when(availabilityEngine.nextFreeSlot(anyLong(), eq(FROM), eq(TO), eq(30))).thenAnswer(invocation -> {
+            Long staffId = invocation.getArgument(0);
+            LocalDateTime start = FROM.plusHours(staffId);
+            return Optional.of(new AvailabilitySlotDTO(staffId, start, start.plusMinutes(30)));
+        });
+
+        // When
+        List<AvailabilitySlotDTO> slots = earliestSlotSearch.findEarliest("cardiology", null, FROM, TO, 30, 3);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), slots.stream().map(AvailabilitySlotDTO::getMedicalStaffId).toList());
+        verify(availabilityEngine, times(1)).preload(staffIds);
+    }
+
+    @Test
+    void findEarliest_WhenSearchRunsTooLong_ShouldFailCleanly() {
+        // Given
+        earliestSlotSearch.shutdown();
+        earliestSlotSearch = new EarliestSlotSearch(medicalStaffRepository, availabilityEngine, 2, 50);
+        when(medicalStaffRepository.findIdsBySpecializationAndDepartment("cardiology", null))
+                .thenReturn(List.of(1L, 2L));
+        when(availabilityEngine.nextFreeSlot(anyLong(), eq(FROM), eq(TO), eq(30))).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return Optional.empty();
+        });
+
+        // When & Then
+        assertThrows(ServiceUnavailableException.class,
+                () -> earliestSlotSearch.findEarliest("cardiology", null, FROM, TO, 30, 3));
+    }
+
+    @Test
+    void findEarliest_ShouldTakeSeveralSlotsFromTheSameDoctor() {
+        // Given
+        when(medicalStaffRepository.findIdsBySpecializationAndDepartment(null, 9L)).thenReturn(List.of(1L));
+        when(availabilityEngine.nextFreeSlot(eq(1L), any(), eq(TO), eq(30))).thenAnswer(invocation -> {
+            LocalDateTime after = invocation.getArgument(1);
+            return Optional.of(new AvailabilitySlotDTO(1L, after, after.plusMinutes(30)));
+        });
+
+        // When
+        List<AvailabilitySlotDTO> slots = earliestSlotSearch.findEarliest(null, 9L, FROM, TO, 30, 2);
+
+        // Then
+        assertEquals(List.of(FROM, FROM.plusMinutes(30)), slots.stream().map(AvailabilitySlotDTO::getStart).toList());
+    }
+
+    @Test
+    void findEarliest_WithoutSpecializationOrDepartment_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> earliestSlotSearch.findEarliest(" ", null, FROM, TO, 30, 3));
+        verifyNoInteractions(medicalStaffRepository);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    private HashedTimingWheel wheel;
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel(100, 8, START);
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    void advanceTo_ShouldRunTimersOnlyOnceTheirTickIsReached() {
+        // Given
+        wheel.schedule(START + 250, () -> fired.add("a"));
+        wheel.schedule(START + 500, () -> fired.add("b"));
+
+        // When & Then
+        wheel.advanceTo(START + 199);
+        assertTrue(fired.isEmpty());
+
+        wheel.advanceTo(START + 300);
+        assertEquals(List.of("a"), fired);
+
+        wheel.advanceTo(START + 500);
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void advanceTo_WithDeadlineSeveralLapsAhead_ShouldWaitForTheRightLap() {
+        // Given - one lap is 8 ticks of 100ms
+        wheel.schedule(START + 2_050, () -> fired.add("late"));
+        wheel.schedule(START + 50 + 100 * 4, () -> fired.add("early"));
+
+        // When & Then
+        wheel.advanceTo(START + 1_999);
+        assertEquals(List.of("early"), fired);
+
+        wheel.advanceTo(START + 2_000);
+        assertEquals(List.of("early", "late"), fired);
+    }
+
+    @Test
+    void cancel_ShouldUnlinkTimerSoItNeverRuns() {
+        // Given
+        HashedTimingWheel.Timeout first = wheel.schedule(START + 300, () -> fired.add("first"));
+        wheel.schedule(START + 300, () -> fired.add("second"));
+
+        // When
+        assertTrue(first.cancel());
+        assertFalse(first.cancel());
+        wheel.advanceTo(START + 1_000);
+
+        // Then
+        assertEquals(List.of("second"), fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void schedule_WithPastDeadline_ShouldFireOnNextTick() {
+        // Given
+        wheel.advanceTo(START + 1_000);
+        wheel.schedule(START, () -> fired.add("overdue"));
+
+        // When
+        wheel.advanceTo(START + 1_100);
+
+        // Then
+        assertEquals(List.of("overdue"), fired);
+    }
+
+    @Test
+    void advanceTo_WhenTaskFails_ShouldStillRunTheOthers() {
+        // Given
+        wheel.schedule(START + 100, () -> { throw new RuntimeException("boom"); });
+        wheel.schedule(START + 100, () -> fired.add("ok"));
+
+        // When
+        wheel.advanceTo(START + 100);
+
+        // Then
+        assertEquals(List.of("ok"), fired);
+    }
+
+    @Test
+    void constructor_WithSizeNotPowerOfTwo_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel(100, 10, START));
+    }
+}
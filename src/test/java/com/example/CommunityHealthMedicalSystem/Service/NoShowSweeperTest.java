@@ -0,0 +1,52 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoShowSweeperTest {
+
+    @Mock
+    private AppointmentStatusTransitions statusTransitions;
+
+    private NoShowSweeper noShowSweeper;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 5, 6, 2, 30);
+
+    @BeforeEach
+    void setUp() {
+        noShowSweeper = new NoShowSweeper(statusTransitions, 120, 100);
+    }
+
+    @Test
+    void sweep_ShouldRunChunksUntilOneComesBackShort() {
+        // Given
+        LocalDateTime cutoff = NOW.minusHours(2);
+        when(statusTransitions.markOverdueAsNoShow(cutoff, 100)).thenReturn(100, 100, 42);
+
+        // When
+        int total = noShowSweeper.sweep(NOW);
+
+        // Then
+        assertEquals(242, total);
+        verify(statusTransitions, times(3)).markOverdueAsNoShow(cutoff, 100);
+    }
+
+    @Test
+    void sweep_WithNothingOverdue_ShouldRunOneChunk() {
+        // Given
+        when(statusTransitions.markOverdueAsNoShow(NOW.minusHours(2), 100)).thenReturn(0);
+
+        // When & Then
+        assertEquals(0, noShowSweeper.sweep(NOW));
+        verify(statusTransitions, times(1)).markOverdueAsNoShow(any(), anyInt());
+    }
+}
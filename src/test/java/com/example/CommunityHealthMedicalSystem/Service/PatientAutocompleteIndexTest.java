@@ -0,0 +1,180 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.PatientSuggestionDTO;
+import com.example.CommunityHealthMedicalSystem.Event.PatientChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientAutocompleteIndexTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PatientAutocompleteIndex autocompleteIndex;
+
+    @BeforeEach
+    void setUp() {
+        autocompleteIndex = new PatientAutocompleteIndex(patientRepository, jdbcTemplate);
+        autocompleteIndex.put(1L, "John", "Smith", "ID-123456", "(021) 555-0101");
+        autocompleteIndex.put(2L, "Jane", "Smithson", "ID-654321", "021 555 0202");
+        autocompleteIndex.put(3L, "Ștefan", "Popescu", "1850101123456", "0722 000 111");
+    }
+
+    private static void row(RowCallbackHandler handler, long id, String firstName, String lastName,
+                            String nationalId, String phoneNumber) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("first_name")).thenReturn(firstName);
+        when(rs.getString("last_name")).thenReturn(lastName);
+        when(rs.getString("national_id")).thenReturn(nationalId);
+        when(rs.getString("phone_number")).thenReturn(phoneNumber);
+        handler.processRow(rs);
+    }
+
+    private List<Long> ids(List<PatientSuggestionDTO> suggestions) {
+        return suggestions.stream().map(PatientSuggestionDTO::getId).toList();
+    }
+
+    @Test
+    void suggest_ShouldMatchSurnamePrefixCaseInsensitively() {
+        // When
+        List<PatientSuggestionDTO> suggestions = autocompleteIndex.suggest("SMI", 10);
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids(suggestions));
+        assertEquals("John Smith", suggestions.get(0).getDisplayName());
+    }
+
+    @Test
+    void suggest_ShouldMatchFullNameWithoutAccents() {
+        // When & Then
+        assertEquals(List.of(3L), ids(autocompleteIndex.suggest("stefan pop", 10)));
+        assertEquals(List.of(1L), ids(autocompleteIndex.suggest("john  s", 10)));
+    }
+
+    @Test
+    void suggest_ShouldMatchPhoneAndNationalIdWithoutSeparators() {
+        // When & Then
+        assertEquals(List.of(1L, 2L), ids(autocompleteIndex.suggest("021-555", 10)));
+        assertEquals(List.of(3L), ids(autocompleteIndex.suggest("185 0101", 10)));
+        assertEquals(List.of(2L), ids(autocompleteIndex.suggest("id654", 10)));
+    }
+
+    @Test
+    void suggest_ShouldReturnEachPatientOnceAndRespectLimit() {
+        // When & Then
+        assertEquals(List.of(2L), ids(autocompleteIndex.suggest("ja", 10)));
+        assertEquals(1, autocompleteIndex.suggest("smith", 1).size());
+        assertTrue(autocompleteIndex.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void onPatientChanged_WithUpdate_ShouldReplaceOldTerms() {
+        // Given
+        Patient renamed = new Patient();
+        renamed.setId(1L);
+        renamed.setFirstName("John");
+        renamed.setLastName("Brown");
+        renamed.setNationalId("ID-123456");
+        renamed.setPhoneNumber("021 555 0101");
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(renamed));
+
+        // When
+        autocompleteIndex.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.Type.UPDATED, 1L,
+                "john@example.com", "john@example.com"));
+
+        // Then
+        assertEquals(List.of(2L), ids(autocompleteIndex.suggest("smith", 10)));
+        assertEquals(List.of(1L), ids(autocompleteIndex.suggest("bro", 10)));
+        assertEquals(3, autocompleteIndex.size());
+    }
+
+    @Test
+    void onPatientChanged_WithDelete_ShouldRemovePatient() {
+        // When
+        autocompleteIndex.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.Type.DELETED, 2L,
+                "jane@example.com", null));
+
+        // Then
+        assertEquals(List.of(1L), ids(autocompleteIndex.suggest("smith", 10)));
+        assertEquals(2, autocompleteIndex.size());
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void load_ShouldMergeLoadedRowsWithLaterChanges() {
+        // Given
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            row(handler, 4L, "Anna", "Smit", "ID-444444", "021 555 0404");
+            row(handler, 5L, "Mihai", "Ionescu", "ID-555555", null);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        // When
+        autocompleteIndex.load();
+
+        // Then
+        assertEquals(List.of(4L, 1L, 2L), ids(autocompleteIndex.suggest("smi", 10)));
+        assertEquals("Anna Smit", autocompleteIndex.suggest("anna", 10).get(0).getDisplayName());
+        assertEquals(List.of(5L), ids(autocompleteIndex.suggest("id555", 10)));
+        assertEquals(5, autocompleteIndex.size());
+    }
+
+    @Test
+    void load_WithChangeWhileReading_ShouldKeepTheChange() {
+        // Given - patient 1 is renamed after the load has read the old row
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            row(handler, 1L, "John", "Smith", "ID-123456", "(021) 555-0101");
+            autocompleteIndex.put(1L, "John", "Brown", "ID-123456", "(021) 555-0101");
+            row(handler, 6L, "Ion", "Brown", null, null);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        // When
+        autocompleteIndex.load();
+
+        // Then
+        assertEquals(List.of(2L), ids(autocompleteIndex.suggest("smith", 10)));
+        assertEquals(List.of(1L, 6L), ids(autocompleteIndex.suggest("brown", 10)));
+        assertEquals(4, autocompleteIndex.size());
+    }
+
+    @Test
+    void compact_ShouldFoldChangesIntoSegment() {
+        // Given
+        autocompleteIndex.remove(2L);
+
+        // When
+        autocompleteIndex.compact();
+        autocompleteIndex.put(3L, "Stefan", "Smith", "1850101123456", "0722 000 111");
+
+        // Then
+        assertEquals(List.of(1L, 3L), ids(autocompleteIndex.suggest("smith", 10)));
+        assertTrue(autocompleteIndex.suggest("popescu", 10).isEmpty());
+        assertEquals(List.of(1L), ids(autocompleteIndex.suggest("021", 10)));
+        assertEquals(2, autocompleteIndex.size());
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.PatientImportReportDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientImporterTest {
+
+    private static final String HEADER = "first_name,last_name,email,phone_number,national_id,date_of_birth,address\n";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PatientUniquenessFilter uniquenessFilter;
+
+    @Mock
+    private PatientAutocompleteIndex autocompleteIndex;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private PatientImporter patientImporter;
+
+    // emails of every batch sent, in order
+    private final List<List<String>> batches = new ArrayList<>();
+    // emails the database already holds, their rows come back without an id
+    private final Set<String> takenEmails = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        patientImporter = new PatientImporter(jdbcTemplate, new ObjectMapper().findAndRegisterModules(), validator,
+                uniquenessFilter, autocompleteIndex, 2, 10);
+    }
+
+    // runs the statement creator against a mocked connection and returns an id for every email not taken
+    private void givenDatabase() throws Exception {
+        doAnswer(invocation -> {
+            Map<Integer, Object[]> arrays = new HashMap<>();
+            Connection connection = mock(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(connection.prepareStatement(anyString())).thenReturn(statement);
+            when(connection.createArrayOf(eq("text"), any())).thenAnswer(arrayInvocation -> {
+                arrays.put(arrays.size() + 1, arrayInvocation.getArgument(1));
+                return mock(Array.class);
+            });
+            invocation.getArgument(0, PreparedStatementCreator.class).createPreparedStatement(connection);
+
+            List<String> emails = Arrays.stream(arrays.get(3)).map(String.class::cast).toList();
+            batches.add(emails);
+            RowCallbackHandler handler = invocation.getArgument(1, RowCallbackHandler.class);
+            long id = 100L * batches.size();
+            for (String email : emails){
+                id++;
+                if (!takenEmails.contains(email)){
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getString("email")).thenReturn(email);
+                    when(rs.getLong("id")).thenReturn(id);
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private PatientImportReportDTO importText(String text, PatientImporter.Format format) throws Exception {
+        return patientImporter.importPatients(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private static String csvRow(int i) {
+        return "John,Doe,john" + i + "@example.com,555-010" + i + ",NID" + i + ",1990-01-0" + (i + 1) + ",1 Main St\n";
+    }
+
+    @Test
+    void importPatients_WithCsv_ShouldInsertInBatchesAndFeedIndexes() throws Exception {
+        // Given
+        givenDatabase();
+        String csv = HEADER + csvRow(1) + csvRow(2) + "\n" + csvRow(3);
+
+        // When
+        PatientImportReportDTO report = importText(csv, PatientImporter.Format.CSV);
+
+        // Then
+        assertEquals(3, report.getRowsRead());
+        assertEquals(3, report.getImported());
+        assertEquals(0, report.getRejected());
+        assertEquals(List.of(List.of("john1@example.com", "john2@example.com"), List.of("john3@example.com")), batches);
+        verify(uniquenessFilter, times(1)).add("john1@example.com", "555-0101", "NID1");
+        verify(autocompleteIndex, times(1)).put(101L, "John", "Doe", "NID1", "555-0101");
+        verify(autocompleteIndex, times(1)).put(201L, "John", "Doe", "NID3", "555-0103");
+    }
+
+    @Test
+    void importPatients_WithInvalidRows_ShouldReportThemByLine() throws Exception {
+        // Given
+        givenDatabase();
+        String csv = HEADER
+                + "\"Doe, Jr\",Doe,not-an-email,555-0101,NID1,1990-01-01,1 Main St\n"
+                + "John,Doe,john2@example.com,555-0102,NID2,01/02/1990,1 Main St\n"
+                + "John,Doe,john3@example.com,555-0103,NID3,1990-01-03,\"1 Main St\n"
+                + "Apt \"\"B\"\"\"\n"
+                + csvRow(4);
+
+        // When
+        PatientImportReportDTO report = importText(csv, PatientImporter.Format.CSV);
+
+        // Then
+        assertEquals(4, report.getRowsRead());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(2, report.getErrors().get(0).getRow());
+        assertEquals("Email must be in a valid format.", report.getErrors().get(0).getMessage());
+        assertEquals(3, report.getErrors().get(1).getRow());
+        assertEquals("Date of birth must be in yyyy-MM-dd format.", report.getErrors().get(1).getMessage());
+        verify(autocompleteIndex, times(1)).put(101L, "John", "Doe", "NID3", "555-0103");
+    }
+
+    @Test
+    void importPatients_WithTakenAndRepeatedValues_ShouldRejectThoseRows() throws Exception {
+        // Given
+        givenDatabase();
+        takenEmails.add("john1@example.com");
+        String ndjson = """
+                {"firstName":"John","lastName":"Doe","email":"john1@example.com","phoneNumber":"555-0101","nationalId":"NID1","dateOfBirth":"1990-01-01","address":"1 Main St"}
+                {"firstName":"Jane","lastName":"Doe","email":"jane@example.com","phoneNumber":"555-0101","nationalId":"NID9","dateOfBirth":"1990-01-01","address":"1 Main St"}
+                {"firstName":"Jane"
+                """;
+
+        // When
+        PatientImportReportDTO report = importText(ndjson, PatientImporter.Format.NDJSON);
+
+        // Then
+        assertEquals(3, report.getRowsRead());
+        assertEquals(0, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals(List.of(2L, 3L, 1L), report.getErrors().stream().map(error -> error.getRow()).toList());
+        assertEquals("Email, phone number or national ID repeats an earlier row.",
+                report.getErrors().get(0).getMessage());
+        assertTrue(report.getErrors().get(1).getMessage().startsWith("Invalid JSON"));
+        assertEquals("Email, phone number or national ID already belongs to another patient.",
+                report.getErrors().get(2).getMessage());
+        verifyNoInteractions(uniquenessFilter, autocompleteIndex);
+    }
+
+    @Test
+    void importPatients_WithMissingCsvColumns_ShouldThrowException() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> importText("firstName,lastName,email\n", PatientImporter.Format.CSV));
+
+        assertEquals("CSV header is missing columns: phoneNumber, nationalId, dateOfBirth, address",
+                exception.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
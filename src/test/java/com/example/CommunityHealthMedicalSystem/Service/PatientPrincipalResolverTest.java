@@ -0,0 +1,76 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Event.PatientChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientPrincipalResolverTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private PatientPrincipalResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new PatientPrincipalResolver(patientRepository, new SimpleMeterRegistry(), 100, 30);
+    }
+
+    @Test
+    void patientIdFor_ShouldQueryOnlyOncePerUsername() {
+        // Given
+        when(patientRepository.findByEmail("john.doe@example.com")).thenReturn(Optional.of(patient(1L)));
+
+        // When
+        Optional<Long> first = resolver.patientIdFor("john.doe@example.com");
+        Optional<Long> second = resolver.patientIdFor("john.doe@example.com");
+
+        // Then
+        assertEquals(Optional.of(1L), first);
+        assertEquals(Optional.of(1L), second);
+        verify(patientRepository, times(1)).findByEmail("john.doe@example.com");
+    }
+
+    @Test
+    void patientIdFor_WithUnknownUsername_ShouldNotCacheTheMiss() {
+        // Given
+        when(patientRepository.findByEmail("new@example.com")).thenReturn(Optional.empty(), Optional.of(patient(3L)));
+
+        // When & Then
+        assertTrue(resolver.patientIdFor("new@example.com").isEmpty());
+        assertEquals(Optional.of(3L), resolver.patientIdFor("new@example.com"));
+    }
+
+    @Test
+    void onPatientChanged_WhenEmailChanges_ShouldDropOldAndNewUsernames() {
+        // Given
+        when(patientRepository.findByEmail("old@example.com")).thenReturn(Optional.of(patient(1L)), Optional.empty());
+        resolver.patientIdFor("old@example.com");
+
+        // When
+        resolver.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.Type.UPDATED, 1L,
+                "old@example.com", "new@example.com"));
+
+        // Then
+        assertTrue(resolver.patientIdFor("old@example.com").isEmpty());
+        verify(patientRepository, times(2)).findByEmail("old@example.com");
+    }
+
+    private static Patient patient(Long id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        return patient;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.CommunityHealthMedicalSystem.Service;
 
 import com.example.CommunityHealthMedicalSystem.DTO.PatientDTO;
+import com.example.CommunityHealthMedicalSystem.Event.PatientChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
 import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
 import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
 import com.example.CommunityHealthMedicalSystem.Model.Patient;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -27,6 +30,15 @@ class PatientServiceImplTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private DuplicatePatientDetector duplicateDetector;
+
+    @Mock
+    private PatientUniquenessFilter uniquenessFilter;
+
     @InjectMocks
     private PatientServiceImpl patientService;
 
@@ -221,6 +233,77 @@ class PatientServiceImplTest {
         verify(patientRepository, times(1)).save(any(Patient.class));
     }
 
+    @Test
+    void createPatient_WithProbableDuplicate_ShouldFlagItAndStillSave() {
+        // Given
+        PatientDTO inputDTO = createSamplePatientDTO();
+        inputDTO.setId(null);
+        when(duplicateDetector.findProbableDuplicates(inputDTO.getFirstName(), inputDTO.getLastName(),
+                inputDTO.getDateOfBirth(), null)).thenReturn(List.of(7L));
+        when(patientRepository.save(any(Patient.class))).thenReturn(createSamplePatient());
+
+        // When
+        PatientDTO result = patientService.createPatient(inputDTO);
+
+        // Then
+        assertEquals(List.of(7L), result.getPossibleDuplicateIds());
+        verify(patientRepository, times(1)).save(any(Patient.class));
+    }
+
+    @Test
+    void createPatient_WithFilterMiss_ShouldSkipUniquenessQueries() {
+        // Given
+        PatientDTO inputDTO = createSamplePatientDTO();
+        inputDTO.setId(null);
+        when(patientRepository.save(any(Patient.class))).thenReturn(createSamplePatient());
+
+        // When
+        patientService.createPatient(inputDTO);
+
+        // Then
+        verify(patientRepository, never()).findByEmail(anyString());
+        verify(patientRepository, never()).findByNationalId(anyString());
+        verify(patientRepository, never()).findByPhoneNumber(anyString());
+        verify(uniquenessFilter, times(1)).add("john.doe@example.com", "123-456-7890", "NID123456");
+    }
+
+    @Test
+    void createPatient_WithTakenEmail_ShouldThrowConflict() {
+        // Given
+        PatientDTO inputDTO = createSamplePatientDTO();
+        inputDTO.setId(null);
+        when(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, inputDTO.getEmail())).thenReturn(true);
+        when(patientRepository.findByEmail(inputDTO.getEmail())).thenReturn(Optional.of(createSamplePatient()));
+
+        // When & Then
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> patientService.createPatient(inputDTO));
+
+        assertEquals("Error! This email already exists in database.", exception.getMessage());
+        verify(patientRepository, never()).save(any(Patient.class));
+        verify(uniquenessFilter, never()).recordFalsePositive();
+    }
+
+    @Test
+    void createPatient_WithFilterFalsePositive_ShouldRecordItAndSave() {
+        // Given
+        PatientDTO inputDTO = createSamplePatientDTO();
+        inputDTO.setId(null);
+        when(uniquenessFilter.mightExist(any(PatientUniquenessFilter.Field.class), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0) == PatientUniquenessFilter.Field.NATIONAL_ID);
+        when(patientRepository.findByNationalId(inputDTO.getNationalId())).thenReturn(Optional.empty());
+        when(patientRepository.save(any(Patient.class))).thenReturn(createSamplePatient());
+
+        // When
+        PatientDTO result = patientService.createPatient(inputDTO);
+
+        // Then
+        assertNotNull(result);
+        verify(uniquenessFilter, times(1)).recordFalsePositive();
+        verify(patientRepository, never()).findByEmail(anyString());
+        verify(patientRepository, times(1)).save(any(Patient.class));
+    }
+
     @Test
     void createPatient_WithNullDTO_ShouldThrowException() {
         // Given & When & Then
@@ -309,6 +392,8 @@ class PatientServiceImplTest {
         // **ADD VERIFICATIONS for the existence checks to be thorough**
         verify(patientRepository, times(1)).existsByEmailAndIdNot(updateDTO.getEmail(), patientId);
         verify(patientRepository, times(1)).existsByNationalIdAndIdNot(updateDTO.getNationalId(), patientId);
+        verify(eventPublisher, times(1)).publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.UPDATED,
+                patientId, "john.doe@example.com", "updated.john.doe@example.com"));
     }
 
     @Test
@@ -403,6 +488,47 @@ class PatientServiceImplTest {
         verify(patientRepository, times(1)).searchPatients(firstName, lastName, email, address);
     }
 
+    @Test
+    void searchPatientsBySimilarity_ShouldNormalizeQueryAndPage() {
+        // Given
+        when(patientRepository.hasTrigramExtension()).thenReturn(true);
+        when(patientRepository.searchBySimilarity("jon doe", 20, 20L)).thenReturn(List.of(createSamplePatient()));
+
+        // When
+        List<PatientDTO> result = patientService.searchPatientsBySimilarity("  Jon DOE ", 1, 20);
+
+        // Then
+        assertEquals(1, result.size());
+        verify(patientRepository, times(1)).searchBySimilarity("jon doe", 20, 20L);
+    }
+
+    @Test
+    void searchPatientsBySimilarity_WithoutTrigramExtension_ShouldFallBackToSubstringMatch() {
+        // Given
+        when(patientRepository.hasTrigramExtension()).thenReturn(false);
+        when(patientRepository.searchBySubstring("doe", 20, 0L)).thenReturn(List.of(createSamplePatient()));
+
+        // When
+        patientService.searchPatientsBySimilarity("Doe", 0, 20);
+        List<PatientDTO> result = patientService.searchPatientsBySimilarity("Doe", 0, 20);
+
+        // Then
+        assertEquals(1, result.size());
+        verify(patientRepository, times(1)).hasTrigramExtension();
+        verify(patientRepository, never()).searchBySimilarity(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void searchPatientsBySimilarity_WithInvalidInput_ShouldThrowException() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> patientService.searchPatientsBySimilarity(" jo ", 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> patientService.searchPatientsBySimilarity(null, 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> patientService.searchPatientsBySimilarity("john", -1, 20));
+        assertThrows(IllegalArgumentException.class, () -> patientService.searchPatientsBySimilarity("john", 0,
+                PatientServiceImpl.MAX_SEARCH_PAGE_SIZE + 1));
+        verifyNoInteractions(patientRepository);
+    }
+
     // Additional edge case tests
     @Test
     void findByDateOfBirth_WithValidDate_ShouldReturnPatients() {
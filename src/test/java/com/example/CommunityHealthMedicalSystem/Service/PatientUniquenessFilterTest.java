@@ -0,0 +1,142 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientUniquenessFilterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private MeterRegistry meterRegistry;
+    private PatientUniquenessFilter uniquenessFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        uniquenessFilter = new PatientUniquenessFilter(jdbcTemplate, meterRegistry, 1000, 0.01, 0.05);
+    }
+
+    private void givenStoredPatient(String email, String phoneNumber, String nationalId) throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        when(resultSet.getString("email")).thenReturn(email);
+        when(resultSet.getString("phone_number")).thenReturn(phoneNumber);
+        when(resultSet.getString("national_id")).thenReturn(nationalId);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void mightExist_BeforeLoad_ShouldReportEveryValueAsPossibleHit() {
+        // When & Then
+        assertTrue(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, "new@example.com"));
+        assertFalse(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, null));
+    }
+
+    @Test
+    void load_ShouldFileStoredValuesPerField() throws Exception {
+        // Given
+        givenStoredPatient("john.doe@example.com", "123-456-7890", "NID123456");
+
+        // When
+        uniquenessFilter.load();
+
+        // Then
+        assertTrue(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, "john.doe@example.com"));
+        assertTrue(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.PHONE_NUMBER, "123-456-7890"));
+        assertTrue(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.NATIONAL_ID, "NID123456"));
+        assertFalse(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.NATIONAL_ID, "john.doe@example.com"));
+        assertFalse(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, "jane.doe@example.com"));
+        assertEquals(5, meterRegistry.counter("patients.uniqueness.checks").count());
+    }
+
+    @Test
+    void add_AfterLoad_ShouldMakeNewValuesPossibleHits() throws Exception {
+        // Given
+        givenStoredPatient(null, null, null);
+        uniquenessFilter.load();
+
+        // When
+        uniquenessFilter.add("jane.doe@example.com", "555-0101", null);
+
+        // Then
+        assertTrue(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, "jane.doe@example.com"));
+        assertTrue(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.PHONE_NUMBER, "555-0101"));
+    }
+
+    @Test
+    void add_DuringRebuild_ShouldReachTheRebuiltFilter() throws Exception {
+        // Given - a patient registered while the rebuild is reading the table
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        doAnswer(invocation -> {
+            uniquenessFilter.add("jane.doe@example.com", null, null);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        // When
+        uniquenessFilter.rebuild();
+
+        // Then
+        assertTrue(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, "jane.doe@example.com"));
+        assertFalse(uniquenessFilter.mightExist(PatientUniquenessFilter.Field.EMAIL, "john.doe@example.com"));
+    }
+
+    @Test
+    void expectedFalsePositiveRate_ShouldStayNearTargetAtExpectedSize() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++){
+            filter.put("patient-" + i + "@example.com");
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++){
+            if (filter.mightContain("other-" + i + "@example.com")){
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 10_000; i++){
+            assertTrue(filter.mightContain("patient-" + i + "@example.com"));
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+    }
+
+    @Test
+    void gauge_ShouldExposeExpectedFalsePositiveRate() throws Exception {
+        // Given
+        givenStoredPatient("john.doe@example.com", "123-456-7890", "NID123456");
+
+        // When
+        double beforeLoad = meterRegistry.get("patients.uniqueness.expected-false-positive-rate").gauge().value();
+        uniquenessFilter.load();
+        double afterLoad = meterRegistry.get("patients.uniqueness.expected-false-positive-rate").gauge().value();
+
+        // Then
+        assertEquals(1.0, beforeLoad);
+        assertTrue(afterLoad < 0.01);
+    }
+}
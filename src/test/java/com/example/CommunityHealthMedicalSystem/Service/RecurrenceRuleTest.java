@@ -0,0 +1,67 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    // a Monday
+    private static final LocalDateTime START = LocalDateTime.of(2030, 3, 4, 9, 0);
+
+    @Test
+    void parse_ShouldReadAllParts() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=FR,MO;COUNT=10");
+
+        assertEquals(RecurrenceRule.Frequency.WEEKLY, rule.frequency());
+        assertEquals(2, rule.interval());
+        assertEquals(10, rule.count());
+        assertEquals(List.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), rule.byDay());
+    }
+
+    @Test
+    void parse_WithoutEnd_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=YEARLY;COUNT=2"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO;COUNT=2"));
+    }
+
+    @Test
+    void allOccurrences_WeeklyByDay_ShouldFollowDaysAndCount() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=5");
+
+        assertEquals(List.of(START, START.plusDays(2), START.plusDays(4), START.plusDays(7), START.plusDays(9)),
+                rule.allOccurrences(START));
+    }
+
+    @Test
+    void allOccurrences_WithUntil_ShouldStopAtUntil() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3;UNTIL=20300310T235959");
+
+        assertEquals(List.of(START, START.plusDays(3), START.plusDays(6)), rule.allOccurrences(START));
+    }
+
+    @Test
+    void allOccurrences_BeyondLimit_ShouldThrowException() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=2040-01-01T00:00");
+
+        assertThrows(IllegalArgumentException.class, () -> rule.allOccurrences(START));
+    }
+
+    @Test
+    void occurrences_ShouldOnlyReturnWindow() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;COUNT=52");
+
+        List<LocalDateTime> window = rule.occurrences(START, START.plusWeeks(10), START.plusWeeks(12));
+
+        assertEquals(List.of(START.plusWeeks(10), START.plusWeeks(11)), window);
+        assertTrue(rule.isOccurrence(START, START.plusWeeks(51)));
+        assertFalse(rule.isOccurrence(START, START.plusWeeks(52)));
+        assertFalse(rule.isOccurrence(START, START.plusDays(1)));
+    }
+}
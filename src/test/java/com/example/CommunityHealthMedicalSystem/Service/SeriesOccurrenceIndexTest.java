@@ -0,0 +1,78 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.Model.AppointmentSeries;
+import com.example.CommunityHealthMedicalSystem.Model.MedicalStaff;
+import com.example.CommunityHealthMedicalSystem.Model.Patient;
+import com.example.CommunityHealthMedicalSystem.Repository.AppointmentSeriesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeriesOccurrenceIndexTest {
+
+    @Mock
+    private AppointmentSeriesRepository seriesRepository;
+
+    private SeriesOccurrenceIndex seriesIndex;
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2030, 3, 4, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        seriesIndex = new SeriesOccurrenceIndex(seriesRepository);
+    }
+
+    private AppointmentSeries weekly(Long id) {
+        Patient patient = new Patient();
+        patient.setId(1L);
+        MedicalStaff staff = new MedicalStaff();
+        staff.setId(2L);
+        AppointmentSeries series = new AppointmentSeries();
+        series.setId(id);
+        series.setPatient(patient);
+        series.setMedicalStaff(staff);
+        series.setFirstOccurrence(MONDAY);
+        series.setDurationMinutes(60);
+        series.setRecurrenceRule("FREQ=WEEKLY;COUNT=4");
+        series.setActive(true);
+        return series;
+    }
+
+    @Test
+    void findStaffConflict_ShouldLoadOnceAndReuseTheSeries() {
+        // Given
+        when(seriesRepository.findByMedicalStaffIdAndActiveTrue(2L)).thenReturn(List.of(weekly(5L)));
+
+        // When & Then
+        assertEquals(Optional.of(5L), seriesIndex.findStaffConflict(2L, MONDAY.plusWeeks(1), 30, null));
+        assertEquals(Optional.empty(), seriesIndex.findStaffConflict(2L, MONDAY.plusHours(1), 30, null));
+        verify(seriesRepository, times(1)).findByMedicalStaffIdAndActiveTrue(2L);
+    }
+
+    @Test
+    void findPatientConflict_WhenEvictedDuringLoad_ShouldNotCacheTheStaleSeries() {
+        // Given - the series is cancelled while the first load is still reading it
+        when(seriesRepository.findByPatientIdAndActiveTrue(1L)).thenAnswer(invocation -> {
+            seriesIndex.evict(null, 1L);
+            return List.of(weekly(5L));
+        }).thenReturn(List.of());
+
+        // When
+        seriesIndex.findPatientConflict(1L, MONDAY, 30, null);
+        Optional<Long> afterEviction = seriesIndex.findPatientConflict(1L, MONDAY, 30, null);
+
+        // Then
+        assertEquals(Optional.empty(), afterEviction);
+        verify(seriesRepository, times(2)).findByPatientIdAndActiveTrue(1L);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.SlotHoldDTO;
+import com.example.CommunityHealthMedicalSystem.Exception.ConflictException;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Exception.ResourceNotFound;
+import com.example.CommunityHealthMedicalSystem.Repository.MedicalStaffRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlotHoldRegistryTest {
+
+    @Mock
+    private MedicalStaffRepository medicalStaffRepo;
+
+    @Mock
+    private AppointmentIntervalIndex intervalIndex;
+
+    @Mock
+    private SeriesOccurrenceIndex seriesIndex;
+
+    private HashedTimingWheel wheel;
+    private SlotHoldRegistry holdRegistry;
+    private LocalDateTime slot;
+    private long startMillis;
+
+    @BeforeEach
+    void setUp() {
+        startMillis = System.currentTimeMillis();
+        wheel = new HashedTimingWheel(1000, 64, startMillis);
+        holdRegistry = new SlotHoldRegistry(medicalStaffRepo, intervalIndex, seriesIndex,
+                new BookingCoordinator(new SimpleMeterRegistry(), 16, 1000), wheel, 300, 900, 2);
+        slot = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        lenient().when(medicalStaffRepo.existsById(1L)).thenReturn(true);
+    }
+
+    @Test
+    void place_WithFreeSlot_ShouldReturnHoldAndBlockOverlappingSlot() {
+        // When
+        SlotHoldDTO hold = holdRegistry.place(request(slot, 30, 120));
+
+        // Then
+        assertNotNull(hold.getId());
+        assertEquals(120, hold.getTtlSeconds());
+        assertEquals(Optional.of(hold.getId()), holdRegistry.findConflict(1L, slot.plusMinutes(15), 30, null));
+        assertTrue(holdRegistry.findConflict(1L, slot, 30, hold.getId()).isEmpty());
+        assertTrue(holdRegistry.findConflict(1L, slot.plusMinutes(30), 30, null).isEmpty());
+        assertTrue(holdRegistry.findConflict(2L, slot, 30, null).isEmpty());
+    }
+
+    @Test
+    void place_OverExistingHold_ShouldThrowConflict() {
+        // Given
+        holdRegistry.place(request(slot, 30, null));
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> holdRegistry.place(request(slot.plusMinutes(10), 30, null)));
+    }
+
+    @Test
+    void place_OverBookedAppointment_ShouldThrowConflict() {
+        // Given
+        when(intervalIndex.findStaffConflict(1L, slot, 30, null)).thenReturn(Optional.of(9L));
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> holdRegistry.place(request(slot, 30, null)));
+        assertEquals(0, holdRegistry.activeHolds());
+    }
+
+    @Test
+    void place_WhenRegistryFull_ShouldThrowConflict() {
+        // Given
+        holdRegistry.place(request(slot, 30, null));
+        holdRegistry.place(request(slot.plusHours(1), 30, null));
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> holdRegistry.place(request(slot.plusHours(2), 30, null)));
+    }
+
+    @Test
+    void place_WithTtlAboveMaximum_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> holdRegistry.place(request(slot, 30, 3600)));
+    }
+
+    @Test
+    void place_WithUnknownStaff_ShouldThrowNotFound() {
+        // Given
+        SlotHoldDTO request = request(slot, 30, null);
+        request.setMedicalStaffId(7L);
+
+        // When & Then
+        assertThrows(ResourceNotFound.class, () -> holdRegistry.place(request));
+    }
+
+    @Test
+    void findConflict_WithHoldOfAnotherStaffOrRange_ShouldReportIt() {
+        // Given
+        SlotHoldDTO hold = holdRegistry.place(request(slot, 30, null));
+
+        // When & Then
+        assertEquals(Optional.of(hold.getId()), holdRegistry.findConflict(1L, slot.plusMinutes(15), 30, hold.getId()));
+        assertEquals(Optional.of(hold.getId()), holdRegistry.findConflict(2L, slot, 30, hold.getId()));
+        assertTrue(holdRegistry.findConflict(1L, slot.plusMinutes(10), 20, hold.getId()).isEmpty());
+    }
+
+    @Test
+    void consume_ShouldOnlyDropHoldCoveringTheBooking() {
+        // Given
+        SlotHoldDTO hold = holdRegistry.place(request(slot, 30, null));
+
+        // When & Then
+        assertFalse(holdRegistry.consume(hold.getId(), 2L, slot, 30));
+        assertFalse(holdRegistry.consume(hold.getId(), 1L, slot.plusMinutes(15), 30));
+        assertEquals(1, holdRegistry.activeHolds());
+        assertTrue(holdRegistry.consume(hold.getId(), 1L, slot, 30));
+        assertEquals(0, holdRegistry.activeHolds());
+    }
+
+    @Test
+    void release_ShouldFreeSlotAndCancelExpiryTimer() {
+        // Given
+        SlotHoldDTO hold = holdRegistry.place(request(slot, 30, null));
+        assertEquals(1, wheel.pending());
+
+        // When & Then
+        assertTrue(holdRegistry.release(hold.getId()));
+        assertFalse(holdRegistry.release(hold.getId()));
+        assertEquals(0, wheel.pending());
+        assertTrue(holdRegistry.findConflict(1L, slot, 30, null).isEmpty());
+    }
+
+    @Test
+    void expiry_WhenTtlRunsOut_ShouldDropHold() {
+        // Given
+        SlotHoldDTO hold = holdRegistry.place(request(slot, 30, 60));
+
+        // When
+        wheel.advanceTo(hold.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1000);
+
+        // Then
+        assertEquals(0, holdRegistry.activeHolds());
+        assertFalse(holdRegistry.release(hold.getId()));
+        verify(intervalIndex, times(1)).findStaffConflict(any(), any(), anyInt(), any());
+    }
+
+    private static SlotHoldDTO request(LocalDateTime start, Integer duration, Integer ttlSeconds) {
+        return new SlotHoldDTO(null, 1L, start, duration, ttlSeconds, null);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AvailabilitySlotDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Exception.IllegalArgumentException;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StaffAvailabilityEngineTest {
+
+    @Mock
+    private AppointmentIntervalIndex intervalIndex;
+
+    @Mock
+    private SeriesOccurrenceIndex seriesIndex;
+
+    private StaffAvailabilityEngine availabilityEngine;
+
+    private static final LocalDateTime OPEN = LocalDateTime.of(2030, 3, 4, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        availabilityEngine = new StaffAvailabilityEngine(intervalIndex, seriesIndex, new SimpleMeterRegistry(), 15,
+                "08:00", "10:00", 7, 1000, 60);
+    }
+
+    @Test
+    void freeSlots_ShouldSkipSlotsOverlappingAppointments() {
+        // Given - a 45 minute visit from 08:30 to 09:15
+        when(intervalIndex.staffIntervals(eq(1L), any(), any()))
+                .thenReturn(List.of(new AppointmentIntervalIndex.Interval(5L, OPEN.plusMinutes(30), 45)));
+
+        // When
+        List<AvailabilitySlotDTO> slots = availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 30);
+
+        // Then - 08:00 and 09:30 are free, 08:30 and 09:00 are taken
+        assertEquals(List.of(OPEN, OPEN.plusMinutes(90)), slots.stream().map(AvailabilitySlotDTO::getStart).toList());
+    }
+
+    @Test
+    void nextFreeSlot_ShouldFindFirstRunLongEnough() {
+        // Given - 08:00-08:30 and 08:45-09:00 are taken, so the first free 30 minutes start at 09:00
+        when(intervalIndex.staffIntervals(eq(1L), any(), any())).thenReturn(List.of(
+                new AppointmentIntervalIndex.Interval(5L, OPEN, 30),
+                new AppointmentIntervalIndex.Interval(6L, OPEN.plusMinutes(45), 15)));
+
+        // When
+        Optional<AvailabilitySlotDTO> slot = availabilityEngine.nextFreeSlot(1L, OPEN, 30);
+
+        // Then
+        assertTrue(slot.isPresent());
+        assertEquals(OPEN.plusMinutes(60), slot.get().getStart());
+    }
+
+    @Test
+    void onAppointmentChanged_ShouldRebuildOnlyTouchedDays() {
+        // Given
+        when(intervalIndex.staffIntervals(eq(1L), any(), any())).thenReturn(List.of());
+        assertEquals(4, availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 30).size());
+
+        when(intervalIndex.staffIntervals(eq(1L), any(), any()))
+                .thenReturn(List.of(new AppointmentIntervalIndex.Interval(7L, OPEN, 30)));
+        AppointmentSnapshot booked = new AppointmentSnapshot(7L, 2L, 1L, null, OPEN, 30, Appointment.Status.SCHEDULED);
+
+        // When
+        availabilityEngine.onAppointmentChanged(AppointmentChangedEvent.created(booked));
+
+        // Then
+        assertEquals(3, availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 30).size());
+        verify(intervalIndex, times(2)).staffIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    void prunePastDays_ShouldRebuildPrunedDaysOnNextRead() {
+        // Given
+        when(intervalIndex.staffIntervals(eq(1L), any(), any())).thenReturn(List.of());
+        availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 30);
+
+        // When
+        availabilityEngine.prunePastDays(OPEN.toLocalDate());
+        availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 30);
+        availabilityEngine.prunePastDays(OPEN.toLocalDate().plusDays(1));
+        availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 30);
+
+        // Then - only the second prune dropped the day
+        verify(intervalIndex, times(2)).staffIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    void freeSlots_WithMisalignedSlotLength_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 20));
+    }
+
+    @Test
+    void freeSlots_ShouldSkipSeriesOccurrences() {
+        // Given - a weekly physiotherapy series occupies 09:00 to 09:30
+        when(intervalIndex.staffIntervals(eq(1L), any(), any())).thenReturn(List.of());
+        when(seriesIndex.staffIntervals(eq(1L), any(), any())).thenReturn(List.of(
+                new AppointmentIntervalIndex.Interval(null, OPEN.plusHours(1), 30)));
+
+        // When
+        List<AvailabilitySlotDTO> slots = availabilityEngine.freeSlots(1L, OPEN, OPEN.plusHours(2), 30);
+
+        // Then
+        assertEquals(List.of(OPEN, OPEN.plusMinutes(30), OPEN.plusMinutes(90)),
+                slots.stream().map(AvailabilitySlotDTO::getStart).toList());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.CommunityHealthMedicalSystem.Service;
+
+import com.example.CommunityHealthMedicalSystem.DTO.AppointmentDTO;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentChangedEvent;
+import com.example.CommunityHealthMedicalSystem.Event.AppointmentSnapshot;
+import com.example.CommunityHealthMedicalSystem.Model.Appointment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpcomingAppointmentsCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 6, 3, 9, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private UpcomingAppointmentsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UpcomingAppointmentsCache(meterRegistry, 100, 15);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndRecordHits() {
+        // When
+        cache.get(1L, NOW, loader(dto(NOW.plusHours(1))));
+        cache.get(1L, NOW, loader(dto(NOW.plusHours(1))));
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "appointments.upcoming")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_ShouldDropAppointmentsThatStartedSinceLoading() {
+        // Given
+        cache.get(1L, NOW, loader(dto(NOW.plusHours(1)), dto(NOW.plusHours(3))));
+
+        // When
+        List<AppointmentDTO> later = cache.get(1L, NOW.plusHours(2), loader());
+
+        // Then
+        assertEquals(1, later.size());
+        assertEquals(NOW.plusHours(3), later.get(0).getAppointmentDateTime());
+    }
+
+    @Test
+    void onAppointmentChanged_ShouldEvictOnlyPatientsInvolved() {
+        // Given
+        cache.get(1L, NOW, loader(dto(NOW.plusHours(1))));
+        cache.get(2L, NOW, loader(dto(NOW.plusHours(1))));
+        cache.get(3L, NOW, loader(dto(NOW.plusHours(1))));
+
+        // When - appointment moved from patient 1 to patient 2
+        cache.onAppointmentChanged(AppointmentChangedEvent.updated(snapshot(1L), snapshot(2L)));
+        cache.get(1L, NOW, loader());
+        cache.get(2L, NOW, loader());
+        cache.get(3L, NOW, loader());
+
+        // Then
+        assertEquals(5, loads.get());
+    }
+
+    private Function<Long, List<AppointmentDTO>> loader(AppointmentDTO... appointments) {
+        return patientId -> {
+            loads.incrementAndGet();
+            return List.of(appointments);
+        };
+    }
+
+    private static AppointmentDTO dto(LocalDateTime start) {
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setAppointmentDateTime(start);
+        return dto;
+    }
+
+    private static AppointmentSnapshot snapshot(Long patientId) {
+        return new AppointmentSnapshot(7L, patientId, 1L, null, NOW.plusHours(1), 30, Appointment.Status.SCHEDULED);
+    }
+}